@@ -20,6 +20,7 @@ package grakn.core.common.cache;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import java.util.Collection;
 import java.util.function.Function;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -35,7 +36,7 @@ public class CommonCache<KEY, VALUE> {
     }
 
     public CommonCache(int size, int timeoutMinutes) {
-        cache = Caffeine.newBuilder().maximumSize(size).expireAfterAccess(timeoutMinutes, MINUTES).build();
+        cache = Caffeine.newBuilder().maximumSize(size).expireAfterAccess(timeoutMinutes, MINUTES).recordStats().build();
     }
 
     public VALUE get(KEY key, Function<KEY, VALUE> function) {
@@ -50,7 +51,29 @@ public class CommonCache<KEY, VALUE> {
 
     public VALUE getIfPresent(KEY key) { return cache.getIfPresent(key); }
 
+    public Collection<VALUE> values() {
+        return cache.asMap().values();
+    }
+
     public void clear() {
         cache.invalidateAll();
     }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size: %d, hits: %d, misses: %d, evictions: %d",
+                             cache.estimatedSize(), hitCount(), missCount(), evictionCount());
+    }
 }
@@ -68,6 +68,24 @@ public class Bytes {
         return true;
     }
 
+    /**
+     * Compares two byte arrays lexicographically over their unsigned bytes, which
+     * is the order in which keys are sorted by the storage.
+     *
+     * @param first  the first byte array to compare
+     * @param second the second byte array to compare
+     * @return a negative integer, zero, or a positive integer as the first array
+     * sorts before, together with, or after the second
+     */
+    public static int compareBytes(byte[] first, byte[] second) {
+        int length = Math.min(first.length, second.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(first[i] & 0xff, second[i] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(first.length, second.length);
+    }
+
     public static byte[] unsignedShortToBytes(int num) {
         byte[] bytes = new byte[SHORT_SIZE];
         bytes[1] = (byte) (num);
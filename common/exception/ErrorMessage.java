@@ -67,6 +67,10 @@ public abstract class ErrorMessage extends grakn.common.exception.ErrorMessage {
                 new Server(15, "Iteration was requested for ID '%s', but this ID does not correspond to an existing query iterator.");
         public static final Server DUPLICATE_REQUEST =
                 new Server(16, "The request with ID '%s' is a duplicate.");
+        public static final Server UNRECOGNISED_STORAGE_PROFILE =
+                new Server(17, "The storage profile '%s' was not recognised.");
+        public static final Server NEGATIVE_GROUP_COMMIT_WINDOW =
+                new Server(18, "The storage group commit window '%s' must not be negative.");
 
         private static final String codePrefix = "SRV";
         private static final String messagePrefix = "Invalid Server Operation";
@@ -117,6 +121,8 @@ public abstract class ErrorMessage extends grakn.common.exception.ErrorMessage {
                 new Database(3, "Database with the name '%s' has been deleted.");
         public static final Database DATABASE_CLOSED =
                 new Database(4, "Attempted to open a new session from the database '%s' that has been closed.");
+        public static final Database BULK_LOAD_ACQUIRE_LOCK_TIMEOUT =
+                new Database(5, "Could not acquire exclusive access to the database '%s' for bulk loading. Another schema session or write transaction may have been left open.");
 
         private static final String codePrefix = "DBS";
         private static final String messagePrefix = "Invalid Database Operations";
@@ -169,6 +175,8 @@ public abstract class ErrorMessage extends grakn.common.exception.ErrorMessage {
                 new Transaction(12, "The transaction type '%s' was not recognised.");
         public static final Transaction DATA_ACQUIRE_LOCK_TIMEOUT =
                 new Transaction(13, "Could not acquire lock for data transaction. A schema session may have been left open.");
+        public static final Transaction COMMIT_NOT_DURABLE =
+                new Transaction(14, "The transaction has been committed, but could not be made durable, and may be lost if the server stops: '%s'.");
 
         private static final String codePrefix = "TXN";
         private static final String messagePrefix = "Invalid Transaction Operation";
@@ -100,4 +100,35 @@ public class Arguments {
             public boolean isExhaustive() { return isExhaustive; }
         }
     }
+
+    public static class Storage {
+
+        public enum Profile {
+            DEFAULT("default"),
+            READ_HEAVY("read-heavy"),
+            WRITE_HEAVY("write-heavy");
+
+            private final String name;
+
+            Profile(String name) {
+                this.name = name;
+            }
+
+            public static Arguments.Storage.Profile of(String name) {
+                for (Arguments.Storage.Profile p : values()) {
+                    if (p.name.equals(name)) return p;
+                }
+                return null;
+            }
+
+            public boolean isReadHeavy() { return this == READ_HEAVY; }
+
+            public boolean isWriteHeavy() { return this == WRITE_HEAVY; }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        }
+    }
 }
@@ -33,6 +33,13 @@ public abstract class Options<PARENT extends Options<?, ?>, SELF extends Options
     public static final boolean DEFAULT_PARALLEL = true;
     public static final boolean DEFAULT_QUERY_READ_PREFETCH = true;
     public static final boolean DEFAULT_QUERY_WRITE_PREFETCH = false;
+    public static final int DEFAULT_QUERY_SORT_BUFFER_SIZE = 100_000;
+    public static final boolean DEFAULT_TRANSACTION_SCAN_MODE = false;
+    public static final long DEFAULT_TRANSACTION_READ_CACHE_SIZE = 100_000;
+    public static final Arguments.Storage.Profile DEFAULT_STORAGE_PROFILE = Arguments.Storage.Profile.DEFAULT;
+    public static final long DEFAULT_STORAGE_BLOCK_CACHE_SIZE_MB = 512;
+    public static final boolean DEFAULT_STORAGE_INSERT_ONLY_DISABLE_WAL = false;
+    public static final long DEFAULT_STORAGE_GROUP_COMMIT_WINDOW_MICROS = 0;
 
     private PARENT parent;
     private Boolean infer = null;
@@ -108,11 +115,66 @@ public abstract class Options<PARENT extends Options<?, ?>, SELF extends Options
 
     public static class Database extends Options<Options<?, ?>, Database> {
 
+        private Arguments.Storage.Profile storageProfile = null;
+        private Long storageBlockCacheSizeMB = null;
+        private Boolean storageInsertOnlyDisableWAL = null;
+        private Long storageGroupCommitWindowMicros = null;
+
         @Override
         Database getThis() {
             return this;
         }
 
+        public Arguments.Storage.Profile storageProfile() {
+            if (storageProfile != null) return storageProfile;
+            else return DEFAULT_STORAGE_PROFILE;
+        }
+
+        public Database storageProfile(Arguments.Storage.Profile storageProfile) {
+            this.storageProfile = storageProfile;
+            return this;
+        }
+
+        public long storageBlockCacheSizeMB() {
+            if (storageBlockCacheSizeMB != null) return storageBlockCacheSizeMB;
+            else return DEFAULT_STORAGE_BLOCK_CACHE_SIZE_MB;
+        }
+
+        public Database storageBlockCacheSizeMB(long storageBlockCacheSizeMB) {
+            this.storageBlockCacheSizeMB = storageBlockCacheSizeMB;
+            return this;
+        }
+
+        /**
+         * Whether transactions that only insert new data should commit without writing to the
+         * RocksDB write-ahead log. Such commits are faster, but are lost if the server crashes
+         * before their memtables are flushed.
+         */
+        public boolean storageInsertOnlyDisableWAL() {
+            if (storageInsertOnlyDisableWAL != null) return storageInsertOnlyDisableWAL;
+            else return DEFAULT_STORAGE_INSERT_ONLY_DISABLE_WAL;
+        }
+
+        public Database storageInsertOnlyDisableWAL(boolean storageInsertOnlyDisableWAL) {
+            this.storageInsertOnlyDisableWAL = storageInsertOnlyDisableWAL;
+            return this;
+        }
+
+        /**
+         * The window in which the commits of data transactions are grouped to share a single sync
+         * of the RocksDB write-ahead log. Commits are not synced at all if the window is zero.
+         */
+        public long storageGroupCommitWindowMicros() {
+            if (storageGroupCommitWindowMicros != null) return storageGroupCommitWindowMicros;
+            else return DEFAULT_STORAGE_GROUP_COMMIT_WINDOW_MICROS;
+        }
+
+        public Database storageGroupCommitWindowMicros(long storageGroupCommitWindowMicros) {
+            if (storageGroupCommitWindowMicros < 0) throw GraknException.of(ILLEGAL_ARGUMENT);
+            this.storageGroupCommitWindowMicros = storageGroupCommitWindowMicros;
+            return this;
+        }
+
         public Database parent(Options<?, ?> parent) {
             throw GraknException.of(ILLEGAL_ARGUMENT);
         }
@@ -128,15 +190,50 @@ public abstract class Options<PARENT extends Options<?, ?>, SELF extends Options
 
     public static class Transaction extends Options<Session, Transaction> {
 
+        private Boolean scanMode = null;
+        private Long readCacheSize = null;
+
         @Override
         Transaction getThis() {
             return this;
         }
+
+        /**
+         * Whether the iterators of the transaction should read past the block cache, for analytical
+         * scans that would otherwise evict the working set of other transactions from the cache.
+         * Point lookups of the transaction still go through the cache.
+         */
+        public boolean scanMode() {
+            if (scanMode != null) return scanMode;
+            else return DEFAULT_TRANSACTION_SCAN_MODE;
+        }
+
+        public Transaction scanMode(boolean scanMode) {
+            this.scanMode = scanMode;
+            return this;
+        }
+
+        /**
+         * The number of persisted vertices that a read transaction caches, beyond which the oldest ones are
+         * evicted and read again from the storage when they are next needed. Persisted edges are not cached
+         * by read transactions at all. Write transactions cache everything that they read or write.
+         */
+        public long readCacheSize() {
+            if (readCacheSize != null) return readCacheSize;
+            else return DEFAULT_TRANSACTION_READ_CACHE_SIZE;
+        }
+
+        public Transaction readCacheSize(long readCacheSize) {
+            if (readCacheSize <= 0) throw GraknException.of(ILLEGAL_ARGUMENT);
+            this.readCacheSize = readCacheSize;
+            return this;
+        }
     }
 
     public static class Query extends Options<Transaction, Query> {
 
         private Boolean parallel = null;
+        private Integer sortBufferSize = null;
         private GraqlQuery query = null;
 
         @Override
@@ -178,5 +275,20 @@ public abstract class Options<PARENT extends Options<?, ?>, SELF extends Options
             this.parallel = parallel;
             return this;
         }
+
+        /**
+         * The number of answers that a sorted query holds in memory, beyond which they are sorted in runs of
+         * that many, which are spilled to disk and merged.
+         */
+        public int sortBufferSize() {
+            if (sortBufferSize != null) return sortBufferSize;
+            else return DEFAULT_QUERY_SORT_BUFFER_SIZE;
+        }
+
+        public Query sortBufferSize(int sortBufferSize) {
+            if (sortBufferSize <= 0) throw GraknException.of(ILLEGAL_ARGUMENT);
+            this.sortBufferSize = sortBufferSize;
+            return this;
+        }
     }
 }
@@ -174,6 +174,17 @@ public final class ConceptManager {
         else return null;
     }
 
+    /**
+     * Splits the persisted instances of exactly the given type, not of its subtypes, into at most
+     * {@code maxRanges} disjoint ranges, which can be scanned in parallel by a read transaction.
+     */
+    public List<ResourceIterator<Thing>> getInstanceRanges(ThingType type, int maxRanges) {
+        TypeVertex vertex = ((ThingTypeImpl) type).vertex;
+        List<ResourceIterator<Thing>> ranges = new ArrayList<>();
+        graphMgr.data().getRanges(vertex, maxRanges).forEach(range -> ranges.add(range.<Thing>map(ThingImpl::of)));
+        return ranges;
+    }
+
     public void validateTypes() {
         List<GraknException> exceptions = graphMgr.schema().bufferedTypes().parallel()
                 .filter(Vertex::isModified)
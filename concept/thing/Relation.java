@@ -46,4 +46,13 @@ public interface Relation extends Thing {
     Stream<? extends Thing> getPlayers(RoleType... roleTypes);
 
     Map<? extends RoleType, ? extends List<? extends Thing>> getPlayersByRoleType();
+
+    /**
+     * Get the players of this {@code Relation}, grouped by the exact {@code RoleType} that they play,
+     * from a single scan of the role players of this {@code Relation}. Unlike {@link #getPlayersByRoleType()},
+     * a player is not also returned under the supertypes of the {@code RoleType} that it plays.
+     *
+     * @return the players of this {@code Relation}, by the {@code RoleType} that they play
+     */
+    Map<? extends RoleType, ? extends List<? extends Thing>> getPlayersByExactRoleType();
 }
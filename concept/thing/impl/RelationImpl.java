@@ -29,6 +29,7 @@ import grakn.core.graph.iid.PrefixIID;
 import grakn.core.graph.vertex.ThingVertex;
 import grakn.core.graph.vertex.TypeVertex;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -133,6 +134,17 @@ public class RelationImpl extends ThingImpl implements Relation {
         return playersByRole;
     }
 
+    @Override
+    public Map<RoleTypeImpl, ? extends List<ThingImpl>> getPlayersByExactRoleType() {
+        Map<RoleTypeImpl, List<ThingImpl>> playersByRole = new HashMap<>();
+        vertex.outs().edge(ROLEPLAYER).get().forEachRemaining(edge -> {
+            assert edge.optimised().isPresent();
+            RoleTypeImpl roleType = RoleTypeImpl.of(vertex.graphs(), edge.optimised().get().type());
+            playersByRole.computeIfAbsent(roleType, rt -> new ArrayList<>()).add(ThingImpl.of(edge.to()));
+        });
+        return playersByRole;
+    }
+
     @Override
     public void validate() {
         super.validate();
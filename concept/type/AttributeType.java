@@ -200,6 +200,10 @@ public interface AttributeType extends ThingType {
 
         Pattern getRegex();
 
+        void setTextIndexed(boolean isTextIndexed);
+
+        boolean isTextIndexed();
+
         Attribute.String put(java.lang.String value);
 
         Attribute.String put(java.lang.String value, boolean isInferred);
@@ -797,6 +797,18 @@ public abstract class AttributeTypeImpl extends ThingTypeImpl implements Attribu
             return vertex.regex();
         }
 
+        @Override
+        public void setTextIndexed(boolean isTextIndexed) {
+            if (isTextIndexed == vertex.isTextIndexed()) return;
+            vertex.isTextIndexed(isTextIndexed);
+            graphMgr.data().textIndex(vertex, isTextIndexed);
+        }
+
+        @Override
+        public boolean isTextIndexed() {
+            return vertex.isTextIndexed();
+        }
+
         @Override
         public Attribute.String put(java.lang.String value) {
             return put(value, false);
@@ -893,6 +905,11 @@ public abstract class AttributeTypeImpl extends ThingTypeImpl implements Attribu
             public void unsetRegex() {
                 throw exception(GraknException.of(ROOT_TYPE_MUTATION));
             }
+
+            @Override
+            public void setTextIndexed(boolean isTextIndexed) {
+                throw exception(GraknException.of(ROOT_TYPE_MUTATION));
+            }
         }
     }
 
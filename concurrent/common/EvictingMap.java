@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.concurrent.common;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A concurrent map that evicts its oldest entries once the entries inserted into it, and into every other map
+ * that shares its {@link Capacity}, exceed the capacity. Entries whose values are pinned are never evicted, and
+ * no longer count towards the capacity once they have been found to be pinned, so pinning must be permanent.
+ */
+@ThreadSafe
+public class EvictingMap<K, V> extends ConcurrentHashMap<K, V> {
+
+    private final Capacity<? super V> capacity;
+
+    public EvictingMap(Capacity<? super V> capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        boolean[] isInserted = new boolean[]{false};
+        V value = super.computeIfAbsent(key, k -> {
+            V v = mappingFunction.apply(k);
+            isInserted[0] = v != null;
+            return v;
+        });
+        // the map must not be modified within the mapping function, so the map is only evicted from after
+        if (isInserted[0]) capacity.inserted(this, key);
+        return value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = super.put(key, value);
+        if (previous == null) capacity.inserted(this, key);
+        return previous;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V previous = super.putIfAbsent(key, value);
+        if (previous == null) capacity.inserted(this, key);
+        return previous;
+    }
+
+    private void evict(Object key) {
+        V value = get(key);
+        if (value != null && !capacity.isPinned.test(value) && remove(key, value)) capacity.evictions.increment();
+    }
+
+    @ThreadSafe
+    public static class Capacity<T> {
+
+        private final long max;
+        private final Predicate<T> isPinned;
+        private final ConcurrentLinkedQueue<Insertion> insertions;
+        private final AtomicLong queued;
+        private final LongAdder evictions;
+
+        public Capacity(long max, Predicate<T> isPinned) {
+            assert max > 0;
+            this.max = max;
+            this.isPinned = isPinned;
+            this.insertions = new ConcurrentLinkedQueue<>();
+            this.queued = new AtomicLong();
+            this.evictions = new LongAdder();
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public long evictions() {
+            return evictions.sum();
+        }
+
+        public void clear() {
+            insertions.clear();
+            queued.set(0);
+        }
+
+        private void inserted(EvictingMap<?, ?> map, Object key) {
+            insertions.add(new Insertion(map, key));
+            queued.incrementAndGet();
+            // an insertion whose entry was removed, or replaced, since is polled without evicting anything
+            while (queued.get() > max) {
+                Insertion oldest = insertions.poll();
+                if (oldest == null) break;
+                queued.decrementAndGet();
+                oldest.map.evict(oldest.key);
+            }
+        }
+
+        private static class Insertion {
+
+            private final EvictingMap<?, ?> map;
+            private final Object key;
+
+            private Insertion(EvictingMap<?, ?> map, Object key) {
+                this.map = map;
+                this.key = key;
+            }
+        }
+    }
+}
@@ -40,7 +40,9 @@ public class ExecutorService {
     private static final String GRAKN_CORE_NETWORK_POOL_NAME = "grakn-core-network";
     private static final String GRAKN_CORE_EVENTLOOP_POOL_NAME = "grakn-core-eventloop";
     private static final String GRAKN_CORE_SCHEDULED_POOL_NAME = "grakn-core-scheduled";
+    private static final String GRAKN_CORE_PLANNER_POOL_NAME = "grakn-core-planner";
     private static final int GRAKN_CORE_SCHEDULED_POOL_SIZE = 1;
+    private static final int GRAKN_CORE_PLANNER_POOL_SIZE = 2;
 
     private static ExecutorService singleton = null;
 
@@ -49,6 +51,7 @@ public class ExecutorService {
     private final NioEventLoopGroup networkPool;
     private final EventLoopGroup eventLoopPool;
     private final ScheduledThreadPoolExecutor scheduledThreadPool;
+    private final java.util.concurrent.ExecutorService plannerPool;
 
     private ExecutorService(int parallelisation) {
         mainPool = Executors.newFixedThreadPool(parallelisation, new NamedThreadFactory(GRAKN_CORE_MAIN_POOL_NAME));
@@ -59,6 +62,9 @@ public class ExecutorService {
                 GRAKN_CORE_SCHEDULED_POOL_SIZE, new NamedThreadFactory(GRAKN_CORE_SCHEDULED_POOL_NAME)
         );
         scheduledThreadPool.setRemoveOnCancelPolicy(true);
+        plannerPool = Executors.newFixedThreadPool(
+                GRAKN_CORE_PLANNER_POOL_SIZE, new NamedThreadFactory(GRAKN_CORE_PLANNER_POOL_NAME)
+        );
     }
 
     public static synchronized void initialise(int parallelisationFactor) {
@@ -95,4 +101,9 @@ public class ExecutorService {
         assert isInitialised();
         return singleton.scheduledThreadPool;
     }
+
+    public static java.util.concurrent.ExecutorService planner() {
+        assert isInitialised();
+        return singleton.plannerPool;
+    }
 }
@@ -23,6 +23,8 @@ import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Arguments;
 
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static grakn.common.collection.Collections.list;
 
@@ -56,4 +58,9 @@ public class Producers {
     public static <T> ProducerIterator<T> produce(List<Producer<T>> producers, int batchSize) {
         return new ProducerIterator<>(producers, batchSize);
     }
+
+    public static <T, S> List<S> consume(List<Producer<T>> producers, Supplier<S> shardSupplier,
+                                         BiConsumer<S, T> accumulator) {
+        return new ShardedConsumer<>(producers, shardSupplier, accumulator).consume();
+    }
 }
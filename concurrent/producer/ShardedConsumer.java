@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.concurrent.producer;
+
+import grakn.core.common.exception.GraknException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static grakn.core.concurrent.common.ExecutorService.async;
+import static grakn.core.concurrent.producer.Producers.MAX_BATCH_SIZE;
+
+/**
+ * Consumes every item of a set of producers on the threads that produce them, into one shard of
+ * state per thread, rather than handing each item over to a single consuming thread.
+ *
+ * A shard is only ever accumulated into by the thread that it belongs to, so it does not need to be
+ * thread-safe. The shards are returned once every producer is done, for the caller to merge, which
+ * happens on another thread: each thread publishes its shard by writing the number of items in it
+ * after accumulating each one, and the consuming thread reads that number before it returns the
+ * shard, so it sees every item that was accumulated into it. The producers are all driven at once,
+ * each with requests of {@link Producers#MAX_BATCH_SIZE}.
+ *
+ * @param <T> the type of the items produced
+ * @param <S> the type of the shards that the items are accumulated into
+ */
+@ThreadSafe
+public class ShardedConsumer<T, S> {
+
+    private final List<Producer<T>> producers;
+    private final Supplier<S> shardSupplier;
+    private final BiConsumer<S, T> accumulator;
+    private final ConcurrentMap<Thread, Shard<S>> shards;
+    private final CountDownLatch done;
+    private final AtomicReference<Throwable> error;
+
+    ShardedConsumer(List<Producer<T>> producers, Supplier<S> shardSupplier, BiConsumer<S, T> accumulator) {
+        this.producers = producers;
+        this.shardSupplier = shardSupplier;
+        this.accumulator = accumulator;
+        this.shards = new ConcurrentHashMap<>();
+        this.done = new CountDownLatch(producers.size());
+        this.error = new AtomicReference<>();
+    }
+
+    /**
+     * Blocks until every producer is done, and returns the shards that their items were accumulated into.
+     */
+    public List<S> consume() {
+        for (Producer<T> producer : producers) {
+            Queue queue = new Queue(producer);
+            queue.request();
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            producers.forEach(Producer::recycle);
+            throw GraknException.of(e);
+        }
+        producers.forEach(Producer::recycle);
+        if (error.get() != null) throw GraknException.of(error.get());
+        List<S> states = new ArrayList<>(shards.size());
+        for (Shard<S> shard : shards.values()) states.add(shard.join());
+        return states;
+    }
+
+    private static class Shard<S> {
+
+        private final S state;
+        private volatile long accumulated;
+
+        private Shard(S state) {
+            this.state = state;
+            this.accumulated = 0;
+        }
+
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        private <T> void accumulate(BiConsumer<S, T> accumulator, T item) {
+            accumulator.accept(state, item);
+            // only the thread of the shard writes the count, and the write publishes the item
+            accumulated++;
+        }
+
+        /**
+         * Returns the state of the shard, once the consuming thread has seen every item accumulated into it.
+         */
+        private S join() {
+            long items = accumulated;
+            assert items > 0;
+            return state;
+        }
+    }
+
+    @ThreadSafe
+    private class Queue implements Producer.Queue<T> {
+
+        private final Producer<T> producer;
+        private final AtomicLong unfulfilled;
+        private final AtomicBoolean isDone;
+
+        private Queue(Producer<T> producer) {
+            this.producer = producer;
+            this.unfulfilled = new AtomicLong(0);
+            this.isDone = new AtomicBoolean(false);
+        }
+
+        private void request() {
+            unfulfilled.addAndGet(MAX_BATCH_SIZE);
+            producer.produce(this, MAX_BATCH_SIZE);
+        }
+
+        @Override
+        public void put(T item) {
+            if (error.get() != null) return;
+            Shard<S> shard = shards.computeIfAbsent(Thread.currentThread(), t -> new Shard<>(shardSupplier.get()));
+            shard.accumulate(accumulator, item);
+            // a producer stops once it has fulfilled a request, which should be followed by another
+            if (unfulfilled.decrementAndGet() == 0) async().submit(this::request);
+        }
+
+        @Override
+        public void done() {
+            done(null);
+        }
+
+        @Override
+        public void done(@Nullable Throwable e) {
+            if (!isDone.compareAndSet(false, true)) return;
+            if (e != null) error.compareAndSet(null, e);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.concurrent.producer;
+
+import grakn.core.common.exception.GraknException;
+import grakn.core.concurrent.common.ExecutorService;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static grakn.core.common.iterator.Iterators.iterate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedConsumerTest {
+
+    private static final int PARALLELISATION = 4;
+    private static final int PRODUCERS = 8;
+    private static final long ITEMS = 10_000;
+
+    @BeforeClass
+    public static void initialiseExecutors() {
+        if (!ExecutorService.isInitialised()) ExecutorService.initialise(PARALLELISATION);
+    }
+
+    @Test
+    public void test_each_thread_accumulates_into_a_shard_of_its_own() {
+        List<Collected> shards = Producers.consume(producers(), Collected::new, Collected::add);
+        Set<Thread> threads = new HashSet<>();
+        long items = 0;
+        for (Collected shard : shards) {
+            assertEquals(1, shard.threads.size());
+            assertTrue(threads.addAll(shard.threads));
+            items += shard.values.size();
+        }
+        assertTrue(shards.size() <= PARALLELISATION);
+        assertEquals(PRODUCERS * ITEMS, items);
+    }
+
+    @Test
+    public void test_combined_shards_equal_the_sequential_result() {
+        List<Collected> shards = Producers.consume(producers(), Collected::new, Collected::add);
+        List<Long> combined = new ArrayList<>();
+        for (Collected shard : shards) combined.addAll(shard.values);
+        combined.sort(Long::compare);
+
+        List<Long> sequential = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) sequential.addAll(values(p));
+        sequential.sort(Long::compare);
+        assertEquals(sequential, combined);
+    }
+
+    @Test
+    public void test_error_of_a_producer_is_thrown_to_the_consumer() {
+        List<Producer<Long>> producers = producers();
+        producers.add(Producers.producer(iterate(values(PRODUCERS)).map(value -> {
+            if (value == PRODUCERS * ITEMS + ITEMS / 2) throw new IllegalStateException();
+            return value;
+        })));
+        try {
+            Producers.consume(producers, Collected::new, Collected::add);
+            fail();
+        } catch (GraknException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static List<Producer<Long>> producers() {
+        List<Producer<Long>> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) producers.add(Producers.producer(iterate(values(p))));
+        return producers;
+    }
+
+    private static List<Long> values(int producer) {
+        return LongStream.range(producer * ITEMS, (producer + 1) * ITEMS).boxed().collect(Collectors.toList());
+    }
+
+    private static class Collected {
+
+        private final Set<Thread> threads = new HashSet<>();
+        private final List<Long> values = new ArrayList<>();
+
+        private void add(long value) {
+            threads.add(Thread.currentThread());
+            values.add(value);
+        }
+    }
+}
@@ -21,14 +21,19 @@ package grakn.core.graph;
 import grakn.common.collection.Pair;
 import grakn.core.common.exception.GraknCheckedException;
 import grakn.core.common.exception.GraknException;
+import grakn.core.common.iterator.AbstractResourceIterator;
 import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Label;
 import grakn.core.concurrent.common.ConcurrentSet;
+import grakn.core.concurrent.common.EvictingMap;
 import grakn.core.graph.common.Encoding;
+import grakn.core.graph.common.Histogram;
+import grakn.core.graph.common.HyperLogLog;
 import grakn.core.graph.common.KeyGenerator;
 import grakn.core.graph.common.StatisticsBytes;
 import grakn.core.graph.common.Storage;
 import grakn.core.graph.iid.EdgeIID;
+import grakn.core.graph.iid.IndexIID;
 import grakn.core.graph.iid.PrefixIID;
 import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.AttributeVertex;
@@ -38,9 +43,18 @@ import grakn.core.graph.vertex.Vertex;
 import grakn.core.graph.vertex.impl.AttributeVertexImpl;
 import grakn.core.graph.vertex.impl.ThingVertexImpl;
 
+import javax.annotation.Nullable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
@@ -50,29 +64,43 @@ import static grakn.common.collection.Collections.list;
 import static grakn.common.collection.Collections.pair;
 import static grakn.common.util.Objects.className;
 import static grakn.core.common.collection.Bytes.bytesToLong;
+import static grakn.core.common.collection.Bytes.compareBytes;
 import static grakn.core.common.collection.Bytes.join;
 import static grakn.core.common.collection.Bytes.longToBytes;
+import static grakn.core.common.collection.Bytes.sortedBytesToDouble;
+import static grakn.core.common.collection.Bytes.sortedBytesToLong;
 import static grakn.core.common.collection.Bytes.stripPrefix;
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_CAST;
 import static grakn.core.common.exception.ErrorMessage.ThingWrite.ILLEGAL_STRING_SIZE;
 import static grakn.core.common.iterator.Iterators.iterate;
 import static grakn.core.common.iterator.Iterators.link;
 import static grakn.core.common.iterator.Iterators.tree;
+import static grakn.core.graph.common.Encoding.Edge.Thing.ROLEPLAYER;
+import static grakn.core.graph.common.Encoding.Edge.Type.RELATES;
 import static grakn.core.graph.common.Encoding.Edge.Type.SUB;
 import static grakn.core.graph.common.Encoding.Prefix.VERTEX_ATTRIBUTE_TYPE;
 import static grakn.core.graph.common.Encoding.Prefix.VERTEX_ENTITY_TYPE;
 import static grakn.core.graph.common.Encoding.Prefix.VERTEX_RELATION_TYPE;
+import static grakn.core.graph.common.Encoding.Statistics.COUNT_JOB_SHARDS;
 import static grakn.core.graph.common.Encoding.Statistics.JobOperation.CREATED;
 import static grakn.core.graph.common.Encoding.Statistics.JobOperation.DELETED;
 import static grakn.core.graph.common.Encoding.Status.BUFFERED;
 import static grakn.core.graph.common.Encoding.ValueType.STRING_MAX_SIZE;
 import static grakn.core.graph.common.Encoding.Vertex.Thing.ATTRIBUTE;
+import static grakn.core.graph.common.Encoding.Vertex.Thing.RELATION;
 import static grakn.core.graph.common.StatisticsBytes.attributeCountJobKey;
 import static grakn.core.graph.common.StatisticsBytes.attributeCountedKey;
+import static grakn.core.graph.common.StatisticsBytes.commitsKey;
+import static grakn.core.graph.common.StatisticsBytes.currentAsOfKey;
 import static grakn.core.graph.common.StatisticsBytes.hasEdgeCountJobKey;
 import static grakn.core.graph.common.StatisticsBytes.hasEdgeCountKey;
 import static grakn.core.graph.common.StatisticsBytes.hasEdgeTotalCountKey;
+import static grakn.core.graph.common.StatisticsBytes.rolePlayerDegreeHistogramKey;
+import static grakn.core.graph.common.StatisticsBytes.rolePlayerSketchKey;
 import static grakn.core.graph.common.StatisticsBytes.snapshotKey;
+import static grakn.core.graph.common.StatisticsBytes.typeRefreshJobKey;
+import static grakn.core.graph.common.StatisticsBytes.valueHistogramKey;
+import static grakn.core.graph.common.StatisticsBytes.valueSketchKey;
 import static grakn.core.graph.common.StatisticsBytes.vertexCountKey;
 import static grakn.core.graph.common.StatisticsBytes.vertexTransitiveCountKey;
 import static grakn.core.graph.iid.VertexIID.Thing.generate;
@@ -85,19 +113,41 @@ public class DataGraph implements Graph {
     private final ConcurrentMap<VertexIID.Thing, ThingVertex> thingsByIID;
     private final ConcurrentMap<VertexIID.Type, ConcurrentSet<ThingVertex>> thingsByTypeIID;
     private final AttributesByIID attributesByIID;
+    private final EvictingMap.Capacity<ThingVertex> cacheCapacity;
     private final Statistics statistics;
     private boolean isModified;
+    private boolean isTextIndexRemoved;
 
     public DataGraph(Storage.Data storage, SchemaGraph schemaGraph) {
         this.storage = storage;
         this.schemaGraph = schemaGraph;
         keyGenerator = new KeyGenerator.Data.Buffered();
+        cacheCapacity = null;
         thingsByIID = new ConcurrentHashMap<>();
         thingsByTypeIID = new ConcurrentHashMap<>();
         attributesByIID = new AttributesByIID();
         statistics = new Statistics(schemaGraph, storage);
     }
 
+    /**
+     * Creates a graph for a read transaction that caches at most {@code cacheSize} of the persisted vertices
+     * that it reads, evicting the oldest ones first, and does not cache persisted edges at all, so that a
+     * transaction that reads a large part of the graph does not hold all of it on the heap. Vertices that are
+     * buffered, inferred or modified, such as by the reasoner, are never evicted, as they exist nowhere else.
+     */
+    public DataGraph(Storage.Data storage, SchemaGraph schemaGraph, long cacheSize) {
+        this.storage = storage;
+        this.schemaGraph = schemaGraph;
+        keyGenerator = new KeyGenerator.Data.Buffered();
+        cacheCapacity = new EvictingMap.Capacity<>(
+                cacheSize, v -> v.isModified() || v.isInferred() || v.status().equals(BUFFERED)
+        );
+        thingsByIID = new EvictingMap<>(cacheCapacity);
+        thingsByTypeIID = new ConcurrentHashMap<>();
+        attributesByIID = new AttributesByIID(cacheCapacity);
+        statistics = new Statistics(schemaGraph, storage);
+    }
+
     @Override
     public Storage.Data storage() {
         return storage;
@@ -111,6 +161,45 @@ public class DataGraph implements Graph {
         return statistics;
     }
 
+    /**
+     * Returns true if the persisted edges that are read from the storage should be cached in the adjacency of
+     * their vertices, which is not the case when the cache of the graph is bounded.
+     */
+    public boolean isCachingPersistedEdges() {
+        return cacheCapacity == null;
+    }
+
+    /**
+     * Returns the number of vertices cached in this graph, which is bounded for read transactions.
+     */
+    public long cacheSize() {
+        return thingsByIID.size() + attributesByIID.size();
+    }
+
+    /**
+     * Returns the number of persisted vertices that have been evicted from the bounded cache of this graph.
+     */
+    public long cacheEvictions() {
+        return cacheCapacity != null ? cacheCapacity.evictions() : 0;
+    }
+
+    /**
+     * Puts a vertex that has just been modified back into the bounded cache of this graph, in case it was
+     * evicted while it was still held by its caller, so that its modifications are not lost. If the vertex was
+     * evicted and then read again, the unmodified copy that was read is replaced, as it is missing the changes.
+     */
+    public void pin(ThingVertex vertex) {
+        if (cacheCapacity == null) return;
+        if (vertex.isAttribute()) attributesByIID.pin(vertex.asAttribute());
+        else pin(thingsByIID, vertex.iid(), vertex);
+    }
+
+    private static <IID extends VertexIID.Thing, VERTEX extends ThingVertex> void pin(
+            ConcurrentMap<IID, VERTEX> vertices, IID iid, VERTEX vertex) {
+        VERTEX cached = vertices.putIfAbsent(iid, vertex);
+        if (cached != null && cached != vertex && !cached.isModified()) vertices.replace(iid, cached, vertex);
+    }
+
     public ResourceIterator<ThingVertex> vertices() {
         return link(thingsByIID.values().iterator(), attributesByIID.valuesIterator());
     }
@@ -194,6 +283,189 @@ public class DataGraph implements Graph {
         else return link(thingsByTypeIID.get(typeVertex.iid()).iterator(), storageIterator).distinct();
     }
 
+    /**
+     * Splits the persisted instances of a type into at most {@code maxRanges} disjoint ranges of
+     * their IIDs, which can be scanned in parallel from the snapshot of the storage. Buffered
+     * instances are not included, so this is only meant for read transactions.
+     *
+     * The IIDs of the instances of a type share the prefix of the type, followed by a key that is
+     * either generated or encoded from a value. The ranges are split on the first byte at which the
+     * first and last IIDs of the type differ, so that each range is a set of prefix scans.
+     *
+     * @param typeVertex the type of which to scan the instances
+     * @param maxRanges  the maximum number of ranges to split the instances into
+     * @return iterators over disjoint ranges of the instances of the type, in order of their IIDs
+     */
+    public List<ResourceIterator<ThingVertex>> getRanges(TypeVertex typeVertex, int maxRanges) {
+        assert maxRanges > 0;
+        byte[] prefix = join(typeVertex.encoding().instance().prefix().bytes(), typeVertex.iid().bytes());
+        byte[] first = storage.iterate(prefix, (key, value) -> key).firstOrNull();
+        if (first == null) return list();
+        byte[] last = storage.getLastKey(prefix);
+        assert last != null;
+
+        int split = prefix.length;
+        while (split < first.length && split < last.length && first[split] == last[split]) split++;
+        if (split == first.length || split == last.length || maxRanges == 1) {
+            return list(storage.iterate(prefix, (key, value) -> convert(VertexIID.Thing.of(key))));
+        }
+
+        byte[] common = Arrays.copyOf(first, split + 1);
+        int from = first[split] & 0xff;
+        int to = last[split] & 0xff;
+        int rangeCount = Math.min(maxRanges, to - from + 1);
+        List<ResourceIterator<ThingVertex>> ranges = new ArrayList<>(rangeCount);
+        for (int range = 0; range < rangeCount; range++) {
+            List<ResourceIterator<ThingVertex>> scans = new ArrayList<>();
+            int rangeFrom = from + (to - from + 1) * range / rangeCount;
+            int rangeTo = from + (to - from + 1) * (range + 1) / rangeCount;
+            for (int b = rangeFrom; b < rangeTo; b++) {
+                byte[] rangePrefix = Arrays.copyOf(common, common.length);
+                rangePrefix[split] = (byte) b;
+                scans.add(storage.iterate(rangePrefix, (key, value) -> convert(VertexIID.Thing.of(key))));
+            }
+            ranges.add(link(scans));
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the attributes of the given type whose values lie between the given bounds, which are
+     * encoded as {@link VertexIID.Attribute#sortedValueBytes()}. Either bound may be null to leave
+     * the range open on that side.
+     *
+     * The IIDs of long, double and datetime attributes end with their sorted values, so their range
+     * is sought directly amongst the attribute vertices. The IIDs of string attributes begin their
+     * values with their length, so their range is sought in the sorted index of strings instead.
+     *
+     * @param type  the attribute type of the attributes
+     * @param lower the inclusive lower bound of the sorted value bytes, or null
+     * @param upper the exclusive upper bound of the sorted value bytes, or null
+     * @return the persisted and buffered attributes of the type whose values lie in the range
+     */
+    public ResourceIterator<AttributeVertex<?>> getInRange(TypeVertex type, @Nullable byte[] lower,
+                                                           @Nullable byte[] upper) {
+        assert storage.isOpen();
+        assert type.isAttributeType();
+
+        ResourceIterator<AttributeVertex<?>> storageIterator;
+        if (type.valueType() == Encoding.ValueType.STRING) {
+            byte[] prefix = IndexIID.Attribute.SortedString.prefix(type.iid());
+            storageIterator = storage.iterate(
+                    prefix, lower != null ? join(prefix, lower) : prefix, upper != null ? join(prefix, upper) : null,
+                    (key, value) -> convert(VertexIID.Attribute.of(value))
+            );
+        } else {
+            byte[] prefix = join(ATTRIBUTE.prefix().bytes(), type.iid().bytes(), type.valueType().bytes());
+            storageIterator = storage.iterate(
+                    prefix, lower != null ? join(prefix, lower) : prefix, upper != null ? join(prefix, upper) : null,
+                    (key, value) -> convert(VertexIID.Attribute.of(key))
+            );
+        }
+        if (!thingsByTypeIID.containsKey(type.iid())) return storageIterator;
+        ResourceIterator<AttributeVertex<?>> buffered = iterate(thingsByTypeIID.get(type.iid()))
+                .filter(ThingVertex::isAttribute).<AttributeVertex<?>>map(ThingVertex::asAttribute).filter(att -> {
+                    byte[] value = att.iid().sortedValueBytes();
+                    return (lower == null || compareBytes(value, lower) >= 0) &&
+                            (upper == null || compareBytes(value, upper) < 0);
+                });
+        return link(buffered, storageIterator).distinct();
+    }
+
+    /**
+     * Returns the sorted value bytes of the persisted attributes of a long, double or datetime
+     * attribute type, in order, by scanning the keys of the attribute vertices without creating any
+     * vertex. Buffered attributes are not included, so this is only meant for transactions that
+     * have not been modified.
+     *
+     * @param type the attribute type of the attributes
+     * @return the {@link VertexIID.Attribute#sortedValueBytes()} of the persisted attributes of the type
+     */
+    public ResourceIterator<byte[]> getSortedValues(TypeVertex type) {
+        assert storage.isOpen();
+        assert type.isAttributeType() && type.valueType().isWritable() && type.valueType() != Encoding.ValueType.STRING;
+
+        byte[] prefix = join(ATTRIBUTE.prefix().bytes(), type.iid().bytes(), type.valueType().bytes());
+        return storage.iterate(prefix, (key, value) -> stripPrefix(key, prefix.length));
+    }
+
+    /**
+     * Returns the sorted value bytes of the persisted attribute of a long, double or datetime
+     * attribute type with the greatest value, with a single seek to the last key of the type.
+     *
+     * @param type the attribute type of the attributes
+     * @return the greatest {@link VertexIID.Attribute#sortedValueBytes()} of the type, or null if it has none
+     */
+    @Nullable
+    public byte[] getLastSortedValue(TypeVertex type) {
+        assert storage.isOpen();
+        assert type.isAttributeType() && type.valueType().isWritable() && type.valueType() != Encoding.ValueType.STRING;
+
+        byte[] prefix = join(ATTRIBUTE.prefix().bytes(), type.iid().bytes(), type.valueType().bytes());
+        byte[] last = storage.getLastKey(prefix);
+        return last != null ? stripPrefix(last, prefix.length) : null;
+    }
+
+    /**
+     * Get the string attributes of a text indexed type that may contain all of the given trigrams.
+     *
+     * The postings of each trigram are keyed by the IIDs of their attributes, so they are intersected
+     * with a leapfrog join, which seeks every postings iterator forward to the attribute that the
+     * iterators furthest ahead are at, without reading the postings in between. Attributes of the type
+     * that are buffered in this transaction are always returned, as their postings are only put when
+     * they are committed.
+     *
+     * @param type     the text indexed string attribute type of the attributes
+     * @param trigrams the folded trigrams that the attributes must contain, which must not be empty
+     * @return the persisted and buffered attributes of the type that may contain all trigrams
+     */
+    public ResourceIterator<AttributeVertex<?>> getByTrigrams(TypeVertex type, List<String> trigrams) {
+        assert storage.isOpen();
+        assert type.isAttributeType() && type.valueType() == Encoding.ValueType.STRING && type.isTextIndexed();
+        assert !trigrams.isEmpty();
+
+        List<byte[]> prefixes = new ArrayList<>();
+        for (String trigram : trigrams) prefixes.add(IndexIID.Attribute.Trigram.prefix(trigram, type.iid()));
+        ResourceIterator<AttributeVertex<?>> storageIterator = new PostingsIntersection(storage, prefixes)
+                .map(attIID -> convert(VertexIID.Attribute.of(attIID)));
+        if (!thingsByTypeIID.containsKey(type.iid())) return storageIterator;
+        ResourceIterator<AttributeVertex<?>> buffered = iterate(thingsByTypeIID.get(type.iid()))
+                .filter(ThingVertex::isAttribute).<AttributeVertex<?>>map(ThingVertex::asAttribute);
+        return link(buffered, storageIterator).distinct();
+    }
+
+    /**
+     * Puts or deletes the trigram postings of every attribute of a string attribute type, when its
+     * text index is enabled or disabled.
+     *
+     * @param type          the string attribute type
+     * @param isTextIndexed true to put the postings, and false to delete them
+     */
+    public void textIndex(TypeVertex type, boolean isTextIndexed) {
+        assert storage.isOpen();
+        assert type.isAttributeType() && type.valueType() == Encoding.ValueType.STRING;
+
+        // attributes are always immutable, whether or not they are persisted, and the postings of an attribute
+        // that is buffered are put again, or not at all, when it is committed
+        get(type).filter(thing -> !thing.isInferred()).forEachRemaining(thing -> {
+            VertexIID.Attribute<String> attIID = thing.asAttribute().asString().iid();
+            for (String trigram : IndexIID.Attribute.Trigram.trigrams(thing.asAttribute().asString().value())) {
+                byte[] posting = IndexIID.Attribute.Trigram.of(trigram, type.iid(), attIID).bytes();
+                if (isTextIndexed) storage.putUntracked(posting, attIID.bytes());
+                else storage.delete(posting);
+            }
+        });
+        if (!isTextIndexed) isTextIndexRemoved = true;
+    }
+
+    /**
+     * Returns true if the trigram postings of a text index have been deleted, which must only be committed
+     * once the schema no longer uses the index, rather than before the schema like the postings that are put.
+     */
+    public boolean isTextIndexRemoved() {
+        return isTextIndexRemoved;
+    }
+
     public AttributeVertex<Boolean> get(TypeVertex type, boolean value) {
         assert storage.isOpen();
         assert type.isAttributeType();
@@ -402,6 +674,19 @@ public class DataGraph implements Graph {
         } else delete(vertex.asAttribute());
     }
 
+    /**
+     * Returns true if every write buffered in this graph creates a new thing, or an edge from a new
+     * thing, which cannot conflict with the writes of concurrent transactions. Edges to existing
+     * attributes are allowed, as attributes are deduplicated by their value, but edges from them
+     * are not, as an existing attribute that owns a new attribute may be deleted concurrently.
+     * Deletes are written to the storage as soon as they are made, so they have to be checked
+     * against the storage.
+     */
+    public boolean isInsertOnly() {
+        return iterate(thingsByIID.values()).noneMatch(v -> v.isModified() && !v.status().equals(BUFFERED)) &&
+                attributesByIID.valuesIterator().noneMatch(a -> !a.status().equals(BUFFERED) && a.outs().isModified());
+    }
+
     public void setModified() {
         assert storage.isOpen();
         if (!isModified) isModified = true;
@@ -416,6 +701,7 @@ public class DataGraph implements Graph {
         thingsByIID.clear();
         thingsByTypeIID.clear();
         attributesByIID.clear();
+        if (cacheCapacity != null) cacheCapacity.clear();
         statistics.clear();
     }
 
@@ -441,6 +727,81 @@ public class DataGraph implements Graph {
         clear(); // we now flush the indexes after commit, and we do not expect this Graph.Thing to be used again
     }
 
+    /**
+     * Intersects the postings of several trigrams, which are keyed by the IIDs of their attributes after
+     * a prefix of the same length, and returns the IID of every attribute that is in all of them.
+     */
+    private static class PostingsIntersection extends AbstractResourceIterator<byte[]> {
+
+        private final List<byte[]> prefixes;
+        private final List<Storage.SeekableIterator<byte[]>> iterators;
+        private final byte[][] heads;
+        private byte[] next;
+        private boolean isCompleted;
+
+        private PostingsIntersection(Storage storage, List<byte[]> prefixes) {
+            this.prefixes = prefixes;
+            this.iterators = new ArrayList<>();
+            for (byte[] prefix : prefixes) iterators.add(storage.iterateSeekable(prefix, (key, value) -> value));
+            this.heads = new byte[prefixes.size()][];
+            this.isCompleted = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !isCompleted) {
+                next = fetchNext();
+                if (next == null) {
+                    isCompleted = true;
+                    recycle();
+                }
+            }
+            return next != null;
+        }
+
+        @Nullable
+        private byte[] fetchNext() {
+            byte[] max = null;
+            for (int i = 0; i < iterators.size(); i++) {
+                if (heads[i] == null && !advance(i)) return null;
+                if (max == null || compareBytes(heads[i], max) > 0) max = heads[i];
+            }
+
+            int agreed = 0;
+            for (int i = 0; agreed < iterators.size(); i = (i + 1) % iterators.size()) {
+                if (compareBytes(heads[i], max) < 0) {
+                    iterators.get(i).seek(join(prefixes.get(i), max));
+                    if (!advance(i)) return null;
+                }
+                if (Arrays.equals(heads[i], max)) agreed++;
+                else {
+                    max = heads[i];
+                    agreed = 1;
+                }
+            }
+            Arrays.fill(heads, null);
+            return max;
+        }
+
+        private boolean advance(int index) {
+            heads[index] = iterators.get(index).hasNext() ? iterators.get(index).next() : null;
+            return heads[index] != null;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            byte[] iid = next;
+            next = null;
+            return iid;
+        }
+
+        @Override
+        public void recycle() {
+            iterators.forEach(ResourceIterator::recycle);
+        }
+    }
+
     private static class AttributesByIID {
 
         private final ConcurrentMap<VertexIID.Attribute.Boolean, AttributeVertex<Boolean>> booleans;
@@ -457,6 +818,14 @@ public class DataGraph implements Graph {
             dateTimes = new ConcurrentHashMap<>();
         }
 
+        AttributesByIID(EvictingMap.Capacity<ThingVertex> capacity) {
+            booleans = new EvictingMap<>(capacity);
+            longs = new EvictingMap<>(capacity);
+            doubles = new EvictingMap<>(capacity);
+            strings = new EvictingMap<>(capacity);
+            dateTimes = new EvictingMap<>(capacity);
+        }
+
         ResourceIterator<AttributeVertex<?>> valuesIterator() {
             return link(list(
                     booleans.values().iterator(),
@@ -475,6 +844,30 @@ public class DataGraph implements Graph {
             dateTimes.clear();
         }
 
+        long size() {
+            return booleans.size() + longs.size() + doubles.size() + strings.size() + dateTimes.size();
+        }
+
+        void pin(AttributeVertex<?> vertex) {
+            switch (vertex.valueType()) {
+                case BOOLEAN:
+                    DataGraph.pin(booleans, vertex.iid().asBoolean(), vertex.asBoolean());
+                    break;
+                case LONG:
+                    DataGraph.pin(longs, vertex.iid().asLong(), vertex.asLong());
+                    break;
+                case DOUBLE:
+                    DataGraph.pin(doubles, vertex.iid().asDouble(), vertex.asDouble());
+                    break;
+                case STRING:
+                    DataGraph.pin(strings, vertex.iid().asString(), vertex.asString());
+                    break;
+                case DATETIME:
+                    DataGraph.pin(dateTimes, vertex.iid().asDateTime(), vertex.asDateTime());
+                    break;
+            }
+        }
+
         void remove(VertexIID.Attribute<?> iid) {
             switch (iid.valueType()) {
                 case BOOLEAN:
@@ -514,9 +907,24 @@ public class DataGraph implements Graph {
         }
     }
 
+    /**
+     * The counts of things and has edges, which are used by the traversal planner.
+     *
+     * The counts of entities and relations are applied by every commit as deltas, through the
+     * merge operator of the storage. Attributes and has edges, however, may be created by
+     * concurrent transactions at once, so their commits only record count jobs, which are
+     * counted exactly once in the background. The count jobs are partitioned into
+     * {@link Encoding.Statistics#COUNT_JOB_SHARDS} shards that can be processed in parallel,
+     * without conflicting with each other.
+     *
+     * Every commit that records count jobs is numbered, and each shard records the commit
+     * number as of which it has counted all of its jobs, so that {@link #currentAsOf()}
+     * tells how far the counts lag behind {@link #lastCommit()}.
+     */
     public static class Statistics {
 
-        private static int COUNT_JOB_BATCH_SIZE = 10000;
+        private static final int COUNT_JOB_BATCH_SIZE = 1_000;
+        private static final double REFRESH_MIN_CHANGE = 0.1;
         private final ConcurrentMap<VertexIID.Type, Long> persistedVertexCount;
         private final ConcurrentMap<VertexIID.Type, Long> persistedVertexTransitiveCount;
         private final ConcurrentMap<VertexIID.Type, Long> deltaVertexCount;
@@ -524,10 +932,16 @@ public class DataGraph implements Graph {
         private final ConcurrentMap<VertexIID.Type, Long> persistedHasEdgeTotalCount;
         private final ConcurrentMap<VertexIID.Attribute<?>, Encoding.Statistics.JobOperation> attributeVertexCountJobs;
         private final ConcurrentMap<Pair<VertexIID.Thing, VertexIID.Attribute<?>>, Encoding.Statistics.JobOperation> hasEdgeCountJobs;
-        private boolean needsBackgroundCounting;
+        private final ConcurrentMap<VertexIID.Type, Histogram> persistedValueHistograms;
+        private final ConcurrentMap<VertexIID.Type, HyperLogLog> persistedValueSketches;
+        private final ConcurrentMap<Pair<VertexIID.Type, VertexIID.Type>, Histogram> persistedRolePlayerDegrees;
+        private final ConcurrentMap<Pair<VertexIID.Type, VertexIID.Type>, HyperLogLog> persistedRolePlayerSketches;
+        private final Set<Integer> countJobShards;
         private final SchemaGraph schemaGraph;
         private final Storage storage;
         private final long snapshot;
+        private final long lastCommit;
+        private volatile Long currentAsOf;
 
         public Statistics(SchemaGraph schemaGraph, Storage storage) {
             persistedVertexCount = new ConcurrentHashMap<>();
@@ -537,8 +951,14 @@ public class DataGraph implements Graph {
             persistedHasEdgeTotalCount = new ConcurrentHashMap<>();
             attributeVertexCountJobs = new ConcurrentHashMap<>();
             hasEdgeCountJobs = new ConcurrentHashMap<>();
-            needsBackgroundCounting = false;
+            persistedValueHistograms = new ConcurrentHashMap<>();
+            persistedValueSketches = new ConcurrentHashMap<>();
+            persistedRolePlayerDegrees = new ConcurrentHashMap<>();
+            persistedRolePlayerSketches = new ConcurrentHashMap<>();
+            countJobShards = new HashSet<>();
             snapshot = bytesToLongOrZero(storage.get(snapshotKey()));
+            lastCommit = bytesToLongOrZero(storage.get(commitsKey()));
+            currentAsOf = null;
             this.schemaGraph = schemaGraph;
             this.storage = storage;
         }
@@ -547,6 +967,44 @@ public class DataGraph implements Graph {
             return snapshot;
         }
 
+        /**
+         * Returns the number of the last commit that recorded count jobs, as seen by this transaction.
+         */
+        public long lastCommit() {
+            return lastCommit;
+        }
+
+        /**
+         * Returns the number of the commit up to which every count job has been counted, as seen by
+         * this transaction. The counts are exact if this is equal to {@link #lastCommit()}.
+         *
+         * A shard that has no count jobs left has counted every job of every commit, whether or not
+         * it has been counted since the last commit, so only the shards with count jobs can lag behind.
+         */
+        public long currentAsOf() {
+            if (currentAsOf == null) {
+                long min = lastCommit;
+                for (int shard = 0; shard < COUNT_JOB_SHARDS; shard++) {
+                    if (!hasCountJobs(shard)) continue;
+                    min = Math.min(min, bytesToLongOrZero(storage.get(currentAsOfKey(shard))));
+                }
+                currentAsOf = min;
+            }
+            return currentAsOf;
+        }
+
+        /**
+         * Returns whether the given shard has count jobs that are not counted yet, as seen by this transaction.
+         */
+        public boolean hasCountJobs(int shard) {
+            ResourceIterator<byte[]> countJobs = storage.iterate(
+                    StatisticsBytes.countJobKey(shard), (key, value) -> key
+            );
+            boolean hasCountJobs = countJobs.hasNext();
+            countJobs.recycle();
+            return hasCountJobs;
+        }
+
         public long hasEdgeSum(TypeVertex owner, Set<TypeVertex> attributes) {
             return attributes.stream().map(att -> hasEdgeCount(owner, att)).mapToLong(l -> l).sum();
         }
@@ -602,8 +1060,56 @@ public class DataGraph implements Graph {
             ).max().orElse(0);
         }
 
+        /**
+         * Returns the equi-depth histogram of the values of a long, double or datetime attribute type,
+         * which is empty until the attributes of the type have been counted in the background.
+         */
+        public Histogram valueHistogram(TypeVertex attributeType) {
+            assert attributeType.isAttributeType();
+            return persistedValueHistograms.computeIfAbsent(attributeType.iid(), iid ->
+                    Histogram.of(storage.get(valueHistogramKey(iid))));
+        }
+
+        /**
+         * Returns the sketch of the distinct values of an attribute type, of any value type, which is
+         * empty until the attributes of the type have been counted in the background.
+         */
+        public HyperLogLog valueSketch(TypeVertex attributeType) {
+            assert attributeType.isAttributeType();
+            return persistedValueSketches.computeIfAbsent(attributeType.iid(), iid ->
+                    HyperLogLog.of(storage.get(valueSketchKey(iid))));
+        }
+
+        /**
+         * Returns the histogram of the number of players of a role type in each relation of a relation
+         * type, which is empty until the relations of the type have been counted in the background.
+         */
+        public Histogram rolePlayerDegrees(TypeVertex relationType, TypeVertex roleType) {
+            assert relationType.isRelationType() && roleType.isRoleType();
+            return persistedRolePlayerDegrees.computeIfAbsent(pair(relationType.iid(), roleType.iid()), iids ->
+                    Histogram.of(storage.get(rolePlayerDegreeHistogramKey(iids.first(), iids.second()))));
+        }
+
+        /**
+         * Returns the sketch of the distinct players of a role type in the relations of a relation type,
+         * which is empty until the relations of the type have been counted in the background.
+         */
+        public HyperLogLog rolePlayerSketch(TypeVertex relationType, TypeVertex roleType) {
+            assert relationType.isRelationType() && roleType.isRoleType();
+            return persistedRolePlayerSketches.computeIfAbsent(pair(relationType.iid(), roleType.iid()), iids ->
+                    HyperLogLog.of(storage.get(rolePlayerSketchKey(iids.first(), iids.second()))));
+        }
+
         public boolean needsBackgroundCounting() {
-            return needsBackgroundCounting;
+            return !countJobShards.isEmpty();
+        }
+
+        /**
+         * Returns the shards of the count jobs that this transaction recorded when it was committed, which
+         * are the only shards that the commit gives more to count.
+         */
+        public Set<Integer> countJobShards() {
+            return countJobShards;
         }
 
         public void vertexCreated(VertexIID.Type typeIID) {
@@ -616,22 +1122,18 @@ public class DataGraph implements Graph {
 
         public void attributeVertexCreated(VertexIID.Attribute<?> attIID) {
             attributeVertexCountJobs.put(attIID, CREATED);
-            needsBackgroundCounting = true;
         }
 
         public void attributeVertexDeleted(VertexIID.Attribute<?> attIID) {
             attributeVertexCountJobs.put(attIID, DELETED);
-            needsBackgroundCounting = true;
         }
 
         public void hasEdgeCreated(VertexIID.Thing thingIID, VertexIID.Attribute<?> attIID) {
             hasEdgeCountJobs.put(pair(thingIID, attIID), CREATED);
-            needsBackgroundCounting = true;
         }
 
         public void hasEdgeDeleted(VertexIID.Thing thingIID, VertexIID.Attribute<?> attIID) {
             hasEdgeCountJobs.put(pair(thingIID, attIID), DELETED);
-            needsBackgroundCounting = true;
         }
 
         private long vertexCount(VertexIID.Type typeIID, boolean isTransitive) {
@@ -709,15 +1211,29 @@ public class DataGraph implements Graph {
                     storage.mergeUntracked(vertexTransitiveCountKey(schemaGraph.rootRoleType().iid()), longToBytes(delta));
                 }
             });
-            attributeVertexCountJobs.forEach((attIID, countWorkValue) -> storage.putUntracked(
-                    attributeCountJobKey(attIID), countWorkValue.bytes()
+            attributeVertexCountJobs.forEach((attIID, countWorkValue) -> putCountJob(
+                    attributeCountJobKey(attIID), countWorkValue
             ));
-            hasEdgeCountJobs.forEach((hasEdge, countWorkValue) -> storage.putUntracked(
-                    hasEdgeCountJobKey(hasEdge.first(), hasEdge.second()), countWorkValue.bytes()
+            hasEdgeCountJobs.forEach((hasEdge, countWorkValue) -> putCountJob(
+                    hasEdgeCountJobKey(hasEdge.first(), hasEdge.second()), countWorkValue
             ));
+            Set<VertexIID.Type> refreshedTypes = new HashSet<>();
+            deltaVertexCount.keySet().forEach(typeIID -> {
+                if (typeIID.encoding().prefix() == VERTEX_RELATION_TYPE) refreshedTypes.add(typeIID);
+            });
+            attributeVertexCountJobs.keySet().forEach(attIID -> refreshedTypes.add(attIID.type()));
+            refreshedTypes.forEach(typeIID -> putCountJob(typeRefreshJobKey(typeIID), CREATED));
             if (!deltaVertexCount.isEmpty()) {
                 storage.mergeUntracked(snapshotKey(), longToBytes(1));
             }
+            if (!countJobShards.isEmpty()) {
+                storage.mergeUntracked(commitsKey(), longToBytes(1));
+            }
+        }
+
+        private void putCountJob(byte[] countJobKey, Encoding.Statistics.JobOperation operation) {
+            storage.putUntracked(countJobKey, operation.bytes());
+            countJobShards.add(StatisticsBytes.countJobShard(countJobKey));
         }
 
         private void clear() {
@@ -727,23 +1243,39 @@ public class DataGraph implements Graph {
             persistedHasEdgeCount.clear();
             attributeVertexCountJobs.clear();
             hasEdgeCountJobs.clear();
+            persistedValueHistograms.clear();
+            persistedValueSketches.clear();
+            persistedRolePlayerDegrees.clear();
+            persistedRolePlayerSketches.clear();
+            // the shards of the committed count jobs are kept, to be counted once the commit is durable
         }
 
-        public boolean processCountJobs() {
-            ResourceIterator<CountJob> countJobs = storage.iterate(StatisticsBytes.countJobKey(), CountJob::of);
-            for (long processed = 0; processed < COUNT_JOB_BATCH_SIZE && countJobs.hasNext(); processed++) {
+        /**
+         * Counts the next batch of count jobs of the given shard, and returns whether the shard has
+         * more jobs to count. Once a shard is drained, it records that it is current as of the
+         * last commit that is visible to this transaction.
+         */
+        public boolean processCountJobs(int shard) {
+            ResourceIterator<CountJob> countJobs = storage.iterate(StatisticsBytes.countJobKey(shard), CountJob::of);
+            long processed = 0;
+            for (; processed < COUNT_JOB_BATCH_SIZE && countJobs.hasNext(); processed++) {
                 CountJob countJob = countJobs.next();
                 if (countJob instanceof CountJob.Attribute) {
                     processAttributeCountJob(countJob);
                 } else if (countJob instanceof CountJob.HasEdge) {
                     processHasEdgeCountJob(countJob);
+                } else if (countJob instanceof CountJob.TypeRefresh) {
+                    processTypeRefreshJob(countJob);
                 } else {
                     assert false;
                 }
                 storage.delete(countJob.key());
             }
-            storage.mergeUntracked(snapshotKey(), longToBytes(1));
-            return countJobs.hasNext();
+            if (processed > 0) storage.mergeUntracked(snapshotKey(), longToBytes(1));
+            boolean hasNext = countJobs.hasNext();
+            countJobs.recycle();
+            if (!hasNext) storage.putUntracked(currentAsOfKey(shard), longToBytes(lastCommit));
+            return hasNext;
         }
 
         private void processAttributeCountJob(CountJob countJob) {
@@ -817,6 +1349,111 @@ public class DataGraph implements Graph {
             }
         }
 
+        /**
+         * Rebuilds the histograms and sketches of a type from a scan of its instances, once its count has
+         * changed by more than {@link #REFRESH_MIN_CHANGE} since they were last built, so that the cost of
+         * the scans is amortised over the instances that changed the count. A relation type is refreshed when
+         * the number of its relations changes, but not when only the players of its relations change.
+         */
+        private void processTypeRefreshJob(CountJob countJob) {
+            VertexIID.Type typeIID = countJob.asTypeRefresh().typeIID();
+            // the type may have been undefined since the job was written
+            if (schemaGraph.storage().get(typeIID.bytes()) == null) return;
+            TypeVertex type = schemaGraph.convert(typeIID);
+            if (type.isAttributeType()) processValueRefresh(type);
+            else if (type.isRelationType()) processRolePlayerRefresh(type);
+            else assert false;
+        }
+
+        private void processValueRefresh(TypeVertex attributeType) {
+            // the attributes may not be counted yet, as their count jobs can be in other shards, so a type
+            // without a sketch is always scanned
+            HyperLogLog counted = valueSketch(attributeType);
+            if (!counted.isEmpty() && !isStale(counted.estimate(), thingVertexCount(attributeType))) return;
+            Encoding.ValueType valueType = attributeType.valueType();
+            boolean hasHistogram = valueType == Encoding.ValueType.LONG || valueType == Encoding.ValueType.DOUBLE ||
+                    valueType == Encoding.ValueType.DATETIME;
+            byte[] prefix = join(ATTRIBUTE.prefix().bytes(), attributeType.iid().bytes());
+            byte[] valuePrefix = join(prefix, valueType.bytes());
+            HyperLogLog sketch = HyperLogLog.create();
+            long values = 0;
+            ResourceIterator<byte[]> attributes = storage.iterate(prefix, (key, value) -> key);
+            while (attributes.hasNext()) {
+                byte[] attribute = attributes.next();
+                sketch.add(stripPrefix(attribute, prefix.length));
+                if (hasHistogram && !Double.isNaN(sortedValueToDouble(
+                        valueType, stripPrefix(attribute, valuePrefix.length)))) values++;
+            }
+            storage.putUntracked(valueSketchKey(attributeType.iid()), sketch.bytes());
+            if (hasHistogram) {
+                ResourceIterator<Double> sortedValues = storage.iterate(valuePrefix, (key, value) ->
+                        sortedValueToDouble(valueType, stripPrefix(key, valuePrefix.length))
+                ).filter(value -> !Double.isNaN(value));
+                Histogram histogram = Histogram.ofSorted(values, sortedValues);
+                sortedValues.recycle();
+                storage.putUntracked(valueHistogramKey(attributeType.iid()), histogram.bytes());
+            }
+        }
+
+        /**
+         * Returns the value of the sorted value bytes of a long, double or datetime attribute, or NaN for
+         * the sorted bytes of -0.0, which precede those of every negative double and so are out of order.
+         */
+        private double sortedValueToDouble(Encoding.ValueType valueType, byte[] sortedValue) {
+            if (valueType == Encoding.ValueType.DOUBLE) return sortedBytesToDouble(sortedValue);
+            else return sortedBytesToLong(sortedValue);
+        }
+
+        private void processRolePlayerRefresh(TypeVertex relationType) {
+            List<TypeVertex> roleTypes = new ArrayList<>();
+            TypeVertex type = relationType;
+            while (type != null && !type.equals(schemaGraph.rootRelationType())) {
+                roleTypes.addAll(type.outs().edge(RELATES).to().toList());
+                type = type.outs().edge(SUB).to().firstOrNull();
+            }
+            long count = thingVertexCount(relationType);
+            if (iterate(roleTypes).noneMatch(rt -> isStale(rolePlayerDegrees(relationType, rt).count(), count))) {
+                return;
+            }
+
+            Map<VertexIID.Type, NavigableMap<Double, Long>> degrees = new HashMap<>();
+            Map<VertexIID.Type, HyperLogLog> sketches = new HashMap<>();
+            Map<VertexIID.Type, Long> relationDegrees = new HashMap<>();
+            roleTypes.forEach(roleType -> {
+                degrees.put(roleType.iid(), new TreeMap<>());
+                sketches.put(roleType.iid(), HyperLogLog.create());
+            });
+            ResourceIterator<byte[]> relations = storage.iterate(
+                    join(RELATION.prefix().bytes(), relationType.iid().bytes()), (key, value) -> key
+            );
+            while (relations.hasNext()) {
+                roleTypes.forEach(roleType -> relationDegrees.put(roleType.iid(), 0L));
+                ResourceIterator<EdgeIID.Thing> rolePlayers = storage.iterate(
+                        join(relations.next(), ROLEPLAYER.out().bytes()), (key, value) -> EdgeIID.Thing.of(key)
+                );
+                while (rolePlayers.hasNext()) {
+                    EdgeIID.Thing rolePlayer = rolePlayers.next();
+                    VertexIID.Type roleTypeIID = rolePlayer.infix().asRolePlayer().tail();
+                    if (!relationDegrees.containsKey(roleTypeIID)) continue;
+                    relationDegrees.merge(roleTypeIID, 1L, Long::sum);
+                    sketches.get(roleTypeIID).add(rolePlayer.end().bytes());
+                }
+                relationDegrees.forEach((roleTypeIID, degree) -> degrees.get(roleTypeIID).merge(
+                        (double) degree, 1L, Long::sum
+                ));
+            }
+            for (TypeVertex roleType : roleTypes) {
+                storage.putUntracked(rolePlayerDegreeHistogramKey(relationType.iid(), roleType.iid()),
+                                     Histogram.of(degrees.get(roleType.iid())).bytes());
+                storage.putUntracked(rolePlayerSketchKey(relationType.iid(), roleType.iid()),
+                                     sketches.get(roleType.iid()).bytes());
+            }
+        }
+
+        private boolean isStale(double counted, long count) {
+            return Math.abs(count - counted) > REFRESH_MIN_CHANGE * Math.max(counted, 1);
+        }
+
         private long bytesToLongOrZero(byte[] bytes) {
             return bytes != null ? bytesToLong(bytes) : 0;
         }
@@ -831,7 +1468,8 @@ public class DataGraph implements Graph {
             }
 
             public static CountJob of(byte[] key, byte[] value) {
-                byte[] countJobKey = stripPrefix(key, PrefixIID.LENGTH);
+                // strip the prefix and the shard of the count job
+                byte[] countJobKey = stripPrefix(key, PrefixIID.LENGTH + 1);
                 Encoding.Statistics.JobType jobType = Encoding.Statistics.JobType.of(new byte[]{countJobKey[0]});
                 Encoding.Statistics.JobOperation jobOperation = Encoding.Statistics.JobOperation.of(value);
                 byte[] countJobIID = stripPrefix(countJobKey, PrefixIID.LENGTH);
@@ -842,6 +1480,8 @@ public class DataGraph implements Graph {
                     VertexIID.Thing thingIID = VertexIID.Thing.extract(countJobIID, 0);
                     VertexIID.Attribute<?> attIID = VertexIID.Attribute.extract(countJobIID, thingIID.bytes().length);
                     return new HasEdge(key, thingIID, attIID, jobOperation);
+                } else if (jobType == Encoding.Statistics.JobType.TYPE_REFRESH) {
+                    return new TypeRefresh(key, VertexIID.Type.of(countJobIID), jobOperation);
                 } else {
                     assert false;
                     return null;
@@ -864,6 +1504,10 @@ public class DataGraph implements Graph {
                 throw GraknException.of(ILLEGAL_CAST, className(this.getClass()), className(HasEdge.class));
             }
 
+            public TypeRefresh asTypeRefresh() {
+                throw GraknException.of(ILLEGAL_CAST, className(this.getClass()), className(TypeRefresh.class));
+            }
+
             public static class Attribute extends CountJob {
                 private final VertexIID.Attribute<?> attIID;
 
@@ -906,6 +1550,24 @@ public class DataGraph implements Graph {
                     return this;
                 }
             }
+
+            public static class TypeRefresh extends CountJob {
+                private final VertexIID.Type typeIID;
+
+                private TypeRefresh(byte[] key, VertexIID.Type typeIID, Encoding.Statistics.JobOperation value) {
+                    super(key, value);
+                    this.typeIID = typeIID;
+                }
+
+                public VertexIID.Type typeIID() {
+                    return typeIID;
+                }
+
+                @Override
+                public TypeRefresh asTypeRefresh() {
+                    return this;
+                }
+            }
         }
     }
 }
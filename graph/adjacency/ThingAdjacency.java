@@ -22,8 +22,11 @@ import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.graph.common.Encoding;
 import grakn.core.graph.edge.ThingEdge;
 import grakn.core.graph.iid.IID;
+import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.ThingVertex;
 
+import java.util.List;
+
 public interface ThingAdjacency {
 
     /**
@@ -71,6 +74,44 @@ public interface ThingAdjacency {
      */
     ThingEdge edge(Encoding.Edge.Thing encoding, ThingVertex adjacent, ThingVertex optimised);
 
+    /**
+     * Returns an {@code IteratorBuilder} to retrieve the optimisation edges of type {@code encoding}
+     * that connect to an {@code adjacent} vertex, through any vertex of the type {@code optimisedType}.
+     *
+     * The edges are keyed by the vertices that they compress, after the adjacent vertex, so they are
+     * scanned for the adjacent vertex alone, rather than for every vertex of its type.
+     *
+     * @param encoding      type of the edge to filter by
+     * @param adjacent      vertex that the edges connect to
+     * @param optimisedType type of the vertices that the optimised edges are compressing
+     * @return an {@code IteratorBuilder} to retrieve the edges that connect to {@code adjacent}.
+     */
+    ThingIteratorBuilder edge(Encoding.Edge.Thing encoding, ThingVertex adjacent, VertexIID.Type optimisedType);
+
+    /**
+     * Returns whether there is an edge of type {@code encoding} that connects to each of a
+     * batch of {@code adjacents}, which looks up the edges that are not in memory in a single
+     * batched read of the storage.
+     *
+     * @param encoding  type of the edge to filter by
+     * @param adjacents vertices that the edges connect to
+     * @return whether an edge of type {@code encoding} connects to each vertex, in the order of {@code adjacents}.
+     */
+    boolean[] hasEdges(Encoding.Edge.Thing encoding, List<? extends ThingVertex> adjacents);
+
+    /**
+     * Returns the vertices that edges of type {@code encoding} connect to, in the order of
+     * their IIDs, through an iterator that can seek forward to an IID.
+     *
+     * The edges are keyed by the IIDs of the vertices that they connect to, so the sorted
+     * adjacencies of several vertices can be intersected by seeking each of them to the
+     * vertices of the others, without reading the edges that are skipped over.
+     *
+     * @param encoding type of the edge to filter by, which must not be an optimisation edge
+     * @return a {@code SortedIterator} over the vertices that the edges connect to
+     */
+    SortedIterator sortedAdjacents(Encoding.Edge.Thing encoding);
+
     /**
      * Puts an adjacent vertex over an edge with a given encoding.
      *
@@ -130,6 +171,29 @@ public interface ThingAdjacency {
 
     void commit();
 
+    /**
+     * Returns true if an edge has been put into, or removed from, this adjacency, rather than
+     * only read from the storage.
+     *
+     * @return true if this adjacency holds writes that have not been committed
+     */
+    boolean isModified();
+
+    interface SortedIterator extends ResourceIterator<ThingVertex> {
+
+        /**
+         * Returns the IID of the next vertex, without moving past it.
+         */
+        VertexIID.Thing peekIID();
+
+        /**
+         * Moves forward to the first vertex whose IID is not less than the given IID.
+         *
+         * @param iid the IID to seek to
+         */
+        void seek(VertexIID.Thing iid);
+    }
+
     interface ThingIteratorBuilder {
 
         ResourceIterator<ThingVertex> from();
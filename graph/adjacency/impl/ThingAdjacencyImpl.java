@@ -18,10 +18,14 @@
 
 package grakn.core.graph.adjacency.impl;
 
+import grakn.common.collection.Pair;
+import grakn.core.common.collection.Bytes;
+import grakn.core.common.iterator.AbstractResourceIterator;
 import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.concurrent.common.ConcurrentSet;
 import grakn.core.graph.adjacency.ThingAdjacency;
 import grakn.core.graph.common.Encoding;
+import grakn.core.graph.common.Storage;
 import grakn.core.graph.edge.Edge;
 import grakn.core.graph.edge.ThingEdge;
 import grakn.core.graph.edge.impl.ThingEdgeImpl;
@@ -29,20 +33,27 @@ import grakn.core.graph.iid.EdgeIID;
 import grakn.core.graph.iid.IID;
 import grakn.core.graph.iid.InfixIID;
 import grakn.core.graph.iid.SuffixIID;
+import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.ThingVertex;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import static grakn.core.common.collection.Bytes.compareBytes;
 import static grakn.core.common.collection.Bytes.join;
 import static grakn.core.common.iterator.Iterators.iterate;
-import static grakn.core.common.iterator.Iterators.link;
 import static java.util.Arrays.copyOfRange;
 import static java.util.Collections.emptyIterator;
+import static java.util.Comparator.comparing;
 
 public abstract class ThingAdjacencyImpl implements ThingAdjacency {
 
@@ -50,12 +61,16 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
     final Encoding.Direction.Adjacency direction;
     final ConcurrentMap<InfixIID.Thing, ConcurrentSet<InfixIID.Thing>> infixes;
     final ConcurrentMap<InfixIID.Thing, ConcurrentMap<EdgeIID.Thing, ThingEdge>> edges;
+    private volatile boolean isModified;
+    private volatile boolean hasBufferedEdges;
 
     ThingAdjacencyImpl(ThingVertex owner, Encoding.Direction.Adjacency direction) {
         this.owner = owner;
         this.direction = direction;
         this.infixes = new ConcurrentHashMap<>();
         this.edges = new ConcurrentHashMap<>();
+        this.isModified = false;
+        this.hasBufferedEdges = false;
     }
 
     InfixIID.Thing infixIID(Encoding.Edge.Thing encoding, IID... lookAhead) {
@@ -76,6 +91,27 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
         }
     }
 
+    /**
+     * Returns the IID of the edge as it is keyed in the storage from the owner of this adjacency.
+     */
+    EdgeIID.Thing iid(ThingEdge edge) {
+        return direction.isOut() ? edge.outIID() : edge.inIID();
+    }
+
+    /**
+     * Returns the IID of the vertex that the edge connects the owner of this adjacency to.
+     */
+    VertexIID.Thing adjacentIID(ThingEdge edge) {
+        return direction.isOut() ? edge.toIID() : edge.fromIID();
+    }
+
+    ResourceIterator<ThingEdge> bufferedEdgeIterator(Encoding.Edge.Thing encoding, ThingVertex adjacent,
+                                                     VertexIID.Type optimisedType) {
+        assert encoding.isOptimisation();
+        IID[] lookAhead = new IID[]{optimisedType, adjacent.iid().prefix(), adjacent.iid().type()};
+        return bufferedEdgeIterator(encoding, lookAhead).filter(e -> adjacentIID(e).equals(adjacent.iid()));
+    }
+
     ResourceIterator<ThingEdge> bufferedEdgeIterator(Encoding.Edge.Thing encoding, IID[] lookAhead) {
         Map<EdgeIID.Thing, ThingEdge> result;
         InfixIID.Thing infixIID = infixIID(encoding, lookAhead);
@@ -102,8 +138,8 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
     public ThingEdge edge(Encoding.Edge.Thing encoding, ThingVertex adjacent, ThingVertex optimised) {
         assert encoding.isOptimisation();
         Predicate<ThingEdge> predicate = direction.isOut()
-                ? e -> e.to().equals(adjacent) && e.outIID().suffix().equals(SuffixIID.of(optimised.iid().key()))
-                : e -> e.from().equals(adjacent) && e.inIID().suffix().equals(SuffixIID.of(optimised.iid().key()));
+                ? e -> e.toIID().equals(adjacent.iid()) && e.outIID().suffix().equals(SuffixIID.of(optimised.iid().key()))
+                : e -> e.fromIID().equals(adjacent.iid()) && e.inIID().suffix().equals(SuffixIID.of(optimised.iid().key()));
         ResourceIterator<ThingEdge> iterator = bufferedEdgeIterator(
                 encoding, new IID[]{optimised.iid().type(), adjacent.iid().prefix(), adjacent.iid().type()}
         );
@@ -119,7 +155,9 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
     @Override
     public ThingEdge edge(Encoding.Edge.Thing encoding, ThingVertex adjacent) {
         assert !encoding.isOptimisation();
-        Predicate<ThingEdge> predicate = direction.isOut() ? e -> e.to().equals(adjacent) : e -> e.from().equals(adjacent);
+        Predicate<ThingEdge> predicate = direction.isOut()
+                ? e -> e.toIID().equals(adjacent.iid())
+                : e -> e.fromIID().equals(adjacent.iid());
         ResourceIterator<ThingEdge> iterator = bufferedEdgeIterator(encoding, new IID[]{adjacent.iid().prefix(), adjacent.iid().type()});
         ThingEdge edge = null;
         while (iterator.hasNext()) {
@@ -130,6 +168,32 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
         return edge;
     }
 
+    /**
+     * Returns the edges of the iterator, paired with their IIDs from the owner of this adjacency, and sorted by them.
+     */
+    List<Pair<byte[], ThingEdge>> sorted(ResourceIterator<ThingEdge> edgeIterator) {
+        List<Pair<byte[], ThingEdge>> sorted = edgeIterator.map(edge -> new Pair<>(iid(edge).bytes(), edge)).toList();
+        sorted.sort(comparing(Pair::first, Bytes::compareBytes));
+        return sorted;
+    }
+
+    /**
+     * Returns the edges of the iterator that exist only in memory, sorted as by {@link #sorted}. The persisted
+     * edges that are cached in this adjacency are left out, as the storage iterates them in order already, so
+     * that an adjacency that has only been read is not sorted again each time it is merged with the storage.
+     */
+    List<Pair<byte[], ThingEdge>> sortedBuffered(Supplier<ResourceIterator<ThingEdge>> edgeIterator) {
+        if (!hasBufferedEdges) return new ArrayList<>();
+        return sorted(edgeIterator.get().filter(edge -> !(edge instanceof ThingEdgeImpl.Persisted)));
+    }
+
+    @Override
+    public boolean[] hasEdges(Encoding.Edge.Thing encoding, List<? extends ThingVertex> adjacents) {
+        boolean[] hasEdges = new boolean[adjacents.size()];
+        for (int i = 0; i < hasEdges.length; i++) hasEdges[i] = edge(encoding, adjacents.get(i)) != null;
+        return hasEdges;
+    }
+
     private ThingEdgeImpl put(Encoding.Edge.Thing encoding, ThingEdgeImpl edge, IID[] infixes, boolean isModified, boolean isReflexive) {
         assert encoding.lookAhead() == infixes.length;
         InfixIID.Thing infixIID = infixIID(encoding);
@@ -145,9 +209,13 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
             if (thingEdge.isInferred() && !edge.isInferred()) thingEdge.isInferred(false);
         } else {
             edgesByOutIID.put(edge.outIID(), edge);
+            if (!(edge instanceof ThingEdgeImpl.Persisted)) hasBufferedEdges = true;
         }
 
-        if (isModified) owner.setModified();
+        if (isModified) {
+            this.isModified = true;
+            owner.setModified();
+        }
         if (isReflexive) {
             if (direction.isOut()) ((ThingAdjacencyImpl) edge.to().ins()).putNonReflexive(edge);
             else ((ThingAdjacencyImpl) edge.from().outs()).putNonReflexive(edge);
@@ -192,6 +260,7 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
         InfixIID.Thing infixIID = infixIID(edge.encoding(), infixTails(edge));
         if (edges.containsKey(infixIID)) {
             edges.get(infixIID).remove(edge.outIID());
+            isModified = true;
             owner.setModified();
         }
     }
@@ -201,12 +270,157 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
         for (Encoding.Edge.Thing encoding : Encoding.Edge.Thing.values()) delete(encoding);
     }
 
+    @Override
+    public boolean isModified() {
+        return isModified;
+    }
+
     @Override
     public void commit() {
         iterate(edges.values()).flatMap(edgeMap -> iterate(edgeMap.values()))
                 .filter(e -> !e.isInferred()).forEachRemaining(Edge::commit);
     }
 
+    /**
+     * Merges the edges in memory, sorted by their IIDs, with the edges of the storage, which are iterated in
+     * the order of their IIDs, and returns an edge that is in both once, as the edge in memory. The merged
+     * edges can be sought forward by their IIDs, which seeks the storage without reading the edges between.
+     */
+    private class SortedMergeIterator extends AbstractResourceIterator<ThingEdge> {
+
+        private final List<Pair<byte[], ThingEdge>> bufferedEdges;
+        private final Storage.SeekableIterator<ThingEdge> storageIterator;
+        private int bufferedIndex;
+        private ThingEdge storageNext;
+        private byte[] storageNextIID;
+        private ThingEdge next;
+        private byte[] nextIID;
+
+        private SortedMergeIterator(List<Pair<byte[], ThingEdge>> bufferedEdges,
+                                    @Nullable Storage.SeekableIterator<ThingEdge> storageIterator) {
+            this.bufferedEdges = bufferedEdges;
+            this.storageIterator = storageIterator;
+            this.bufferedIndex = 0;
+            this.storageNext = null;
+            this.next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) fetchNext();
+            return next != null;
+        }
+
+        private boolean fetchStorageNext() {
+            if (storageNext == null && storageIterator != null && storageIterator.hasNext()) {
+                storageNext = storageIterator.next();
+                storageNextIID = iid(storageNext).bytes();
+            }
+            return storageNext != null;
+        }
+
+        private void fetchNext() {
+            boolean hasStorageNext = fetchStorageNext();
+            if (bufferedIndex == bufferedEdges.size()) {
+                if (hasStorageNext) takeStorageNext();
+                return;
+            }
+
+            Pair<byte[], ThingEdge> buffered = bufferedEdges.get(bufferedIndex);
+            int comparison = hasStorageNext ? compareBytes(buffered.first(), storageNextIID) : -1;
+            if (comparison > 0) {
+                takeStorageNext();
+            } else {
+                if (comparison == 0) storageNext = null;
+                bufferedIndex++;
+                next = buffered.second();
+                nextIID = buffered.first();
+            }
+        }
+
+        private void takeStorageNext() {
+            next = storageNext;
+            nextIID = storageNextIID;
+            storageNext = null;
+        }
+
+        ThingEdge peek() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return next;
+        }
+
+        @Override
+        public ThingEdge next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ThingEdge edge = next;
+            next = null;
+            return edge;
+        }
+
+        /**
+         * Moves forward to the first edge whose IID is not less than the target.
+         */
+        void seek(byte[] target) {
+            if (next != null) {
+                if (compareBytes(nextIID, target) >= 0) return;
+                next = null;
+            }
+            while (bufferedIndex < bufferedEdges.size() &&
+                    compareBytes(bufferedEdges.get(bufferedIndex).first(), target) < 0) {
+                bufferedIndex++;
+            }
+            if (storageNext != null && compareBytes(storageNextIID, target) < 0) storageNext = null;
+            if (storageNext == null && storageIterator != null) storageIterator.seek(target);
+        }
+
+        @Override
+        public void recycle() {
+            if (storageIterator != null) storageIterator.recycle();
+        }
+    }
+
+    /**
+     * Iterates over the vertices that the edges of an encoding connect the owner to, in the order of their IIDs,
+     * as the edges that are not optimisation edges are keyed by the IIDs of the vertices that they connect to.
+     */
+    private class SortedIteratorImpl extends AbstractResourceIterator<ThingVertex> implements SortedIterator {
+
+        private final SortedMergeIterator edgeIterator;
+        private final byte[] infixPrefix;
+
+        private SortedIteratorImpl(Encoding.Edge.Thing encoding, SortedMergeIterator edgeIterator) {
+            assert !encoding.isOptimisation();
+            this.edgeIterator = edgeIterator;
+            this.infixPrefix = join(owner.iid().bytes(), infixIID(encoding).bytes());
+        }
+
+        @Override
+        public boolean hasNext() {
+            return edgeIterator.hasNext();
+        }
+
+        @Override
+        public ThingVertex next() {
+            ThingEdge edge = edgeIterator.next();
+            return direction.isOut() ? edge.to() : edge.from();
+        }
+
+        @Override
+        public VertexIID.Thing peekIID() {
+            return adjacentIID(edgeIterator.peek());
+        }
+
+        @Override
+        public void seek(VertexIID.Thing iid) {
+            edgeIterator.seek(join(infixPrefix, iid.bytes()));
+        }
+
+        @Override
+        public void recycle() {
+            edgeIterator.recycle();
+        }
+    }
+
     static class ThingIteratorBuilderImpl implements ThingIteratorBuilder {
 
         private final ResourceIterator<ThingEdge> edgeIterator;
@@ -247,6 +461,18 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
             return new ThingIteratorBuilderImpl(bufferedEdgeIterator(encoding, lookAhead));
         }
 
+        @Override
+        public ThingIteratorBuilderImpl edge(Encoding.Edge.Thing encoding, ThingVertex adjacent,
+                                             VertexIID.Type optimisedType) {
+            return new ThingIteratorBuilderImpl(bufferedEdgeIterator(encoding, adjacent, optimisedType));
+        }
+
+        @Override
+        public SortedIterator sortedAdjacents(Encoding.Edge.Thing encoding) {
+            List<Pair<byte[], ThingEdge>> bufferedEdges = sorted(bufferedEdgeIterator(encoding, new IID[0]));
+            return new SortedIteratorImpl(encoding, new SortedMergeIterator(bufferedEdges, null));
+        }
+
         @Override
         public void delete(Encoding.Edge.Thing encoding) {
             bufferedEdgeIterator(encoding, new IID[0]).forEachRemaining(Edge::delete);
@@ -264,12 +490,42 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
             super(owner, direction);
         }
 
+        /**
+         * Returns the edges of the adjacency, read from the storage in the order of their IIDs. When the
+         * adjacency holds no edges that exist only in memory, which is always the case in read transactions
+         * that do not infer anything, the edges are streamed straight from the storage, even if some of them
+         * are cached. Otherwise, the edges that exist only in memory are sorted and merged into the edges of
+         * the storage, which drops the buffered edges that are also persisted without hashing every edge.
+         */
         private ResourceIterator<ThingEdge> edgeIterator(Encoding.Edge.Thing encoding, IID... lookahead) {
-            byte[] iid = join(owner.iid().bytes(), infixIID(encoding, lookahead).bytes());
-            ResourceIterator<ThingEdge> storageIterator = owner.graph().storage()
-                    .iterate(iid, (key, value) -> cache(newPersistedEdge(EdgeIID.Thing.of(key))));
-            ResourceIterator<ThingEdge> bufferedIterator = bufferedEdgeIterator(encoding, lookahead);
-            return link(bufferedIterator, storageIterator).distinct();
+            byte[] prefix = join(owner.iid().bytes(), infixIID(encoding, lookahead).bytes());
+            return edgeIterator(prefix, () -> bufferedEdgeIterator(encoding, lookahead));
+        }
+
+        private ResourceIterator<ThingEdge> edgeIterator(byte[] prefix,
+                                                         Supplier<ResourceIterator<ThingEdge>> bufferedEdgeIterator) {
+            Storage.SeekableIterator<ThingEdge> storageIterator = storageIterator(prefix);
+            List<Pair<byte[], ThingEdge>> bufferedEdges = sortedBuffered(bufferedEdgeIterator);
+            if (bufferedEdges.isEmpty()) return storageIterator;
+            return new SortedMergeIterator(bufferedEdges, storageIterator);
+        }
+
+        private Storage.SeekableIterator<ThingEdge> storageIterator(byte[] prefix) {
+            return owner.graph().storage().iterateSeekable(
+                    prefix, (key, value) -> cacheIfEnabled(newPersistedEdge(EdgeIID.Thing.of(key)))
+            );
+        }
+
+        @Override
+        public SortedIterator sortedAdjacents(Encoding.Edge.Thing encoding) {
+            byte[] prefix = join(owner.iid().bytes(), infixIID(encoding).bytes());
+            List<Pair<byte[], ThingEdge>> bufferedEdges =
+                    sortedBuffered(() -> bufferedEdgeIterator(encoding, new IID[0]));
+            return new SortedIteratorImpl(encoding, new SortedMergeIterator(bufferedEdges, storageIterator(prefix)));
+        }
+
+        private ThingEdge cacheIfEnabled(ThingEdgeImpl.Persisted edge) {
+            return owner.graph().isCachingPersistedEdges() ? cache(edge) : edge;
         }
 
         private ThingEdgeImpl.Persisted newPersistedEdge(EdgeIID.Thing of) {
@@ -294,7 +550,7 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
 
             EdgeIID.Thing edgeIID = EdgeIID.Thing.of(owner.iid(), infixIID(encoding), adjacent.iid());
             if (owner.graph().storage().get(edgeIID.bytes()) == null) return null;
-            else return cache(newPersistedEdge(edgeIID));
+            else return cacheIfEnabled(newPersistedEdge(edgeIID));
         }
 
         @Override
@@ -308,7 +564,42 @@ public abstract class ThingAdjacencyImpl implements ThingAdjacency {
                     adjacent.iid(), SuffixIID.of(optimised.iid().key())
             );
             if (owner.graph().storage().get(edgeIID.bytes()) == null) return null;
-            else return cache(newPersistedEdge(edgeIID));
+            else return cacheIfEnabled(newPersistedEdge(edgeIID));
+        }
+
+        @Override
+        public ThingIteratorBuilder edge(Encoding.Edge.Thing encoding, ThingVertex adjacent,
+                                         VertexIID.Type optimisedType) {
+            assert encoding.isOptimisation();
+            byte[] prefix = join(owner.iid().bytes(), infixIID(encoding, optimisedType).bytes(), adjacent.iid().bytes());
+            return new ThingIteratorBuilderImpl(
+                    edgeIterator(prefix, () -> bufferedEdgeIterator(encoding, adjacent, optimisedType))
+            );
+        }
+
+        /**
+         * Looks up the edges to the adjacent vertices in memory first, and then looks up the rest of
+         * them in the storage at once, by the IIDs that they would be keyed by.
+         */
+        @Override
+        public boolean[] hasEdges(Encoding.Edge.Thing encoding, List<? extends ThingVertex> adjacents) {
+            assert !encoding.isOptimisation();
+            boolean[] hasEdges = new boolean[adjacents.size()];
+            List<Integer> unbuffered = new ArrayList<>();
+            for (int i = 0; i < hasEdges.length; i++) {
+                if (super.edge(encoding, adjacents.get(i)) != null) hasEdges[i] = true;
+                else unbuffered.add(i);
+            }
+            if (unbuffered.isEmpty()) return hasEdges;
+
+            InfixIID.Thing infixIID = infixIID(encoding);
+            byte[][] keys = new byte[unbuffered.size()][];
+            for (int j = 0; j < keys.length; j++) {
+                keys[j] = EdgeIID.Thing.of(owner.iid(), infixIID, adjacents.get(unbuffered.get(j)).iid()).bytes();
+            }
+            byte[][] values = owner.graph().storage().multiGet(keys);
+            for (int j = 0; j < keys.length; j++) hasEdges[unbuffered.get(j)] = values[j] != null;
+            return hasEdges;
         }
 
         @Override
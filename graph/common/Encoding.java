@@ -21,6 +21,7 @@ package grakn.core.graph.common;
 import grakn.core.common.collection.Bytes;
 import grakn.core.common.exception.GraknException;
 import grakn.core.common.parameters.Label;
+import grakn.core.graph.iid.VertexIID;
 import graql.lang.common.GraqlArg;
 
 import javax.annotation.Nullable;
@@ -67,6 +68,61 @@ public class Encoding {
         }
     }
 
+    /**
+     * The partitions of the data storage, each of which is stored in its own
+     * column family, so that they can be compacted and cached independently.
+     * The {@code DEFAULT} partition is only kept for keys of unknown encoding,
+     * and for migrating databases that were created before partitioning.
+     */
+    public enum Partition {
+        DEFAULT("default"),
+        VERTEX("vertex"),
+        EDGE("edge"),
+        INDEX("index"),
+        STATISTICS("statistics");
+
+        private final String name;
+        private final byte[] bytes;
+
+        Partition(String name) {
+            this.name = name;
+            this.bytes = name.getBytes(UTF_8);
+        }
+
+        /**
+         * Returns the partition of a key, or of all keys that start with a given prefix.
+         *
+         * Thing vertices are stored separately from the edges that start from them,
+         * which are keyed by the thing IID followed by an infix. Inwards ISA edges are
+         * keyed by the type IID of the thing, and are stored with the rest of the edges.
+         *
+         * @param key the key, or the prefix of the keys, to be partitioned
+         * @return the partition in which the key is stored
+         */
+        public static Partition of(byte[] key) {
+            switch (Prefix.of(key[0]).type()) {
+                case INDEX:
+                    return INDEX;
+                case STATISTICS:
+                    return STATISTICS;
+                case TYPE:
+                    return EDGE;
+                case THING:
+                    return key.length > VertexIID.Thing.length(key) ? EDGE : VERTEX;
+                default:
+                    return DEFAULT;
+            }
+        }
+
+        public String rocksName() {
+            return name;
+        }
+
+        public byte[] bytes() {
+            return bytes;
+        }
+    }
+
     public enum Status {
         BUFFERED(0),
         COMMITTED(1),
@@ -151,10 +207,14 @@ public class Encoding {
         INDEX_TYPE(0, PrefixType.INDEX),
         INDEX_RULE(10, PrefixType.INDEX),
         INDEX_ATTRIBUTE(20, PrefixType.INDEX),
+        INDEX_ATTRIBUTE_SORTED_STRING(30, PrefixType.INDEX),
+        INDEX_ATTRIBUTE_TRIGRAM(31, PrefixType.INDEX),
         STATISTICS_THINGS(50, PrefixType.STATISTICS),
         STATISTICS_COUNT_JOB(51, PrefixType.STATISTICS),
         STATISTICS_COUNTED(52, PrefixType.STATISTICS),
         STATISTICS_SNAPSHOT(53, PrefixType.STATISTICS),
+        STATISTICS_COMMITS(54, PrefixType.STATISTICS),
+        STATISTICS_CURRENT_AS_OF(55, PrefixType.STATISTICS),
         VERTEX_THING_TYPE(100, PrefixType.TYPE),
         VERTEX_ENTITY_TYPE(110, PrefixType.TYPE),
         VERTEX_ATTRIBUTE_TYPE(120, PrefixType.TYPE),
@@ -232,6 +292,7 @@ public class Encoding {
         PROPERTY_THEN(6),
         PROPERTY_VALUE(7),
         PROPERTY_VALUE_REF(8),
+        PROPERTY_TEXT_INDEXED(9),
         EDGE_ISA_IN(-40), // EDGE_ISA_OUT does not exist by design
         EDGE_SUB_OUT(50),
         EDGE_SUB_IN(-50),
@@ -295,7 +356,8 @@ public class Encoding {
         VALUE_REF(Infix.PROPERTY_VALUE_REF),
         VALUE(Infix.PROPERTY_VALUE),
         WHEN(Infix.PROPERTY_WHEN),
-        THEN(Infix.PROPERTY_THEN);
+        THEN(Infix.PROPERTY_THEN),
+        TEXT_INDEXED(Infix.PROPERTY_TEXT_INDEXED);
 
         private final Infix infix;
 
@@ -734,7 +796,9 @@ public class Encoding {
         enum Prefix {
             TYPE(Encoding.Prefix.INDEX_TYPE),
             RULE(Encoding.Prefix.INDEX_RULE),
-            ATTRIBUTE(Encoding.Prefix.INDEX_ATTRIBUTE);
+            ATTRIBUTE(Encoding.Prefix.INDEX_ATTRIBUTE),
+            ATTRIBUTE_SORTED_STRING(Encoding.Prefix.INDEX_ATTRIBUTE_SORTED_STRING),
+            ATTRIBUTE_TRIGRAM(Encoding.Prefix.INDEX_ATTRIBUTE_TRIGRAM);
 
             private final Encoding.Prefix prefix;
 
@@ -781,12 +845,19 @@ public class Encoding {
 
     public interface Statistics {
 
+        /**
+         * The number of shards that count jobs are partitioned into, by the hash of the key that they count.
+         * Changing it changes the encoding of count jobs that are persisted in the storage.
+         */
+        int COUNT_JOB_SHARDS = 8;
+
         /**
          * The size of a prefix is 1 unsigned byte; i.e. min-value = 0 and max-value = 255.
          */
         enum JobType {
             ATTRIBUTE_VERTEX(0),
-            HAS_EDGE(1);
+            HAS_EDGE(1),
+            TYPE_REFRESH(2);
 
             private final byte key;
             private final byte[] bytes;
@@ -854,7 +925,11 @@ public class Encoding {
             VERTEX_COUNT(0),
             VERTEX_TRANSITIVE_COUNT(1),
             HAS_EDGE_COUNT(2),
-            HAS_EDGE_TOTAL_COUNT(3);
+            HAS_EDGE_TOTAL_COUNT(3),
+            VALUE_HISTOGRAM(4),
+            VALUE_SKETCH(5),
+            ROLE_PLAYER_DEGREE_HISTOGRAM(6),
+            ROLE_PLAYER_SKETCH(7);
 
             private final byte key;
             private final byte[] bytes;
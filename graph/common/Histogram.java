@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.graph.common;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static grakn.core.common.collection.Bytes.DOUBLE_SIZE;
+import static grakn.core.common.collection.Bytes.INTEGER_SIZE;
+import static grakn.core.common.collection.Bytes.LONG_SIZE;
+
+/**
+ * An equi-depth histogram of a set of values, which splits them into buckets that each hold about the same
+ * number of values, so that the buckets are narrow where the values are dense. The bounds of the buckets are
+ * kept as doubles, which are only used to estimate fractions of the values, so longs and datetimes (as epoch
+ * milliseconds) lose no precision that matters to the estimates.
+ */
+public class Histogram {
+
+    public static final int MAX_BUCKETS = 32;
+    private static final Histogram EMPTY = new Histogram(0, 0, new double[0]);
+
+    private final long count;
+    private final double sum;
+    private final double[] bounds;
+
+    private Histogram(long count, double sum, double[] bounds) {
+        assert count == 0 || bounds.length >= 2;
+        this.count = count;
+        this.sum = sum;
+        this.bounds = bounds;
+    }
+
+    public static Histogram empty() {
+        return EMPTY;
+    }
+
+    public static Histogram of(@Nullable byte[] bytes) {
+        if (bytes == null) return EMPTY;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long count = buffer.getLong();
+        double sum = buffer.getDouble();
+        double[] bounds = new double[buffer.getInt()];
+        for (int i = 0; i < bounds.length; i++) bounds[i] = buffer.getDouble();
+        return new Histogram(count, sum, bounds);
+    }
+
+    /**
+     * Builds the histogram of values that are given in ascending order.
+     *
+     * @param count  the number of values, which must be known up front to place the bounds of the buckets
+     * @param values the values, in ascending order
+     */
+    public static Histogram ofSorted(long count, Iterator<Double> values) {
+        if (count == 0) return EMPTY;
+        int buckets = (int) Math.min(MAX_BUCKETS, count);
+        double[] bounds = new double[buckets + 1];
+        double sum = 0;
+        long rank = 0;
+        int bucket = 0;
+        while (values.hasNext() && rank < count) {
+            double value = values.next();
+            if (rank == 0) bounds[0] = value;
+            // the upper bound of each bucket is the last value of its share of the ranks
+            while (bucket < buckets && rank == (count * (bucket + 1) + buckets - 1) / buckets - 1) {
+                bounds[++bucket] = value;
+            }
+            sum += value;
+            rank++;
+        }
+        assert rank == count && bucket == buckets;
+        return new Histogram(count, sum, bounds);
+    }
+
+    /**
+     * Builds the histogram of values that are given as the number of times that each value occurs.
+     */
+    public static Histogram of(NavigableMap<Double, Long> frequencies) {
+        long count = frequencies.values().stream().mapToLong(l -> l).sum();
+        return ofSorted(count, new Iterator<Double>() {
+            private final Iterator<Map.Entry<Double, Long>> entries = frequencies.entrySet().iterator();
+            private Map.Entry<Double, Long> entry;
+            private long remaining;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 || entries.hasNext();
+            }
+
+            @Override
+            public Double next() {
+                if (remaining == 0) {
+                    entry = entries.next();
+                    remaining = entry.getValue();
+                }
+                remaining--;
+                return entry.getKey();
+            }
+        });
+    }
+
+    public byte[] bytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(LONG_SIZE + DOUBLE_SIZE + INTEGER_SIZE + bounds.length * DOUBLE_SIZE);
+        buffer.putLong(count).putDouble(sum).putInt(bounds.length);
+        for (double bound : bounds) buffer.putDouble(bound);
+        return buffer.array();
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double mean() {
+        return isEmpty() ? 0 : sum / count;
+    }
+
+    public double min() {
+        assert !isEmpty();
+        return bounds[0];
+    }
+
+    public double max() {
+        assert !isEmpty();
+        return bounds[bounds.length - 1];
+    }
+
+    /**
+     * Returns the estimated fraction of the values that are less than the given value, by interpolating
+     * linearly within the bucket that the value falls in.
+     */
+    public double fractionBelow(double value) {
+        if (isEmpty() || value <= bounds[0]) return 0;
+        else if (value > bounds[bounds.length - 1]) return 1;
+        int buckets = bounds.length - 1;
+        int bucket = Arrays.binarySearch(bounds, value);
+        // the bucket whose upper bound is the first bound that is not less than the value
+        if (bucket < 0) bucket = -bucket - 1;
+        while (bucket > 1 && bounds[bucket - 1] >= value) bucket--;
+        double lower = bounds[bucket - 1], upper = bounds[bucket];
+        double within = upper > lower ? (value - lower) / (upper - lower) : 1;
+        return (bucket - 1 + within) / buckets;
+    }
+
+    /**
+     * Returns the estimated fraction of the values that are less than a value drawn from the other histogram,
+     * by averaging the fraction below the middle of each bucket of the other histogram.
+     */
+    public double fractionBelow(Histogram other) {
+        if (isEmpty() || other.isEmpty()) return 0;
+        double fraction = 0;
+        for (int i = 1; i < other.bounds.length; i++) {
+            fraction += fractionBelow((other.bounds[i - 1] + other.bounds[i]) / 2);
+        }
+        return fraction / (other.bounds.length - 1);
+    }
+}
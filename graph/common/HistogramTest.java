@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.graph.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    private static final double BUCKET = 1.0 / Histogram.MAX_BUCKETS;
+
+    @Test
+    public void test_buckets_are_bounded_by_equal_shares_of_the_ranks() {
+        Histogram histogram = histogram(range(0, 1000));
+        assertEquals(1000, histogram.count());
+        assertEquals(999 * 1000 / 2, histogram.sum(), 0);
+        assertEquals(0, histogram.min(), 0);
+        assertEquals(999, histogram.max(), 0);
+        // the upper bound of bucket b is the value at rank ceil(count * b / buckets) - 1, below which
+        // the whole of the first b buckets are
+        for (int b = 1; b <= Histogram.MAX_BUCKETS; b++) {
+            long bound = (1000L * b + Histogram.MAX_BUCKETS - 1) / Histogram.MAX_BUCKETS - 1;
+            assertEquals((double) b / Histogram.MAX_BUCKETS, histogram.fractionBelow(bound), 0);
+        }
+    }
+
+    @Test
+    public void test_fewer_values_than_buckets_have_a_bucket_each() {
+        Histogram histogram = histogram(range(1, 4));
+        assertEquals(3, histogram.count());
+        assertEquals(1, histogram.min(), 0);
+        assertEquals(3, histogram.max(), 0);
+        assertEquals(0, histogram.fractionBelow(1), 0);
+        assertTrue(histogram.fractionBelow(2) < histogram.fractionBelow(2.5));
+        assertEquals(1, histogram.fractionBelow(3.5), 0);
+    }
+
+    @Test
+    public void test_fraction_below_the_edges() {
+        Histogram histogram = histogram(range(0, 1000));
+        assertEquals(0, histogram.fractionBelow(-1), 0);
+        assertEquals(0, histogram.fractionBelow(0), 0);
+        assertEquals(1, histogram.fractionBelow(999.5), 0);
+        assertEquals(1, histogram.fractionBelow(Double.MAX_VALUE), 0);
+        for (double value = 0; value < 1000; value += 37.5) {
+            assertEquals(value / 1000, histogram.fractionBelow(value), BUCKET);
+        }
+        assertEquals(0, Histogram.empty().fractionBelow(0), 0);
+        assertEquals(0, Histogram.empty().fractionBelow(histogram), 0);
+    }
+
+    @Test
+    public void test_fraction_below_duplicates() {
+        List<Double> values = range(0, 100);
+        values.addAll(Collections.nCopies(500, 100.0));
+        values.addAll(range(101, 501));
+        Histogram histogram = histogram(values);
+        // the duplicates span many buckets, none of which are below them
+        assertEquals(0.1, histogram.fractionBelow(100), BUCKET);
+        assertEquals(0.6, histogram.fractionBelow(100.5), BUCKET);
+
+        List<Double> leading = new ArrayList<>(Collections.nCopies(500, 0.0));
+        leading.addAll(range(1, 501));
+        histogram = histogram(leading);
+        assertEquals(0, histogram.fractionBelow(0), 0);
+        assertEquals(0.5, histogram.fractionBelow(0.5), BUCKET);
+
+        histogram = histogram(Collections.nCopies(10, 7.0));
+        assertEquals(0, histogram.fractionBelow(7), 0);
+        assertEquals(1, histogram.fractionBelow(7.5), 0);
+    }
+
+    @Test
+    public void test_histogram_of_frequencies_is_the_histogram_of_its_values() {
+        TreeMap<Double, Long> frequencies = new TreeMap<>();
+        List<Double> values = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            frequencies.put((double) i, i % 7);
+            values.addAll(Collections.nCopies((int) (i % 7), (double) i));
+        }
+        assertSameHistogram(histogram(values), Histogram.of(frequencies));
+    }
+
+    @Test
+    public void test_bytes_round_trip() {
+        Histogram histogram = histogram(range(-500, 500));
+        assertSameHistogram(histogram, Histogram.of(histogram.bytes()));
+        assertTrue(Histogram.of(null).isEmpty());
+        assertTrue(Histogram.of(Histogram.empty().bytes()).isEmpty());
+    }
+
+    private static List<Double> range(long start, long end) {
+        return LongStream.range(start, end).mapToObj(i -> (double) i).collect(Collectors.toList());
+    }
+
+    private static Histogram histogram(List<Double> sortedValues) {
+        return Histogram.ofSorted(sortedValues.size(), sortedValues.iterator());
+    }
+
+    private static void assertSameHistogram(Histogram expected, Histogram actual) {
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.sum(), actual.sum(), 0);
+        assertEquals(expected.min(), actual.min(), 0);
+        assertEquals(expected.max(), actual.max(), 0);
+        for (double value = expected.min() - 1; value <= expected.max() + 1; value += 0.5) {
+            assertEquals(expected.fractionBelow(value), actual.fractionBelow(value), 0);
+        }
+    }
+}
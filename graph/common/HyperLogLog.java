@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.graph.common;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch of the number of distinct keys in a set, to within a few percent, in a fixed number of
+ * bytes. Sketches of different sets can be merged into the sketch of their union, so the overlap of two sets
+ * can be estimated as the sum of their distinct counts less the distinct count of their union.
+ */
+public class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final byte[] registers;
+
+    private HyperLogLog(byte[] registers) {
+        assert registers.length == REGISTERS;
+        this.registers = registers;
+    }
+
+    public static HyperLogLog create() {
+        return new HyperLogLog(new byte[REGISTERS]);
+    }
+
+    public static HyperLogLog of(@Nullable byte[] bytes) {
+        return bytes == null ? create() : new HyperLogLog(bytes);
+    }
+
+    public byte[] bytes() {
+        return registers;
+    }
+
+    public void add(byte[] key) {
+        long hash = hash(key);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // the guard bit bounds the rank when the rest of the hash is zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[register]) registers[register] = (byte) rank;
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        byte[] merged = Arrays.copyOf(registers, REGISTERS);
+        for (int i = 0; i < REGISTERS; i++) merged[i] = (byte) Math.max(merged[i], other.registers[i]);
+        return new HyperLogLog(merged);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) return false;
+        }
+        return true;
+    }
+
+    public double estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // small sets are counted more accurately by the registers that are still empty
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) return REGISTERS * Math.log((double) REGISTERS / zeros);
+        else return estimate;
+    }
+
+    /**
+     * Returns the estimated number of keys in both this set and the other, which is never negative.
+     */
+    public double overlap(HyperLogLog other) {
+        return Math.max(0, estimate() + other.estimate() - merge(other).estimate());
+    }
+
+    /**
+     * Hashes the key with 64-bit FNV-1a, finalised with the mixer of MurmurHash3 so that every bit of the
+     * key affects the leading bits of the hash, which pick the register.
+     */
+    private static long hash(byte[] key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
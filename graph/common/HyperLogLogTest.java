@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.graph.common;
+
+import org.junit.Test;
+
+import static grakn.core.common.collection.Bytes.longToBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest {
+
+    // three standard errors of a sketch of 4096 registers
+    private static final double ERROR = 3 * 1.04 / Math.sqrt(4096);
+
+    @Test
+    public void test_estimate_of_known_sets() {
+        assertTrue(HyperLogLog.create().isEmpty());
+        assertEquals(0, HyperLogLog.create().estimate(), 0);
+        for (long count : new long[]{1, 100, 1_000, 10_000, 100_000}) {
+            HyperLogLog sketch = sketch(0, count);
+            assertEquals(count, sketch.estimate(), count * ERROR);
+        }
+    }
+
+    @Test
+    public void test_duplicates_do_not_change_the_estimate() {
+        HyperLogLog sketch = sketch(0, 1_000);
+        double estimate = sketch.estimate();
+        for (long i = 0; i < 1_000; i++) sketch.add(longToBytes(i));
+        assertEquals(estimate, sketch.estimate(), 0);
+    }
+
+    @Test
+    public void test_merge_estimates_the_union() {
+        HyperLogLog merged = sketch(0, 10_000).merge(sketch(5_000, 15_000));
+        assertEquals(15_000, merged.estimate(), 15_000 * ERROR);
+        assertEquals(sketch(0, 15_000).estimate(), merged.estimate(), 0);
+    }
+
+    @Test
+    public void test_overlap_of_known_sets() {
+        HyperLogLog first = sketch(0, 10_000);
+        // the error of the overlap is that of the union, however small the overlap is
+        assertEquals(5_000, first.overlap(sketch(5_000, 15_000)), 15_000 * ERROR);
+        assertEquals(10_000, first.overlap(sketch(0, 10_000)), 10_000 * ERROR);
+        assertEquals(0, first.overlap(sketch(20_000, 30_000)), 20_000 * ERROR);
+        assertTrue(first.overlap(sketch(20_000, 30_000)) >= 0);
+        assertEquals(0, first.overlap(HyperLogLog.create()), 0);
+    }
+
+    @Test
+    public void test_bytes_round_trip() {
+        HyperLogLog sketch = sketch(0, 1_000);
+        HyperLogLog copy = HyperLogLog.of(sketch.bytes());
+        assertArrayEquals(sketch.bytes(), copy.bytes());
+        assertEquals(sketch.estimate(), copy.estimate(), 0);
+        assertTrue(HyperLogLog.of(null).isEmpty());
+    }
+
+    private static HyperLogLog sketch(long start, long end) {
+        HyperLogLog sketch = HyperLogLog.create();
+        for (long i = start; i < end; i++) sketch.add(longToBytes(i));
+        return sketch;
+    }
+}
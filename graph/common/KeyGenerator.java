@@ -166,17 +166,26 @@ public class KeyGenerator {
                 super(PERSISTED.initialValue(), PERSISTED.isIncrement() ? 1 : -1);
             }
 
-            public void sync(Storage storage) {
+            /**
+             * Synchronises the next key of every type with the last thing of that type in storage.
+             *
+             * The types are read from the schema storage, as the data storage only holds
+             * the instances of the types, which are looked up by their type prefix.
+             *
+             * @param schemaStorage the storage that holds the type vertices
+             * @param dataStorage   the storage that holds the thing vertices
+             */
+            public void sync(Storage schemaStorage, Storage dataStorage) {
                 Encoding.Vertex.Thing[] thingsWithGeneratedIID = new Encoding.Vertex.Thing[]{ENTITY, RELATION, ROLE};
 
                 for (Encoding.Vertex.Thing thingEncoding : thingsWithGeneratedIID) {
                     byte[] typeEncoding = Encoding.Vertex.Type.of(thingEncoding).prefix().bytes();
-                    ResourceIterator<byte[]> typeIterator = storage.iterate(typeEncoding, (iid, value) -> iid)
+                    ResourceIterator<byte[]> typeIterator = schemaStorage.iterate(typeEncoding, (iid, value) -> iid)
                             .filter(iid1 -> iid1.length == VertexIID.Type.LENGTH);
                     while (typeIterator.hasNext()) {
                         byte[] typeIID = typeIterator.next();
                         byte[] prefix = join(thingEncoding.prefix().bytes(), typeIID);
-                        byte[] lastIID = storage.getLastKey(prefix);
+                        byte[] lastIID = dataStorage.getLastKey(prefix);
                         AtomicLong nextValue = lastIID != null ?
                                 new AtomicLong(sortedBytesToLong(copyOfRange(lastIID, PREFIX_W_TYPE_LENGTH, DEFAULT_LENGTH)) + delta) :
                                 new AtomicLong(initialValue);
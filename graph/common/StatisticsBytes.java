@@ -18,9 +18,14 @@
 
 package grakn.core.graph.common;
 
+import grakn.core.graph.iid.PrefixIID;
 import grakn.core.graph.iid.VertexIID;
 
+import java.util.Arrays;
+
 import static grakn.core.common.collection.Bytes.join;
+import static grakn.core.common.collection.Bytes.stripPrefix;
+import static grakn.core.graph.common.Encoding.Statistics.COUNT_JOB_SHARDS;
 
 public class StatisticsBytes {
     public static byte[] vertexCountKey(VertexIID.Type typeIID) {
@@ -52,16 +57,48 @@ public class StatisticsBytes {
                 Encoding.Statistics.Infix.HAS_EDGE_TOTAL_COUNT.bytes());
     }
 
-    public static byte[] countJobKey() {
+    public static byte[] valueHistogramKey(VertexIID.Type attTypeIID) {
         return join(
-                Encoding.Prefix.STATISTICS_COUNT_JOB.bytes());
+                Encoding.Prefix.STATISTICS_THINGS.bytes(),
+                attTypeIID.bytes(),
+                Encoding.Statistics.Infix.VALUE_HISTOGRAM.bytes());
     }
 
-    public static byte[] attributeCountJobKey(VertexIID.Attribute<?> attIID) {
+    public static byte[] valueSketchKey(VertexIID.Type attTypeIID) {
+        return join(
+                Encoding.Prefix.STATISTICS_THINGS.bytes(),
+                attTypeIID.bytes(),
+                Encoding.Statistics.Infix.VALUE_SKETCH.bytes());
+    }
+
+    public static byte[] rolePlayerDegreeHistogramKey(VertexIID.Type relationTypeIID, VertexIID.Type roleTypeIID) {
+        return join(
+                Encoding.Prefix.STATISTICS_THINGS.bytes(),
+                relationTypeIID.bytes(),
+                Encoding.Statistics.Infix.ROLE_PLAYER_DEGREE_HISTOGRAM.bytes(),
+                roleTypeIID.bytes());
+    }
+
+    public static byte[] rolePlayerSketchKey(VertexIID.Type relationTypeIID, VertexIID.Type roleTypeIID) {
+        return join(
+                Encoding.Prefix.STATISTICS_THINGS.bytes(),
+                relationTypeIID.bytes(),
+                Encoding.Statistics.Infix.ROLE_PLAYER_SKETCH.bytes(),
+                roleTypeIID.bytes());
+    }
+
+    public static byte[] countJobKey(int shard) {
         return join(
                 Encoding.Prefix.STATISTICS_COUNT_JOB.bytes(),
-                Encoding.Statistics.JobType.ATTRIBUTE_VERTEX.bytes(),
-                attIID.bytes());
+                new byte[]{(byte) shard});
+    }
+
+    public static byte[] attributeCountJobKey(VertexIID.Attribute<?> attIID) {
+        return countJobKey(Encoding.Statistics.JobType.ATTRIBUTE_VERTEX, attIID.bytes());
+    }
+
+    public static byte[] typeRefreshJobKey(VertexIID.Type typeIID) {
+        return countJobKey(Encoding.Statistics.JobType.TYPE_REFRESH, typeIID.bytes());
     }
 
     public static byte[] attributeCountedKey(VertexIID.Attribute<?> attIID) {
@@ -71,12 +108,45 @@ public class StatisticsBytes {
     }
 
     public static byte[] hasEdgeCountJobKey(VertexIID.Thing thingIID, VertexIID.Attribute<?> attIID) {
+        return countJobKey(Encoding.Statistics.JobType.HAS_EDGE, join(thingIID.bytes(), attIID.bytes()));
+    }
+
+    private static byte[] countJobKey(Encoding.Statistics.JobType jobType, byte[] countedIID) {
         return join(
                 Encoding.Prefix.STATISTICS_COUNT_JOB.bytes(),
-                Encoding.Statistics.JobType.HAS_EDGE.bytes(),
-                thingIID.bytes(),
-                attIID.bytes()
-        );
+                new byte[]{countJobShard(countedIID)},
+                jobType.bytes(),
+                countedIID);
+    }
+
+    /**
+     * @return the shard of a count job, as encoded in its key
+     */
+    public static int countJobShard(byte[] countJobKey) {
+        return countJobKey[PrefixIID.LENGTH];
+    }
+
+    /**
+     * Returns whether a count job key has the layout of databases that were created before count jobs
+     * were sharded, where the job type directly follows the prefix, and is followed by a thing IID.
+     * The job type of a sharded key follows its shard instead, and no thing IID starts with a job type.
+     */
+    public static boolean isUnshardedCountJobKey(byte[] countJobKey) {
+        if (countJobKey.length <= PrefixIID.LENGTH + 1) return false;
+        for (Encoding.Statistics.JobType jobType : Encoding.Statistics.JobType.values()) {
+            if (jobType.key() == countJobKey[PrefixIID.LENGTH + 1]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the sharded key of a count job, given its key in the layout from before count jobs were sharded
+     */
+    public static byte[] shardedCountJobKey(byte[] unshardedCountJobKey) {
+        assert isUnshardedCountJobKey(unshardedCountJobKey);
+        Encoding.Statistics.JobType jobType = Encoding.Statistics.JobType.of(
+                new byte[]{unshardedCountJobKey[PrefixIID.LENGTH]});
+        return countJobKey(jobType, stripPrefix(unshardedCountJobKey, PrefixIID.LENGTH + 1));
     }
 
     public static byte[] hasEdgeCountedKey(VertexIID.Thing thingIID, VertexIID.Attribute<?> attIID) {
@@ -91,4 +161,22 @@ public class StatisticsBytes {
     public static byte[] snapshotKey() {
         return Encoding.Prefix.STATISTICS_SNAPSHOT.bytes();
     }
+
+    public static byte[] commitsKey() {
+        return Encoding.Prefix.STATISTICS_COMMITS.bytes();
+    }
+
+    public static byte[] currentAsOfKey(int shard) {
+        return join(
+                Encoding.Prefix.STATISTICS_CURRENT_AS_OF.bytes(),
+                new byte[]{(byte) shard});
+    }
+
+    /**
+     * Count jobs are sharded by the key that they count, so that the jobs that create and delete
+     * the same attribute or has edge are always counted by the same shard, in order.
+     */
+    private static byte countJobShard(byte[] countedIID) {
+        return (byte) ((Arrays.hashCode(countedIID) & Integer.MAX_VALUE) % COUNT_JOB_SHARDS);
+    }
 }
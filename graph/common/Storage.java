@@ -22,6 +22,7 @@ import grakn.core.common.exception.ErrorMessage;
 import grakn.core.common.exception.GraknException;
 import grakn.core.common.iterator.ResourceIterator;
 
+import javax.annotation.Nullable;
 import java.util.function.BiFunction;
 
 import static grakn.common.util.Objects.className;
@@ -33,6 +34,15 @@ public interface Storage {
 
     byte[] get(byte[] key);
 
+    /**
+     * Gets the values of a batch of keys in one call to the storage, which is cheaper than getting
+     * each key on its own when the keys are many.
+     *
+     * @param keys the keys to look up
+     * @return the value of each key, in the order of the keys, or null for the keys that do not exist
+     */
+    byte[][] multiGet(byte[][] keys);
+
     byte[] getLastKey(byte[] prefix);
 
     void delete(byte[] key);
@@ -49,6 +59,20 @@ public interface Storage {
 
     <G> ResourceIterator<G> iterate(byte[] key, BiFunction<byte[], byte[], G> constructor);
 
+    /**
+     * Iterates over the keys of the given prefix that sort from {@code from} (inclusive),
+     * which must start with the prefix, up to {@code to} (exclusive), or to the end of the
+     * prefix if {@code to} is null.
+     */
+    <G> ResourceIterator<G> iterate(byte[] prefix, byte[] from, @Nullable byte[] to,
+                                    BiFunction<byte[], byte[], G> constructor);
+
+    /**
+     * Iterates over the keys of the given prefix in order, as {@link #iterate(byte[], BiFunction)} does,
+     * through an iterator that can also seek forward to a key of the prefix.
+     */
+    <G> SeekableIterator<G> iterateSeekable(byte[] prefix, BiFunction<byte[], byte[], G> constructor);
+
     GraknException exception(ErrorMessage error);
 
     GraknException exception(Exception exception);
@@ -61,6 +85,18 @@ public interface Storage {
         throw exception(GraknException.of(ILLEGAL_CAST, className(this.getClass()), className(Schema.class)));
     }
 
+    interface SeekableIterator<G> extends ResourceIterator<G> {
+
+        /**
+         * Moves the iterator forward to the first key that is not less than the target, without reading
+         * the keys in between. The iterator never moves backwards, so a target that is not ahead of the
+         * next key of the iterator is ignored.
+         *
+         * @param target the key to seek to
+         */
+        void seek(byte[] target);
+    }
+
     interface Schema extends Storage {
 
         KeyGenerator.Schema schemaKeyGenerator();
@@ -20,6 +20,7 @@ package grakn.core.graph.edge;
 
 import grakn.core.graph.common.Encoding;
 import grakn.core.graph.iid.EdgeIID;
+import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.ThingVertex;
 
 import java.util.Optional;
@@ -31,6 +32,20 @@ import java.util.Optional;
  */
 public interface ThingEdge extends Edge<Encoding.Edge.Thing, EdgeIID.Thing, ThingVertex> {
 
+    /**
+     * Returns the {@code iid} of the tail vertex of this edge, without reading the vertex.
+     *
+     * @return the {@code iid} of the tail vertex of this edge
+     */
+    VertexIID.Thing fromIID();
+
+    /**
+     * Returns the {@code iid} of the head vertex of this edge, without reading the vertex.
+     *
+     * @return the {@code iid} of the head vertex of this edge
+     */
+    VertexIID.Thing toIID();
+
     Optional<ThingVertex> optimised();
 
     void isInferred(boolean isInferred);
@@ -32,6 +32,7 @@ import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static grakn.core.common.collection.Bytes.join;
 import static grakn.core.common.exception.ErrorMessage.Transaction.ILLEGAL_OPERATION;
@@ -41,18 +42,29 @@ import static java.util.Objects.hash;
 
 public abstract class ThingEdgeImpl implements ThingEdge {
 
+    // a field updater rather than an AtomicBoolean per edge, as edges are allocated for every edge that is scanned
+    private static final AtomicIntegerFieldUpdater<ThingEdgeImpl> DELETED =
+            AtomicIntegerFieldUpdater.newUpdater(ThingEdgeImpl.class, "deleted");
+
     final DataGraph graph;
     final Encoding.Edge.Thing encoding;
-    final AtomicBoolean deleted;
+    private volatile int deleted;
     boolean isInferred;
 
     ThingEdgeImpl(DataGraph graph, Encoding.Edge.Thing encoding, boolean isInferred) {
         this.graph = graph;
         this.encoding = encoding;
-        this.deleted = new AtomicBoolean(false);
+        this.deleted = 0;
         this.isInferred = isInferred;
     }
 
+    /**
+     * Marks this edge as deleted, and returns true if it was not deleted before.
+     */
+    boolean setDeleted() {
+        return DELETED.compareAndSet(this, 0, 1);
+    }
+
     @Override
     public boolean isInferred() {
         return isInferred;
@@ -122,6 +134,16 @@ public abstract class ThingEdgeImpl implements ThingEdge {
             }
         }
 
+        @Override
+        public VertexIID.Thing fromIID() {
+            return from.iid();
+        }
+
+        @Override
+        public VertexIID.Thing toIID() {
+            return to.iid();
+        }
+
         @Override
         public ThingVertex from() {
             return from;
@@ -150,7 +172,7 @@ public abstract class ThingEdgeImpl implements ThingEdge {
          */
         @Override
         public void delete() {
-            if (deleted.compareAndSet(false, true)) {
+            if (setDeleted()) {
                 from.outs().remove(this);
                 to.ins().remove(this);
                 if (!(from.status().equals(BUFFERED)) && !(to.status().equals(BUFFERED))) {
@@ -212,12 +234,13 @@ public abstract class ThingEdgeImpl implements ThingEdge {
 
     public static class Persisted extends ThingEdgeImpl implements ThingEdge {
 
-        private final EdgeIID.Thing outIID;
-        private final EdgeIID.Thing inIID;
-        private final VertexIID.Thing fromIID;
-        private final VertexIID.Thing toIID;
-        private final VertexIID.Thing optimisedIID;
-        private final int hash;
+        private final EdgeIID.Thing iid;
+        private EdgeIID.Thing outIID;
+        private EdgeIID.Thing inIID;
+        private VertexIID.Thing fromIID;
+        private VertexIID.Thing toIID;
+        private VertexIID.Thing optimisedIID;
+        private int hash;
         private ThingVertex from;
         private ThingVertex to;
         private ThingVertex optimised;
@@ -234,32 +257,16 @@ public abstract class ThingEdgeImpl implements ThingEdge {
          * The head of this edge may or may not be overriding another vertex.
          * If it does the {@code overriddenIID} will not be null.
          *
+         * Every property of the edge is only decoded from the bytes of the
+         * {@code iid} when it is first needed, as most of the edges read by a
+         * traversal are only used for one of their vertices, or their IIDs.
+         *
          * @param graph the graph comprised of all the vertices
          * @param iid   the {@code iid} of a persisted edge
          */
         public Persisted(DataGraph graph, EdgeIID.Thing iid) {
             super(graph, iid.encoding(), false);
-
-            if (iid.isOutwards()) {
-                fromIID = iid.start();
-                toIID = iid.end();
-                outIID = iid;
-                inIID = EdgeIID.Thing.of(iid.end(), iid.infix().inwards(), iid.start(), iid.suffix());
-            } else {
-                fromIID = iid.end();
-                toIID = iid.start();
-                inIID = iid;
-                outIID = EdgeIID.Thing.of(iid.end(), iid.infix().outwards(), iid.start(), iid.suffix());
-            }
-            if (!iid.suffix().isEmpty()) {
-                optimisedIID = VertexIID.Thing.of(join(
-                        VERTEX_ROLE.bytes(), iid.infix().asRolePlayer().tail().bytes(), iid.suffix().bytes()
-                ));
-            } else {
-                optimisedIID = null;
-            }
-
-            this.hash = hash(Persisted.class, encoding, fromIID.hashCode(), toIID.hashCode());
+            this.iid = iid;
         }
 
         @Override
@@ -269,34 +276,62 @@ public abstract class ThingEdgeImpl implements ThingEdge {
 
         @Override
         public EdgeIID.Thing outIID() {
+            if (outIID != null) return outIID;
+            else if (iid.isOutwards()) outIID = iid;
+            else outIID = EdgeIID.Thing.of(iid.end(), iid.infix().outwards(), iid.start(), iid.suffix());
             return outIID;
         }
 
         @Override
         public EdgeIID.Thing inIID() {
+            if (inIID != null) return inIID;
+            else if (!iid.isOutwards()) inIID = iid;
+            else inIID = EdgeIID.Thing.of(iid.end(), iid.infix().inwards(), iid.start(), iid.suffix());
             return inIID;
         }
 
+        @Override
+        public VertexIID.Thing fromIID() {
+            if (fromIID == null) fromIID = iid.isOutwards() ? iid.start() : iid.end();
+            return fromIID;
+        }
+
+        @Override
+        public VertexIID.Thing toIID() {
+            if (toIID == null) toIID = iid.isOutwards() ? iid.end() : iid.start();
+            return toIID;
+        }
+
+        @Nullable
+        private VertexIID.Thing optimisedIID() {
+            if (optimisedIID == null && encoding.isOptimisation()) {
+                optimisedIID = VertexIID.Thing.of(join(
+                        VERTEX_ROLE.bytes(), iid.infix().asRolePlayer().tail().bytes(), iid.suffix().bytes()
+                ));
+            }
+            return optimisedIID;
+        }
+
         @Override
         public ThingVertex from() {
             if (from != null) return from;
-            from = graph.convert(fromIID);
-            from.outs().cache(this);
+            from = graph.convert(fromIID());
+            if (graph.isCachingPersistedEdges()) from.outs().cache(this);
             return from;
         }
 
         @Override
         public ThingVertex to() {
             if (to != null) return to;
-            to = graph.convert(toIID);
-            to.ins().cache(this);
+            to = graph.convert(toIID());
+            if (graph.isCachingPersistedEdges()) to.ins().cache(this);
             return to;
         }
 
         @Override
         public Optional<ThingVertex> optimised() {
             if (optimised != null) return Optional.of(optimised);
-            if (optimisedIID != null) optimised = graph.convert(optimisedIID);
+            if (optimisedIID() != null) optimised = graph.convert(optimisedIID());
             return Optional.ofNullable(optimised);
         }
 
@@ -316,13 +351,13 @@ public abstract class ThingEdgeImpl implements ThingEdge {
          */
         @Override
         public void delete() {
-            if (deleted.compareAndSet(false, true)) {
+            if (setDeleted()) {
                 from().outs().remove(this);
                 to().ins().remove(this);
-                graph.storage().delete(this.outIID.bytes());
-                graph.storage().delete(this.inIID.bytes());
+                graph.storage().delete(outIID().bytes());
+                graph.storage().delete(inIID().bytes());
                 if (encoding == Encoding.Edge.Thing.HAS) {
-                    graph.stats().hasEdgeDeleted(fromIID, toIID.asAttribute());
+                    graph.stats().hasEdgeDeleted(fromIID(), toIID().asAttribute());
                 }
             }
         }
@@ -354,9 +389,9 @@ public abstract class ThingEdgeImpl implements ThingEdge {
             if (object == null || getClass() != object.getClass()) return false;
             ThingEdgeImpl.Persisted that = (ThingEdgeImpl.Persisted) object;
             return (this.encoding.equals(that.encoding) &&
-                    this.fromIID.equals(that.fromIID) &&
-                    this.toIID.equals(that.toIID) &&
-                    Objects.equals(this.optimisedIID, that.optimisedIID));
+                    this.fromIID().equals(that.fromIID()) &&
+                    this.toIID().equals(that.toIID()) &&
+                    Objects.equals(this.optimisedIID(), that.optimisedIID()));
         }
 
         /**
@@ -372,6 +407,7 @@ public abstract class ThingEdgeImpl implements ThingEdge {
          */
         @Override
         public final int hashCode() {
+            if (hash == 0) hash = hash(Persisted.class, encoding, fromIID().hashCode(), toIID().hashCode());
             return hash;
         }
     }
@@ -131,6 +131,27 @@ public abstract class EdgeIID<
             return new Thing(join(start.bytes(), infix.bytes(), end.bytes(), suffix.bytes()));
         }
 
+        /**
+         * Returns the index of the infix from the length of the start IID, without extracting the start IID.
+         */
+        @Override
+        int infixIndex() {
+            return VertexIID.Thing.length(bytes);
+        }
+
+        /**
+         * Returns the encoding of the edge from the first byte of its infix, without extracting the infix.
+         */
+        @Override
+        public Encoding.Edge.Thing encoding() {
+            return Encoding.Edge.Thing.of(bytes[infixIndex()]);
+        }
+
+        @Override
+        public boolean isOutwards() {
+            return Encoding.Edge.isOut(bytes[infixIndex()]);
+        }
+
         @Override
         public InfixIID.Thing infix() {
             if (infix == null) infix = InfixIID.Thing.extract(bytes, infixIndex());
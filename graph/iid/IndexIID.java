@@ -23,6 +23,8 @@ import grakn.core.graph.common.Encoding;
 
 import javax.annotation.Nullable;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 import static grakn.core.common.collection.Bytes.DOUBLE_SIZE;
 import static grakn.core.common.collection.Bytes.LONG_SIZE;
@@ -39,6 +41,7 @@ import static grakn.core.common.collection.Bytes.sortedBytesToLong;
 import static grakn.core.common.collection.Bytes.stringToBytes;
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
 import static grakn.core.graph.common.Encoding.ValueType.STRING_ENCODING;
+import static grakn.core.graph.common.Encoding.ValueType.STRING_SIZE_ENCODING;
 import static grakn.core.graph.common.Encoding.ValueType.TIME_ZONE_ID;
 import static java.util.Arrays.copyOfRange;
 
@@ -255,6 +258,147 @@ public abstract class IndexIID extends IID {
             return newAttributeIndex(Encoding.ValueType.DATETIME.bytes(), dateTimeToBytes(value, TIME_ZONE_ID), typeIID.bytes);
         }
 
+        /**
+         * The index of string attributes by type, in the lexicographic order of their values.
+         *
+         * The IID of a string attribute puts the length of the string before its bytes, so the string
+         * attributes of a type are not stored in the order of their values. This index keys them by
+         * their type followed by the bytes of their value, so that a range or prefix of values can be
+         * sought directly. Long, double and datetime attributes need no such index, as their IIDs
+         * already end with their values in sorted byte order.
+         */
+        public static class SortedString extends IndexIID {
+
+            SortedString(byte[] bytes) {
+                super(bytes);
+            }
+
+            /**
+             * Returns the sorted index address of a string attribute
+             *
+             * @param value   of the string attribute
+             * @param typeIID of the string attribute
+             * @return a byte array representing the sorted index address of a string attribute
+             */
+            public static SortedString of(String value, VertexIID.Type typeIID) {
+                return new SortedString(join(prefix(typeIID), value.getBytes(STRING_ENCODING)));
+            }
+
+            /**
+             * Returns the sorted index address of the string attribute that is indexed by the
+             * given key of the (unsorted) attribute index.
+             */
+            public static SortedString ofAttributeIndex(byte[] bytes) {
+                assert Encoding.ValueType.of(bytes[PrefixIID.LENGTH]) == Encoding.ValueType.STRING;
+                return new SortedString(join(
+                        Encoding.Index.Prefix.ATTRIBUTE_SORTED_STRING.bytes(),
+                        copyOfRange(bytes, bytes.length - VertexIID.Type.LENGTH, bytes.length),
+                        copyOfRange(bytes, VALUE_INDEX + STRING_SIZE_ENCODING, bytes.length - VertexIID.Type.LENGTH)
+                ));
+            }
+
+            /**
+             * @return the prefix of the sorted index addresses of the string attributes of a type
+             */
+            public static byte[] prefix(VertexIID.Type typeIID) {
+                return join(Encoding.Index.Prefix.ATTRIBUTE_SORTED_STRING.bytes(), typeIID.bytes);
+            }
+
+            @Override
+            public String toString() {
+                if (readableString == null) {
+                    int valueIndex = PrefixIID.LENGTH + VertexIID.Type.LENGTH;
+                    readableString = "[" + PrefixIID.LENGTH + ": " + Encoding.Index.Prefix.ATTRIBUTE_SORTED_STRING.toString() + "]" +
+                            "[" + VertexIID.Type.LENGTH + ": " + VertexIID.Type.of(copyOfRange(bytes, PrefixIID.LENGTH, valueIndex)).toString() + "]" +
+                            "[" + (bytes.length - valueIndex) + ": " + new String(copyOfRange(bytes, valueIndex, bytes.length), STRING_ENCODING) + "]";
+                }
+                return readableString;
+            }
+        }
+
+        /**
+         * The posting of a trigram in the value of a string attribute, of an attribute type that is
+         * text indexed, which is keyed by the type, the trigram and the IID of the attribute.
+         *
+         * Trigrams are the sequences of 3 characters in the value, after each character is folded
+         * to a single case, such that the postings of a trigram hold every attribute that may
+         * contain it under the case-insensitive comparison of {@code contains}. The postings of a
+         * trigram are sorted by the IIDs of their attributes.
+         */
+        public static class Trigram extends IndexIID {
+
+            public static final int LENGTH = 3;
+            private static final int CHAR_SIZE = 2;
+
+            Trigram(byte[] bytes) {
+                super(bytes);
+            }
+
+            /**
+             * Returns the posting of a trigram in the value of a string attribute
+             *
+             * @param trigram  a folded trigram, as returned by {@link #trigrams(String)}
+             * @param typeIID  of the string attribute
+             * @param attIID   of the string attribute
+             * @return a byte array representing the posting of the trigram for the attribute
+             */
+            public static Trigram of(String trigram, VertexIID.Type typeIID, VertexIID.Attribute<?> attIID) {
+                return new Trigram(join(prefix(trigram, typeIID), attIID.bytes));
+            }
+
+            /**
+             * @return the prefix of the postings of a trigram amongst the string attributes of a type
+             */
+            public static byte[] prefix(String trigram, VertexIID.Type typeIID) {
+                assert trigram.length() == LENGTH;
+                byte[] trigramBytes = new byte[LENGTH * CHAR_SIZE];
+                for (int i = 0; i < LENGTH; i++) {
+                    trigramBytes[i * CHAR_SIZE] = (byte) (trigram.charAt(i) >> 8);
+                    trigramBytes[i * CHAR_SIZE + 1] = (byte) trigram.charAt(i);
+                }
+                return join(Encoding.Index.Prefix.ATTRIBUTE_TRIGRAM.bytes(), typeIID.bytes, trigramBytes);
+            }
+
+            /**
+             * @return the distinct folded trigrams of a string, which is empty if it is shorter than a trigram
+             */
+            public static Set<String> trigrams(String value) {
+                Set<String> trigrams = new HashSet<>();
+                if (value.length() < LENGTH) return trigrams;
+                char[] folded = new char[value.length()];
+                for (int i = 0; i < value.length(); i++) folded[i] = fold(value.charAt(i));
+                for (int i = 0; i + LENGTH <= folded.length; i++) trigrams.add(new String(folded, i, LENGTH));
+                return trigrams;
+            }
+
+            /**
+             * Folds a character to a single case, such that two characters fold to the same character
+             * exactly when they are equal under {@link String#regionMatches(boolean, int, String, int, int)}
+             * with their case ignored.
+             */
+            public static char fold(char c) {
+                return Character.toLowerCase(Character.toUpperCase(c));
+            }
+
+            @Override
+            public String toString() {
+                if (readableString == null) {
+                    int trigramIndex = PrefixIID.LENGTH + VertexIID.Type.LENGTH;
+                    int attributeIndex = trigramIndex + LENGTH * CHAR_SIZE;
+                    char[] trigram = new char[LENGTH];
+                    for (int i = 0; i < LENGTH; i++) {
+                        int index = trigramIndex + i * CHAR_SIZE;
+                        trigram[i] = (char) (((bytes[index] & 0xff) << 8) | (bytes[index + 1] & 0xff));
+                    }
+                    readableString = "[" + PrefixIID.LENGTH + ": " + Encoding.Index.Prefix.ATTRIBUTE_TRIGRAM.toString() + "]" +
+                            "[" + VertexIID.Type.LENGTH + ": " + VertexIID.Type.of(copyOfRange(bytes, PrefixIID.LENGTH, trigramIndex)).toString() + "]" +
+                            "[" + LENGTH * CHAR_SIZE + ": " + new String(trigram) + "]" +
+                            "[" + (bytes.length - attributeIndex) + ": " + VertexIID.Attribute.of(copyOfRange(bytes, attributeIndex, bytes.length)).toString() + "]";
+                }
+                return readableString;
+            }
+        }
+
         @Override
         public String toString() {
             if (readableString == null) {
@@ -156,6 +156,20 @@ public abstract class VertexIID extends IID {
             }
         }
 
+        /**
+         * Returns the length of the thing IID that a key starts with, without copying it.
+         * If the key is too short to hold a complete thing IID, then the length of the key
+         * is returned instead.
+         *
+         * @param bytes a key that starts with a thing IID
+         * @return the length of the thing IID that the key starts with
+         */
+        public static int length(byte[] bytes) {
+            if (bytes.length <= PREFIX_W_TYPE_LENGTH) return bytes.length;
+            else if (!Encoding.Vertex.Thing.of(bytes[0]).equals(ATTRIBUTE)) return DEFAULT_LENGTH;
+            else return Attribute.length(bytes);
+        }
+
         public static VertexIID.Thing extract(byte[] bytes, int from) {
             if (Encoding.Vertex.Thing.of(bytes[from]).equals(ATTRIBUTE)) {
                 return VertexIID.Attribute.extract(bytes, from);
@@ -236,6 +250,28 @@ public abstract class VertexIID extends IID {
             }
         }
 
+        static int length(byte[] bytes) {
+            if (bytes.length <= VALUE_INDEX) return bytes.length;
+            switch (Encoding.ValueType.of(bytes[VALUE_TYPE_INDEX])) {
+                case BOOLEAN:
+                    return VALUE_INDEX + 1;
+                case LONG:
+                    return VALUE_INDEX + LONG_SIZE;
+                case DOUBLE:
+                    return VALUE_INDEX + DOUBLE_SIZE;
+                case DATETIME:
+                    return VALUE_INDEX + DATETIME_SIZE;
+                case STRING:
+                    if (bytes.length < VALUE_INDEX + STRING_SIZE_ENCODING) return bytes.length;
+                    return VALUE_INDEX + STRING_SIZE_ENCODING + unsignedBytesToShort(
+                            copyOfRange(bytes, VALUE_INDEX, VALUE_INDEX + STRING_SIZE_ENCODING)
+                    );
+                default:
+                    assert false;
+                    throw GraknException.of(UNRECOGNISED_VALUE);
+            }
+        }
+
         public static VertexIID.Attribute<?> extract(byte[] bytes, int from) {
             switch (Encoding.ValueType.of(bytes[from + VALUE_TYPE_INDEX])) {
                 case BOOLEAN:
@@ -256,6 +292,13 @@ public abstract class VertexIID extends IID {
 
         public abstract VALUE value();
 
+        /**
+         * Returns the bytes of the value of this attribute, encoded such that they sort in the order of the values.
+         */
+        public byte[] sortedValueBytes() {
+            return copyOfRange(bytes, VALUE_INDEX, bytes.length);
+        }
+
         public Encoding.ValueType valueType() {
             return valueType;
         }
@@ -398,6 +441,11 @@ public abstract class VertexIID extends IID {
                 return bytesToString(copyOfRange(bytes, VALUE_INDEX, bytes.length), STRING_ENCODING);
             }
 
+            @Override
+            public byte[] sortedValueBytes() {
+                return copyOfRange(bytes, VALUE_INDEX + STRING_SIZE_ENCODING, bytes.length);
+            }
+
             @Override
             public String asString() {
                 return this;
@@ -29,6 +29,7 @@ import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.AttributeVertex;
 
 import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 import static grakn.common.util.Objects.className;
 import static grakn.core.common.exception.ErrorMessage.ThingRead.INVALID_THING_VERTEX_CASTING;
@@ -37,10 +38,15 @@ import static grakn.core.common.exception.ErrorMessage.Transaction.ILLEGAL_OPERA
 public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl implements AttributeVertex<VALUE> {
 
     private final VertexIID.Attribute<VALUE> attributeIID;
+    protected final boolean isBuffered;
 
-    AttributeVertexImpl(DataGraph graph, VertexIID.Attribute<VALUE> iid, boolean isInferred) {
+    /**
+     * @param isBuffered true if the attribute is put in this transaction, and false if it is read from storage
+     */
+    AttributeVertexImpl(DataGraph graph, VertexIID.Attribute<VALUE> iid, boolean isInferred, boolean isBuffered) {
         super(graph, iid, isInferred);
         this.attributeIID = iid;
+        this.isBuffered = isBuffered;
     }
 
     public static AttributeVertexImpl<?> of(DataGraph graph, VertexIID.Attribute<?> iid) {
@@ -97,6 +103,10 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
         graph.storage().delete(index().bytes());
     }
 
+    void commitIndex() {
+        graph.storage().putUntracked(index().bytes(), attributeIID.bytes());
+    }
+
     @Override
     void deleteVertexFromGraph() {
         graph.delete(this);
@@ -128,7 +138,7 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     private void commitVertex() {
         graph.storage().putUntracked(attributeIID.bytes());
         graph.storage().putUntracked(EdgeIID.InwardsISA.of(type().iid(), iid).bytes());
-        graph.storage().putUntracked(index().bytes(), attributeIID.bytes());
+        commitIndex();
         // TODO: we should make use of attribute indexes to look up attributes by value (without type) quickly
     }
 
@@ -181,11 +191,11 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     public static class Boolean extends AttributeVertexImpl<java.lang.Boolean> {
 
         public Boolean(DataGraph graph, VertexIID.Attribute<java.lang.Boolean> iid) {
-            this(graph, iid, false);
+            super(graph, iid, false, false);
         }
 
         public Boolean(DataGraph graph, VertexIID.Attribute<java.lang.Boolean> iid, boolean isInferred) {
-            super(graph, iid, isInferred);
+            super(graph, iid, isInferred, true);
         }
 
         @Override
@@ -203,11 +213,11 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     public static class Long extends AttributeVertexImpl<java.lang.Long> {
 
         public Long(DataGraph graph, VertexIID.Attribute.Long iid) {
-            this(graph, iid, false);
+            super(graph, iid, false, false);
         }
 
         public Long(DataGraph graph, VertexIID.Attribute<java.lang.Long> iid, boolean isInferred) {
-            super(graph, iid, isInferred);
+            super(graph, iid, isInferred, true);
         }
 
         @Override
@@ -225,11 +235,11 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     public static class Double extends AttributeVertexImpl<java.lang.Double> {
 
         public Double(DataGraph graph, VertexIID.Attribute.Double iid) {
-            this(graph, iid, false);
+            super(graph, iid, false, false);
         }
 
         public Double(DataGraph graph, VertexIID.Attribute<java.lang.Double> iid, boolean isInferred) {
-            super(graph, iid, isInferred);
+            super(graph, iid, isInferred, true);
         }
 
         @Override
@@ -247,11 +257,11 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     public static class String extends AttributeVertexImpl<java.lang.String> {
 
         public String(DataGraph graph, VertexIID.Attribute.String iid) {
-            this(graph, iid, false);
+            super(graph, iid, false, false);
         }
 
         public String(DataGraph graph, VertexIID.Attribute<java.lang.String> iid, boolean isInferred) {
-            super(graph, iid, isInferred);
+            super(graph, iid, isInferred, true);
         }
 
         @Override
@@ -259,6 +269,33 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
             return IndexIID.Attribute.of(value(), type().iid());
         }
 
+        private IndexIID.Attribute.SortedString sortedIndex() {
+            return IndexIID.Attribute.SortedString.of(value(), type().iid());
+        }
+
+        private Stream<IndexIID.Attribute.Trigram> trigramIndices() {
+            return IndexIID.Attribute.Trigram.trigrams(value()).stream()
+                    .map(trigram -> IndexIID.Attribute.Trigram.of(trigram, type().iid(), iid()));
+        }
+
+        @Override
+        void deleteVertexFromIndex() {
+            super.deleteVertexFromIndex();
+            graph.storage().delete(sortedIndex().bytes());
+            if (type().isTextIndexed()) trigramIndices().forEach(index -> graph.storage().delete(index.bytes()));
+        }
+
+        @Override
+        void commitIndex() {
+            super.commitIndex();
+            // an attribute read from storage already has its sorted and trigram indexes
+            if (!isBuffered) return;
+            graph.storage().putUntracked(sortedIndex().bytes(), iid().bytes());
+            if (type().isTextIndexed()) {
+                trigramIndices().forEach(index -> graph.storage().putUntracked(index.bytes(), iid().bytes()));
+            }
+        }
+
         @Override
         public boolean isString() { return true; }
 
@@ -269,11 +306,11 @@ public abstract class AttributeVertexImpl<VALUE> extends ThingVertexImpl impleme
     public static class DateTime extends AttributeVertexImpl<java.time.LocalDateTime> {
 
         public DateTime(DataGraph graph, VertexIID.Attribute.DateTime iid) {
-            this(graph, iid, false);
+            super(graph, iid, false, false);
         }
 
         public DateTime(DataGraph graph, VertexIID.Attribute<LocalDateTime> iid, boolean isInferred) {
-            super(graph, iid, isInferred);
+            super(graph, iid, isInferred, true);
         }
 
         @Override
@@ -103,6 +103,7 @@ public abstract class ThingVertexImpl extends VertexImpl<VertexIID.Thing> implem
         if (!isModified) {
             isModified = true;
             graph.setModified();
+            graph.pin(this);
         }
     }
 
@@ -44,6 +44,7 @@ import static grakn.core.graph.common.Encoding.Property.ABSTRACT;
 import static grakn.core.graph.common.Encoding.Property.LABEL;
 import static grakn.core.graph.common.Encoding.Property.REGEX;
 import static grakn.core.graph.common.Encoding.Property.SCOPE;
+import static grakn.core.graph.common.Encoding.Property.TEXT_INDEXED;
 import static grakn.core.graph.common.Encoding.Property.VALUE_TYPE;
 import static grakn.core.graph.common.Encoding.Vertex.Type.ATTRIBUTE_TYPE;
 import static grakn.core.graph.common.Encoding.Vertex.Type.ENTITY_TYPE;
@@ -64,6 +65,7 @@ public abstract class TypeVertexImpl extends VertexImpl<VertexIID.Type> implemen
     Boolean isAbstract; // needs to be declared as the Boolean class
     Encoding.ValueType valueType;
     Pattern regex;
+    Boolean isTextIndexed;
 
     private volatile int outOwnsCount;
     private volatile int outPlaysCount;
@@ -318,6 +320,18 @@ public abstract class TypeVertexImpl extends VertexImpl<VertexIID.Type> implemen
             return this;
         }
 
+        @Override
+        public boolean isTextIndexed() {
+            return isTextIndexed != null ? isTextIndexed : false;
+        }
+
+        @Override
+        public TypeVertexImpl isTextIndexed(boolean isTextIndexed) {
+            this.isTextIndexed = isTextIndexed;
+            this.setModified();
+            return this;
+        }
+
         @Override
         public void delete() {
             if (isDeleted.compareAndSet(false, true)) {
@@ -346,6 +360,7 @@ public abstract class TypeVertexImpl extends VertexImpl<VertexIID.Type> implemen
             if (isAbstract != null && isAbstract) commitPropertyAbstract();
             if (valueType != null) commitPropertyValueType();
             if (regex != null) commitPropertyRegex();
+            if (isTextIndexed != null && isTextIndexed) commitPropertyTextIndexed();
         }
 
         private void commitPropertyScope() {
@@ -367,6 +382,10 @@ public abstract class TypeVertexImpl extends VertexImpl<VertexIID.Type> implemen
         private void commitPropertyRegex() {
             graph.storage().put(join(iid.bytes(), REGEX.infix().bytes()), regex.pattern().getBytes());
         }
+
+        private void commitPropertyTextIndexed() {
+            graph.storage().put(join(iid.bytes(), TEXT_INDEXED.infix().bytes()));
+        }
     }
 
     public static class Persisted extends TypeVertexImpl {
@@ -470,6 +489,23 @@ public abstract class TypeVertexImpl extends VertexImpl<VertexIID.Type> implemen
             return this;
         }
 
+        @Override
+        public boolean isTextIndexed() {
+            if (isTextIndexed != null) return isTextIndexed;
+            byte[] flag = graph.storage().get(join(iid.bytes(), TEXT_INDEXED.infix().bytes()));
+            isTextIndexed = flag != null;
+            return isTextIndexed;
+        }
+
+        @Override
+        public TypeVertexImpl isTextIndexed(boolean isTextIndexed) {
+            if (isTextIndexed) graph.storage().put(join(iid.bytes(), TEXT_INDEXED.infix().bytes()));
+            else graph.storage().delete(join(iid.bytes(), TEXT_INDEXED.infix().bytes()));
+            this.isTextIndexed = isTextIndexed;
+            this.setModified();
+            return this;
+        }
+
         @Override
         public void commit() {
             commitEdges();
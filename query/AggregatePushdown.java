@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.query;
+
+import grakn.core.common.iterator.ResourceIterator;
+import grakn.core.concept.answer.Numeric;
+import grakn.core.graph.DataGraph;
+import grakn.core.graph.GraphManager;
+import grakn.core.graph.common.Encoding;
+import grakn.core.graph.vertex.TypeVertex;
+import grakn.core.pattern.Conjunction;
+import grakn.core.pattern.Disjunction;
+import grakn.core.pattern.constraint.thing.IsaConstraint;
+import grakn.core.pattern.variable.ThingVariable;
+import grakn.core.pattern.variable.TypeVariable;
+import grakn.core.pattern.variable.Variable;
+import grakn.core.traversal.common.Identifier;
+import graql.lang.common.GraqlToken;
+import graql.lang.pattern.variable.UnboundVariable;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
+import static grakn.common.collection.Collections.list;
+import static grakn.core.common.collection.Bytes.compareBytes;
+import static grakn.core.common.collection.Bytes.sortedBytesToDouble;
+import static grakn.core.common.collection.Bytes.sortedBytesToLong;
+import static grakn.core.common.iterator.Iterators.tree;
+import static grakn.core.graph.common.Encoding.Edge.Type.SUB;
+
+/**
+ * Answers the aggregate of a match query from the statistics and the keys of the storage, rather
+ * than from the answers of the query, when the query is simple enough to allow it.
+ *
+ * A query is simple enough when it is a single conjunction of one thing variable, which is only
+ * constrained to be an instance of a labelled thing type, and the transaction has not been
+ * modified, so that its snapshot of the storage holds every instance of the type. A count is then
+ * answered from the counts of the statistics, once they are current. The IIDs of long and double
+ * attributes end with their sorted values, so the minimum and maximum of an attribute type are
+ * answered with one seek to the first or last attribute of each of its subtypes, and the sum and
+ * mean with a scan of the keys of their attributes, without creating any vertex or concept.
+ */
+class AggregatePushdown {
+
+    private final GraphManager graphMgr;
+
+    AggregatePushdown(GraphManager graphMgr) {
+        this.graphMgr = graphMgr;
+    }
+
+    /**
+     * Returns the aggregate of the query, or nothing if it must be computed from the answers of the query.
+     */
+    Optional<Numeric> aggregate(Disjunction disjunction, List<Identifier.Variable.Name> filter,
+                                GraqlToken.Aggregate.Method method, @Nullable UnboundVariable var) {
+        if (graphMgr.data().isModified() || disjunction.conjunctions().size() != 1) return Optional.empty();
+        Conjunction conjunction = disjunction.conjunctions().iterator().next();
+        if (!conjunction.negations().isEmpty() || conjunction.variables().size() != 2) return Optional.empty();
+
+        ThingVariable thing = null;
+        for (Variable variable : conjunction.variables()) {
+            if (variable.isThing()) thing = variable.asThing();
+        }
+        if (thing == null || !thing.reference().isName() || thing.constraints().size() != 1 ||
+                !thing.isa().isPresent()) return Optional.empty();
+        if (!filter.isEmpty() && !(filter.size() == 1 && filter.get(0).equals(thing.id()))) return Optional.empty();
+        IsaConstraint isa = thing.isa().get();
+        TypeVariable type = isa.type();
+        if (!type.reference().isLabel() || type.constraints().size() != 1 || !type.label().isPresent() ||
+                type.label().get().scope().isPresent()) return Optional.empty();
+
+        TypeVertex typeVertex = graphMgr.schema().getType(type.label().get().properLabel());
+        if (typeVertex == null || !(typeVertex.isEntityType() || typeVertex.isRelationType() ||
+                typeVertex.isAttributeType())) return Optional.empty();
+
+        if (method == GraqlToken.Aggregate.Method.COUNT) return count(typeVertex, isa.isExplicit());
+        if (var == null || !var.reference().equals(thing.reference()) || !typeVertex.isAttributeType() ||
+                !(typeVertex.valueType() == Encoding.ValueType.LONG ||
+                        typeVertex.valueType() == Encoding.ValueType.DOUBLE)) return Optional.empty();
+
+        List<TypeVertex> types = isa.isExplicit() ? list(typeVertex) :
+                tree(typeVertex, t -> t.ins().edge(SUB).from()).toList();
+        switch (method) {
+            case MAX:
+                return extremum(types, typeVertex.valueType(), true);
+            case MIN:
+                return extremum(types, typeVertex.valueType(), false);
+            case SUM:
+                return sum(types, typeVertex.valueType(), false);
+            case MEAN:
+                return sum(types, typeVertex.valueType(), true);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private Optional<Numeric> count(TypeVertex type, boolean isExplicit) {
+        DataGraph.Statistics statistics = graphMgr.data().stats();
+        // attributes are counted in the background, whereas the other things are counted when they are committed
+        if (type.isAttributeType() && statistics.currentAsOf() != statistics.lastCommit()) return Optional.empty();
+        if (isExplicit) return Optional.of(Numeric.ofLong(statistics.thingVertexCount(type)));
+        else return Optional.of(Numeric.ofLong(statistics.thingVertexTransitiveCount(type)));
+    }
+
+    private Optional<Numeric> extremum(List<TypeVertex> types, Encoding.ValueType valueType, boolean isMax) {
+        byte[] extremum = null;
+        for (TypeVertex type : types) {
+            byte[] value = isMax ? graphMgr.data().getLastSortedValue(type) :
+                    graphMgr.data().getSortedValues(type).firstOrNull();
+            if (value != null && (extremum == null || (compareBytes(value, extremum) > 0) == isMax)) {
+                extremum = value;
+            }
+        }
+        if (extremum == null) return Optional.of(Numeric.ofNaN());
+        else if (valueType == Encoding.ValueType.LONG) return Optional.of(Numeric.ofLong(sortedBytesToLong(extremum)));
+
+        double value = sortedBytesToDouble(extremum);
+        // the sorted bytes of -0.0 precede those of every negative double, so they are not ordered by value
+        if (Double.isNaN(value)) return Optional.empty();
+        else return Optional.of(Numeric.ofDouble(value));
+    }
+
+    private Optional<Numeric> sum(List<TypeVertex> types, Encoding.ValueType valueType, boolean isMean) {
+        long count = 0;
+        long longSum = 0;
+        double doubleSum = 0;
+        for (TypeVertex type : types) {
+            ResourceIterator<byte[]> values = graphMgr.data().getSortedValues(type);
+            while (values.hasNext()) {
+                byte[] value = values.next();
+                if (valueType == Encoding.ValueType.LONG) {
+                    long longValue = sortedBytesToLong(value);
+                    longSum += longValue;
+                    doubleSum += longValue;
+                } else {
+                    double doubleValue = sortedBytesToDouble(value);
+                    // the sorted bytes of -0.0 are all zero, and decode to NaN rather than to zero
+                    if (!Double.isNaN(doubleValue)) doubleSum += doubleValue;
+                }
+                count++;
+            }
+        }
+        if (count == 0) return Optional.of(Numeric.ofNaN());
+        else if (isMean) return Optional.of(Numeric.ofDouble(doubleSum / count));
+        else if (valueType == Encoding.ValueType.LONG) return Optional.of(Numeric.ofLong(longSum));
+        else return Optional.of(Numeric.ofDouble(doubleSum));
+    }
+}
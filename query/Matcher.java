@@ -26,21 +26,20 @@ import grakn.core.concept.answer.ConceptMapGroup;
 import grakn.core.concept.answer.Numeric;
 import grakn.core.concept.answer.NumericGroup;
 import grakn.core.concept.thing.Attribute;
+import grakn.core.concurrent.producer.Producers;
 import grakn.core.pattern.Disjunction;
 import grakn.core.reasoner.Reasoner;
 import grakn.core.traversal.common.Identifier;
-import graql.lang.common.GraqlArg;
 import graql.lang.common.GraqlToken;
-import graql.lang.pattern.variable.Reference;
 import graql.lang.pattern.variable.UnboundVariable;
 import graql.lang.query.GraqlMatch;
-import graql.lang.query.builder.Sortable;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -51,13 +50,8 @@ import java.util.function.Supplier;
 import java.util.stream.Collector;
 
 import static grakn.common.collection.Collections.set;
-import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_OPERATION;
-import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
 import static grakn.core.common.exception.ErrorMessage.Internal.UNRECOGNISED_VALUE;
 import static grakn.core.common.exception.ErrorMessage.ThingRead.AGGREGATE_ATTRIBUTE_NOT_NUMBER;
-import static grakn.core.common.exception.ErrorMessage.ThingRead.INVALID_THING_CASTING;
-import static grakn.core.common.exception.ErrorMessage.ThingRead.SORT_ATTRIBUTE_NOT_COMPARABLE;
-import static grakn.core.common.exception.ErrorMessage.ThingRead.SORT_VARIABLE_NOT_ATTRIBUTE;
 import static grakn.core.common.iterator.Iterators.iterate;
 import static grakn.core.common.parameters.Arguments.Query.Producer.EXHAUSTIVE;
 import static grakn.core.common.parameters.Arguments.Query.Producer.INCREMENTAL;
@@ -72,19 +66,21 @@ public class Matcher {
     private final Disjunction disjunction;
     private final List<Identifier.Variable.Name> filter;
     private final Context.Query context;
+    private final Sorter.Spills spills;
 
     public Matcher(Reasoner reasoner, GraqlMatch query) {
-        this(reasoner, query, null);
+        this(reasoner, query, null, null);
     }
 
-    public Matcher(Reasoner reasoner, GraqlMatch query, @Nullable Context.Query context) {
+    Matcher(Reasoner reasoner, GraqlMatch query, @Nullable Sorter.Spills spills, @Nullable Context.Query context) {
         this.reasoner = reasoner;
         this.query = query;
+        this.spills = spills;
         this.disjunction = Disjunction.create(query.conjunction().normalise());
         this.filter = iterate(query.filter()).map(v -> Identifier.Variable.of(v.reference().asName())).toList();
         this.context = context;
         if (context != null) {
-            if (query.sort().isPresent()) this.context.producer(EXHAUSTIVE); // TODO: remove this once sort is optimised
+            if (query.sort().isPresent()) this.context.producer(EXHAUSTIVE); // sort reads every answer before its first
             else this.context.producer(INCREMENTAL);
         }
     }
@@ -93,22 +89,25 @@ public class Matcher {
         return new Matcher(reasoner, query);
     }
 
-    public static Matcher create(Reasoner reasoner, GraqlMatch query, Context.Query context) {
-        return new Matcher(reasoner, query, context);
+    static Matcher create(Reasoner reasoner, GraqlMatch query, Sorter.Spills spills, Context.Query context) {
+        return new Matcher(reasoner, query, spills, context);
     }
 
-    public static Matcher.Aggregator create(Reasoner reasoner, GraqlMatch.Aggregate query, Context.Query context) {
-        Matcher matcher = new Matcher(reasoner, query.match());
+    static Matcher.Aggregator create(Reasoner reasoner, GraqlMatch.Aggregate query,
+                                     Sorter.Spills spills, Context.Query context) {
+        Matcher matcher = new Matcher(reasoner, query.match(), spills, null);
         return new Aggregator(matcher, query, context);
     }
 
-    public static Matcher.Group create(Reasoner reasoner, GraqlMatch.Group query, Context.Query context) {
-        Matcher matcher = new Matcher(reasoner, query.match());
+    static Matcher.Group create(Reasoner reasoner, GraqlMatch.Group query,
+                                Sorter.Spills spills, Context.Query context) {
+        Matcher matcher = new Matcher(reasoner, query.match(), spills, null);
         return new Group(matcher, query, context);
     }
 
-    public static Matcher.Group.Aggregator create(Reasoner reasoner, GraqlMatch.Group.Aggregate query, Context.Query context) {
-        Matcher matcher = new Matcher(reasoner, query.group().match());
+    static Matcher.Group.Aggregator create(Reasoner reasoner, GraqlMatch.Group.Aggregate query,
+                                           Sorter.Spills spills, Context.Query context) {
+        Matcher matcher = new Matcher(reasoner, query.group().match(), spills, null);
         Group group = new Group(matcher, query.group(), context);
         return new Group.Aggregator(group, query);
     }
@@ -120,49 +119,48 @@ public class Matcher {
 
     ResourceIterator<ConceptMap> execute(Context.Query context) {
         ResourceIterator<ConceptMap> answers = reasoner.execute(disjunction, filter, context);
-        if (query.sort().isPresent()) answers = sort(answers, query.sort().get());
+        if (query.sort().isPresent()) {
+            assert spills != null;
+            Sorter sorter = new Sorter(
+                    reasoner.conceptManager(), spills, query.sort().get(), context.options().sortBufferSize()
+            );
+            if (query.limit().isPresent()) answers = sorter.first(answers, query.offset().orElse(0L) + query.limit().get());
+            else answers = sorter.sort(answers);
+        }
         if (query.offset().isPresent()) answers = answers.offset(query.offset().get());
         if (query.limit().isPresent()) answers = answers.limit(query.limit().get());
         return answers;
     }
 
-    private ResourceIterator<ConceptMap> sort(ResourceIterator<ConceptMap> answers, Sortable.Sorting sorting) {
-        // TODO: Replace this temporary implementation of Graql Match Sort query with a native sorting traversal
-        Reference.Name var = sorting.var().reference().asName();
-        Comparator<ConceptMap> comparator = (answer1, answer2) -> {
-            Attribute att1, att2;
-            try {
-                att1 = answer1.get(var).asAttribute();
-                att2 = answer2.get(var).asAttribute();
-            } catch (GraknException e) {
-                if (e.code().isPresent() || e.code().get().equals(INVALID_THING_CASTING.code())) {
-                    throw GraknException.of(SORT_VARIABLE_NOT_ATTRIBUTE, var);
-                } else {
-                    throw e;
-                }
-            }
+    /**
+     * Collects the answers of the query. When the query is run in parallel, and does not need its
+     * answers in order, each thread that produces answers collects them into a container of its
+     * own, and the containers are combined once every answer is produced.
+     */
+    <A, R> R collect(Collector<ConceptMap, A, R> collector, Context.Query context) {
+        if (!context.options().parallel() || query.sort().isPresent() ||
+                query.offset().isPresent() || query.limit().isPresent()) {
+            return execute(context).stream().collect(collector);
+        }
+        List<A> containers = Producers.consume(
+                reasoner.producers(disjunction, filter, context), collector.supplier(), collector.accumulator()
+        );
+        A combined = collector.supplier().get();
+        for (A container : containers) combined = collector.combiner().apply(combined, container);
+        return collector.finisher().apply(combined);
+    }
 
-            if (!att1.getType().getValueType().comparables().contains(att2.getType().getValueType())) {
-                throw GraknException.of(SORT_ATTRIBUTE_NOT_COMPARABLE, var);
-            }
-            if (att1.isString()) {
-                return att1.asString().getValue().compareToIgnoreCase(att2.asString().getValue());
-            } else if (att1.isBoolean()) {
-                return att1.asBoolean().getValue().compareTo(att2.asBoolean().getValue());
-            } else if (att1.isLong() && att2.isLong()) {
-                return att1.asLong().getValue().compareTo(att2.asLong().getValue());
-            } else if (att1.isDouble() || att2.isDouble()) {
-                Double double1 = att1.isLong() ? att1.asLong().getValue() : att1.asDouble().getValue();
-                Double double2 = att2.isLong() ? att2.asLong().getValue() : att2.asDouble().getValue();
-                return double1.compareTo(double2);
-            } else if (att1.isDateTime()) {
-                return (att1.asDateTime().getValue()).compareTo(att2.asDateTime().getValue());
-            } else {
-                throw GraknException.of(ILLEGAL_STATE);
-            }
-        };
-        comparator = (sorting.order() == GraqlArg.Order.DESC) ? comparator.reversed() : comparator;
-        return iterate(answers.stream().sorted(comparator).iterator());
+    /**
+     * Answers an aggregate of the query from the statistics and the keys of the storage, when the
+     * query is simple enough to need neither its answers nor inference. Otherwise, returns nothing.
+     */
+    Optional<Numeric> pushdown(GraqlMatch.Aggregate aggregate, Context.Query context) {
+        if (reasoner.isInfer(context) || query.sort().isPresent() ||
+                query.offset().isPresent() || query.limit().isPresent()) {
+            return Optional.empty();
+        }
+        return new AggregatePushdown(reasoner.graphManager())
+                .aggregate(disjunction, filter, aggregate.method(), aggregate.var());
     }
 
     public static class Aggregator {
@@ -170,6 +168,7 @@ public class Matcher {
         private final Matcher matcher;
         private final GraqlMatch.Aggregate query;
         private final Context.Query context;
+        private boolean isPushedDown;
 
         public Aggregator(Matcher matcher, GraqlMatch.Aggregate query, Context.Query context) {
             this.matcher = matcher;
@@ -179,15 +178,17 @@ public class Matcher {
         }
 
         public Numeric execute() {
-            ResourceIterator<ConceptMap> answers = matcher.execute(context);
-            GraqlToken.Aggregate.Method method = query.method();
-            UnboundVariable var = query.var();
-            return aggregate(answers, method, var);
+            Optional<Numeric> pushedDown = matcher.pushdown(query, context);
+            isPushedDown = pushedDown.isPresent();
+            return pushedDown.orElseGet(() -> matcher.collect(aggregator(query.method(), query.var()), context));
         }
 
-        static Numeric aggregate(ResourceIterator<ConceptMap> answers,
-                                 GraqlToken.Aggregate.Method method, UnboundVariable var) {
-            return answers.stream().collect(aggregator(method, var));
+        /**
+         * Returns whether the last execution was answered by {@link AggregatePushdown}, rather than from the
+         * answers of the query.
+         */
+        public boolean isPushedDown() {
+            return isPushedDown;
         }
 
         static Collector<ConceptMap, ?, Numeric> aggregator(GraqlToken.Aggregate.Method method, UnboundVariable var) {
@@ -344,7 +345,7 @@ public class Matcher {
 
                 @Override
                 public BinaryOperator<MedianCalculator> combiner() {
-                    return (t, u) -> { throw GraknException.of(ILLEGAL_OPERATION); };
+                    return MedianCalculator::combine;
                 }
 
                 @Override
@@ -410,7 +411,7 @@ public class Matcher {
 
                 @Override
                 public BinaryOperator<STDCalculator> combiner() {
-                    return (t, u) -> { throw GraknException.of(ILLEGAL_OPERATION); };
+                    return STDCalculator::combine;
                 }
 
                 @Override
@@ -476,7 +477,7 @@ public class Matcher {
             else return Numeric.ofDouble(x.asDouble() + y.asDouble());
         }
 
-        private static class MedianCalculator {
+        static class MedianCalculator {
 
             PriorityQueue<Numeric> maxHeap; //lower half
             PriorityQueue<Numeric> minHeap; //higher half
@@ -495,6 +496,12 @@ public class Matcher {
                 }
             }
 
+            MedianCalculator combine(MedianCalculator other) {
+                other.maxHeap.forEach(this::accumulate);
+                other.minHeap.forEach(this::accumulate);
+                return this;
+            }
+
             Numeric median() {
                 if (maxHeap.isEmpty() && minHeap.isEmpty()) {
                     return Numeric.ofNaN();
@@ -513,7 +520,7 @@ public class Matcher {
          * https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Online_algorithm
          * // TODO: We may find a faster algorithm that does not cost so much as the division in the loop
          */
-        private static class STDCalculator {
+        static class STDCalculator {
             long n = 0;
             double mean = 0d, M2 = 0d;
 
@@ -525,6 +532,20 @@ public class Matcher {
                 M2 += delta * delta2;
             }
 
+            /**
+             * Parallel algorithm to combine the calculators of two disjoint sets of values
+             * https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+             */
+            STDCalculator combine(STDCalculator other) {
+                if (other.n == 0) return this;
+                long combinedN = n + other.n;
+                double delta = other.mean - mean;
+                mean += delta * other.n / combinedN;
+                M2 += other.M2 + delta * delta * n * other.n / combinedN;
+                n = combinedN;
+                return this;
+            }
+
             Numeric std() {
                 if (n < 2) return Numeric.ofNaN();
                 else return Numeric.ofDouble(sqrt(M2 / (double) (n - 1)));
@@ -596,9 +617,8 @@ public class Matcher {
         }
 
         public ResourceIterator<ConceptMapGroup> execute() {
-            // TODO: Replace this temporary implementation of Graql Match Group query with a native grouping traversal
             List<ConceptMapGroup> answerGroups = new ArrayList<>();
-            matcher.execute(context).stream().collect(groupingBy(a -> a.get(query.var())))
+            matcher.collect(groupingBy(a -> a.get(query.var())), context)
                     .forEach((o, cm) -> answerGroups.add(new ConceptMapGroup(o, cm)));
             return iterate(answerGroups);
         }
@@ -614,10 +634,10 @@ public class Matcher {
             }
 
             public ResourceIterator<NumericGroup> execute() {
-                // TODO: Replace this temporary implementation of Graql Match Group query with a native grouping traversal
+                // each group holds only the state of its aggregate, rather than its answers
                 List<NumericGroup> numericGroups = new ArrayList<>();
-                group.matcher.execute(group.context).stream()
-                        .collect(groupingBy(a -> a.get(query.group().var()), aggregator(query.method(), query.var())))
+                group.matcher.collect(groupingBy(a -> a.get(query.group().var()), aggregator(query.method(), query.var())),
+                                      group.context)
                         .forEach((o, n) -> numericGroups.add(new NumericGroup(o, n)));
                 return iterate(numericGroups);
             }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.query;
+
+import grakn.core.concept.answer.Numeric;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MatcherTest {
+
+    private static final int SHARDS = 7;
+
+    @Test
+    public void test_combined_std_equals_the_sequential_std() {
+        for (int count : new int[]{2, 3, 1000, 1001}) {
+            double[] values = values(count);
+            Matcher.Aggregator.STDCalculator sequential = new Matcher.Aggregator.STDCalculator();
+            for (double value : values) sequential.accumulate(value);
+
+            Matcher.Aggregator.STDCalculator combined = new Matcher.Aggregator.STDCalculator();
+            for (List<Double> shard : shards(values)) {
+                Matcher.Aggregator.STDCalculator calculator = new Matcher.Aggregator.STDCalculator();
+                shard.forEach(calculator::accumulate);
+                combined = combined.combine(calculator);
+            }
+
+            double expected = twoPassStd(values);
+            assertEquals(expected, sequential.std().asDouble(), expected * 1e-6);
+            assertEquals(expected, combined.std().asDouble(), expected * 1e-6);
+        }
+    }
+
+    @Test
+    public void test_std_of_fewer_than_two_values_is_nan() {
+        Matcher.Aggregator.STDCalculator calculator = new Matcher.Aggregator.STDCalculator();
+        assertTrue(calculator.std().isNaN());
+        Matcher.Aggregator.STDCalculator other = new Matcher.Aggregator.STDCalculator();
+        other.accumulate(1.0);
+        assertTrue(calculator.combine(other).std().isNaN());
+    }
+
+    @Test
+    public void test_combined_median_equals_the_sequential_median() {
+        for (int count : new int[]{1, 2, 1000, 1001}) {
+            double[] values = values(count);
+            Matcher.Aggregator.MedianCalculator sequential = new Matcher.Aggregator.MedianCalculator();
+            for (double value : values) sequential.accumulate(Numeric.ofDouble(value));
+
+            Matcher.Aggregator.MedianCalculator combined = new Matcher.Aggregator.MedianCalculator();
+            for (List<Double> shard : shards(values)) {
+                Matcher.Aggregator.MedianCalculator calculator = new Matcher.Aggregator.MedianCalculator();
+                shard.forEach(value -> calculator.accumulate(Numeric.ofDouble(value)));
+                combined = combined.combine(calculator);
+            }
+
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double expected = count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+            assertEquals(expected, sequential.median().asNumber().doubleValue(), 0);
+            assertEquals(expected, combined.median().asNumber().doubleValue(), 0);
+        }
+        assertTrue(new Matcher.Aggregator.MedianCalculator().median().isNaN());
+    }
+
+    private static double[] values(int count) {
+        Random random = new Random(count);
+        double[] values = new double[count];
+        // a large offset, against which a naive sum of squares loses its precision
+        for (int i = 0; i < count; i++) values[i] = 1e9 + random.nextGaussian() * 10;
+        return values;
+    }
+
+    /**
+     * Splits the values into shards of uneven sizes, some of them empty, as the threads of a query produce them.
+     */
+    private static List<List<Double>> shards(double[] values) {
+        List<List<Double>> shards = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) shards.add(new ArrayList<>());
+        Random random = new Random(values.length);
+        for (double value : values) shards.get(random.nextInt(SHARDS - 2)).add(value);
+        return shards;
+    }
+
+    private static double twoPassStd(double[] values) {
+        double mean = 0;
+        for (double value : values) mean += value / values.length;
+        double squares = 0;
+        for (double value : values) squares += (value - mean) * (value - mean);
+        return Math.sqrt(squares / (values.length - 1));
+    }
+}
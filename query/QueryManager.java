@@ -38,6 +38,8 @@ import graql.lang.query.GraqlUpdate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+
 import static grabl.tracing.client.GrablTracingThreadStatic.traceOnThread;
 import static grakn.core.common.exception.ErrorMessage.Transaction.SESSION_DATA_VIOLATION;
 import static grakn.core.common.exception.ErrorMessage.Transaction.SESSION_SCHEMA_VIOLATION;
@@ -54,12 +56,28 @@ public class QueryManager {
     private final Reasoner reasoner;
     private final ConceptManager conceptMgr;
     private final Context.Query defaultContext;
-
-    public QueryManager(ConceptManager conceptMgr, LogicManager logicMgr, Reasoner reasoner, Context.Transaction context) {
+    private final Sorter.Spills spills;
+    private long aggregatePushdowns;
+
+    /**
+     * @param spillDirectory the directory under which sorted queries spill their answers to disk,
+     *                       in a directory of this transaction that is deleted when it is closed
+     */
+    public QueryManager(ConceptManager conceptMgr, LogicManager logicMgr, Reasoner reasoner,
+                        Context.Transaction context, Path spillDirectory) {
         this.conceptMgr = conceptMgr;
         this.logicMgr = logicMgr;
         this.reasoner = reasoner;
         this.defaultContext = new Context.Query(context, new Options.Query());
+        this.spills = new Sorter.Spills(spillDirectory);
+    }
+
+    /**
+     * Deletes the answers that sorted queries of the transaction spilled to disk and have not yet
+     * been read to the end.
+     */
+    public void close() {
+        spills.close();
     }
 
     public ResourceIterator<ConceptMap> match(GraqlMatch query) {
@@ -68,7 +86,7 @@ public class QueryManager {
 
     public ResourceIterator<ConceptMap> match(GraqlMatch query, Context.Query context) {
         try (ThreadTrace ignored = traceOnThread(TRACE_PREFIX + "match")) {
-            return Matcher.create(reasoner, query, context).execute().onError(conceptMgr::exception);
+            return Matcher.create(reasoner, query, spills, context).execute().onError(conceptMgr::exception);
         } catch (Exception exception) {
             throw conceptMgr.exception(exception);
         }
@@ -80,19 +98,30 @@ public class QueryManager {
 
     public Numeric match(GraqlMatch.Aggregate query, Context.Query queryContext) {
         try (ThreadTrace ignored = traceOnThread(TRACE_PREFIX + "match_aggregate")) {
-            return Matcher.create(reasoner, query, queryContext).execute();
+            Matcher.Aggregator aggregator = Matcher.create(reasoner, query, spills, queryContext);
+            Numeric answer = aggregator.execute();
+            if (aggregator.isPushedDown()) aggregatePushdowns++;
+            return answer;
         } catch (Exception exception) {
             throw conceptMgr.exception(exception);
         }
     }
 
+    /**
+     * Returns the number of aggregate queries of this transaction that were answered from the statistics
+     * and the keys of the storage, rather than from the answers of the query.
+     */
+    public long aggregatePushdowns() {
+        return aggregatePushdowns;
+    }
+
     public ResourceIterator<ConceptMapGroup> match(GraqlMatch.Group query) {
         return match(query, defaultContext);
     }
 
     public ResourceIterator<ConceptMapGroup> match(GraqlMatch.Group query, Context.Query queryContext) {
         try (ThreadTrace ignored = traceOnThread(TRACE_PREFIX + "match_group")) {
-            return Matcher.create(reasoner, query, queryContext).execute().onError(conceptMgr::exception);
+            return Matcher.create(reasoner, query, spills, queryContext).execute().onError(conceptMgr::exception);
         } catch (Exception exception) {
             throw conceptMgr.exception(exception);
         }
@@ -104,7 +133,7 @@ public class QueryManager {
 
     public ResourceIterator<NumericGroup> match(GraqlMatch.Group.Aggregate query, Context.Query queryContext) {
         try (ThreadTrace ignored = traceOnThread(TRACE_PREFIX + "match_group_aggregate")) {
-            return Matcher.create(reasoner, query, queryContext).execute().onError(conceptMgr::exception);
+            return Matcher.create(reasoner, query, spills, queryContext).execute().onError(conceptMgr::exception);
         } catch (Exception exception) {
             throw conceptMgr.exception(exception);
         }
@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.query;
+
+import grakn.common.collection.Pair;
+import grakn.core.common.exception.GraknException;
+import grakn.core.common.iterator.AbstractResourceIterator;
+import grakn.core.common.iterator.ResourceIterator;
+import grakn.core.common.parameters.Label;
+import grakn.core.concept.Concept;
+import grakn.core.concept.ConceptManager;
+import grakn.core.concept.answer.ConceptMap;
+import grakn.core.concept.thing.Attribute;
+import grakn.core.concept.type.AttributeType;
+import graql.lang.common.GraqlArg;
+import graql.lang.pattern.variable.Reference;
+import graql.lang.query.builder.Sortable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
+import static grakn.core.common.exception.ErrorMessage.ThingRead.INVALID_THING_CASTING;
+import static grakn.core.common.exception.ErrorMessage.ThingRead.SORT_ATTRIBUTE_NOT_COMPARABLE;
+import static grakn.core.common.exception.ErrorMessage.ThingRead.SORT_VARIABLE_NOT_ATTRIBUTE;
+import static grakn.core.common.exception.ErrorMessage.Transaction.TRANSACTION_CLOSED;
+import static grakn.core.common.iterator.Iterators.empty;
+import static grakn.core.common.iterator.Iterators.iterate;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sorts the answers of a match query by the value of an attribute variable, while holding a
+ * bounded number of answers in memory.
+ *
+ * The value of the attribute of every answer is read once, into a {@code Keyed} answer, rather
+ * than on every comparison. When the number of answers that are needed is known, from the limit and
+ * offset of the query, only that many are kept in a heap. Otherwise, answers are sorted in runs of
+ * the sort buffer size of the query options, which are spilled to files in the database directory
+ * and merged as the answers are read. The files are deleted once they are read or recycled, or
+ * otherwise when the transaction closes.
+ * Spilled answers keep the IIDs of their things and the labels of their types, and are read back
+ * through the {@code ConceptManager} of the transaction.
+ */
+class Sorter {
+
+    private static final String SPILL_DIRECTORY_PREFIX = "sort-";
+    private static final String SPILL_FILE_PREFIX = "run-";
+
+    private final ConceptManager conceptMgr;
+    private final Spills spills;
+    private final Reference.Name var;
+    private final Comparator<Keyed> comparator;
+    private final int bufferSize;
+
+    Sorter(ConceptManager conceptMgr, Spills spills, Sortable.Sorting sorting, int bufferSize) {
+        assert bufferSize > 0;
+        this.conceptMgr = conceptMgr;
+        this.spills = spills;
+        this.bufferSize = bufferSize;
+        this.var = sorting.var().reference().asName();
+        Comparator<Keyed> ascending = (keyed1, keyed2) -> {
+            if (!keyed1.key.isComparableTo(keyed2.key)) throw GraknException.of(SORT_ATTRIBUTE_NOT_COMPARABLE, var);
+            return keyed1.key.compareTo(keyed2.key);
+        };
+        this.comparator = sorting.order() == GraqlArg.Order.DESC ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * Returns the first {@code count} answers in sorted order, holding no more than that many in memory.
+     */
+    ResourceIterator<ConceptMap> first(ResourceIterator<ConceptMap> answers, long count) {
+        if (count > bufferSize) return sort(answers);
+        if (count == 0) {
+            answers.recycle();
+            return empty();
+        }
+        // the heap is ordered from the last answer to the first, so the last answer is the one to evict
+        PriorityQueue<Keyed> heap = new PriorityQueue<>((int) count, comparator.reversed());
+        answers.forEachRemaining(answer -> {
+            Keyed keyed = keyed(answer);
+            if (heap.size() < count) heap.add(keyed);
+            else if (comparator.compare(keyed, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(keyed);
+            }
+        });
+        List<Keyed> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return iterate(sorted).map(keyed -> keyed.answer);
+    }
+
+    /**
+     * Returns every answer in sorted order, spilling sorted runs to disk when there are more
+     * than the buffer size of them.
+     */
+    ResourceIterator<ConceptMap> sort(ResourceIterator<ConceptMap> answers) {
+        List<Keyed> buffer = new ArrayList<>();
+        List<Path> runs = new ArrayList<>();
+        try {
+            while (answers.hasNext()) {
+                buffer.add(keyed(answers.next()));
+                if (buffer.size() == bufferSize) {
+                    runs.add(spill(buffer));
+                    buffer.clear();
+                }
+            }
+            buffer.sort(comparator);
+            if (runs.isEmpty()) return iterate(buffer).map(keyed -> keyed.answer);
+            if (!buffer.isEmpty()) runs.add(spill(buffer));
+            return new MergeIterator(runs);
+        } catch (IOException e) {
+            runs.forEach(spills::delete);
+            throw GraknException.of(e);
+        } finally {
+            answers.recycle();
+        }
+    }
+
+    private Keyed keyed(ConceptMap answer) {
+        Attribute attribute;
+        try {
+            attribute = answer.get(var).asAttribute();
+        } catch (GraknException e) {
+            if (e.code().isPresent() && e.code().get().equals(INVALID_THING_CASTING.code())) {
+                throw GraknException.of(SORT_VARIABLE_NOT_ATTRIBUTE, var);
+            } else {
+                throw e;
+            }
+        }
+        return new Keyed(new Key(attribute), answer);
+    }
+
+    private Path spill(List<Keyed> run) throws IOException {
+        run.sort(comparator);
+        Path file = spills.create();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (Keyed keyed : run) {
+                keyed.key.write(out);
+                writeAnswer(keyed.answer, out);
+            }
+        } catch (IOException e) {
+            spills.delete(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private static void writeAnswer(ConceptMap answer, DataOutputStream out) throws IOException {
+        out.writeInt(answer.concepts().size());
+        for (Map.Entry<Reference.Name, ? extends Concept> entry : answer.concepts().entrySet()) {
+            out.writeUTF(entry.getKey().name());
+            Concept concept = entry.getValue();
+            if (concept.isThing()) {
+                byte[] iid = concept.asThing().getIID();
+                out.writeBoolean(true);
+                out.writeInt(iid.length);
+                out.write(iid);
+            } else {
+                Label label = concept.asType().getLabel();
+                out.writeBoolean(false);
+                out.writeUTF(label.name());
+                out.writeBoolean(label.scope().isPresent());
+                if (label.scope().isPresent()) out.writeUTF(label.scope().get());
+            }
+        }
+    }
+
+    private ConceptMap readAnswer(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<Reference.Name, Concept> concepts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Reference.Name name = Reference.name(in.readUTF());
+            Concept concept;
+            if (in.readBoolean()) {
+                byte[] iid = new byte[in.readInt()];
+                in.readFully(iid);
+                concept = conceptMgr.getThing(iid);
+            } else {
+                String label = in.readUTF();
+                if (in.readBoolean()) concept = conceptMgr.getRelationType(in.readUTF()).getRelates(label);
+                else concept = conceptMgr.getThingType(label);
+            }
+            if (concept == null) throw GraknException.of(ILLEGAL_STATE);
+            concepts.put(name, concept);
+        }
+        return new ConceptMap(concepts);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * The files that the sorted queries of a transaction spill to, which are kept in a directory of
+     * the transaction under the database directory, rather than in the system temporary directory,
+     * which is often too small to hold them. The directory is created when the first run is spilled,
+     * and deleted with any run that is left in it when the transaction closes.
+     */
+    static class Spills {
+
+        private final Path parent;
+        private final Set<Path> files;
+        private Path directory;
+        private boolean isClosed;
+
+        Spills(Path parent) {
+            this.parent = parent;
+            this.files = new HashSet<>();
+            this.directory = null;
+            this.isClosed = false;
+        }
+
+        synchronized Path create() throws IOException {
+            if (isClosed) throw GraknException.of(TRANSACTION_CLOSED);
+            if (directory == null) directory = Files.createTempDirectory(parent, SPILL_DIRECTORY_PREFIX);
+            Path file = Files.createTempFile(directory, SPILL_FILE_PREFIX, null);
+            files.add(file);
+            return file;
+        }
+
+        synchronized void delete(Path file) {
+            deleteQuietly(file);
+            files.remove(file);
+        }
+
+        synchronized void close() {
+            if (isClosed) return;
+            isClosed = true;
+            files.forEach(Sorter::deleteQuietly);
+            files.clear();
+            if (directory != null) deleteQuietly(directory);
+        }
+    }
+
+    private static class Keyed {
+
+        private final Key key;
+        private final ConceptMap answer;
+
+        private Keyed(Key key, ConceptMap answer) {
+            this.key = key;
+            this.answer = answer;
+        }
+    }
+
+    /**
+     * The value of the attribute that an answer is sorted by, which compares as the values of
+     * attributes are compared by {@code sort}: strings ignore their case, and longs are compared
+     * to doubles as doubles.
+     */
+    private static class Key implements Comparable<Key> {
+
+        private final AttributeType.ValueType valueType;
+        private final Object value;
+
+        private Key(Attribute attribute) {
+            this.valueType = attribute.getType().getValueType();
+            if (attribute.isString()) value = attribute.asString().getValue();
+            else if (attribute.isBoolean()) value = attribute.asBoolean().getValue();
+            else if (attribute.isLong()) value = attribute.asLong().getValue();
+            else if (attribute.isDouble()) value = attribute.asDouble().getValue();
+            else if (attribute.isDateTime()) value = attribute.asDateTime().getValue();
+            else throw GraknException.of(ILLEGAL_STATE);
+        }
+
+        private Key(AttributeType.ValueType valueType, Object value) {
+            this.valueType = valueType;
+            this.value = value;
+        }
+
+        private boolean isComparableTo(Key other) {
+            return valueType == other.valueType || valueType.comparables().contains(other.valueType);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            assert isComparableTo(other);
+            switch (valueType) {
+                case STRING:
+                    return ((String) value).compareToIgnoreCase((String) other.value);
+                case BOOLEAN:
+                    return ((Boolean) value).compareTo((Boolean) other.value);
+                case LONG:
+                case DOUBLE:
+                    if (valueType == AttributeType.ValueType.LONG && other.valueType == AttributeType.ValueType.LONG) {
+                        return ((Long) value).compareTo((Long) other.value);
+                    }
+                    return Double.compare(((Number) value).doubleValue(), ((Number) other.value).doubleValue());
+                case DATETIME:
+                    return ((LocalDateTime) value).compareTo((LocalDateTime) other.value);
+                default:
+                    throw GraknException.of(ILLEGAL_STATE);
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeByte(valueType.ordinal());
+            switch (valueType) {
+                case STRING:
+                    byte[] bytes = ((String) value).getBytes(UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case DATETIME:
+                    out.writeUTF(value.toString());
+                    break;
+                default:
+                    throw GraknException.of(ILLEGAL_STATE);
+            }
+        }
+
+        private static Key read(DataInputStream in) throws IOException {
+            AttributeType.ValueType valueType = AttributeType.ValueType.values()[in.readByte()];
+            switch (valueType) {
+                case STRING:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    return new Key(valueType, new String(bytes, UTF_8));
+                case BOOLEAN:
+                    return new Key(valueType, in.readBoolean());
+                case LONG:
+                    return new Key(valueType, in.readLong());
+                case DOUBLE:
+                    return new Key(valueType, in.readDouble());
+                case DATETIME:
+                    return new Key(valueType, LocalDateTime.parse(in.readUTF()));
+                default:
+                    throw GraknException.of(ILLEGAL_STATE);
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted runs that were spilled to disk, reading one answer of each run at a time,
+     * and deletes the runs once they are exhausted or the iterator is recycled.
+     */
+    private class MergeIterator extends AbstractResourceIterator<ConceptMap> {
+
+        private final List<Path> runs;
+        private final List<DataInputStream> inputs;
+        private final PriorityQueue<Pair<Keyed, DataInputStream>> heads;
+
+        private MergeIterator(List<Path> runs) throws IOException {
+            this.runs = runs;
+            this.inputs = new ArrayList<>();
+            this.heads = new PriorityQueue<>(runs.size(), (head1, head2) -> comparator.compare(head1.first(), head2.first()));
+            try {
+                for (Path run : runs) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+                    inputs.add(in);
+                    advance(in);
+                }
+            } catch (IOException e) {
+                recycle();
+                throw e;
+            }
+        }
+
+        private void advance(DataInputStream in) throws IOException {
+            Key key;
+            try {
+                key = Key.read(in);
+            } catch (EOFException e) {
+                return;
+            }
+            heads.add(new Pair<>(new Keyed(key, readAnswer(in)), in));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (heads.isEmpty()) recycle();
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public ConceptMap next() {
+            Pair<Keyed, DataInputStream> head = heads.poll();
+            if (head == null) throw GraknException.of(ILLEGAL_STATE);
+            try {
+                advance(head.second());
+            } catch (IOException e) {
+                recycle();
+                throw GraknException.of(e);
+            }
+            return head.first().answer;
+        }
+
+        @Override
+        public void recycle() {
+            heads.clear();
+            for (DataInputStream in : inputs) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            inputs.clear();
+            runs.forEach(spills::delete);
+        }
+    }
+}
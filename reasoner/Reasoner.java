@@ -30,6 +30,7 @@ import grakn.core.concept.type.Type;
 import grakn.core.concurrent.actor.Actor;
 import grakn.core.concurrent.producer.Producer;
 import grakn.core.concurrent.producer.Producers;
+import grakn.core.graph.GraphManager;
 import grakn.core.logic.LogicManager;
 import grakn.core.pattern.Conjunction;
 import grakn.core.pattern.Disjunction;
@@ -76,11 +77,19 @@ public class Reasoner {
         return resolverRegistry;
     }
 
+    public ConceptManager conceptManager() {
+        return conceptMgr;
+    }
+
+    public GraphManager graphManager() {
+        return traversalEng.graph();
+    }
+
     private Producer<ConceptMap> resolve(Conjunction conjunction) {
         return new ReasonerProducer(conjunction, resolverRegistry);
     }
 
-    private boolean isInfer(Context.Query context) {
+    public boolean isInfer(Context.Query context) {
         return context.options().infer() && !context.transactionType().isWrite() && logicMgr.rules().hasNext();
     }
 
@@ -93,7 +102,16 @@ public class Reasoner {
                                                 Context.Query context) {
         ResourceIterator<Conjunction> conjs = iterate(disjunction.conjunctions());
         if (!context.options().parallel()) return conjs.flatMap(conj -> iterator(conj, filter, context));
-        else return produce(conjs.map(conj -> producer(conj, filter, context)).toList(), context.producer());
+        else return produce(producers(disjunction, filter, context), context.producer());
+    }
+
+    /**
+     * Returns one producer of answers for each conjunction of the disjunction, for a caller that
+     * consumes the answers on the threads that produce them, rather than through an iterator.
+     */
+    public List<Producer<ConceptMap>> producers(Disjunction disjunction, List<Identifier.Variable.Name> filter,
+                                                Context.Query context) {
+        return iterate(disjunction.conjunctions()).map(conj -> producer(conj, filter, context)).toList();
     }
 
     private Producer<ConceptMap> producer(Conjunction conjunction) {
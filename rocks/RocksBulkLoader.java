@@ -0,0 +1,409 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.rocks;
+
+import grakn.common.collection.Pair;
+import grakn.core.common.collection.Bytes;
+import grakn.core.common.exception.GraknCheckedException;
+import grakn.core.common.exception.GraknException;
+import grakn.core.common.parameters.Options;
+import grakn.core.concept.type.AttributeType;
+import grakn.core.concept.type.RoleType;
+import grakn.core.concept.type.ThingType;
+import grakn.core.concept.type.Type;
+import grakn.core.concept.type.impl.TypeImpl;
+import grakn.core.graph.SchemaGraph;
+import grakn.core.graph.common.Encoding;
+import grakn.core.graph.iid.EdgeIID;
+import grakn.core.graph.iid.IndexIID;
+import grakn.core.graph.iid.InfixIID;
+import grakn.core.graph.iid.SuffixIID;
+import grakn.core.graph.iid.VertexIID;
+import grakn.core.graph.vertex.TypeVertex;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static grakn.common.collection.Collections.list;
+import static grakn.common.collection.Collections.pair;
+import static grakn.core.common.collection.Bytes.longToBytes;
+import static grakn.core.common.exception.ErrorMessage.Database.BULK_LOAD_ACQUIRE_LOCK_TIMEOUT;
+import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
+import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_INTERRUPTION;
+import static grakn.core.common.exception.ErrorMessage.ThingWrite.ILLEGAL_STRING_SIZE;
+import static grakn.core.graph.common.Encoding.Edge.Thing.HAS;
+import static grakn.core.graph.common.Encoding.Edge.Thing.PLAYING;
+import static grakn.core.graph.common.Encoding.Edge.Thing.RELATING;
+import static grakn.core.graph.common.Encoding.Edge.Thing.ROLEPLAYER;
+import static grakn.core.graph.common.Encoding.Partition.STATISTICS;
+import static grakn.core.graph.common.Encoding.Prefix.VERTEX_ATTRIBUTE_TYPE;
+import static grakn.core.graph.common.Encoding.Prefix.VERTEX_ENTITY_TYPE;
+import static grakn.core.graph.common.Encoding.Prefix.VERTEX_RELATION_TYPE;
+import static grakn.core.graph.common.Encoding.Prefix.VERTEX_ROLE_TYPE;
+import static grakn.core.graph.common.Encoding.ValueType.STRING_MAX_SIZE;
+import static grakn.core.graph.common.StatisticsBytes.attributeCountedKey;
+import static grakn.core.graph.common.StatisticsBytes.hasEdgeCountKey;
+import static grakn.core.graph.common.StatisticsBytes.hasEdgeCountedKey;
+import static grakn.core.graph.common.StatisticsBytes.hasEdgeTotalCountKey;
+import static grakn.core.graph.common.StatisticsBytes.snapshotKey;
+import static grakn.core.graph.common.StatisticsBytes.vertexCountKey;
+import static grakn.core.graph.common.StatisticsBytes.vertexTransitiveCountKey;
+import static java.util.Comparator.reverseOrder;
+
+/**
+ * Loads data into a {@code RocksDatabase} without going through a {@code RocksTransaction}.
+ *
+ * The keys of every vertex and edge are encoded exactly as a {@code DataGraph} would commit
+ * them, but they are buffered in sorted order per {@code Encoding.Partition}, written into
+ * SST files with a {@code SstFileWriter}, and ingested into the data storage as a whole.
+ * This skips the conflict checks, the write-ahead log and the memtables of the storage,
+ * which dominate the cost of loading large datasets through transactions.
+ *
+ * The statistics that a transaction would leave for the background counter are counted
+ * in the same pass instead, and written with every batch of SST files that is ingested.
+ *
+ * A bulk load holds the schema lock of the database for writing, so that no schema session
+ * nor any write transaction can be opened while it runs. The data is not validated against
+ * the schema, and a bulk load is not atomic: the batches that were ingested before a failure
+ * remain in the database.
+ */
+@NotThreadSafe
+public class RocksBulkLoader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RocksBulkLoader.class);
+    private static final long FLUSH_THRESHOLD_BYTES = 256L * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final byte[] EMPTY_ARRAY = new byte[]{};
+
+    private final RocksDatabase database;
+    private final RocksDatabase.Cache cache;
+    private final SchemaGraph schemaGraph;
+    private final Path directory;
+    private final Map<Encoding.Partition, TreeMap<byte[], byte[]>> buffers;
+    private final Map<VertexIID.Type, Long> vertexCounts;
+    private final Map<VertexIID.Type, Long> vertexTransitiveCounts;
+    private final Map<Pair<VertexIID.Type, VertexIID.Type>, Long> hasEdgeCounts;
+    private final Map<VertexIID.Type, Long> hasEdgeTotalCounts;
+    private final long lock;
+    private long bufferedBytes;
+    private long ingestedFiles;
+    private boolean isOpen;
+
+    RocksBulkLoader(RocksDatabase database) {
+        this.database = database;
+        try {
+            lock = database.dataWriteSchemaLock().tryWriteLock(
+                    new Options.Session().schemaLockAcquireTimeoutMillis(), TimeUnit.MILLISECONDS
+            );
+            if (lock == 0) throw GraknException.of(BULK_LOAD_ACQUIRE_LOCK_TIMEOUT, database.name());
+        } catch (InterruptedException e) {
+            throw GraknException.of(UNEXPECTED_INTERRUPTION);
+        }
+        cache = database.cacheBorrow();
+        schemaGraph = cache.schemaGraph();
+        try {
+            directory = Files.createTempDirectory(database.directory(), "bulk-load");
+        } catch (IOException e) {
+            database.cacheUnborrow(cache);
+            database.dataWriteSchemaLock().unlockWrite(lock);
+            throw GraknException.of(e);
+        }
+        buffers = new EnumMap<>(Encoding.Partition.class);
+        for (Encoding.Partition partition : Encoding.Partition.values()) {
+            buffers.put(partition, new TreeMap<>(Bytes::compareBytes));
+        }
+        vertexCounts = new HashMap<>();
+        vertexTransitiveCounts = new HashMap<>();
+        hasEdgeCounts = new HashMap<>();
+        hasEdgeTotalCounts = new HashMap<>();
+        isOpen = true;
+    }
+
+    /**
+     * Creates a new entity or relation of the given type.
+     *
+     * @param type the entity type or relation type of the new thing
+     * @return the IID of the new thing
+     */
+    public byte[] create(ThingType type) {
+        assert !type.isAttributeType();
+        TypeVertex typeVertex = vertex(type);
+        VertexIID.Thing iid = createVertex(typeVertex);
+        return iid.bytes();
+    }
+
+    public byte[] put(AttributeType.Boolean type, boolean value) {
+        return putAttribute(new VertexIID.Attribute.Boolean(vertex(type).iid(), value),
+                            IndexIID.Attribute.of(value, vertex(type).iid()));
+    }
+
+    public byte[] put(AttributeType.Long type, long value) {
+        return putAttribute(new VertexIID.Attribute.Long(vertex(type).iid(), value),
+                            IndexIID.Attribute.of(value, vertex(type).iid()));
+    }
+
+    public byte[] put(AttributeType.Double type, double value) {
+        return putAttribute(new VertexIID.Attribute.Double(vertex(type).iid(), value),
+                            IndexIID.Attribute.of(value, vertex(type).iid()));
+    }
+
+    public byte[] put(AttributeType.String type, String value) {
+        VertexIID.Attribute.String attIID;
+        try {
+            attIID = new VertexIID.Attribute.String(vertex(type).iid(), value);
+        } catch (GraknCheckedException e) {
+            if (e.code().isPresent() && e.code().get().equals(ILLEGAL_STRING_SIZE.code())) {
+                throw GraknException.of(ILLEGAL_STRING_SIZE, STRING_MAX_SIZE);
+            } else {
+                throw GraknException.of(e);
+            }
+        }
+        List<IndexIID> indexIIDs = new ArrayList<>();
+        indexIIDs.add(IndexIID.Attribute.of(value, vertex(type).iid()));
+        indexIIDs.add(IndexIID.Attribute.SortedString.of(value, vertex(type).iid()));
+        if (vertex(type).isTextIndexed()) {
+            for (String trigram : IndexIID.Attribute.Trigram.trigrams(value)) {
+                indexIIDs.add(IndexIID.Attribute.Trigram.of(trigram, vertex(type).iid(), attIID));
+            }
+        }
+        return putAttribute(attIID, indexIIDs.toArray(new IndexIID[0]));
+    }
+
+    public byte[] put(AttributeType.DateTime type, LocalDateTime value) {
+        return putAttribute(new VertexIID.Attribute.DateTime(vertex(type).iid(), value),
+                            IndexIID.Attribute.of(value, vertex(type).iid()));
+    }
+
+    /**
+     * Connects an owner to an attribute with a {@code HAS} edge, as {@code Thing#setHas} would.
+     *
+     * @param owner     the IID of the owner
+     * @param attribute the IID of the attribute
+     */
+    public void setHas(byte[] owner, byte[] attribute) {
+        VertexIID.Thing ownerIID = VertexIID.Thing.of(owner);
+        VertexIID.Attribute<?> attIID = VertexIID.Attribute.of(attribute);
+        EdgeIID.Thing outIID = EdgeIID.Thing.of(ownerIID, InfixIID.Thing.of(HAS.out()), attIID);
+        if (exists(outIID.bytes())) return;
+
+        buffer(outIID.bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.Thing.of(attIID, InfixIID.Thing.of(HAS.in()), ownerIID).bytes(), EMPTY_ARRAY);
+        buffer(hasEdgeCountedKey(ownerIID, attIID), EMPTY_ARRAY);
+        hasEdgeCounts.merge(pair(ownerIID.type(), attIID.type()), 1L, Long::sum);
+        VertexIID.Type rootIID = rootOf(ownerIID.type());
+        if (rootIID != null) hasEdgeTotalCounts.merge(rootIID, 1L, Long::sum);
+        mayFlush();
+    }
+
+    /**
+     * Adds a player to a relation in a role, as {@code Relation#addPlayer} would: by creating
+     * the role instance, its {@code RELATING} and {@code PLAYING} edges, and the optimised
+     * {@code ROLEPLAYER} edge between the relation and the player.
+     *
+     * @param relation the IID of the relation
+     * @param roleType the role that the player plays in the relation
+     * @param player   the IID of the player
+     */
+    public void addPlayer(byte[] relation, RoleType roleType, byte[] player) {
+        VertexIID.Thing relationIID = VertexIID.Thing.of(relation);
+        VertexIID.Thing playerIID = VertexIID.Thing.of(player);
+        TypeVertex roleTypeVertex = vertex(roleType);
+        VertexIID.Thing roleIID = createVertex(roleTypeVertex);
+
+        buffer(EdgeIID.Thing.of(relationIID, InfixIID.Thing.of(RELATING.out()), roleIID).bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.Thing.of(roleIID, InfixIID.Thing.of(RELATING.in()), relationIID).bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.Thing.of(playerIID, InfixIID.Thing.of(PLAYING.out()), roleIID).bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.Thing.of(roleIID, InfixIID.Thing.of(PLAYING.in()), playerIID).bytes(), EMPTY_ARRAY);
+        SuffixIID suffix = SuffixIID.of(roleIID.key());
+        buffer(EdgeIID.Thing.of(relationIID, InfixIID.Thing.of(ROLEPLAYER.out(), roleTypeVertex.iid()),
+                                playerIID, suffix).bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.Thing.of(playerIID, InfixIID.Thing.of(ROLEPLAYER.in(), roleTypeVertex.iid()),
+                                relationIID, suffix).bytes(), EMPTY_ARRAY);
+        mayFlush();
+    }
+
+    /**
+     * Writes and ingests everything that is still buffered, and synchronises the data key
+     * generator of the database with the things that were loaded.
+     */
+    public void commit() {
+        if (!isOpen) throw GraknException.of(ILLEGAL_STATE);
+        flush();
+        database.syncDataKeyGenerator();
+        LOG.info("Bulk loaded {} SST files into database '{}'", ingestedFiles, database.name());
+    }
+
+    @Override
+    public void close() {
+        if (!isOpen) return;
+        isOpen = false;
+        buffers.values().forEach(TreeMap::clear);
+        deleteDirectory();
+        database.cacheUnborrow(cache);
+        database.dataWriteSchemaLock().unlockWrite(lock);
+    }
+
+    private TypeVertex vertex(Type type) {
+        return ((TypeImpl) type).vertex;
+    }
+
+    private VertexIID.Thing createVertex(TypeVertex typeVertex) {
+        VertexIID.Thing iid = VertexIID.Thing.generate(
+                database.dataKeyGenerator(), typeVertex.iid(), typeVertex.properLabel()
+        );
+        buffer(iid.bytes(), EMPTY_ARRAY);
+        buffer(EdgeIID.InwardsISA.of(typeVertex.iid(), iid).bytes(), EMPTY_ARRAY);
+        vertexCounts.merge(typeVertex.iid(), 1L, Long::sum);
+        VertexIID.Type rootIID = rootOf(typeVertex.iid());
+        if (rootIID != null) vertexTransitiveCounts.merge(rootIID, 1L, Long::sum);
+        return iid;
+    }
+
+    private byte[] putAttribute(VertexIID.Attribute<?> attIID, IndexIID... indexIIDs) {
+        if (!exists(attIID.bytes())) {
+            buffer(attIID.bytes(), EMPTY_ARRAY);
+            buffer(EdgeIID.InwardsISA.of(attIID.type(), attIID).bytes(), EMPTY_ARRAY);
+            for (IndexIID indexIID : indexIIDs) buffer(indexIID.bytes(), attIID.bytes());
+            buffer(attributeCountedKey(attIID), EMPTY_ARRAY);
+            vertexCounts.merge(attIID.type(), 1L, Long::sum);
+            vertexTransitiveCounts.merge(schemaGraph.rootAttributeType().iid(), 1L, Long::sum);
+            mayFlush();
+        }
+        return attIID.bytes();
+    }
+
+    private boolean exists(byte[] key) {
+        Encoding.Partition partition = Encoding.Partition.of(key);
+        if (buffers.get(partition).containsKey(key)) return true;
+        try {
+            return database.rocksData().get(database.rocksDataPartitions().get(partition), key) != null;
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    private VertexIID.Type rootOf(VertexIID.Type typeIID) {
+        Encoding.Prefix prefix = typeIID.encoding().prefix();
+        if (prefix == VERTEX_ENTITY_TYPE) return schemaGraph.rootEntityType().iid();
+        else if (prefix == VERTEX_RELATION_TYPE) return schemaGraph.rootRelationType().iid();
+        else if (prefix == VERTEX_ROLE_TYPE) return schemaGraph.rootRoleType().iid();
+        else if (prefix == VERTEX_ATTRIBUTE_TYPE) return schemaGraph.rootAttributeType().iid();
+        else return null;
+    }
+
+    private void buffer(byte[] key, byte[] value) {
+        if (buffers.get(Encoding.Partition.of(key)).put(key, value) == null) {
+            bufferedBytes += key.length + value.length + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+
+    private void mayFlush() {
+        if (bufferedBytes >= FLUSH_THRESHOLD_BYTES) flush();
+    }
+
+    /**
+     * Writes every buffered partition into its own SST file, in the sorted order that the
+     * {@code SstFileWriter} requires, and ingests the files into the data storage. The files
+     * are moved rather than copied, and RocksDB assigns them to the lowest level at which
+     * they do not overlap with existing data. The statistics of the batch are merged into
+     * storage only once the files have been ingested.
+     */
+    private void flush() {
+        try (EnvOptions envOptions = new EnvOptions();
+             IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()
+                     .setMoveFiles(true).setSnapshotConsistency(true).setAllowGlobalSeqNo(true)) {
+            for (Map.Entry<Encoding.Partition, TreeMap<byte[], byte[]>> entry : buffers.entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
+                Path file = directory.resolve(entry.getKey().rocksName() + "-" + ingestedFiles + ".sst");
+                writeFile(file, entry.getKey(), entry.getValue(), envOptions);
+                database.rocksData().ingestExternalFile(
+                        database.rocksDataPartitions().get(entry.getKey()), list(file.toString()), ingestOptions
+                );
+                entry.getValue().clear();
+                ingestedFiles++;
+            }
+            writeStatistics();
+            bufferedBytes = 0;
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    private void writeFile(Path file, Encoding.Partition partition, TreeMap<byte[], byte[]> buffer,
+                           EnvOptions envOptions) throws RocksDBException {
+        try (org.rocksdb.Options options = new org.rocksdb.Options(
+                database.grakn().rocksDataOptions(), database.grakn().rocksDataPartitionOptions(partition));
+             SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+            writer.open(file.toString());
+            for (Map.Entry<byte[], byte[]> kv : buffer.entrySet()) writer.put(kv.getKey(), kv.getValue());
+            writer.finish();
+        }
+    }
+
+    private void writeStatistics() throws RocksDBException {
+        if (vertexCounts.isEmpty() && hasEdgeCounts.isEmpty()) return;
+        try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+            vertexCounts.forEach((typeIID, count) -> merge(batch, vertexCountKey(typeIID), count));
+            vertexTransitiveCounts.forEach((rootIID, count) -> merge(batch, vertexTransitiveCountKey(rootIID), count));
+            hasEdgeCounts.forEach((types, count) -> merge(batch, hasEdgeCountKey(types.first(), types.second()), count));
+            hasEdgeTotalCounts.forEach((rootIID, count) -> merge(batch, hasEdgeTotalCountKey(rootIID), count));
+            merge(batch, snapshotKey(), 1);
+            database.rocksData().write(writeOptions, batch);
+        }
+        vertexCounts.clear();
+        vertexTransitiveCounts.clear();
+        hasEdgeCounts.clear();
+        hasEdgeTotalCounts.clear();
+    }
+
+    private void merge(WriteBatch batch, byte[] key, long delta) {
+        try {
+            batch.merge(database.rocksDataPartitions().get(STATISTICS), key, longToBytes(delta));
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    private void deleteDirectory() {
+        try {
+            Files.walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete the bulk load directory '{}'", directory, e);
+        }
+    }
+}
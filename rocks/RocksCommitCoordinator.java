@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.rocks;
+
+import grakn.core.common.exception.GraknException;
+import org.rocksdb.OptimisticTransactionDB;
+import org.rocksdb.RocksDBException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_INTERRUPTION;
+import static grakn.core.common.exception.ErrorMessage.Transaction.COMMIT_NOT_DURABLE;
+
+/**
+ * Coordinates the commits of the data transactions of a database, so that the commits that
+ * become ready within a small window of each other share a single fsync of the write-ahead log.
+ *
+ * Every transaction still commits into RocksDB on its own, so a transaction that conflicts
+ * fails on its own, before it joins a group. The first transaction to join a group waits for
+ * the window to pass, syncs the write-ahead log once for every transaction that joined the
+ * group in the meantime, and then acknowledges them all. If the window is zero, commits are
+ * not synced, as RocksDB does not sync them by default either.
+ *
+ * A transaction has already been committed, and is visible to other transactions, by the time
+ * its group is synced. If the sync fails, the transactions of the group are told that their
+ * commits are not durable, rather than that they failed, so that they are not rolled back nor
+ * retried by clients, which would insert their data twice.
+ */
+@ThreadSafe
+public class RocksCommitCoordinator {
+
+    private final WALSync walSync;
+    private final long windowNanos;
+    private final Metrics metrics;
+    private List<CompletableFuture<Void>> group;
+    private boolean hasLeader;
+
+    RocksCommitCoordinator(OptimisticTransactionDB rocksData, long windowMicros) {
+        this(rocksData::syncWal, windowMicros);
+    }
+
+    RocksCommitCoordinator(WALSync walSync, long windowMicros) {
+        assert windowMicros >= 0;
+        this.walSync = walSync;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.metrics = new Metrics();
+        this.group = new ArrayList<>();
+        this.hasLeader = false;
+    }
+
+    /**
+     * Commits a set of writes into RocksDB, and returns once they are durable.
+     *
+     * @param writes    the writes to commit, which fail on their own if they conflict
+     * @param isLogged  whether the writes are written to the write-ahead log, and so need to be synced
+     * @throws RocksDBException if the writes could not be committed
+     * @throws GraknException   if the writes were committed, but the write-ahead log could not be synced
+     */
+    void commit(Writes writes, boolean isLogged) throws RocksDBException {
+        long start = System.nanoTime();
+        try {
+            writes.commit();
+            if (isLogged && windowNanos > 0) awaitSync();
+        } finally {
+            metrics.commitLatency(System.nanoTime() - start);
+        }
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    private void awaitSync() {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        boolean isLeader;
+        synchronized (this) {
+            group.add(synced);
+            isLeader = !hasLeader;
+            hasLeader = true;
+        }
+        if (isLeader) syncGroup();
+        try {
+            synced.get();
+        } catch (InterruptedException e) {
+            throw GraknException.of(UNEXPECTED_INTERRUPTION);
+        } catch (ExecutionException e) {
+            throw GraknException.of(COMMIT_NOT_DURABLE, e.getCause().getMessage());
+        }
+    }
+
+    private void syncGroup() {
+        LockSupport.parkNanos(windowNanos);
+        List<CompletableFuture<Void>> synced;
+        synchronized (this) {
+            synced = group;
+            group = new ArrayList<>();
+            hasLeader = false;
+        }
+        try {
+            // every transaction in the group has written to the log before it joined the group
+            walSync.sync();
+            metrics.groupSynced(synced.size());
+            synced.forEach(commit -> commit.complete(null));
+        } catch (Throwable e) {
+            // every transaction in the group waits on its own future, so each of them must be completed
+            metrics.syncFailed();
+            synced.forEach(commit -> commit.completeExceptionally(e));
+        }
+    }
+
+    @FunctionalInterface
+    interface Writes {
+
+        void commit() throws RocksDBException;
+    }
+
+    @FunctionalInterface
+    interface WALSync {
+
+        void sync() throws RocksDBException;
+    }
+
+    /**
+     * The commit latency and group sizes of the data transactions of a database, since it was opened.
+     */
+    public static class Metrics {
+
+        private final LongAdder commits;
+        private final LongAdder insertOnlyCommits;
+        private final LongAdder commitLatencyNanos;
+        private final LongAccumulator maxCommitLatencyNanos;
+        private final LongAdder syncs;
+        private final LongAdder failedSyncs;
+        private final LongAdder syncedCommits;
+        private final LongAccumulator maxGroupSize;
+
+        private Metrics() {
+            commits = new LongAdder();
+            insertOnlyCommits = new LongAdder();
+            commitLatencyNanos = new LongAdder();
+            maxCommitLatencyNanos = new LongAccumulator(Math::max, 0);
+            syncs = new LongAdder();
+            failedSyncs = new LongAdder();
+            syncedCommits = new LongAdder();
+            maxGroupSize = new LongAccumulator(Math::max, 0);
+        }
+
+        private void commitLatency(long nanos) {
+            commits.increment();
+            commitLatencyNanos.add(nanos);
+            maxCommitLatencyNanos.accumulate(nanos);
+        }
+
+        void insertOnlyCommitted() {
+            insertOnlyCommits.increment();
+        }
+
+        private void syncFailed() {
+            failedSyncs.increment();
+        }
+
+        private void groupSynced(int size) {
+            syncs.increment();
+            syncedCommits.add(size);
+            maxGroupSize.accumulate(size);
+        }
+
+        public long commits() {
+            return commits.sum();
+        }
+
+        /**
+         * Returns the number of commits that only inserted new data, and were written in a single batch.
+         */
+        public long insertOnlyCommits() {
+            return insertOnlyCommits.sum();
+        }
+
+        public double meanCommitLatencyMillis() {
+            long commits = this.commits.sum();
+            return commits == 0 ? 0 : commitLatencyNanos.sum() / (commits * 1_000_000.0);
+        }
+
+        public double maxCommitLatencyMillis() {
+            return maxCommitLatencyNanos.get() / 1_000_000.0;
+        }
+
+        public long syncs() {
+            return syncs.sum();
+        }
+
+        /**
+         * Returns the number of syncs that failed, each of which left the commits of its group not durable.
+         */
+        public long failedSyncs() {
+            return failedSyncs.sum();
+        }
+
+        public double meanGroupSize() {
+            long syncs = this.syncs.sum();
+            return syncs == 0 ? 0 : (double) syncedCommits.sum() / syncs;
+        }
+
+        public long maxGroupSize() {
+            return maxGroupSize.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("commits: %d, insert-only commits: %d, mean latency: %.3fms, " +
+                                         "max latency: %.3fms, syncs: %d, failed syncs: %d, mean group size: %.2f, " +
+                                         "max group size: %d",
+                                 commits(), insertOnlyCommits(), meanCommitLatencyMillis(), maxCommitLatencyMillis(),
+                                 syncs(), failedSyncs(), meanGroupSize(), maxGroupSize());
+        }
+    }
+}
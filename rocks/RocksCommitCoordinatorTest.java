@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.rocks;
+
+import grakn.core.common.exception.GraknException;
+import org.junit.Test;
+import org.rocksdb.RocksDBException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static grakn.core.common.exception.ErrorMessage.Transaction.COMMIT_NOT_DURABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RocksCommitCoordinatorTest {
+
+    private static final int COMMITS = 8;
+    private static final long WINDOW_MICROS = 200_000;
+
+    @Test
+    public void test_concurrent_commits_share_syncs() throws Exception {
+        AtomicInteger syncs = new AtomicInteger();
+        RocksCommitCoordinator coordinator = new RocksCommitCoordinator(syncs::incrementAndGet, WINDOW_MICROS);
+        List<Throwable> errors = commitConcurrently(coordinator);
+
+        for (Throwable error : errors) assertEquals(null, error);
+        RocksCommitCoordinator.Metrics metrics = coordinator.metrics();
+        assertEquals(COMMITS, metrics.commits());
+        assertEquals(syncs.get(), metrics.syncs());
+        assertTrue(metrics.syncs() < COMMITS);
+        assertTrue(metrics.maxGroupSize() > 1);
+        assertEquals(COMMITS, metrics.meanGroupSize() * metrics.syncs(), 0.001);
+    }
+
+    @Test
+    public void test_failed_sync_reports_every_commit_of_its_group_as_not_durable() throws Exception {
+        RocksCommitCoordinator coordinator = new RocksCommitCoordinator(() -> {
+            throw new RocksDBException("sync failed");
+        }, WINDOW_MICROS);
+        AtomicInteger committed = new AtomicInteger();
+        for (Throwable error : commitConcurrently(coordinator, committed::incrementAndGet)) assertNotDurable(error);
+        // the writes were committed before the sync, so they must not be reported as failed to commit
+        assertEquals(COMMITS, committed.get());
+        assertEquals(0, coordinator.metrics().syncs());
+        assertTrue(coordinator.metrics().failedSyncs() > 0);
+    }
+
+    @Test
+    public void test_unexpected_sync_error_reports_every_commit_of_its_group_as_not_durable() throws Exception {
+        RocksCommitCoordinator coordinator = new RocksCommitCoordinator(() -> {
+            throw new IllegalStateException("sync failed");
+        }, WINDOW_MICROS);
+        for (Throwable error : commitConcurrently(coordinator)) assertNotDurable(error);
+    }
+
+    @Test
+    public void test_failed_writes_are_not_synced() throws Exception {
+        AtomicInteger syncs = new AtomicInteger();
+        RocksCommitCoordinator coordinator = new RocksCommitCoordinator(syncs::incrementAndGet, WINDOW_MICROS);
+        List<Throwable> errors = commitConcurrently(coordinator, () -> {
+            throw new RocksDBException("conflict");
+        });
+        for (Throwable error : errors) assertTrue(error instanceof RocksDBException);
+        assertEquals(0, syncs.get());
+    }
+
+    @Test
+    public void test_commits_are_not_synced_without_a_window() throws Exception {
+        RocksCommitCoordinator coordinator = new RocksCommitCoordinator(() -> fail(), 0);
+        for (Throwable error : commitConcurrently(coordinator)) assertEquals(null, error);
+        assertEquals(COMMITS, coordinator.metrics().commits());
+        assertEquals(0, coordinator.metrics().syncs());
+    }
+
+    private static void assertNotDurable(Throwable error) {
+        assertTrue(error instanceof GraknException);
+        assertEquals(COMMIT_NOT_DURABLE.code(), ((GraknException) error).code().get());
+    }
+
+    private static List<Throwable> commitConcurrently(RocksCommitCoordinator coordinator)
+            throws InterruptedException, ExecutionException {
+        return commitConcurrently(coordinator, () -> {});
+    }
+
+    /**
+     * Commits from several threads at once, and returns the error of each commit, or null if it succeeded.
+     * A commit that never returns fails the test, rather than blocking it.
+     */
+    private static List<Throwable> commitConcurrently(RocksCommitCoordinator coordinator,
+                                                      RocksCommitCoordinator.Writes writes)
+            throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(COMMITS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Throwable>> commits = new ArrayList<>();
+            for (int i = 0; i < COMMITS; i++) {
+                commits.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        coordinator.commit(writes, true);
+                        return null;
+                    } catch (RocksDBException | RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Throwable> errors = new ArrayList<>();
+            for (Future<Throwable> commit : commits) {
+                try {
+                    errors.add(commit.get(10, TimeUnit.SECONDS));
+                } catch (TimeoutException e) {
+                    fail("A commit is still waiting for the sync of its group");
+                }
+            }
+            return errors;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
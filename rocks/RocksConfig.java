@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.rocks;
+
+import grakn.core.common.parameters.Arguments;
+import grakn.core.common.parameters.Options;
+import grakn.core.graph.common.Encoding;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.Filter;
+import org.rocksdb.LRUCache;
+import org.rocksdb.UInt64AddOperator;
+import org.rocksdb.WriteOptions;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static grakn.common.collection.Collections.list;
+import static grakn.core.graph.iid.VertexIID.Thing.PREFIX_W_TYPE_LENGTH;
+import static org.rocksdb.CompressionType.LZ4_COMPRESSION;
+import static org.rocksdb.CompressionType.NO_COMPRESSION;
+import static org.rocksdb.CompressionType.ZSTD_COMPRESSION;
+
+/**
+ * The RocksDB configuration shared by every {@code RocksDatabase} of a {@code RocksGrakn}.
+ *
+ * All databases share one LRU block cache, so that the memory budget of the server
+ * does not grow with the number of databases. Every table is built with a bloom
+ * filter over whole keys, which serves point lookups of {@code VertexIID} and
+ * {@code EdgeIID} keys. The vertex and edge partitions of the data storage are also
+ * given a fixed-length prefix extractor over {@code PrefixIID} + {@code VertexIID.Type},
+ * which is the leading segment of every thing vertex and edge key, so that prefix scans
+ * can skip SST files using the same bloom filter. Iterators that seek outside of a
+ * single prefix, such as {@code RocksStorage#getLastKey}, must set {@code total_order_seek}.
+ *
+ * The data storage is split into one column family per {@code Encoding.Partition},
+ * each with its own compaction and compression settings: adjacency scans over the
+ * edge partition should not compete with the statistics counters for the memtables,
+ * nor for the compaction of their SST files.
+ */
+class RocksConfig implements AutoCloseable {
+
+    static final int PREFIX_EXTRACTOR_LENGTH = PREFIX_W_TYPE_LENGTH;
+    // iterators of transactions in scan mode read ahead in large sequential reads, as they neither fill
+    // nor benefit from the block cache
+    static final long SCAN_READAHEAD_SIZE = 2 * 1024 * 1024;
+
+    private static final long MB = 1024 * 1024;
+    private static final int NUM_LEVELS = 7;
+
+    private final Arguments.Storage.Profile profile;
+    private final Cache blockCache;
+    private final Filter bloomFilter;
+    private final UInt64AddOperator mergeOperator;
+    private final org.rocksdb.Options schemaOptions;
+    private final DBOptions dataOptions;
+    private final Map<Encoding.Partition, ColumnFamilyOptions> dataPartitionOptions;
+    private final WriteOptions insertOnlyWriteOptions;
+
+    RocksConfig(Options.Database options) {
+        profile = options.storageProfile();
+        blockCache = new LRUCache(options.storageBlockCacheSizeMB() * MB);
+        bloomFilter = new BloomFilter(bloomBitsPerKey(), false);
+        mergeOperator = new UInt64AddOperator();
+        schemaOptions = newSchemaOptions();
+        dataOptions = newDataOptions();
+        dataPartitionOptions = new EnumMap<>(Encoding.Partition.class);
+        for (Encoding.Partition partition : Encoding.Partition.values()) {
+            dataPartitionOptions.put(partition, newDataPartitionOptions(partition));
+        }
+        insertOnlyWriteOptions = new WriteOptions().setDisableWAL(options.storageInsertOnlyDisableWAL());
+    }
+
+    Arguments.Storage.Profile profile() {
+        return profile;
+    }
+
+    org.rocksdb.Options schemaOptions() {
+        return schemaOptions;
+    }
+
+    DBOptions dataOptions() {
+        return dataOptions;
+    }
+
+    /**
+     * Returns the column family descriptors of the data storage, in the order of
+     * {@code Encoding.Partition#values()}, which starts with the default column family.
+     */
+    List<ColumnFamilyDescriptor> dataPartitionDescriptors() {
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (Encoding.Partition partition : Encoding.Partition.values()) {
+            descriptors.add(new ColumnFamilyDescriptor(partition.bytes(), dataPartitionOptions.get(partition)));
+        }
+        return descriptors;
+    }
+
+    ColumnFamilyOptions dataPartitionOptions(Encoding.Partition partition) {
+        return dataPartitionOptions.get(partition);
+    }
+
+    /**
+     * Returns the options with which the writes of insert-only transactions are written in a
+     * single batch, outside of the optimistic transactions of RocksDB.
+     */
+    WriteOptions insertOnlyWriteOptions() {
+        return insertOnlyWriteOptions;
+    }
+
+    private org.rocksdb.Options newSchemaOptions() {
+        return new org.rocksdb.Options()
+                .setCreateIfMissing(true)
+                .setMergeOperator(mergeOperator)
+                .setTableFormatConfig(newTableConfig());
+    }
+
+    private DBOptions newDataOptions() {
+        DBOptions dataOptions = new DBOptions()
+                .setCreateIfMissing(true)
+                .setCreateMissingColumnFamilies(true);
+        if (profile.isWriteHeavy()) {
+            dataOptions.setMaxBackgroundJobs(Math.max(4, Runtime.getRuntime().availableProcessors() / 2))
+                    .setBytesPerSync(MB);
+        } else if (profile.isReadHeavy()) {
+            dataOptions.setMaxBackgroundJobs(2);
+        }
+        return dataOptions;
+    }
+
+    private ColumnFamilyOptions newDataPartitionOptions(Encoding.Partition partition) {
+        ColumnFamilyOptions partitionOptions = new ColumnFamilyOptions()
+                .setMergeOperator(mergeOperator)
+                .setTableFormatConfig(newTableConfig())
+                .setNumLevels(NUM_LEVELS)
+                .setLevelCompactionDynamicLevelBytes(true);
+
+        switch (partition) {
+            case VERTEX:
+            case EDGE:
+                partitionOptions.useFixedLengthPrefixExtractor(PREFIX_EXTRACTOR_LENGTH)
+                        .setMemtablePrefixBloomSizeRatio(0.1)
+                        .setCompressionPerLevel(compressionPerLevel());
+                if (profile.isWriteHeavy()) {
+                    partitionOptions.setWriteBufferSize(128 * MB)
+                            .setMaxWriteBufferNumber(4)
+                            .setMinWriteBufferNumberToMerge(2)
+                            .setLevel0FileNumCompactionTrigger(8)
+                            .setLevel0SlowdownWritesTrigger(32)
+                            .setLevel0StopWritesTrigger(48)
+                            .setOptimizeFiltersForHits(true);
+                } else if (profile.isReadHeavy()) {
+                    partitionOptions.setWriteBufferSize(64 * MB);
+                }
+                return partitionOptions;
+            case INDEX:
+                // attribute indices are mostly read by point lookups and range seeks over the sorted index of
+                // strings, and are rarely rewritten
+                return partitionOptions.setCompressionType(LZ4_COMPRESSION)
+                        .setBottommostCompressionType(ZSTD_COMPRESSION);
+            case STATISTICS:
+                // a small set of counters that are merged into constantly: keep them uncompressed in
+                // small memtables, and compact them early so that reads do not apply long merge chains
+                return partitionOptions.setCompressionType(NO_COMPRESSION)
+                        .setWriteBufferSize(8 * MB)
+                        .setLevel0FileNumCompactionTrigger(2);
+            case DEFAULT:
+            default:
+                return partitionOptions.setCompressionPerLevel(compressionPerLevel());
+        }
+    }
+
+    private BlockBasedTableConfig newTableConfig() {
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+                .setBlockCache(blockCache)
+                .setFilterPolicy(bloomFilter)
+                .setWholeKeyFiltering(true);
+        if (profile.isReadHeavy()) {
+            tableConfig.setCacheIndexAndFilterBlocks(true)
+                    .setPinL0FilterAndIndexBlocksInCache(true)
+                    .setBlockSize(16 * 1024);
+        }
+        return tableConfig;
+    }
+
+    /**
+     * Vertex and edge keys are short and high in cardinality, so the default of 10 bits per
+     * key (~1% false positives) is enough for the write-heavy and default profiles. The
+     * read-heavy profile spends more memory to drop false positives to ~0.1% on point lookups.
+     */
+    private double bloomBitsPerKey() {
+        return profile.isReadHeavy() ? 16 : 10;
+    }
+
+    /**
+     * Upper levels are rewritten often by compaction, so we leave them uncompressed when the
+     * workload is write-heavy. The bottommost level holds most of the data, which is read far
+     * more than it is rewritten, so a read-heavy workload pays for ZSTD to fit more of it in cache.
+     */
+    private List<CompressionType> compressionPerLevel() {
+        switch (profile) {
+            case WRITE_HEAVY:
+                return list(NO_COMPRESSION, NO_COMPRESSION, NO_COMPRESSION,
+                            LZ4_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION);
+            case READ_HEAVY:
+                return list(NO_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION,
+                            LZ4_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION, ZSTD_COMPRESSION);
+            case DEFAULT:
+            default:
+                return list(NO_COMPRESSION, NO_COMPRESSION, LZ4_COMPRESSION,
+                            LZ4_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION, LZ4_COMPRESSION);
+        }
+    }
+
+    @Override
+    public void close() {
+        insertOnlyWriteOptions.close();
+        dataPartitionOptions.values().forEach(ColumnFamilyOptions::close);
+        dataOptions.close();
+        schemaOptions.close();
+        mergeOperator.close();
+        bloomFilter.close();
+        blockCache.close();
+    }
+}
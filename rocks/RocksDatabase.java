@@ -27,39 +27,71 @@ import grakn.core.common.parameters.Options;
 import grakn.core.graph.SchemaGraph;
 import grakn.core.graph.common.Encoding;
 import grakn.core.graph.common.KeyGenerator;
+import grakn.core.graph.common.StatisticsBytes;
+import grakn.core.graph.iid.IndexIID;
 import grakn.core.logic.LogicCache;
 import grakn.core.traversal.TraversalCache;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.OptimisticTransactionDB;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.Status;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Stream;
 
+import static grakn.core.common.collection.Bytes.bytesHavePrefix;
+import static grakn.core.common.collection.Bytes.join;
 import static grakn.core.common.exception.ErrorMessage.Database.DATABASE_CLOSED;
 import static grakn.core.common.exception.ErrorMessage.Internal.DIRTY_INITIALISATION;
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
 import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_INTERRUPTION;
 import static grakn.core.common.exception.ErrorMessage.Session.SCHEMA_ACQUIRE_LOCK_TIMEOUT;
+import static grakn.core.common.exception.ErrorMessage.Transaction.DATA_ACQUIRE_LOCK_TIMEOUT;
+import static grakn.core.common.parameters.Arguments.Session.Type.DATA;
 import static grakn.core.common.parameters.Arguments.Session.Type.SCHEMA;
 import static grakn.core.common.parameters.Arguments.Transaction.Type.READ;
 import static grakn.core.common.parameters.Arguments.Transaction.Type.WRITE;
+import static grakn.core.concurrent.common.ExecutorService.PARALLELISATION_FACTOR;
+import static grakn.core.graph.common.Encoding.Partition.DEFAULT;
+import static grakn.core.graph.common.Encoding.Statistics.COUNT_JOB_SHARDS;
 import static java.util.Comparator.reverseOrder;
 
 public class RocksDatabase implements Grakn.Database {
 
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDatabase.class);
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
+
     protected final OptimisticTransactionDB rocksSchema;
     protected final OptimisticTransactionDB rocksData;
+    protected final Map<Encoding.Partition, ColumnFamilyHandle> rocksDataPartitions;
     protected final ConcurrentMap<UUID, Pair<RocksSession, Long>> sessions;
     protected final String name;
     protected StatisticsBackgroundCounter statisticsBackgroundCounter;
@@ -68,6 +100,8 @@ public class RocksDatabase implements Grakn.Database {
     private final KeyGenerator.Data.Persisted dataKeyGenerator;
     private final StampedLock dataWriteSchemaLock;
     private final RocksGrakn grakn;
+    private final RocksCommitCoordinator commitCoordinator;
+    private final ReadCacheMetrics readCacheMetrics;
     private Cache cache;
 
     private final Factory.Session sessionFactory;
@@ -83,11 +117,22 @@ public class RocksDatabase implements Grakn.Database {
         dataWriteSchemaLock = new StampedLock();
 
         try {
-            rocksSchema = OptimisticTransactionDB.open(this.grakn.rocksOptions(), directory().resolve(Encoding.ROCKS_SCHEMA).toString());
-            rocksData = OptimisticTransactionDB.open(this.grakn.rocksOptions(), directory().resolve(Encoding.ROCKS_DATA).toString());
+            rocksSchema = OptimisticTransactionDB.open(this.grakn.rocksSchemaOptions(), directory().resolve(Encoding.ROCKS_SCHEMA).toString());
+            List<ColumnFamilyHandle> partitionHandles = new ArrayList<>();
+            rocksData = OptimisticTransactionDB.open(
+                    this.grakn.rocksDataOptions(), directory().resolve(Encoding.ROCKS_DATA).toString(),
+                    this.grakn.rocksDataPartitionDescriptors(), partitionHandles
+            );
+            Map<Encoding.Partition, ColumnFamilyHandle> partitions = new EnumMap<>(Encoding.Partition.class);
+            for (Encoding.Partition partition : Encoding.Partition.values()) {
+                partitions.put(partition, partitionHandles.get(partition.ordinal()));
+            }
+            rocksDataPartitions = Collections.unmodifiableMap(partitions);
         } catch (RocksDBException e) {
             throw GraknException.of(e);
         }
+        commitCoordinator = new RocksCommitCoordinator(rocksData, grakn.options().storageGroupCommitWindowMicros());
+        readCacheMetrics = new ReadCacheMetrics();
         isOpen = new AtomicBoolean(true);
     }
 
@@ -106,6 +151,9 @@ public class RocksDatabase implements Grakn.Database {
 
     static RocksDatabase loadAndOpen(RocksGrakn grakn, String name, Factory.Session sessionFactory) {
         RocksDatabase database = new RocksDatabase(grakn, name, sessionFactory);
+        database.migratePartitions();
+        database.migrateSortedStringIndex();
+        database.migrateCountJobs();
         database.load();
         database.statisticsBgCounterStart();
         return database;
@@ -131,15 +179,145 @@ public class RocksDatabase implements Grakn.Database {
         transaction.commit();
     }
 
+    /**
+     * Moves every key that is still stored in the default column family of the data storage
+     * into its own {@code Encoding.Partition}. Databases that were created before the data
+     * storage was partitioned hold all of their keys in the default column family.
+     *
+     * Each key is removed from the default column family in the same write batch that copies
+     * it into its partition, so the migration can safely resume if it was interrupted.
+     */
+    protected void migratePartitions() {
+        ColumnFamilyHandle defaultPartition = rocksDataPartitions.get(DEFAULT);
+        long migrated = 0;
+        try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+             WriteOptions writeOptions = new WriteOptions();
+             org.rocksdb.RocksIterator iterator = rocksData.newIterator(defaultPartition, readOptions)) {
+            iterator.seekToFirst();
+            while (iterator.isValid()) {
+                try (WriteBatch batch = new WriteBatch()) {
+                    for (int i = 0; i < MIGRATION_BATCH_SIZE && iterator.isValid(); i++, iterator.next()) {
+                        byte[] key = iterator.key();
+                        Encoding.Partition partition = Encoding.Partition.of(key);
+                        if (partition == DEFAULT) continue;
+                        batch.put(rocksDataPartitions.get(partition), key, iterator.value());
+                        batch.delete(defaultPartition, key);
+                        migrated++;
+                    }
+                    rocksData.write(writeOptions, batch);
+                }
+            }
+            if (migrated > 0) {
+                rocksData.compactRange(defaultPartition);
+                LOG.info("Migrated {} keys of database '{}' into partitioned storage", migrated, name);
+            }
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    /**
+     * Indexes the string attributes of a database that was created before the sorted index of
+     * strings, from their entries in the attribute index. The first string attribute is indexed
+     * last, and tells whether the database still needs to be indexed, so the indexing can safely
+     * resume if it was interrupted.
+     */
+    protected void migrateSortedStringIndex() {
+        ColumnFamilyHandle indexPartition = rocksDataPartitions.get(Encoding.Partition.INDEX);
+        byte[] prefix = join(Encoding.Index.Prefix.ATTRIBUTE.bytes(), Encoding.ValueType.STRING.bytes());
+        try (ReadOptions readOptions = new ReadOptions();
+             WriteOptions writeOptions = new WriteOptions();
+             org.rocksdb.RocksIterator iterator = rocksData.newIterator(indexPartition, readOptions)) {
+            iterator.seek(prefix);
+            if (!iterator.isValid() || !bytesHavePrefix(iterator.key(), prefix)) return;
+            byte[] firstKey = IndexIID.Attribute.SortedString.ofAttributeIndex(iterator.key()).bytes();
+            byte[] firstValue = iterator.value();
+            if (rocksData.get(indexPartition, firstKey) != null) return;
+
+            long indexed = 0;
+            iterator.next();
+            while (iterator.isValid() && bytesHavePrefix(iterator.key(), prefix)) {
+                try (WriteBatch batch = new WriteBatch()) {
+                    for (int i = 0; i < MIGRATION_BATCH_SIZE && iterator.isValid() &&
+                            bytesHavePrefix(iterator.key(), prefix); i++, iterator.next()) {
+                        batch.put(indexPartition, IndexIID.Attribute.SortedString.ofAttributeIndex(iterator.key()).bytes(),
+                                  iterator.value());
+                        indexed++;
+                    }
+                    rocksData.write(writeOptions, batch);
+                }
+            }
+            rocksData.put(indexPartition, writeOptions, firstKey, firstValue);
+            LOG.info("Indexed {} string attributes of database '{}' in sorted order", indexed + 1, name);
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    /**
+     * Moves the count jobs that a database still has pending from before count jobs were sharded to the
+     * keys of their shards. Each key is removed in the same write batch that moves it, so the migration
+     * can safely resume if it was interrupted.
+     */
+    protected void migrateCountJobs() {
+        byte[] prefix = Encoding.Prefix.STATISTICS_COUNT_JOB.bytes();
+        ColumnFamilyHandle partition = rocksDataPartitions.get(Encoding.Partition.of(prefix));
+        long migrated = 0;
+        try (ReadOptions readOptions = new ReadOptions();
+             WriteOptions writeOptions = new WriteOptions();
+             org.rocksdb.RocksIterator iterator = rocksData.newIterator(partition, readOptions)) {
+            iterator.seek(prefix);
+            while (iterator.isValid() && bytesHavePrefix(iterator.key(), prefix)) {
+                try (WriteBatch batch = new WriteBatch()) {
+                    for (int i = 0; i < MIGRATION_BATCH_SIZE && iterator.isValid() &&
+                            bytesHavePrefix(iterator.key(), prefix); i++, iterator.next()) {
+                        byte[] key = iterator.key();
+                        if (!StatisticsBytes.isUnshardedCountJobKey(key)) continue;
+                        batch.put(partition, StatisticsBytes.shardedCountJobKey(key), iterator.value());
+                        batch.delete(partition, key);
+                        migrated++;
+                    }
+                    rocksData.write(writeOptions, batch);
+                }
+            }
+            if (migrated > 0) LOG.info("Migrated {} count jobs of database '{}' into shards", migrated, name);
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
     protected void load() {
         try (RocksSession session = createAndOpenSession(SCHEMA, new Options.Session())) {
             try (RocksTransaction txn = session.transaction(READ)) {
                 schemaKeyGenerator.sync(txn.asSchema().schemaStorage());
-                dataKeyGenerator.sync(txn.asSchema().dataStorage());
+                dataKeyGenerator.sync(txn.asSchema().schemaStorage(), txn.asSchema().dataStorage());
             }
         }
     }
 
+    /**
+     * Synchronises the data key generator with the things in storage, after they were
+     * written without going through a {@code RocksTransaction}, such as by a bulk load.
+     * This does not open a schema session, so it may be called while the schema lock is held.
+     */
+    void syncDataKeyGenerator() {
+        try (RocksSession session = createAndOpenSession(DATA, new Options.Session());
+             RocksTransaction.Data txn = session.transaction(READ).asData()) {
+            dataKeyGenerator.sync(txn.graphMgr.schema().storage(), txn.dataStorage);
+        }
+    }
+
+    /**
+     * Opens a {@code RocksBulkLoader} that writes data directly into the SST files of the data
+     * storage. The bulk loader holds exclusive access to the database until it is closed.
+     *
+     * @return a new bulk loader for this database
+     */
+    public RocksBulkLoader bulkLoader() {
+        if (!isOpen.get()) throw GraknException.of(DATABASE_CLOSED, name);
+        return new RocksBulkLoader(this);
+    }
+
     RocksSession createAndOpenSession(Arguments.Session.Type type, Options.Session options) {
         if (!isOpen.get()) throw GraknException.of(DATABASE_CLOSED, name);
 
@@ -180,13 +358,22 @@ public class RocksDatabase implements Grakn.Database {
         if (!isOpen.get()) throw GraknException.of(DATABASE_CLOSED, name);
 
         if (cache != null) {
+            logCacheStatistics(cache);
             cache.invalidate();
             cache = null;
         }
     }
 
     private synchronized void cacheClose() {
-        if (cache != null) cache.close();
+        if (cache != null) {
+            logCacheStatistics(cache);
+            cache.close();
+        }
+    }
+
+    private void logCacheStatistics(Cache cache) {
+        LOG.debug("Dropping the caches of database '{}', with traversal plans: [{}], and type resolutions: [{}]",
+                  name, cache.traversal(), cache.logic().resolver());
     }
 
     protected void statisticsBgCounterStart() {
@@ -195,6 +382,7 @@ public class RocksDatabase implements Grakn.Database {
 
         statisticsBackgroundCounterSession = sessionFactory.sessionData(this, new Options.Session());
         statisticsBackgroundCounter = new StatisticsBackgroundCounter(statisticsBackgroundCounterSession);
+        statisticsBackgroundCounter.countPendingJobs();
     }
 
     protected void statisticsBgCounterStop() {
@@ -207,7 +395,7 @@ public class RocksDatabase implements Grakn.Database {
         statisticsBackgroundCounterSession = null;
     }
 
-    protected Path directory() {
+    public Path directory() {
         return grakn.directory().resolve(name);
     }
 
@@ -215,10 +403,30 @@ public class RocksDatabase implements Grakn.Database {
         return grakn.options();
     }
 
+    RocksGrakn grakn() {
+        return grakn;
+    }
+
     OptimisticTransactionDB rocksData() {
         return rocksData;
     }
 
+    RocksCommitCoordinator commitCoordinator() {
+        return commitCoordinator;
+    }
+
+    public RocksCommitCoordinator.Metrics commitMetrics() {
+        return commitCoordinator.metrics();
+    }
+
+    public ReadCacheMetrics readCacheMetrics() {
+        return readCacheMetrics;
+    }
+
+    Map<Encoding.Partition, ColumnFamilyHandle> rocksDataPartitions() {
+        return rocksDataPartitions;
+    }
+
     OptimisticTransactionDB rocksSchema() {
         return rocksSchema;
     }
@@ -274,6 +482,8 @@ public class RocksDatabase implements Grakn.Database {
 
     void close() {
         if (isOpen.compareAndSet(true, false)) {
+            LOG.debug("Closing database '{}', with commits: [{}], and read caches: [{}]",
+                      name, commitCoordinator.metrics(), readCacheMetrics);
             closeResources();
         }
     }
@@ -286,6 +496,7 @@ public class RocksDatabase implements Grakn.Database {
         sessions.values().forEach(p -> p.first().close());
         statisticsBgCounterStop();
         cacheClose();
+        rocksDataPartitions.values().forEach(ColumnFamilyHandle::close);
         rocksData.close();
         rocksSchema.close();
     }
@@ -301,6 +512,56 @@ public class RocksDatabase implements Grakn.Database {
         }
     }
 
+    /**
+     * The sizes and evictions of the bounded vertex caches of the read transactions of a database, recorded as
+     * each transaction closes, since the database was opened.
+     */
+    public static class ReadCacheMetrics {
+
+        private final LongAdder transactions;
+        private final LongAdder cachedVertices;
+        private final LongAccumulator maxCachedVertices;
+        private final LongAdder evictions;
+
+        private ReadCacheMetrics() {
+            transactions = new LongAdder();
+            cachedVertices = new LongAdder();
+            maxCachedVertices = new LongAccumulator(Math::max, 0);
+            evictions = new LongAdder();
+        }
+
+        void transactionClosed(long cacheSize, long cacheEvictions) {
+            transactions.increment();
+            cachedVertices.add(cacheSize);
+            maxCachedVertices.accumulate(cacheSize);
+            evictions.add(cacheEvictions);
+        }
+
+        public long transactions() {
+            return transactions.sum();
+        }
+
+        public double meanCachedVertices() {
+            long transactions = this.transactions.sum();
+            return transactions == 0 ? 0 : (double) cachedVertices.sum() / transactions;
+        }
+
+        public long maxCachedVertices() {
+            return maxCachedVertices.get();
+        }
+
+        public long evictions() {
+            return evictions.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read transactions: %d, mean cached vertices: %.2f, max cached vertices: %d, " +
+                                         "evictions: %d",
+                                 transactions(), meanCachedVertices(), maxCachedVertices(), evictions());
+        }
+    }
+
     static class Cache {
 
         private final TraversalCache traversalCache;
@@ -356,62 +617,118 @@ public class RocksDatabase implements Grakn.Database {
         }
     }
 
+    /**
+     * Counts the count jobs of {@link grakn.core.graph.DataGraph.Statistics} in the background.
+     *
+     * Every shard of count jobs is counted by its own sequence of small write transactions, on
+     * a small executor of the database, so that the shards neither wait on nor conflict with
+     * each other. A transaction that conflicts with a concurrent commit only retries the batch
+     * of its own shard. Only the shards that a commit recorded count jobs in are counted, and requests
+     * to count are coalesced: while a pass over some shards is running, any number of requests only
+     * schedule one more pass, over the union of their shards.
+     */
     public static class StatisticsBackgroundCounter {
+
+        private static final int MAX_THREADS = 4;
+
         private final RocksSession.Data session;
-        private final Thread thread;
-        private final Semaphore countJobNotifications;
-        private boolean isStopped;
+        private final ExecutorService executor;
+        private final AtomicInteger requestedShards;
+        private final AtomicBoolean isCounting;
+        private volatile boolean isStopped;
 
         StatisticsBackgroundCounter(RocksSession.Data session) {
             this.session = session;
-            countJobNotifications = new Semaphore(0);
-            thread = NamedThreadFactory.create(session.database().name + "::statistics-background-counter")
-                    .newThread(this::countFn);
-            thread.start();
+            int threads = Math.max(1, Math.min(MAX_THREADS, Math.min(COUNT_JOB_SHARDS, PARALLELISATION_FACTOR / 2)));
+            executor = Executors.newFixedThreadPool(threads, NamedThreadFactory.create(
+                    session.database().name + "::statistics-background-counter"));
+            requestedShards = new AtomicInteger(0);
+            isCounting = new AtomicBoolean(false);
+            isStopped = false;
         }
 
-        public void needsBackgroundCounting() {
-            countJobNotifications.release();
+        /**
+         * Counts the count jobs of the given shards, in which a commit recorded them.
+         */
+        public void needsBackgroundCounting(Set<Integer> shards) {
+            int shardMask = 0;
+            for (int shard : shards) shardMask |= 1 << shard;
+            int requested = shardMask;
+            requestedShards.getAndUpdate(mask -> mask | requested);
+            if (isCounting.compareAndSet(false, true)) count();
         }
 
-        private void countFn() {
-            do {
+        /**
+         * Counts the count jobs that were left in any shard when the database was last closed.
+         */
+        void countPendingJobs() {
+            Set<Integer> shards = new HashSet<>();
+            try (RocksTransaction.Data tx = session.transaction(READ)) {
+                for (int shard = 0; shard < COUNT_JOB_SHARDS; shard++) {
+                    if (tx.graphMgr.data().stats().hasCountJobs(shard)) shards.add(shard);
+                }
+            }
+            if (!shards.isEmpty()) needsBackgroundCounting(shards);
+        }
+
+        private void count() {
+            if (isStopped) return;
+            int shardMask = requestedShards.getAndSet(0);
+            List<CompletableFuture<?>> shards = new ArrayList<>();
+            try {
+                for (int shard = 0; shard < COUNT_JOB_SHARDS; shard++) {
+                    if ((shardMask & (1 << shard)) == 0) continue;
+                    int s = shard;
+                    shards.add(CompletableFuture.runAsync(() -> countShard(s), executor));
+                }
+            } catch (RejectedExecutionException e) {
+                assert isStopped;
+                return;
+            }
+            CompletableFuture.allOf(shards.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+                if (error != null) LOG.error("Failed to count statistics of database '" + session.database().name + "'", error);
+                isCounting.set(false);
+                if (requestedShards.get() != 0 && isCounting.compareAndSet(false, true)) count();
+            });
+        }
+
+        /**
+         * Counts the count jobs of a shard. When a bulk load or a schema session holds the schema lock, so
+         * that no write transaction can be opened, the shard is requested again and counted in the next
+         * round, rather than left stale until another commit records count jobs in it. Every round waits
+         * for the lock for as long as a transaction does, before it gives up.
+         */
+        private void countShard(int shard) {
+            boolean hasNext = true;
+            while (hasNext && !isStopped) {
                 try (RocksTransaction.Data tx = session.transaction(WRITE)) {
-                    boolean shouldRestart = tx.graphMgr.data().stats().processCountJobs();
-                    if (shouldRestart) countJobNotifications.release();
+                    hasNext = tx.graphMgr.data().stats().processCountJobs(shard);
                     tx.commit();
                 } catch (GraknException e) {
                     if (e.code().isPresent() && e.code().get().equals(DATABASE_CLOSED.code())) {
-                        break;
+                        return;
+                    } else if (e.code().isPresent() && e.code().get().equals(DATA_ACQUIRE_LOCK_TIMEOUT.code())) {
+                        requestedShards.getAndUpdate(mask -> mask | 1 << shard);
+                        return;
                     } else {
                         // TODO: Add specific code indicating rocksdb conflict to GraknException status code
                         boolean txConflicted = e.getCause() instanceof RocksDBException &&
                                 ((RocksDBException) e.getCause()).getStatus().getCode() == Status.Code.Busy;
                         if (txConflicted) {
-                            countJobNotifications.release();
+                            hasNext = true;
                         } else {
                             throw e;
                         }
                     }
                 }
-                waitForCountJob();
-            } while (!isStopped);
-        }
-
-        private void waitForCountJob() {
-            try {
-                countJobNotifications.acquire();
-            } catch (InterruptedException e) {
-                throw GraknException.of(UNEXPECTED_INTERRUPTION);
             }
-            countJobNotifications.drainPermits();
         }
 
         public void stop() {
             try {
                 isStopped = true;
-                countJobNotifications.release();
-                thread.join();
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 throw GraknException.of(UNEXPECTED_INTERRUPTION);
             }
@@ -25,10 +25,15 @@ import grakn.core.common.exception.GraknException;
 import grakn.core.common.parameters.Arguments;
 import grakn.core.common.parameters.Options;
 import grakn.core.concurrent.common.ExecutorService;
+import grakn.core.graph.common.Encoding;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
 import org.rocksdb.RocksDB;
-import org.rocksdb.UInt64AddOperator;
+import org.rocksdb.WriteOptions;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static grakn.core.common.exception.ErrorMessage.Database.DATABASE_NOT_FOUND;
@@ -46,7 +51,7 @@ public class RocksGrakn implements Grakn {
 
     private final Path directory;
     private final Options.Database options;
-    private final org.rocksdb.Options rocksConfig;
+    private final RocksConfig rocksConfig;
     private final RocksDatabaseManager databaseMgr;
     private final AtomicBoolean isOpen;
 
@@ -54,7 +59,7 @@ public class RocksGrakn implements Grakn {
         if (!ExecutorService.isInitialised()) ExecutorService.initialise(MAX_THREADS);
         this.directory = directory;
         this.options = options;
-        this.rocksConfig = new org.rocksdb.Options().setCreateIfMissing(true).setMergeOperator(new UInt64AddOperator());
+        this.rocksConfig = new RocksConfig(options);
         this.databaseMgr = databaseMgrFactory.databaseManager(this);
         this.databaseMgr.loadAll();
         this.isOpen = new AtomicBoolean(true);
@@ -76,8 +81,24 @@ public class RocksGrakn implements Grakn {
         return directory;
     }
 
-    org.rocksdb.Options rocksOptions() {
-        return rocksConfig;
+    org.rocksdb.Options rocksSchemaOptions() {
+        return rocksConfig.schemaOptions();
+    }
+
+    DBOptions rocksDataOptions() {
+        return rocksConfig.dataOptions();
+    }
+
+    List<ColumnFamilyDescriptor> rocksDataPartitionDescriptors() {
+        return rocksConfig.dataPartitionDescriptors();
+    }
+
+    ColumnFamilyOptions rocksDataPartitionOptions(Encoding.Partition partition) {
+        return rocksConfig.dataPartitionOptions(partition);
+    }
+
+    WriteOptions rocksInsertOnlyWriteOptions() {
+        return rocksConfig.insertOnlyWriteOptions();
     }
 
     public Options.Database options() {
@@ -19,28 +19,55 @@
 package grakn.core.rocks;
 
 import grakn.core.common.iterator.AbstractResourceIterator;
+import grakn.core.graph.common.Storage;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.DirectSlice;
+import org.rocksdb.ReadOptions;
 
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 
 import static grakn.core.common.collection.Bytes.bytesHavePrefix;
+import static grakn.core.common.collection.Bytes.compareBytes;
+import static grakn.core.rocks.RocksConfig.PREFIX_EXTRACTOR_LENGTH;
+import static grakn.core.rocks.RocksConfig.SCAN_READAHEAD_SIZE;
 
-public final class RocksIterator<T> extends AbstractResourceIterator<T> implements AutoCloseable {
+public final class RocksIterator<T> extends AbstractResourceIterator<T>
+        implements Storage.SeekableIterator<T>, AutoCloseable {
 
     private final byte[] prefix;
+    private final byte[] from;
+    private final byte[] to;
     private final RocksStorage storage;
+    private final ColumnFamilyHandle partition;
     private final AtomicBoolean isOpen;
     private final BiFunction<byte[], byte[], T> constructor;
-    private org.rocksdb.RocksIterator internalRocksIterator;
+    private Bounded internalRocksIterator;
     private State state;
     private T next;
+    private byte[] nextKey;
 
     private enum State {INIT, EMPTY, FETCHED, COMPLETED}
 
     RocksIterator(RocksStorage storage, byte[] prefix, BiFunction<byte[], byte[], T> constructor) {
+        this(storage, prefix, prefix, null, constructor);
+    }
+
+    /**
+     * An iterator over the keys of a prefix that sort from {@code from} (inclusive) up to
+     * {@code to} (exclusive), or up to the end of the prefix if {@code to} is null.
+     */
+    RocksIterator(RocksStorage storage, byte[] prefix, byte[] from, @Nullable byte[] to,
+                  BiFunction<byte[], byte[], T> constructor) {
+        assert bytesHavePrefix(from, prefix);
         this.storage = storage;
         this.prefix = prefix;
+        this.from = from;
+        this.to = to;
+        this.partition = storage.partition(prefix);
         this.constructor = constructor;
 
         isOpen = new AtomicBoolean(true);
@@ -48,19 +75,23 @@ public final class RocksIterator<T> extends AbstractResourceIterator<T> implemen
     }
 
     private void initalise() {
-        this.internalRocksIterator = storage.getInternalRocksIterator();
-        this.internalRocksIterator.seek(prefix);
+        this.internalRocksIterator = storage.getInternalRocksIterator(partition, prefix);
+        this.internalRocksIterator.seek(prefix, from);
     }
 
     private boolean fetchAndCheck() {
         byte[] key;
-        if (!internalRocksIterator.isValid() || !bytesHavePrefix(key = internalRocksIterator.key(), prefix)) {
+        // The upper bound stops RocksDB at the end of the prefix, but the uncommitted writes of a
+        // transaction may not respect it, so we still check the prefix of every key
+        if (!internalRocksIterator.isValid() || !bytesHavePrefix(key = internalRocksIterator.key(), prefix) ||
+                (to != null && compareBytes(key, to) >= 0)) {
             state = State.COMPLETED;
             recycle();
             return false;
         }
 
         next = constructor.apply(key, internalRocksIterator.value());
+        nextKey = key;
         internalRocksIterator.next();
         state = State.FETCHED;
         return true;
@@ -95,6 +126,14 @@ public final class RocksIterator<T> extends AbstractResourceIterator<T> implemen
         return next;
     }
 
+    @Override
+    public final void seek(byte[] target) {
+        if (!hasNext() || compareBytes(nextKey, target) >= 0) return;
+        // the next key is within the prefix, so the target is past the start of the prefix
+        internalRocksIterator.seek(target);
+        state = State.EMPTY;
+    }
+
     @Override
     public void recycle() {
         close();
@@ -103,9 +142,85 @@ public final class RocksIterator<T> extends AbstractResourceIterator<T> implemen
     @Override
     public void close() {
         if (isOpen.compareAndSet(true, false)) {
-            if (state != State.INIT) storage.recycle(internalRocksIterator);
+            if (state != State.INIT) storage.recycle(partition, internalRocksIterator);
             state = State.COMPLETED;
             storage.remove(this);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A RocksDB iterator with its own {@code ReadOptions}, which bound the iterator to the
+     * prefix that it seeks to. RocksDB can then stop at the end of the prefix, instead of
+     * reading past it into the tombstones and SST blocks of the keys that follow.
+     *
+     * The upper bound is held in a direct buffer that RocksDB reads on every seek, so it can
+     * be rewritten when the iterator is recycled for another prefix of the same length.
+     *
+     * In scan mode, the blocks that the iterator reads are not inserted into the block cache,
+     * and are read ahead of the iterator instead.
+     */
+    static final class Bounded implements AutoCloseable {
+
+        private final org.rocksdb.RocksIterator iterator;
+        private final ReadOptions readOptions;
+        private final ByteBuffer upperBoundBuffer;
+        private final DirectSlice upperBound;
+        private final int prefixLength;
+
+        Bounded(RocksStorage storage, ColumnFamilyHandle partition, int prefixLength) {
+            assert prefixLength > 0;
+            this.prefixLength = prefixLength;
+            upperBoundBuffer = ByteBuffer.allocateDirect(prefixLength);
+            upperBound = new DirectSlice(upperBoundBuffer, prefixLength);
+            readOptions = new ReadOptions().setSnapshot(storage.snapshot).setIterateUpperBound(upperBound)
+                    .setPrefixSameAsStart(prefixLength >= PREFIX_EXTRACTOR_LENGTH);
+            if (storage.isScanMode) readOptions.setFillCache(false).setReadaheadSize(SCAN_READAHEAD_SIZE);
+            iterator = storage.storageTransaction.getIterator(readOptions, partition);
+        }
+
+        int prefixLength() {
+            return prefixLength;
+        }
+
+        void seek(byte[] prefix, byte[] target) {
+            assert prefix.length == prefixLength;
+            // no encoded prefix starts with 0xff, so every prefix has a successor of the same length
+            int last = prefixLength - 1;
+            while (prefix[last] == (byte) 0xff) last--;
+            assert last >= 0;
+            for (int i = 0; i < prefixLength; i++) {
+                if (i < last) upperBoundBuffer.put(i, prefix[i]);
+                else if (i == last) upperBoundBuffer.put(i, (byte) (prefix[i] + 1));
+                else upperBoundBuffer.put(i, (byte) 0);
+            }
+            iterator.seek(target);
+        }
+
+        void seek(byte[] target) {
+            iterator.seek(target);
+        }
+
+        boolean isValid() {
+            return iterator.isValid();
+        }
+
+        byte[] key() {
+            return iterator.key();
+        }
+
+        byte[] value() {
+            return iterator.value();
+        }
+
+        void next() {
+            iterator.next();
+        }
+
+        @Override
+        public void close() {
+            iterator.close();
+            readOptions.close();
+            upperBound.close();
+        }
+    }
+}
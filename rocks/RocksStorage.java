@@ -23,22 +23,30 @@ import grakn.core.common.exception.GraknException;
 import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.concurrent.common.ConcurrentSet;
 import grakn.core.concurrent.lock.ManagedReadWriteLock;
+import grakn.core.graph.common.Encoding;
 import grakn.core.graph.common.KeyGenerator;
 import grakn.core.graph.common.Storage;
-import org.rocksdb.AbstractImmutableNativeReference;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.OptimisticTransactionDB;
 import org.rocksdb.OptimisticTransactionOptions;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.Snapshot;
 import org.rocksdb.Transaction;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 
@@ -56,18 +64,22 @@ public abstract class RocksStorage implements Storage {
     protected final ConcurrentSet<RocksIterator<?>> iterators;
     protected final Transaction storageTransaction;
     protected final ReadOptions readOptions;
+    protected final Snapshot snapshot;
+    protected final ColumnFamilyHandle defaultPartition;
     protected final boolean isReadOnly;
+    protected final boolean isScanMode;
 
-    private final ConcurrentLinkedQueue<org.rocksdb.RocksIterator> recycled;
+    private final ConcurrentMap<ColumnFamilyHandle, ConcurrentMap<Integer, ConcurrentLinkedQueue<RocksIterator.Bounded>>> recycled;
     private final OptimisticTransactionOptions transactionOptions;
     private final WriteOptions writeOptions;
     private final AtomicBoolean isOpen;
-    private final Snapshot snapshot;
 
-    private RocksStorage(OptimisticTransactionDB rocksDB, boolean isReadOnly) {
+    private RocksStorage(OptimisticTransactionDB rocksDB, boolean isReadOnly, boolean isScanMode) {
         this.isReadOnly = isReadOnly;
+        this.isScanMode = isScanMode;
         iterators = new ConcurrentSet<>();
-        recycled = new ConcurrentLinkedQueue<>();
+        recycled = new ConcurrentHashMap<>();
+        defaultPartition = rocksDB.getDefaultColumnFamily();
         writeOptions = new WriteOptions();
         transactionOptions = new OptimisticTransactionOptions().setSetSnapshot(true);
         storageTransaction = rocksDB.beginTransaction(writeOptions, transactionOptions);
@@ -116,16 +128,58 @@ public abstract class RocksStorage implements Storage {
         throw exception(ILLEGAL_OPERATION);
     }
 
-    org.rocksdb.RocksIterator getInternalRocksIterator() {
+    @Override
+    public <G> SeekableIterator<G> iterateSeekable(byte[] prefix, BiFunction<byte[], byte[], G> constructor) {
+        assert isOpen();
+        RocksIterator<G> iterator = new RocksIterator<>(this, prefix, constructor);
+        iterators.add(iterator);
+        return iterator;
+    }
+
+    /**
+     * Returns the column family in which a key is stored, or in which all keys
+     * that start with a given prefix are stored.
+     *
+     * @param key the key, or the prefix of the keys, to look up
+     * @return the handle of the column family in which the key is stored
+     */
+    ColumnFamilyHandle partition(byte[] key) {
+        return defaultPartition;
+    }
+
+    /**
+     * Gets the values of a batch of keys, each from the partition in which it is stored.
+     */
+    byte[][] multiGetFromPartitions(byte[][] keys) throws RocksDBException {
+        List<ColumnFamilyHandle> partitions = new ArrayList<>(keys.length);
+        for (byte[] key : keys) partitions.add(partition(key));
+        return storageTransaction.multiGet(readOptions, partitions, keys);
+    }
+
+    /**
+     * Returns an iterator over a partition that is bounded to a given prefix. Recycled iterators
+     * are pooled by partition and by prefix length, as the upper bound of an iterator can be
+     * rewritten for any prefix of the same length.
+     *
+     * @param partition the column family to iterate over
+     * @param prefix    the prefix to bound the iterator with
+     * @return an iterator, that has not been positioned yet, over the given partition
+     */
+    RocksIterator.Bounded getInternalRocksIterator(ColumnFamilyHandle partition, byte[] prefix) {
         if (isReadOnly) {
-            org.rocksdb.RocksIterator iterator = recycled.poll();
-            if (iterator != null) return iterator;
+            ConcurrentMap<Integer, ConcurrentLinkedQueue<RocksIterator.Bounded>> pool = recycled.get(partition);
+            ConcurrentLinkedQueue<RocksIterator.Bounded> queue;
+            RocksIterator.Bounded iterator;
+            if (pool != null && (queue = pool.get(prefix.length)) != null && (iterator = queue.poll()) != null) {
+                return iterator;
+            }
         }
-        return storageTransaction.getIterator(readOptions);
+        return new RocksIterator.Bounded(this, partition, prefix.length);
     }
 
-    void recycle(org.rocksdb.RocksIterator rocksIterator) {
-        recycled.add(rocksIterator);
+    void recycle(ColumnFamilyHandle partition, RocksIterator.Bounded rocksIterator) {
+        recycled.computeIfAbsent(partition, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(rocksIterator.prefixLength(), l -> new ConcurrentLinkedQueue<>()).add(rocksIterator);
     }
 
     void remove(RocksIterator<?> iterator) {
@@ -152,7 +206,7 @@ public abstract class RocksStorage implements Storage {
     public void close() {
         if (isOpen.compareAndSet(true, false)) {
             iterators.parallelStream().forEach(RocksIterator::close);
-            recycled.forEach(AbstractImmutableNativeReference::close);
+            recycled.values().forEach(pool -> pool.values().forEach(queue -> queue.forEach(RocksIterator.Bounded::close)));
             snapshot.close();
             storageTransaction.close();
             transactionOptions.close();
@@ -164,14 +218,24 @@ public abstract class RocksStorage implements Storage {
     static class Cache extends RocksStorage {
 
         public Cache(OptimisticTransactionDB rocksDB) {
-            super(rocksDB, true);
+            super(rocksDB, true, false);
         }
 
         @Override
         public byte[] get(byte[] key) {
             assert isOpen();
             try {
-                return storageTransaction.get(readOptions, key);
+                return storageTransaction.get(partition(key), readOptions, key);
+            } catch (RocksDBException e) {
+                throw exception(e);
+            }
+        }
+
+        @Override
+        public byte[][] multiGet(byte[][] keys) {
+            assert isOpen();
+            try {
+                return multiGetFromPartitions(keys);
             } catch (RocksDBException e) {
                 throw exception(e);
             }
@@ -184,6 +248,15 @@ public abstract class RocksStorage implements Storage {
             iterators.add(iterator);
             return iterator.onFinalise(iterator::close);
         }
+
+        @Override
+        public <G> ResourceIterator<G> iterate(byte[] prefix, byte[] from, @Nullable byte[] to,
+                                               BiFunction<byte[], byte[], G> constructor) {
+            assert isOpen();
+            RocksIterator<G> iterator = new RocksIterator<>(this, prefix, from, to, constructor);
+            iterators.add(iterator);
+            return iterator.onFinalise(iterator::close);
+        }
     }
 
     static abstract class TransactionBounded extends RocksStorage {
@@ -192,7 +265,7 @@ public abstract class RocksStorage implements Storage {
         protected final RocksTransaction transaction;
 
         TransactionBounded(OptimisticTransactionDB rocksDB, RocksTransaction transaction) {
-            super(rocksDB, transaction.type().isRead());
+            super(rocksDB, transaction.type().isRead(), transaction.context().options().scanMode());
             this.transaction = transaction;
             readWriteLock = new ManagedReadWriteLock();
         }
@@ -202,7 +275,20 @@ public abstract class RocksStorage implements Storage {
             assert isOpen();
             try {
                 if (!isReadOnly) readWriteLock.lockRead();
-                return storageTransaction.get(readOptions, key);
+                return storageTransaction.get(partition(key), readOptions, key);
+            } catch (RocksDBException | InterruptedException e) {
+                throw exception(e);
+            } finally {
+                if (!isReadOnly) readWriteLock.unlockRead();
+            }
+        }
+
+        @Override
+        public byte[][] multiGet(byte[][] keys) {
+            assert isOpen();
+            try {
+                if (!isReadOnly) readWriteLock.lockRead();
+                return multiGetFromPartitions(keys);
             } catch (RocksDBException | InterruptedException e) {
                 throw exception(e);
             } finally {
@@ -217,7 +303,10 @@ public abstract class RocksStorage implements Storage {
             upperBound[upperBound.length - 1] = (byte) (upperBound[upperBound.length - 1] + 1);
             assert upperBound[upperBound.length - 1] != Byte.MIN_VALUE;
 
-            try (org.rocksdb.RocksIterator iterator = getInternalRocksIterator()) {
+            // The upper bound lies outside of the prefix we are looking for, so the seek must not be
+            // filtered by the prefix extractor of the storage
+            try (ReadOptions totalOrderReadOptions = new ReadOptions().setSnapshot(snapshot).setTotalOrderSeek(true);
+                 org.rocksdb.RocksIterator iterator = storageTransaction.getIterator(totalOrderReadOptions, partition(prefix))) {
                 iterator.seekForPrev(upperBound);
                 if (bytesHavePrefix(iterator.key(), prefix)) return iterator.key();
                 else return null;
@@ -234,7 +323,7 @@ public abstract class RocksStorage implements Storage {
             }
             try {
                 readWriteLock.lockWrite();
-                storageTransaction.delete(key);
+                storageTransaction.delete(partition(key), key);
             } catch (RocksDBException | InterruptedException e) {
                 throw exception(e);
             } finally {
@@ -250,6 +339,15 @@ public abstract class RocksStorage implements Storage {
             return iterator;
         }
 
+        @Override
+        public <G> ResourceIterator<G> iterate(byte[] prefix, byte[] from, @Nullable byte[] to,
+                                               BiFunction<byte[], byte[], G> constructor) {
+            assert isOpen();
+            RocksIterator<G> iterator = new RocksIterator<>(this, prefix, from, to, constructor);
+            iterators.add(iterator);
+            return iterator;
+        }
+
         @Override
         public GraknException exception(ErrorMessage errorMessage) {
             transaction.close();
@@ -293,7 +391,7 @@ public abstract class RocksStorage implements Storage {
             assert isOpen() && !isReadOnly;
             try {
                 if (transaction.isOpen()) readWriteLock.lockWrite();
-                storageTransaction.put(key, value);
+                storageTransaction.put(partition(key), key, value);
             } catch (RocksDBException | InterruptedException e) {
                 throw exception(e);
             } finally {
@@ -306,7 +404,7 @@ public abstract class RocksStorage implements Storage {
             assert isOpen() && !isReadOnly;
             try {
                 if (transaction.isOpen()) readWriteLock.lockWrite();
-                storageTransaction.putUntracked(key, value);
+                storageTransaction.putUntracked(partition(key), key, value);
             } catch (RocksDBException | InterruptedException e) {
                 throw exception(e);
             } finally {
@@ -315,14 +413,39 @@ public abstract class RocksStorage implements Storage {
         }
     }
 
+    /**
+     * The storage of a data transaction.
+     *
+     * A transaction that only inserts new data does not need the conflict detection of RocksDB,
+     * as new things are given fresh IIDs and attributes are deduplicated by their value. The
+     * writes of such a transaction can be redirected into a single {@code WriteBatch} when it
+     * commits, which is then written outside of the optimistic transaction. Deletes are written
+     * to the optimistic transaction as soon as they are made, so a storage that has written
+     * anything to the optimistic transaction can only be committed through it, and a delete
+     * is never written once the writes are redirected into the batch.
+     */
     @NotThreadSafe
     public static class Data extends TransactionBounded implements Storage.Data {
 
         private final KeyGenerator.Data dataKeyGenerator;
+        private final Map<Encoding.Partition, ColumnFamilyHandle> partitions;
+        private final OptimisticTransactionDB rocksData;
+        private final WriteOptions insertOnlyWriteOptions;
+        private volatile boolean hasTransactionWrites;
+        private WriteBatch insertOnlyBatch;
 
         public Data(RocksDatabase database, RocksTransaction transaction) {
             super(database.rocksData, transaction);
             this.dataKeyGenerator = database.dataKeyGenerator();
+            this.partitions = database.rocksDataPartitions();
+            this.rocksData = database.rocksData;
+            this.insertOnlyWriteOptions = database.grakn().rocksInsertOnlyWriteOptions();
+            this.hasTransactionWrites = false;
+        }
+
+        @Override
+        ColumnFamilyHandle partition(byte[] key) {
+            return partitions.get(Encoding.Partition.of(key));
         }
 
         @Override
@@ -330,11 +453,32 @@ public abstract class RocksStorage implements Storage {
             return dataKeyGenerator;
         }
 
+        /**
+         * Returns true if nothing has been written to the optimistic transaction of this storage,
+         * so that every write of its commit can be redirected into a single {@code WriteBatch}.
+         */
+        public boolean isInsertOnly() {
+            return !hasTransactionWrites;
+        }
+
+        @Override
+        public void delete(byte[] key) {
+            // a delete has to be checked for conflicts, which a batch written outside of the transaction is not
+            if (insertOnlyBatch != null) throw exception(ILLEGAL_STATE);
+            hasTransactionWrites = true;
+            super.delete(key);
+        }
+
         @Override
         public void put(byte[] key, byte[] value) {
             assert isOpen() && !isReadOnly;
             try {
-                storageTransaction.put(key, value);
+                if (insertOnlyBatch != null) {
+                    insertOnlyBatch.put(partition(key), key, value);
+                } else {
+                    hasTransactionWrites = true;
+                    storageTransaction.put(partition(key), key, value);
+                }
             } catch (RocksDBException e) {
                 throw exception(e);
             }
@@ -344,7 +488,12 @@ public abstract class RocksStorage implements Storage {
         public void putUntracked(byte[] key, byte[] value) {
             assert isOpen() && !isReadOnly;
             try {
-                storageTransaction.putUntracked(key, value);
+                if (insertOnlyBatch != null) {
+                    insertOnlyBatch.put(partition(key), key, value);
+                } else {
+                    hasTransactionWrites = true;
+                    storageTransaction.putUntracked(partition(key), key, value);
+                }
             } catch (RocksDBException e) {
                 throw exception(e);
             }
@@ -354,10 +503,43 @@ public abstract class RocksStorage implements Storage {
         public void mergeUntracked(byte[] key, byte[] value) {
             assert isOpen() && !isReadOnly;
             try {
-                storageTransaction.mergeUntracked(key, value);
+                if (insertOnlyBatch != null) {
+                    insertOnlyBatch.merge(partition(key), key, value);
+                } else {
+                    hasTransactionWrites = true;
+                    storageTransaction.mergeUntracked(partition(key), key, value);
+                }
             } catch (RocksDBException e) {
                 throw exception(e);
             }
         }
+
+        /**
+         * Redirects every following write of this storage into a single {@code WriteBatch},
+         * until it is written by {@link #commitInsertOnly()}.
+         */
+        void startInsertOnlyCommit() {
+            assert isInsertOnly() && insertOnlyBatch == null;
+            insertOnlyBatch = new WriteBatch();
+        }
+
+        void commitInsertOnly() throws RocksDBException {
+            assert insertOnlyBatch != null;
+            try {
+                rocksData.write(insertOnlyWriteOptions, insertOnlyBatch);
+            } finally {
+                insertOnlyBatch.close();
+                insertOnlyBatch = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (insertOnlyBatch != null) {
+                insertOnlyBatch.close();
+                insertOnlyBatch = null;
+            }
+            super.close();
+        }
     }
 }
@@ -66,7 +66,7 @@ public abstract class RocksTransaction implements Grakn.Transaction {
         conceptMgr = new ConceptManager(graphMgr);
         logicMgr = new LogicManager(graphMgr, conceptMgr, traversalEng, logicCache);
         reasoner = new Reasoner(conceptMgr, logicMgr, traversalEng, context);
-        queryMgr = new QueryManager(conceptMgr, logicMgr, reasoner, context);
+        queryMgr = new QueryManager(conceptMgr, logicMgr, reasoner, context, session.database().directory());
         isOpen = new AtomicBoolean(true);
     }
 
@@ -118,6 +118,7 @@ public abstract class RocksTransaction implements Grakn.Transaction {
     }
 
     protected void closeResources() {
+        queryMgr.close();
         closeStorage();
         session.remove(this);
     }
@@ -199,6 +200,13 @@ public abstract class RocksTransaction implements Grakn.Transaction {
          * If a lock was acquired from calling {@code graph.commit()} then we should
          * let inform the graph by confirming whether the RocksDB commit was successful
          * or not.
+         *
+         * The only data that a schema transaction writes are the trigram postings of the
+         * attribute types whose text index it enables or disables, which are committed
+         * while the schema session still holds off every data write. The postings that are
+         * put are committed before the schema, so that an index is never in use before its
+         * postings are complete, and the postings that are deleted after the schema and its
+         * cache, so that no transaction uses an index whose postings are gone.
          */
         @Override
         public void commit() {
@@ -210,8 +218,12 @@ public abstract class RocksTransaction implements Grakn.Transaction {
                     conceptMgr.validateTypes();
                     logicMgr.revalidateAndReindexRules();
                     graphMgr.schema().commit();
+                    RocksCommitCoordinator commitCoordinator = session.database().commitCoordinator();
+                    boolean isTextIndexRemoved = graphMgr.data().isTextIndexRemoved();
+                    if (!isTextIndexRemoved) commitCoordinator.commit(dataStorage::commit, true);
                     schemaStorage.commit();
                     session.database().cacheInvalidate();
+                    if (isTextIndexRemoved) commitCoordinator.commit(dataStorage::commit, true);
                 } catch (RocksDBException e) {
                     rollback();
                     throw GraknException.of(e);
@@ -229,6 +241,7 @@ public abstract class RocksTransaction implements Grakn.Transaction {
             try {
                 graphMgr.clear();
                 schemaStorage.rollback();
+                dataStorage.rollback();
             } catch (RocksDBException e) {
                 throw GraknException.of(e);
             }
@@ -252,7 +265,9 @@ public abstract class RocksTransaction implements Grakn.Transaction {
 
             cache = session.database().cacheBorrow();
             dataStorage = storageFactory.storageData(session.database(), this);
-            DataGraph dataGraph = new DataGraph(dataStorage, cache.schemaGraph());
+            DataGraph dataGraph = type().isRead()
+                    ? new DataGraph(dataStorage, cache.schemaGraph(), context.options().readCacheSize())
+                    : new DataGraph(dataStorage, cache.schemaGraph());
             graphMgr = new GraphManager(cache.schemaGraph(), dataGraph);
 
             initialise(graphMgr, cache.traversal(), cache.logic());
@@ -284,6 +299,12 @@ public abstract class RocksTransaction implements Grakn.Transaction {
          * If a lock was acquired from calling {@code graph.commit()} then we should
          * let inform the graph by confirming whether the RocksDB commit was successful
          * or not.
+         *
+         * If the transaction only inserted new data, its writes are committed in a single
+         * {@code WriteBatch} instead, which skips the conflict detection of RocksDB. Either
+         * way, the commit is made durable together with the concurrent commits of the
+         * database by the {@link RocksCommitCoordinator}. A commit that cannot be made
+         * durable is not rolled back, as it is already visible to other transactions.
          */
         @Override
         public void commit() {
@@ -293,9 +314,24 @@ public abstract class RocksTransaction implements Grakn.Transaction {
                     else if (graphMgr.schema().isModified()) throw GraknException.of(SESSION_DATA_VIOLATION);
 
                     conceptMgr.validateThings();
-                    graphMgr.data().commit();
-                    dataStorage.commit();
-                    triggerStatisticBgCounter();
+                    RocksCommitCoordinator commitCoordinator = session.database().commitCoordinator();
+                    // the statistics are counted as soon as the writes are committed, even if they cannot be
+                    // made durable afterwards, as they are visible to every other transaction by then
+                    if (graphMgr.data().isInsertOnly() && dataStorage.isInsertOnly()) {
+                        dataStorage.startInsertOnlyCommit();
+                        graphMgr.data().commit();
+                        commitCoordinator.commit(() -> {
+                            dataStorage.commitInsertOnly();
+                            commitCoordinator.metrics().insertOnlyCommitted();
+                            triggerStatisticBgCounter();
+                        }, !session.database().options().storageInsertOnlyDisableWAL());
+                    } else {
+                        graphMgr.data().commit();
+                        commitCoordinator.commit(() -> {
+                            dataStorage.commit();
+                            triggerStatisticBgCounter();
+                        }, true);
+                    }
                 } catch (RocksDBException e) {
                     rollback();
                     throw GraknException.of(e);
@@ -320,17 +356,25 @@ public abstract class RocksTransaction implements Grakn.Transaction {
 
         @Override
         void closeStorage() {
+            if (type().isRead()) {
+                session.database().readCacheMetrics().transactionClosed(
+                        graphMgr.data().cacheSize(), graphMgr.data().cacheEvictions()
+                );
+            }
             session.database().cacheUnborrow(cache);
             dataStorage.close();
         }
 
         /**
-         * Responsible for triggering {@link RocksDatabase.StatisticsBackgroundCounter}, if necessary.
+         * Responsible for triggering {@link RocksDatabase.StatisticsBackgroundCounter}, if the commit changed
+         * the statistics, so that the counts become current as of this commit.
          * A different implementation of this class may override it.
          */
         protected void triggerStatisticBgCounter() {
             if (graphMgr.data().stats().needsBackgroundCounting()) {
-                session.database().statisticsBackgroundCounter.needsBackgroundCounting();
+                session.database().statisticsBackgroundCounter.needsBackgroundCounting(
+                        graphMgr.data().stats().countJobShards()
+                );
             }
         }
     }
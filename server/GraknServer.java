@@ -21,9 +21,9 @@ package grakn.core.server;
 import grabl.tracing.client.GrablTracing;
 import grabl.tracing.client.GrablTracingThreadStatic;
 import grakn.common.concurrent.NamedThreadFactory;
-import grakn.core.Grakn;
 import grakn.core.common.exception.GraknException;
 import grakn.core.concurrent.common.ExecutorService;
+import grakn.core.rocks.RocksFactory;
 import grakn.core.rocks.RocksGrakn;
 import grakn.core.server.migrator.MigratorClient;
 import grakn.core.server.rpc.GraknRPCService;
@@ -73,7 +73,7 @@ public class GraknServer implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(GraknServer.class);
     private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
 
-    private final Grakn grakn;
+    private final RocksGrakn grakn;
     private final Server server;
     private final ServerCommand.Start command;
     private final GraknRPCService graknRPCService;
@@ -86,7 +86,7 @@ public class GraknServer implements AutoCloseable {
 
         if (command.debug()) LOG.info("Running Grakn Core Server in debug mode.");
 
-        grakn = RocksGrakn.open(command.dataDir());
+        grakn = RocksGrakn.open(command.dataDir(), command.databaseOptions(), new RocksFactory());
         graknRPCService = new GraknRPCService(grakn);
         migratorRPCService = new MigratorRPCService(grakn);
 
@@ -243,7 +243,8 @@ public class GraknServer implements AutoCloseable {
 
     private static void importData(ServerCommand.ImportData importDataCommand) {
         MigratorClient migrator = new MigratorClient(importDataCommand.port());
-        boolean success = migrator.importData(importDataCommand.database(), importDataCommand.filename(), importDataCommand.remapLabels());
+        boolean success = migrator.importData(importDataCommand.database(), importDataCommand.filename(),
+                                              importDataCommand.remapLabels(), importDataCommand.bulk());
         System.exit(success ? 0 : 1);
     }
 
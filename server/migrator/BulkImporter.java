@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.server.migrator;
+
+import com.google.protobuf.Parser;
+import grakn.common.collection.Pair;
+import grakn.core.common.exception.GraknException;
+import grakn.core.common.parameters.Arguments;
+import grakn.core.concept.ConceptManager;
+import grakn.core.concept.type.AttributeType;
+import grakn.core.concept.type.EntityType;
+import grakn.core.concept.type.RelationType;
+import grakn.core.concept.type.RoleType;
+import grakn.core.rocks.RocksBulkLoader;
+import grakn.core.rocks.RocksGrakn;
+import grakn.core.rocks.RocksSession;
+import grakn.core.rocks.RocksTransaction;
+import grakn.core.server.Version;
+import grakn.core.server.migrator.proto.DataProto;
+import grakn.core.server.migrator.proto.MigratorProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static grakn.core.common.exception.ErrorMessage.Migrator.FILE_NOT_READABLE;
+import static grakn.core.common.exception.ErrorMessage.Migrator.INVALID_DATA;
+import static grakn.core.common.exception.ErrorMessage.Migrator.TYPE_NOT_FOUND;
+
+/**
+ * Imports data in the same format as the {@code Importer}, but writes it through a
+ * {@code RocksBulkLoader} rather than through transactions. This is meant for offline
+ * imports of large datasets, into a database that no one else is writing to.
+ *
+ * The data is not validated against the schema beyond the existence of its types, as it
+ * is expected to have been exported from a valid database.
+ */
+public class BulkImporter implements Migrator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkImporter.class);
+    private static final Parser<DataProto.Item> ITEM_PARSER = DataProto.Item.parser();
+    private final RocksGrakn grakn;
+    private final String database;
+    private final Path filename;
+    private final Map<String, String> remapLabels;
+
+    private final Map<String, byte[]> idMap = new HashMap<>();
+    private final Map<RelationType, Map<String, RoleType>> rolesByRelationType = new HashMap<>();
+    private final List<Pair<byte[], List<String>>> missingOwnerships = new ArrayList<>();
+    private final List<Pair<byte[], List<Pair<RoleType, List<String>>>>> missingRolePlayers = new ArrayList<>();
+    private long totalThingCount = 0;
+    private long entityCount = 0;
+    private long relationCount = 0;
+    private long attributeCount = 0;
+    private long ownershipCount = 0;
+    private long playerCount = 0;
+    private ConceptManager concepts;
+    private RocksBulkLoader loader;
+
+    public BulkImporter(RocksGrakn grakn, String database, Path filename, Map<String, String> remapLabels) {
+        this.grakn = grakn;
+        this.database = database;
+        this.filename = filename;
+        this.remapLabels = remapLabels;
+    }
+
+    @Override
+    public MigratorProto.Job.Progress getProgress() {
+        long current = attributeCount + relationCount + entityCount;
+        return MigratorProto.Job.Progress.newBuilder()
+                .setCurrent(current)
+                .setTotal(Math.max(current, totalThingCount))
+                .build();
+    }
+
+    @Override
+    public void run() {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(filename))) {
+            DataProto.Item item;
+            while ((item = ITEM_PARSER.parseDelimitedFrom(inputStream)) != null) {
+                if (item.getItemCase() == DataProto.Item.ItemCase.ENTITY ||
+                        item.getItemCase() == DataProto.Item.ItemCase.RELATION ||
+                        item.getItemCase() == DataProto.Item.ItemCase.ATTRIBUTE) {
+                    totalThingCount++;
+                } else if (item.getItemCase() == DataProto.Item.ItemCase.CHUNK) {
+                    totalThingCount += item.getChunk().getThingCount();
+                }
+            }
+        } catch (IOException e) {
+            throw GraknException.of(FILE_NOT_READABLE, filename.toString());
+        }
+
+        // types are read from a read transaction, which does not compete with the bulk loader for the schema lock
+        try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA);
+             RocksTransaction tx = session.transaction(Arguments.Transaction.Type.READ);
+             RocksBulkLoader bulkLoader = grakn.databases().get(database).bulkLoader()) {
+            concepts = tx.concepts();
+            loader = bulkLoader;
+            importItems(filename);
+            insertMissingOwnerships();
+            insertMissingRolePlayers();
+            loader.commit();
+        }
+
+        LOG.info("Bulk imported {} entities, {} attributes, {} relations ({} players), {} ownerships",
+                 entityCount,
+                 attributeCount,
+                 relationCount,
+                 playerCount,
+                 ownershipCount);
+    }
+
+    /**
+     * The bulk loader is not thread-safe, so the chunks of a manifest are imported one after another.
+     */
+    private void importItems(Path file) {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            DataProto.Item item;
+            while ((item = ITEM_PARSER.parseDelimitedFrom(inputStream)) != null) {
+                switch (item.getItemCase()) {
+                    case HEADER:
+                        DataProto.Item.Header header = item.getHeader();
+                        LOG.info("Bulk importing {} from Grakn {} to {} in Grakn {}",
+                                 header.getOriginalDatabase(),
+                                 header.getGraknVersion(),
+                                 database,
+                                 Version.VERSION);
+                        break;
+                    case CHUNK:
+                        if (!file.equals(filename)) throw GraknException.of(INVALID_DATA);
+                        importItems(filename.resolveSibling(item.getChunk().getFilename()));
+                        break;
+                    case ENTITY:
+                        insertEntity(item.getEntity());
+                        break;
+                    case RELATION:
+                        insertRelation(item.getRelation());
+                        break;
+                    case ATTRIBUTE:
+                        insertAttribute(item.getAttribute());
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            throw GraknException.of(FILE_NOT_READABLE, file.toString());
+        }
+    }
+
+    private void insertEntity(DataProto.Item.Entity entityMsg) {
+        EntityType entityType = concepts.getEntityType(relabel(entityMsg.getLabel()));
+        if (entityType != null) {
+            byte[] entity = loader.create(entityType);
+            idMap.put(entityMsg.getId(), entity);
+            insertOwnedAttributesThatExist(entity, entityMsg.getAttributeList());
+            entityCount++;
+        } else {
+            throw GraknException.of(TYPE_NOT_FOUND, relabel(entityMsg.getLabel()), entityMsg.getLabel());
+        }
+    }
+
+    private void insertRelation(DataProto.Item.Relation relationMsg) {
+        RelationType relationType = concepts.getRelationType(relabel(relationMsg.getLabel()));
+        if (relationType != null) {
+            Map<String, RoleType> roles = rolesByRelationType.computeIfAbsent(relationType, this::getScopedRoleTypes);
+            byte[] relation = loader.create(relationType);
+            idMap.put(relationMsg.getId(), relation);
+            insertOwnedAttributesThatExist(relation, relationMsg.getAttributeList());
+
+            List<Pair<RoleType, List<String>>> missingRolePlayers = new ArrayList<>();
+            for (DataProto.Item.Relation.Role roleMsg : relationMsg.getRoleList()) {
+                RoleType role = roles.get(relabel(roleMsg.getLabel()));
+                if (role != null) {
+                    List<String> missingPlayers = new ArrayList<>();
+                    for (DataProto.Item.Relation.Role.Player playerMessage : roleMsg.getPlayerList()) {
+                        byte[] player = idMap.get(playerMessage.getId());
+                        if (player != null) {
+                            loader.addPlayer(relation, role, player);
+                            playerCount++;
+                        } else {
+                            missingPlayers.add(playerMessage.getId());
+                        }
+                    }
+                    if (!missingPlayers.isEmpty()) missingRolePlayers.add(new Pair<>(role, missingPlayers));
+                } else {
+                    throw GraknException.of(TYPE_NOT_FOUND, relabel(roleMsg.getLabel()), roleMsg.getLabel());
+                }
+            }
+            if (!missingRolePlayers.isEmpty()) this.missingRolePlayers.add(new Pair<>(relation, missingRolePlayers));
+            relationCount++;
+        } else {
+            throw GraknException.of(TYPE_NOT_FOUND, relabel(relationMsg.getLabel()), relationMsg.getLabel());
+        }
+    }
+
+    private void insertAttribute(DataProto.Item.Attribute attributeMsg) {
+        AttributeType attributeType = concepts.getAttributeType(relabel(attributeMsg.getLabel()));
+        if (attributeType != null) {
+            DataProto.ValueObject valueMsg = attributeMsg.getValue();
+            byte[] attribute;
+            switch (valueMsg.getValueCase()) {
+                case STRING:
+                    attribute = loader.put(attributeType.asString(), valueMsg.getString());
+                    break;
+                case BOOLEAN:
+                    attribute = loader.put(attributeType.asBoolean(), valueMsg.getBoolean());
+                    break;
+                case LONG:
+                    attribute = loader.put(attributeType.asLong(), valueMsg.getLong());
+                    break;
+                case DOUBLE:
+                    attribute = loader.put(attributeType.asDouble(), valueMsg.getDouble());
+                    break;
+                case DATETIME:
+                    attribute = loader.put(attributeType.asDateTime(), Instant.ofEpochMilli(
+                            valueMsg.getDatetime()).atZone(ZoneId.of("Z")).toLocalDateTime());
+                    break;
+                default:
+                    throw GraknException.of(INVALID_DATA);
+            }
+            idMap.put(attributeMsg.getId(), attribute);
+            insertOwnedAttributesThatExist(attribute, attributeMsg.getAttributeList());
+            attributeCount++;
+        } else {
+            throw GraknException.of(TYPE_NOT_FOUND, relabel(attributeMsg.getLabel()), attributeMsg.getLabel());
+        }
+    }
+
+    private void insertOwnedAttributesThatExist(byte[] owner, List<DataProto.Item.OwnedAttribute> ownedMsgs) {
+        List<String> missingOwnerships = new ArrayList<>();
+        for (DataProto.Item.OwnedAttribute ownedMsg : ownedMsgs) {
+            byte[] attribute = idMap.get(ownedMsg.getId());
+            if (attribute != null) {
+                loader.setHas(owner, attribute);
+                ownershipCount++;
+            } else {
+                missingOwnerships.add(ownedMsg.getId());
+            }
+        }
+        if (!missingOwnerships.isEmpty()) this.missingOwnerships.add(new Pair<>(owner, missingOwnerships));
+    }
+
+    private void insertMissingOwnerships() {
+        for (Pair<byte[], List<String>> ownership : missingOwnerships) {
+            for (String originalAttributeId : ownership.second()) {
+                byte[] attribute = idMap.get(originalAttributeId);
+                if (attribute == null) throw GraknException.of(INVALID_DATA);
+                loader.setHas(ownership.first(), attribute);
+                ownershipCount++;
+            }
+        }
+        missingOwnerships.clear();
+    }
+
+    private void insertMissingRolePlayers() {
+        for (Pair<byte[], List<Pair<RoleType, List<String>>>> rolePlayers : missingRolePlayers) {
+            for (Pair<RoleType, List<String>> pair : rolePlayers.second()) {
+                for (String originalPlayerId : pair.second()) {
+                    byte[] player = idMap.get(originalPlayerId);
+                    if (player == null) throw GraknException.of(INVALID_DATA);
+                    loader.addPlayer(rolePlayers.first(), pair.first(), player);
+                    playerCount++;
+                }
+            }
+        }
+        missingRolePlayers.clear();
+    }
+
+    private Map<String, RoleType> getScopedRoleTypes(RelationType relationType) {
+        return relationType.getRelates().collect(
+                Collectors.toMap(x -> x.getLabel().scopedName(), x -> x));
+    }
+
+    private String relabel(String label) {
+        return remapLabels.getOrDefault(label, label);
+    }
+}
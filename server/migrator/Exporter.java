@@ -18,14 +18,18 @@
 
 package grakn.core.server.migrator;
 
+import grakn.common.concurrent.NamedThreadFactory;
 import grakn.core.Grakn;
 import grakn.core.common.exception.GraknException;
+import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Arguments;
+import grakn.core.common.parameters.Options;
 import grakn.core.concept.thing.Attribute;
 import grakn.core.concept.thing.Entity;
 import grakn.core.concept.thing.Relation;
 import grakn.core.concept.thing.Thing;
 import grakn.core.concept.type.RoleType;
+import grakn.core.concept.type.ThingType;
 import grakn.core.server.Version;
 import grakn.core.server.migrator.proto.DataProto;
 import grakn.core.server.migrator.proto.MigratorProto;
@@ -41,15 +45,33 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
+import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_INTERRUPTION;
 import static grakn.core.common.exception.ErrorMessage.Migrator.FILE_NOT_WRITABLE;
+import static grakn.core.concurrent.common.ExecutorService.PARALLELISATION_FACTOR;
 
+/**
+ * Exports a database as a manifest file and a set of chunk files next to it.
+ *
+ * The instances of every type are split into ranges of their IIDs, which are all scanned
+ * from the snapshot of a single read transaction, in parallel. Each range is written to its
+ * own chunk file, and the manifest lists the chunks along with the header and checksums.
+ * The transaction reads in scan mode, so that an export does not evict the working set of
+ * other transactions from the block cache.
+ */
 public class Exporter implements Migrator {
 
     private static final Logger LOG = LoggerFactory.getLogger(Exporter.class);
+    private static final long THINGS_PER_RANGE = 50_000;
+    private static final int MAX_RANGES_PER_TYPE = 256;
     private final Grakn grakn;
     private final String database;
     private final Path filename;
@@ -78,50 +100,103 @@ public class Exporter implements Migrator {
     @Override
     public void run() {
         LOG.info("Exporting {} from Grakn {}", database, Version.VERSION);
+        List<DataProto.Item.Chunk> chunks;
+        try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA);
+             Grakn.Transaction tx = session.transaction(Arguments.Transaction.Type.READ,
+                                                        new Options.Transaction().scanMode(true))) {
+            totalThingCount = tx.concepts().getRootThingType().getInstancesCount();
+            List<ResourceIterator<Thing>> ranges = new ArrayList<>();
+            tx.concepts().getRootThingType().getSubtypes().filter(type -> !type.isRoot()).forEach(type -> {
+                ranges.addAll(tx.concepts().getInstanceRanges(type, maxRanges(type)));
+            });
+            chunks = writeChunks(ranges);
+        }
+
         try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(filename))) {
-            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA);
-                 Grakn.Transaction tx = session.transaction(Arguments.Transaction.Type.READ)) {
-                totalThingCount = tx.concepts().getRootThingType().getInstancesCount();
-                DataProto.Item header = DataProto.Item.newBuilder()
-                        .setHeader(DataProto.Item.Header.newBuilder()
-                                           .setGraknVersion(Version.VERSION)
-                                           .setOriginalDatabase(session.database().name()))
-                        .build();
-                write(outputStream, header);
-
-                List<Runnable> workers = new ArrayList<>();
-                workers.add(() -> tx.concepts().getRootEntityType().getInstances().forEach(entity -> {
-                    DataProto.Item item = readEntity(entity);
-                    write(outputStream, item);
-                }));
-                workers.add(() -> tx.concepts().getRootRelationType().getInstances().forEach(relation -> {
-                    DataProto.Item item = readRelation(relation);
-                    write(outputStream, item);
-                }));
-                workers.add(() -> tx.concepts().getRootAttributeType().getInstances().forEach(attribute -> {
-                    DataProto.Item item = readAttribute(attribute);
-                    write(outputStream, item);
-                }));
-                workers.parallelStream().forEach(Runnable::run);
-
-                DataProto.Item checksums = DataProto.Item.newBuilder().setChecksums(DataProto.Item.Checksums.newBuilder()
-                                                                                                  .setEntityCount(entityCount.get())
-                                                                                                  .setAttributeCount(attributeCount.get())
-                                                                                                  .setRelationCount(relationCount.get())
-                                                                                                  .setRoleCount(playerCount.get())
-                                                                                                  .setOwnershipCount(ownershipCount.get()))
-                        .build();
-                write(outputStream, checksums);
+            DataProto.Item header = DataProto.Item.newBuilder()
+                    .setHeader(DataProto.Item.Header.newBuilder()
+                                       .setGraknVersion(Version.VERSION)
+                                       .setOriginalDatabase(database))
+                    .build();
+            write(outputStream, filename, header);
+            for (DataProto.Item.Chunk chunk : chunks) {
+                write(outputStream, filename, DataProto.Item.newBuilder().setChunk(chunk).build());
             }
+            DataProto.Item checksums = DataProto.Item.newBuilder().setChecksums(DataProto.Item.Checksums.newBuilder()
+                                                                                              .setEntityCount(entityCount.get())
+                                                                                              .setAttributeCount(attributeCount.get())
+                                                                                              .setRelationCount(relationCount.get())
+                                                                                              .setRoleCount(playerCount.get())
+                                                                                              .setOwnershipCount(ownershipCount.get()))
+                    .build();
+            write(outputStream, filename, checksums);
         } catch (IOException e) {
             throw GraknException.of(FILE_NOT_WRITABLE, filename.toString());
         }
-        LOG.info("Exported {} entities, {} attributes, {} relations ({} roles), {} ownerships",
+        LOG.info("Exported {} entities, {} attributes, {} relations ({} roles), {} ownerships, in {} chunks",
                  entityCount.get(),
                  attributeCount.get(),
                  relationCount.get(),
                  playerCount.get(),
-                 ownershipCount.get());
+                 ownershipCount.get(),
+                 chunks.size());
+    }
+
+    private int maxRanges(ThingType type) {
+        long ranges = (type.getInstancesCount() + THINGS_PER_RANGE - 1) / THINGS_PER_RANGE;
+        return (int) Math.max(1, Math.min(MAX_RANGES_PER_TYPE, ranges));
+    }
+
+    private List<DataProto.Item.Chunk> writeChunks(List<ResourceIterator<Thing>> ranges) {
+        ExecutorService writers = Executors.newFixedThreadPool(
+                Math.max(1, PARALLELISATION_FACTOR), NamedThreadFactory.create(Exporter.class, "writer")
+        );
+        try {
+            List<Future<DataProto.Item.Chunk>> chunks = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                ResourceIterator<Thing> range = ranges.get(i);
+                Path chunkFile = filename.resolveSibling(String.format("%s.chunk-%05d", filename.getFileName(), i));
+                chunks.add(writers.submit(() -> writeChunk(chunkFile, range)));
+            }
+            List<DataProto.Item.Chunk> written = new ArrayList<>();
+            for (Future<DataProto.Item.Chunk> chunk : chunks) written.add(chunk.get());
+            return written.stream().filter(chunk -> chunk.getThingCount() > 0).collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            throw GraknException.of(UNEXPECTED_INTERRUPTION);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GraknException) throw (GraknException) e.getCause();
+            else throw GraknException.of(e.getCause());
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    private DataProto.Item.Chunk writeChunk(Path chunkFile, ResourceIterator<Thing> range) {
+        long thingCount = 0;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(chunkFile))) {
+            while (range.hasNext()) {
+                write(outputStream, chunkFile, readThing(range.next()));
+                thingCount++;
+            }
+        } catch (IOException e) {
+            throw GraknException.of(FILE_NOT_WRITABLE, chunkFile.toString());
+        }
+        try {
+            if (thingCount == 0) Files.delete(chunkFile);
+        } catch (IOException e) {
+            throw GraknException.of(FILE_NOT_WRITABLE, chunkFile.toString());
+        }
+        return DataProto.Item.Chunk.newBuilder()
+                .setFilename(chunkFile.getFileName().toString())
+                .setThingCount(thingCount)
+                .build();
+    }
+
+    private DataProto.Item readThing(Thing thing) {
+        if (thing instanceof Entity) return readEntity(thing.asEntity());
+        else if (thing instanceof Relation) return readRelation(thing.asRelation());
+        else if (thing instanceof Attribute) return readAttribute(thing.asAttribute());
+        else throw GraknException.of(ILLEGAL_STATE);
     }
 
     private DataProto.Item readEntity(Entity entity) {
@@ -141,7 +216,7 @@ public class Exporter implements Migrator {
         DataProto.Item.Relation.Builder relationBuilder = DataProto.Item.Relation.newBuilder()
                 .setId(new String(relation.getIID()))
                 .setLabel(relation.getType().getLabel().name());
-        Map<? extends RoleType, ? extends List<? extends Thing>> playersByRole = relation.getPlayersByRoleType();
+        Map<? extends RoleType, ? extends List<? extends Thing>> playersByRole = relation.getPlayersByExactRoleType();
         for (Map.Entry<? extends RoleType, ? extends List<? extends Thing>> rolePlayers : playersByRole.entrySet()) {
             RoleType role = rolePlayers.getKey();
             DataProto.Item.Relation.Role.Builder roleBuilder = DataProto.Item.Relation.Role.newBuilder()
@@ -196,11 +271,11 @@ public class Exporter implements Migrator {
                 .setId(new String(attribute.getIID())));
     }
 
-    private synchronized void write(OutputStream outputStream, DataProto.Item item) {
+    private void write(OutputStream outputStream, Path file, DataProto.Item item) {
         try {
             item.writeDelimitedTo(outputStream);
         } catch (IOException e) {
-            throw GraknException.of(FILE_NOT_WRITABLE, filename.toString());
+            throw GraknException.of(FILE_NOT_WRITABLE, file.toString());
         }
     }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.server.migrator;
+
+import grakn.core.common.exception.GraknException;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static grakn.core.common.collection.Bytes.bytesHavePrefix;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.reverseOrder;
+
+/**
+ * The mapping from the original IDs of an import file to the IIDs of the things that
+ * were imported for them, along with the ownerships and role players that could not be
+ * resolved when they were first read.
+ *
+ * Both are kept in a temporary RocksDB instance, rather than on the heap, so that the
+ * size of an import is not bounded by the memory of the server. The instance is written
+ * without a write-ahead log, as it is deleted once the import completes. It is created in
+ * the directory of the database being imported into, rather than the temporary directory
+ * of the system, which is often too small a filesystem to hold the map of a large import.
+ *
+ * Unresolved ownerships and role players are recorded under the shard of the writer that
+ * read them, so that every writer can resolve its own shard once all things are imported.
+ */
+class IIDMap implements AutoCloseable {
+
+    private static final byte ORIGINAL_ID = 0;
+    private static final byte MISSING_OWNERSHIP = 1;
+    private static final byte MISSING_ROLE_PLAYER = 2;
+
+    private final Path directory;
+    private final Options options;
+    private final WriteOptions writeOptions;
+    private final RocksDB rocks;
+    private final AtomicLong sequence;
+
+    IIDMap(Path parent) {
+        RocksDB.loadLibrary();
+        try {
+            directory = Files.createTempDirectory(parent, "import");
+            options = new Options().setCreateIfMissing(true);
+            writeOptions = new WriteOptions().setDisableWAL(true);
+            rocks = RocksDB.open(options, directory.toString());
+        } catch (IOException | RocksDBException e) {
+            throw GraknException.of(e);
+        }
+        sequence = new AtomicLong(0);
+    }
+
+    void put(String originalID, byte[] iid) {
+        try {
+            rocks.put(writeOptions, idKey(originalID), iid);
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    byte[] get(String originalID) {
+        try {
+            return rocks.get(idKey(originalID));
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    void putMissingOwnership(int shard, byte[] owner, String attributeID) {
+        byte[] attribute = attributeID.getBytes(UTF_8);
+        ByteBuffer value = ByteBuffer.allocate(Integer.BYTES + owner.length + attribute.length)
+                .putInt(owner.length).put(owner).put(attribute);
+        putMissing(MISSING_OWNERSHIP, shard, value.array());
+    }
+
+    void putMissingRolePlayer(int shard, byte[] relation, String roleLabel, String playerID) {
+        byte[] role = roleLabel.getBytes(UTF_8);
+        byte[] player = playerID.getBytes(UTF_8);
+        ByteBuffer value = ByteBuffer.allocate(2 * Integer.BYTES + relation.length + role.length + player.length)
+                .putInt(relation.length).put(relation).putInt(role.length).put(role).put(player);
+        putMissing(MISSING_ROLE_PLAYER, shard, value.array());
+    }
+
+    void forEachMissingOwnership(int shard, Consumer<MissingOwnership> consumer) {
+        forEachMissing(MISSING_OWNERSHIP, shard, value -> {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            byte[] owner = new byte[buffer.getInt()];
+            buffer.get(owner);
+            consumer.accept(new MissingOwnership(owner, remaining(buffer)));
+        });
+    }
+
+    void forEachMissingRolePlayer(int shard, Consumer<MissingRolePlayer> consumer) {
+        forEachMissing(MISSING_ROLE_PLAYER, shard, value -> {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            byte[] relation = new byte[buffer.getInt()];
+            buffer.get(relation);
+            byte[] role = new byte[buffer.getInt()];
+            buffer.get(role);
+            consumer.accept(new MissingRolePlayer(relation, new String(role, UTF_8), remaining(buffer)));
+        });
+    }
+
+    private void putMissing(byte type, int shard, byte[] value) {
+        byte[] key = ByteBuffer.allocate(1 + Integer.BYTES + Long.BYTES)
+                .put(type).putInt(shard).putLong(sequence.getAndIncrement()).array();
+        try {
+            rocks.put(writeOptions, key, value);
+        } catch (RocksDBException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    private void forEachMissing(byte type, int shard, Consumer<byte[]> consumer) {
+        byte[] prefix = ByteBuffer.allocate(1 + Integer.BYTES).put(type).putInt(shard).array();
+        try (RocksIterator iterator = rocks.newIterator()) {
+            for (iterator.seek(prefix); iterator.isValid() && bytesHavePrefix(iterator.key(), prefix); iterator.next()) {
+                consumer.accept(iterator.value());
+            }
+        }
+    }
+
+    private static byte[] idKey(String originalID) {
+        byte[] id = originalID.getBytes(UTF_8);
+        return ByteBuffer.allocate(1 + id.length).put(ORIGINAL_ID).put(id).array();
+    }
+
+    private static String remaining(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public void close() {
+        rocks.close();
+        writeOptions.close();
+        options.close();
+        try {
+            Files.walk(directory).sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw GraknException.of(e);
+        }
+    }
+
+    static class MissingOwnership {
+
+        private final byte[] owner;
+        private final String attributeID;
+
+        private MissingOwnership(byte[] owner, String attributeID) {
+            this.owner = owner;
+            this.attributeID = attributeID;
+        }
+
+        byte[] owner() {
+            return owner;
+        }
+
+        String attributeID() {
+            return attributeID;
+        }
+    }
+
+    static class MissingRolePlayer {
+
+        private final byte[] relation;
+        private final String roleLabel;
+        private final String playerID;
+
+        private MissingRolePlayer(byte[] relation, String roleLabel, String playerID) {
+            this.relation = relation;
+            this.roleLabel = roleLabel;
+            this.playerID = playerID;
+        }
+
+        byte[] relation() {
+            return relation;
+        }
+
+        String roleLabel() {
+            return roleLabel;
+        }
+
+        String playerID() {
+            return playerID;
+        }
+    }
+}
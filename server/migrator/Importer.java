@@ -18,8 +18,9 @@
 
 package grakn.core.server.migrator;
 
+import com.google.common.io.CountingInputStream;
 import com.google.protobuf.Parser;
-import grakn.common.collection.Pair;
+import grakn.common.concurrent.NamedThreadFactory;
 import grakn.core.Grakn;
 import grakn.core.common.exception.GraknException;
 import grakn.core.common.parameters.Arguments;
@@ -31,16 +32,17 @@ import grakn.core.concept.type.AttributeType;
 import grakn.core.concept.type.EntityType;
 import grakn.core.concept.type.RelationType;
 import grakn.core.concept.type.RoleType;
+import grakn.core.rocks.RocksGrakn;
 import grakn.core.server.Version;
 import grakn.core.server.migrator.proto.DataProto;
 import grakn.core.server.migrator.proto.MigratorProto;
-import grakn.core.server.rpc.MigratorRPCService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -50,70 +52,185 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_INTERRUPTION;
 import static grakn.core.common.exception.ErrorMessage.Migrator.FILE_NOT_READABLE;
 import static grakn.core.common.exception.ErrorMessage.Migrator.INVALID_DATA;
 import static grakn.core.common.exception.ErrorMessage.Migrator.TYPE_NOT_FOUND;
+import static grakn.core.concurrent.common.ExecutorService.PARALLELISATION_FACTOR;
 
+/**
+ * Imports a data file as a pipeline: the calling thread parses the items of the file,
+ * in a single pass, onto a bounded queue, which is drained by a pool of writers that
+ * each own a WRITE transaction and commit it in batches.
+ *
+ * The mapping from original IDs to imported IIDs is only recorded once a batch is
+ * committed, as the IIDs of things are regenerated on commit. Ownerships and role players
+ * whose things have not been committed yet are recorded per writer, and resolved by the
+ * same writer once every item of the file has been imported. See {@link IIDMap}.
+ */
 public class Importer implements Migrator {
 
-    private static final Logger LOG = LoggerFactory.getLogger(MigratorRPCService.class);
+    private static final Logger LOG = LoggerFactory.getLogger(Importer.class);
     private static final Parser<DataProto.Item> ITEM_PARSER = DataProto.Item.parser();
+    private static final DataProto.Item END_OF_ITEMS = DataProto.Item.getDefaultInstance();
     private static final int BATCH_SIZE = 20_000;
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long QUEUE_OFFER_TIMEOUT_MILLIS = 100;
+
+    private final RocksGrakn grakn;
+    private final String database;
     private final Grakn.Session session;
     private final Path filename;
     private final Map<String, String> remapLabels;
+    private final int writerCount;
+    private final BlockingQueue<DataProto.Item> items;
+    private final AtomicReference<Throwable> failure;
+    private final AtomicBoolean isReadingComplete;
+    private final AtomicLong bytesRead;
+    private final AtomicLong thingsRead;
+    private final AtomicLong entityCount;
+    private final AtomicLong relationCount;
+    private final AtomicLong attributeCount;
+    private final AtomicLong ownershipCount;
+    private final AtomicLong playerCount;
+    private volatile long fileSize;
+    private volatile long expectedThingCount;
 
-    private final Map<String, byte[]> idMap = new HashMap<>();
-    private final List<Pair<byte[], List<String>>> missingOwnerships = new ArrayList<>();
-    private final List<Pair<byte[], List<Pair<String, List<String>>>>> missingRolePlayers = new ArrayList<>();
-    private long totalThingCount = 0;
-    private long entityCount = 0;
-    private long relationCount = 0;
-    private long attributeCount = 0;
-    private long ownershipCount = 0;
-    private long playerCount = 0;
-    private int txWriteCount = 0;
-    private Grakn.Transaction tx;
-
-    public Importer(Grakn grakn, String database, Path filename, Map<String, String> remapLabels) {
+    public Importer(RocksGrakn grakn, String database, Path filename, Map<String, String> remapLabels) {
+        this.grakn = grakn;
+        this.database = database;
         this.session = grakn.session(database, Arguments.Session.Type.DATA);
         this.filename = filename;
         this.remapLabels = remapLabels;
+        this.writerCount = Math.max(1, PARALLELISATION_FACTOR);
+        this.items = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.failure = new AtomicReference<>();
+        this.isReadingComplete = new AtomicBoolean(false);
+        this.bytesRead = new AtomicLong(0);
+        this.thingsRead = new AtomicLong(0);
+        this.expectedThingCount = 0;
+        this.entityCount = new AtomicLong(0);
+        this.relationCount = new AtomicLong(0);
+        this.attributeCount = new AtomicLong(0);
+        this.ownershipCount = new AtomicLong(0);
+        this.playerCount = new AtomicLong(0);
     }
 
+    /**
+     * As the file is only read once, the total number of things is estimated from the number
+     * of things read so far and the fraction of the file that they were read from, until the
+     * whole file has been read, unless the file is a manifest that counts the things of its chunks.
+     */
     @Override
     public MigratorProto.Job.Progress getProgress() {
-        long current = attributeCount + relationCount + entityCount;
+        long current = attributeCount.get() + relationCount.get() + entityCount.get();
+        long read = thingsRead.get();
+        long total;
+        if (isReadingComplete.get() || bytesRead.get() == 0) total = read;
+        else if (expectedThingCount > 0) total = expectedThingCount;
+        else total = (long) (read * ((double) fileSize / bytesRead.get()));
         return MigratorProto.Job.Progress.newBuilder()
                 .setCurrent(current)
-                .setTotal(Math.max(current, totalThingCount))
+                .setTotal(Math.max(current, total))
                 .build();
     }
 
     @Override
     public void run() {
-        // We scan the file to find the checksum. This is probably not a good idea for files larger than several
-        // gigabytes but that case is rare and the actual import would take so long that even if this took a few
-        // seconds it would still be cheap.
-        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(filename))) {
-            DataProto.Item item;
-            while ((item = ITEM_PARSER.parseDelimitedFrom(inputStream)) != null) {
-                if (item.getItemCase() == DataProto.Item.ItemCase.ENTITY ||
-                        item.getItemCase() == DataProto.Item.ItemCase.RELATION ||
-                        item.getItemCase() == DataProto.Item.ItemCase.ATTRIBUTE) {
-                    totalThingCount++;
-                }
+        ExecutorService writers = Executors.newFixedThreadPool(
+                writerCount, NamedThreadFactory.create(Importer.class, "writer")
+        );
+        try (IIDMap idMap = new IIDMap(grakn.databases().get(database).directory())) {
+            List<Future<?>> importers = new ArrayList<>();
+            for (int shard = 0; shard < writerCount; shard++) {
+                Writer writer = new Writer(shard, idMap);
+                importers.add(writers.submit(() -> runOrFail(writer::importItems)));
             }
+            readItems();
+            await(importers);
+
+            List<Future<?>> resolvers = new ArrayList<>();
+            for (int shard = 0; shard < writerCount; shard++) {
+                Writer writer = new Writer(shard, idMap);
+                resolvers.add(writers.submit(() -> runOrFail(writer::insertMissing)));
+            }
+            await(resolvers);
+        } finally {
+            writers.shutdownNow();
+            session.close();
+        }
+
+        LOG.info("Imported {} entities, {} attributes, {} relations ({} players), {} ownerships",
+                 entityCount.get(),
+                 attributeCount.get(),
+                 relationCount.get(),
+                 playerCount.get(),
+                 ownershipCount.get());
+    }
+
+    private void readItems() {
+        try {
+            fileSize = Files.size(filename);
+            List<DataProto.Item.Chunk> chunks = new ArrayList<>();
+            readItems(filename, chunks);
+            if (!chunks.isEmpty()) readChunks(chunks);
+            isReadingComplete.set(true);
         } catch (IOException e) {
-            throw GraknException.of(FILE_NOT_READABLE, filename.toString());
+            failure.compareAndSet(null, GraknException.of(FILE_NOT_READABLE, filename.toString()));
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            for (int i = 0; i < writerCount; i++) enqueueEndOfItems();
+        }
+    }
+
+    /**
+     * The chunks of a manifest are read in parallel, and their thing counts give the exact
+     * total of the import before they are read.
+     */
+    private void readChunks(List<DataProto.Item.Chunk> chunks) throws IOException {
+        long chunksSize = 0;
+        long chunksThingCount = 0;
+        for (DataProto.Item.Chunk chunk : chunks) {
+            chunksSize += Files.size(filename.resolveSibling(chunk.getFilename()));
+            chunksThingCount += chunk.getThingCount();
         }
+        fileSize += chunksSize;
+        expectedThingCount = thingsRead.get() + chunksThingCount;
 
-        tx = session.transaction(Arguments.Transaction.Type.WRITE);
-        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(filename))) {
+        ExecutorService readers = Executors.newFixedThreadPool(
+                Math.min(chunks.size(), writerCount), NamedThreadFactory.create(Importer.class, "reader")
+        );
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (DataProto.Item.Chunk chunk : chunks) {
+                Path chunkFile = filename.resolveSibling(chunk.getFilename());
+                futures.add(readers.submit(() -> runOrFail(() -> readItems(chunkFile, null))));
+            }
+            await(futures);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private void readItems(Path file, @Nullable List<DataProto.Item.Chunk> chunks) {
+        try (CountingInputStream inputStream = new CountingInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            long counted = 0;
             DataProto.Item item;
-            while ((item = ITEM_PARSER.parseDelimitedFrom(inputStream)) != null) {
+            while (failure.get() == null && (item = ITEM_PARSER.parseDelimitedFrom(inputStream)) != null) {
                 switch (item.getItemCase()) {
                     case HEADER:
                         DataProto.Item.Header header = item.getHeader();
@@ -123,194 +240,312 @@ public class Importer implements Migrator {
                                  session.database().name(),
                                  Version.VERSION);
                         break;
-                    case ENTITY:
-                        insertEntity(item.getEntity());
+                    case CHUNK:
+                        if (chunks == null) throw GraknException.of(INVALID_DATA);
+                        chunks.add(item.getChunk());
                         break;
+                    case ENTITY:
                     case RELATION:
-                        insertRelation(item.getRelation());
-                        break;
                     case ATTRIBUTE:
-                        insertAttribute(item.getAttribute());
+                        enqueue(item);
+                        thingsRead.incrementAndGet();
                         break;
                 }
+                bytesRead.addAndGet(inputStream.getCount() - counted);
+                counted = inputStream.getCount();
             }
         } catch (IOException e) {
-            throw GraknException.of(FILE_NOT_READABLE, filename.toString());
+            throw GraknException.of(FILE_NOT_READABLE, file.toString());
         }
+    }
 
-        insertMissingOwnerships();
-        insertMissingRolePlayers();
-        commit();
-        tx.close();
-        session.close();
+    private void enqueue(DataProto.Item item) {
+        try {
+            while (!items.offer(item, QUEUE_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) return;
+            }
+        } catch (InterruptedException e) {
+            throw GraknException.of(UNEXPECTED_INTERRUPTION);
+        }
+    }
 
-        LOG.info("Imported {} entities, {} attributes, {} relations ({} players), {} ownerships",
-                 entityCount,
-                 attributeCount,
-                 relationCount,
-                 playerCount,
-                 ownershipCount);
+    private void enqueueEndOfItems() {
+        try {
+            while (!items.offer(END_OF_ITEMS, QUEUE_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // writers that have failed no longer drain the queue, so we make room for the end markers
+                if (failure.get() != null) items.removeIf(item -> item != END_OF_ITEMS);
+            }
+        } catch (InterruptedException e) {
+            throw GraknException.of(UNEXPECTED_INTERRUPTION);
+        }
     }
 
-    private void insertEntity(DataProto.Item.Entity entityMsg) {
-        EntityType entityType = tx.concepts().getEntityType(relabel(entityMsg.getLabel()));
-        if (entityType != null) {
-            Entity entity = entityType.create();
-            idMap.put(entityMsg.getId(), entity.getIID());
-            insertOwnedAttributesThatExist(entity, entityMsg.getAttributeList());
-            entityCount++;
-            mayCommit();
-        } else {
-            throw GraknException.of(TYPE_NOT_FOUND, relabel(entityMsg.getLabel()), entityMsg.getLabel());
+    private void runOrFail(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            throw e;
         }
     }
 
-    private void insertRelation(DataProto.Item.Relation relationMsg) {
-        RelationType relationType = tx.concepts().getRelationType(relabel(relationMsg.getLabel()));
-        if (relationType != null) {
-            Map<String, RoleType> roles = getScopedRoleTypes(relationType);
-            Relation relation = relationType.create();
-            idMap.put(relationMsg.getId(), relation.getIID());
-            insertOwnedAttributesThatExist(relation, relationMsg.getAttributeList());
-
-            List<Pair<String, List<String>>> missingRolePlayers = new ArrayList<>();
-            for (DataProto.Item.Relation.Role roleMsg : relationMsg.getRoleList()) {
-                RoleType role = roles.get(relabel(roleMsg.getLabel()));
-                if (role != null) {
-                    List<String> missingPlayers = new ArrayList<>();
-                    for (DataProto.Item.Relation.Role.Player playerMessage : roleMsg.getPlayerList()) {
-                        Thing player = getThing(playerMessage.getId());
-                        if (player != null) {
-                            relation.addPlayer(role, player);
-                            playerCount++;
-                        } else {
-                            missingPlayers.add(playerMessage.getId());
-                        }
+    private void await(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                throw GraknException.of(UNEXPECTED_INTERRUPTION);
+            } catch (ExecutionException e) {
+                // every writer is awaited, so that no transaction outlives the session
+            }
+        }
+        Throwable e = failure.get();
+        if (e instanceof GraknException) throw (GraknException) e;
+        else if (e != null) throw GraknException.of(e);
+    }
+
+    private String relabel(String label) {
+        return remapLabels.getOrDefault(label, label);
+    }
+
+    private static Map<String, RoleType> getScopedRoleTypes(RelationType relationType) {
+        return relationType.getRelates().collect(
+                Collectors.toMap(x -> x.getLabel().scopedName(), x -> x));
+    }
+
+    private class Writer {
+
+        private final int shard;
+        private final IIDMap idMap;
+        private final Map<String, Thing> uncommittedThings;
+        private final List<Ownership> uncommittedMissingOwnerships;
+        private final List<RolePlayer> uncommittedMissingRolePlayers;
+        private Grakn.Transaction tx;
+        private int txWriteCount;
+
+        private Writer(int shard, IIDMap idMap) {
+            this.shard = shard;
+            this.idMap = idMap;
+            this.uncommittedThings = new HashMap<>();
+            this.uncommittedMissingOwnerships = new ArrayList<>();
+            this.uncommittedMissingRolePlayers = new ArrayList<>();
+            this.txWriteCount = 0;
+        }
+
+        private void importItems() {
+            tx = session.transaction(Arguments.Transaction.Type.WRITE);
+            try {
+                DataProto.Item item;
+                while ((item = items.take()) != END_OF_ITEMS) {
+                    if (failure.get() != null) continue;
+                    switch (item.getItemCase()) {
+                        case ENTITY:
+                            insertEntity(item.getEntity());
+                            break;
+                        case RELATION:
+                            insertRelation(item.getRelation());
+                            break;
+                        case ATTRIBUTE:
+                            insertAttribute(item.getAttribute());
+                            break;
                     }
-                    missingRolePlayers.add(new Pair<>(relabel(roleMsg.getLabel()), missingPlayers));
-                } else {
-                    throw GraknException.of(TYPE_NOT_FOUND, relabel(roleMsg.getLabel()), roleMsg.getLabel());
                 }
+                if (failure.get() == null) commit();
+            } catch (InterruptedException e) {
+                throw GraknException.of(UNEXPECTED_INTERRUPTION);
+            } finally {
+                tx.close();
             }
-            this.missingRolePlayers.add(new Pair<>(relation.getIID(), missingRolePlayers));
+        }
 
-            relationCount++;
-            mayCommit();
-        } else {
-            throw GraknException.of(TYPE_NOT_FOUND, relabel(relationMsg.getLabel()), relationMsg.getLabel());
+        private void insertMissing() {
+            tx = session.transaction(Arguments.Transaction.Type.WRITE);
+            try {
+                idMap.forEachMissingOwnership(shard, ownership -> {
+                    Thing owner = tx.concepts().getThing(ownership.owner());
+                    Thing attribute = getCommittedThing(ownership.attributeID());
+                    assert owner != null;
+                    owner.setHas(attribute.asAttribute());
+                    ownershipCount.incrementAndGet();
+                    mayCommit();
+                });
+                idMap.forEachMissingRolePlayer(shard, rolePlayer -> {
+                    Thing thing = tx.concepts().getThing(rolePlayer.relation());
+                    assert thing != null;
+                    Relation relation = thing.asRelation();
+                    RoleType role = getScopedRoleTypes(relation.getType()).get(rolePlayer.roleLabel());
+                    assert role != null;
+                    relation.addPlayer(role, getCommittedThing(rolePlayer.playerID()));
+                    playerCount.incrementAndGet();
+                    mayCommit();
+                });
+                commit();
+            } finally {
+                tx.close();
+            }
         }
-    }
 
-    private void insertAttribute(DataProto.Item.Attribute attributeMsg) {
-        AttributeType attributeType = tx.concepts().getAttributeType(relabel(attributeMsg.getLabel()));
-        if (attributeType != null) {
-            DataProto.ValueObject valueMsg = attributeMsg.getValue();
-            Attribute attribute;
-            switch (valueMsg.getValueCase()) {
-                case STRING:
-                    attribute = attributeType.asString().put(valueMsg.getString());
-                    break;
-                case BOOLEAN:
-                    attribute = attributeType.asBoolean().put(valueMsg.getBoolean());
-                    break;
-                case LONG:
-                    attribute = attributeType.asLong().put(valueMsg.getLong());
-                    break;
-                case DOUBLE:
-                    attribute = attributeType.asDouble().put(valueMsg.getDouble());
-                    break;
-                case DATETIME:
-                    attribute = attributeType.asDateTime().put(
-                            Instant.ofEpochMilli(valueMsg.getDatetime()).atZone(ZoneId.of("Z")).toLocalDateTime());
-                    break;
-                default:
-                    throw GraknException.of(INVALID_DATA);
+        private void insertEntity(DataProto.Item.Entity entityMsg) {
+            EntityType entityType = tx.concepts().getEntityType(relabel(entityMsg.getLabel()));
+            if (entityType != null) {
+                Entity entity = entityType.create();
+                uncommittedThings.put(entityMsg.getId(), entity);
+                insertOwnedAttributesThatExist(entity, entityMsg.getAttributeList());
+                entityCount.incrementAndGet();
+                mayCommit();
+            } else {
+                throw GraknException.of(TYPE_NOT_FOUND, relabel(entityMsg.getLabel()), entityMsg.getLabel());
             }
-            idMap.put(attributeMsg.getId(), attribute.getIID());
-            insertOwnedAttributesThatExist(attribute, attributeMsg.getAttributeList());
-            attributeCount++;
-            mayCommit();
-        } else {
-            throw GraknException.of(TYPE_NOT_FOUND, relabel(attributeMsg.getLabel()), attributeMsg.getLabel());
         }
-    }
 
-    private void insertOwnedAttributesThatExist(Thing thing, List<DataProto.Item.OwnedAttribute> ownedMsgs) {
-        List<String> missingOwnerships = new ArrayList<>();
-        for (DataProto.Item.OwnedAttribute ownedMsg : ownedMsgs) {
-            Thing attrThing = getThing(ownedMsg.getId());
-            if (attrThing != null) {
-                thing.setHas(attrThing.asAttribute());
-                ownershipCount++;
+        private void insertRelation(DataProto.Item.Relation relationMsg) {
+            RelationType relationType = tx.concepts().getRelationType(relabel(relationMsg.getLabel()));
+            if (relationType != null) {
+                Map<String, RoleType> roles = getScopedRoleTypes(relationType);
+                Relation relation = relationType.create();
+                uncommittedThings.put(relationMsg.getId(), relation);
+                insertOwnedAttributesThatExist(relation, relationMsg.getAttributeList());
+
+                for (DataProto.Item.Relation.Role roleMsg : relationMsg.getRoleList()) {
+                    RoleType role = roles.get(relabel(roleMsg.getLabel()));
+                    if (role != null) {
+                        for (DataProto.Item.Relation.Role.Player playerMessage : roleMsg.getPlayerList()) {
+                            Thing player = getThing(playerMessage.getId());
+                            if (player != null) {
+                                relation.addPlayer(role, player);
+                                playerCount.incrementAndGet();
+                            } else {
+                                uncommittedMissingRolePlayers.add(new RolePlayer(
+                                        relation, relabel(roleMsg.getLabel()), playerMessage.getId()
+                                ));
+                            }
+                        }
+                    } else {
+                        throw GraknException.of(TYPE_NOT_FOUND, relabel(roleMsg.getLabel()), roleMsg.getLabel());
+                    }
+                }
+
+                relationCount.incrementAndGet();
+                mayCommit();
             } else {
-                missingOwnerships.add(ownedMsg.getId());
+                throw GraknException.of(TYPE_NOT_FOUND, relabel(relationMsg.getLabel()), relationMsg.getLabel());
             }
-            mayCommit();
         }
-        this.missingOwnerships.add(new Pair<>(thing.getIID(), missingOwnerships));
-    }
 
-    private void insertMissingOwnerships() {
-        for (Pair<byte[], List<String>> ownership : missingOwnerships) {
-            Thing thing = tx.concepts().getThing(ownership.first());
-            for (String originalAttributeId : ownership.second()) {
-                Thing attrThing = getThing(originalAttributeId);
-                assert thing != null && attrThing != null;
-                thing.setHas(attrThing.asAttribute());
-                ownershipCount++;
+        private void insertAttribute(DataProto.Item.Attribute attributeMsg) {
+            AttributeType attributeType = tx.concepts().getAttributeType(relabel(attributeMsg.getLabel()));
+            if (attributeType != null) {
+                DataProto.ValueObject valueMsg = attributeMsg.getValue();
+                Attribute attribute;
+                switch (valueMsg.getValueCase()) {
+                    case STRING:
+                        attribute = attributeType.asString().put(valueMsg.getString());
+                        break;
+                    case BOOLEAN:
+                        attribute = attributeType.asBoolean().put(valueMsg.getBoolean());
+                        break;
+                    case LONG:
+                        attribute = attributeType.asLong().put(valueMsg.getLong());
+                        break;
+                    case DOUBLE:
+                        attribute = attributeType.asDouble().put(valueMsg.getDouble());
+                        break;
+                    case DATETIME:
+                        attribute = attributeType.asDateTime().put(
+                                Instant.ofEpochMilli(valueMsg.getDatetime()).atZone(ZoneId.of("Z")).toLocalDateTime());
+                        break;
+                    default:
+                        throw GraknException.of(INVALID_DATA);
+                }
+                uncommittedThings.put(attributeMsg.getId(), attribute);
+                insertOwnedAttributesThatExist(attribute, attributeMsg.getAttributeList());
+                attributeCount.incrementAndGet();
+                mayCommit();
+            } else {
+                throw GraknException.of(TYPE_NOT_FOUND, relabel(attributeMsg.getLabel()), attributeMsg.getLabel());
             }
-            mayCommit();
         }
-        missingOwnerships.clear();
-    }
 
-    private void insertMissingRolePlayers() {
-        for (Pair<byte[], List<Pair<String, List<String>>>> rolePlayers : missingRolePlayers) {
-            Thing thing = tx.concepts().getThing(rolePlayers.first());
-            assert thing != null;
-            Relation relation = thing.asRelation();
-            for (Pair<String, List<String>> pair : rolePlayers.second()) {
-                Map<String, RoleType> roles = getScopedRoleTypes(relation.getType());
-                RoleType role = roles.get(pair.first());
-                assert role != null;
-                for (String originalPlayerId : pair.second()) {
-                    Thing player = getThing(originalPlayerId);
-                    relation.addPlayer(role, player);
-                    playerCount++;
+        private void insertOwnedAttributesThatExist(Thing thing, List<DataProto.Item.OwnedAttribute> ownedMsgs) {
+            for (DataProto.Item.OwnedAttribute ownedMsg : ownedMsgs) {
+                Thing attrThing = getThing(ownedMsg.getId());
+                if (attrThing != null) {
+                    thing.setHas(attrThing.asAttribute());
+                    ownershipCount.incrementAndGet();
+                } else {
+                    uncommittedMissingOwnerships.add(new Ownership(thing, ownedMsg.getId()));
                 }
+                mayCommit();
             }
-            mayCommit();
         }
-        missingRolePlayers.clear();
-    }
 
-    private Thing getThing(String originalId) {
-        byte[] newId = idMap.get(originalId);
-        return newId != null ? tx.concepts().getThing(newId) : null;
-    }
+        private Thing getThing(String originalId) {
+            Thing thing = uncommittedThings.get(originalId);
+            if (thing != null) return thing;
+            byte[] newId = idMap.get(originalId);
+            return newId != null ? tx.concepts().getThing(newId) : null;
+        }
 
-    private Map<String, RoleType> getScopedRoleTypes(RelationType relationType) {
-        return relationType.getRelates().collect(
-                Collectors.toMap(x -> x.getLabel().scopedName(), x -> x));
-    }
+        private Thing getCommittedThing(String originalId) {
+            byte[] newId = idMap.get(originalId);
+            Thing thing = newId != null ? tx.concepts().getThing(newId) : null;
+            if (thing == null) throw GraknException.of(INVALID_DATA);
+            return thing;
+        }
 
-    private String relabel(String label) {
-        return remapLabels.getOrDefault(label, label);
+        private void mayCommit() {
+            txWriteCount++;
+            if (txWriteCount >= BATCH_SIZE) {
+                commit();
+                tx.close();
+                tx = session.transaction(Arguments.Transaction.Type.WRITE);
+            }
+        }
+
+        /**
+         * Things are given their persisted IIDs on commit, so the IIDs of this batch, and of the
+         * ownerships and role players it could not resolve, are only recorded once it is committed.
+         */
+        private void commit() {
+            LOG.debug("Commit start on writer {}, inserted {} things", shard, txWriteCount);
+            Instant start = Instant.now();
+            tx.commit();
+            LOG.debug("Commit end on writer {}, took {}ms", shard, Duration.between(start, Instant.now()).toMillis());
+            uncommittedThings.forEach((originalId, thing) -> idMap.put(originalId, thing.getIID()));
+            uncommittedMissingOwnerships.forEach(ownership -> idMap.putMissingOwnership(
+                    shard, ownership.owner.getIID(), ownership.attributeID
+            ));
+            uncommittedMissingRolePlayers.forEach(rolePlayer -> idMap.putMissingRolePlayer(
+                    shard, rolePlayer.relation.getIID(), rolePlayer.roleLabel, rolePlayer.playerID
+            ));
+            uncommittedThings.clear();
+            uncommittedMissingOwnerships.clear();
+            uncommittedMissingRolePlayers.clear();
+            txWriteCount = 0;
+        }
     }
 
-    private void mayCommit() {
-        txWriteCount++;
-        if (txWriteCount >= BATCH_SIZE) {
-            commit();
+    private static class Ownership {
+
+        private final Thing owner;
+        private final String attributeID;
+
+        private Ownership(Thing owner, String attributeID) {
+            this.owner = owner;
+            this.attributeID = attributeID;
         }
     }
 
-    private void commit() {
-        LOG.debug("Commit start, inserted {} things", txWriteCount);
-        Instant start = Instant.now();
-        tx.commit();
-        LOG.debug("Commit end, took {}s", Duration.between(start, Instant.now()).toMillis());
-        tx = session.transaction(Arguments.Transaction.Type.WRITE);
-        txWriteCount = 0;
+    private static class RolePlayer {
+
+        private final Relation relation;
+        private final String roleLabel;
+        private final String playerID;
+
+        private RolePlayer(Relation relation, String roleLabel, String playerID) {
+            this.relation = relation;
+            this.roleLabel = roleLabel;
+            this.playerID = playerID;
+        }
     }
 }
@@ -43,11 +43,12 @@ public class MigratorClient {
         blockingStub = MigratorGrpc.newBlockingStub(channel);
     }
 
-    public boolean importData(String database, String filename, Map<String, String> remapLabels) {
+    public boolean importData(String database, String filename, Map<String, String> remapLabels, boolean bulk) {
         MigratorProto.ImportData.Req req = MigratorProto.ImportData.Req.newBuilder()
                 .setDatabase(database)
                 .setFilename(filename)
                 .putAllRemapLabels(remapLabels)
+                .setBulk(bulk)
                 .build();
         ResponseObserver streamObserver = new ResponseObserver(new ProgressPrinter("import"));
         streamingStub.importData(req, streamObserver);
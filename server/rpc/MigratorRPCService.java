@@ -17,8 +17,9 @@
 
 package grakn.core.server.rpc;
 
-import grakn.core.Grakn;
 import grakn.core.common.exception.GraknException;
+import grakn.core.rocks.RocksGrakn;
+import grakn.core.server.migrator.BulkImporter;
 import grakn.core.server.migrator.Exporter;
 import grakn.core.server.migrator.Importer;
 import grakn.core.server.migrator.Migrator;
@@ -39,9 +40,9 @@ import static grakn.core.server.rpc.common.ResponseBuilder.exception;
 public class MigratorRPCService extends MigratorGrpc.MigratorImplBase {
 
     private static final Logger LOG = LoggerFactory.getLogger(MigratorRPCService.class);
-    private final Grakn grakn;
+    private final RocksGrakn grakn;
 
-    public MigratorRPCService(Grakn grakn) {
+    public MigratorRPCService(RocksGrakn grakn) {
         this.grakn = grakn;
     }
 
@@ -53,7 +54,9 @@ public class MigratorRPCService extends MigratorGrpc.MigratorImplBase {
 
     @Override
     public void importData(MigratorProto.ImportData.Req request, StreamObserver<MigratorProto.Job.Res> responseObserver) {
-        Importer importer = new Importer(grakn, request.getDatabase(), Paths.get(request.getFilename()), request.getRemapLabelsMap());
+        Migrator importer = request.getBulk()
+                ? new BulkImporter(grakn, request.getDatabase(), Paths.get(request.getFilename()), request.getRemapLabelsMap())
+                : new Importer(grakn, request.getDatabase(), Paths.get(request.getFilename()), request.getRemapLabelsMap());
         runMigrator(importer, responseObserver);
     }
 
@@ -19,6 +19,8 @@
 package grakn.core.server.util;
 
 import grakn.core.common.exception.GraknException;
+import grakn.core.common.parameters.Arguments;
+import grakn.core.common.parameters.Options;
 import grakn.core.server.Version;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -31,6 +33,8 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_CAST;
+import static grakn.core.common.exception.ErrorMessage.Server.NEGATIVE_GROUP_COMMIT_WINDOW;
+import static grakn.core.common.exception.ErrorMessage.Server.UNRECOGNISED_STORAGE_PROFILE;
 
 public interface ServerCommand {
     default boolean isStart() {
@@ -79,6 +83,31 @@ public interface ServerCommand {
                 description = "Port number of database server in which GRPC clients will connect to")
         private int port;
 
+        @Option(descriptionKey = "storage.profile",
+                names = {"--storage-profile"},
+                defaultValue = "default",
+                description = "RocksDB storage tuning profile: 'default', 'read-heavy' or 'write-heavy'")
+        private String storageProfile;
+
+        @Option(descriptionKey = "storage.block-cache-size",
+                names = {"--storage-block-cache-size"},
+                defaultValue = Options.DEFAULT_STORAGE_BLOCK_CACHE_SIZE_MB + "",
+                description = "Size in megabytes of the RocksDB block cache shared by all databases")
+        private long storageBlockCacheSizeMB;
+
+        @Option(descriptionKey = "storage.insert-only-disable-wal",
+                names = {"--storage-insert-only-disable-wal"},
+                negatable = true,
+                defaultValue = Options.DEFAULT_STORAGE_INSERT_ONLY_DISABLE_WAL + "",
+                description = "Commit transactions that only insert new data without writing to the write-ahead log")
+        private boolean storageInsertOnlyDisableWAL;
+
+        @Option(descriptionKey = "storage.group-commit-window",
+                names = {"--storage-group-commit-window"},
+                defaultValue = Options.DEFAULT_STORAGE_GROUP_COMMIT_WINDOW_MICROS + "",
+                description = "Window in microseconds in which commits share one sync of the write-ahead log, or 0 to not sync commits")
+        private long storageGroupCommitWindowMicros;
+
         @Option(descriptionKey = "grabl.trace",
                 names = {"--grabl-trace"},
                 negatable = true,
@@ -121,6 +150,35 @@ public interface ServerCommand {
             return debug;
         }
 
+        public Arguments.Storage.Profile storageProfile() {
+            Arguments.Storage.Profile profile = Arguments.Storage.Profile.of(storageProfile);
+            if (profile == null) throw GraknException.of(UNRECOGNISED_STORAGE_PROFILE, storageProfile);
+            return profile;
+        }
+
+        public long storageBlockCacheSizeMB() {
+            return storageBlockCacheSizeMB;
+        }
+
+        public boolean storageInsertOnlyDisableWAL() {
+            return storageInsertOnlyDisableWAL;
+        }
+
+        public long storageGroupCommitWindowMicros() {
+            if (storageGroupCommitWindowMicros < 0) {
+                throw GraknException.of(NEGATIVE_GROUP_COMMIT_WINDOW, storageGroupCommitWindowMicros);
+            }
+            return storageGroupCommitWindowMicros;
+        }
+
+        public Options.Database databaseOptions() {
+            return new Options.Database()
+                    .storageProfile(storageProfile())
+                    .storageBlockCacheSizeMB(storageBlockCacheSizeMB())
+                    .storageInsertOnlyDisableWAL(storageInsertOnlyDisableWAL())
+                    .storageGroupCommitWindowMicros(storageGroupCommitWindowMicros());
+        }
+
         public boolean grablTrace() {
             return grablTrace;
         }
@@ -162,6 +220,11 @@ public interface ServerCommand {
         @Parameters(index = "2..*", arity = "0..*", description = "Schema concept remap labels")
         private Map<String, String> remapLabels = new LinkedHashMap<>();
 
+        @Option(names = {"--bulk"},
+                description = "Write the data directly into storage files, bypassing transactions. " +
+                        "The database is locked for writing until the import completes")
+        private boolean bulk;
+
         public ImportData(Start startCommand) {
             this.startCommand = startCommand;
         }
@@ -178,6 +241,10 @@ public interface ServerCommand {
             return remapLabels;
         }
 
+        public boolean bulk() {
+            return bulk;
+        }
+
         public int port() {
             return startCommand.port();
         }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.graph;
+
+import grakn.core.common.parameters.Arguments;
+import grakn.core.concept.thing.Entity;
+import grakn.core.concept.type.AttributeType;
+import grakn.core.concept.type.EntityType;
+import grakn.core.graph.edge.ThingEdge;
+import grakn.core.graph.iid.VertexIID;
+import grakn.core.graph.vertex.ThingVertex;
+import grakn.core.rocks.RocksGrakn;
+import grakn.core.rocks.RocksSession;
+import grakn.core.rocks.RocksTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static grakn.core.graph.common.Encoding.Edge.Thing.HAS;
+
+/**
+ * Measures the throughput of the adjacency scans of {@code ThingAdjacencyImpl.Persisted}, in edges per second,
+ * for each of the ways that the edges of an adjacency can be iterated.
+ *
+ * A read transaction holds no edges in memory, so its scans stream the edges straight from the storage. A write
+ * transaction caches the persisted edges that it reads, so every scan after the first merges the cached edges
+ * into the edges of the storage. When {@code bufferedPerOwner} is positive, the write transaction also buffers
+ * that many new edges from every owner, which are merged into the scans in the same way.
+ *
+ * The edges are scanned both for the vertices that they lead to, and for only the IIDs of those vertices, as
+ * closure checks do, which is best run with {@code -prof gc} to compare the allocation of each edge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class AdjacencyScanBenchmark {
+
+    private static final String DATABASE = "adjacency-scan-benchmark";
+
+    @Param({"1000"})
+    public int owners;
+
+    @Param({"10", "100"})
+    public int attributesPerOwner;
+
+    @Param({"READ", "WRITE"})
+    public String transactionType;
+
+    @Param({"0", "1"})
+    public int bufferedPerOwner;
+
+    private Path directory;
+    private RocksGrakn grakn;
+    private RocksSession session;
+    private RocksTransaction transaction;
+    private DataGraph graph;
+    private List<VertexIID.Thing> ownerIIDs;
+    private long edges;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory(DATABASE);
+        grakn = RocksGrakn.open(directory);
+        grakn.databases().create(DATABASE);
+        try (RocksSession schema = grakn.session(DATABASE, Arguments.Session.Type.SCHEMA);
+             RocksTransaction tx = schema.transaction(Arguments.Transaction.Type.WRITE)) {
+            AttributeType score = tx.concepts().putAttributeType("score", AttributeType.ValueType.LONG);
+            tx.concepts().putEntityType("owner").setOwns(score);
+            tx.commit();
+        }
+
+        session = grakn.session(DATABASE, Arguments.Session.Type.DATA);
+        try (RocksTransaction tx = session.transaction(Arguments.Transaction.Type.WRITE)) {
+            EntityType ownerType = tx.concepts().getEntityType("owner");
+            AttributeType.Long score = tx.concepts().getAttributeType("score").asLong();
+            for (int i = 0; i < owners; i++) {
+                Entity owner = ownerType.create();
+                for (int j = 0; j < attributesPerOwner; j++) owner.setHas(score.put((long) i * attributesPerOwner + j));
+            }
+            tx.commit();
+        }
+        // the IIDs of the owners are only generated when they are committed
+        ownerIIDs = new ArrayList<>();
+        try (RocksTransaction tx = session.transaction(Arguments.Transaction.Type.READ)) {
+            tx.concepts().getEntityType("owner").getInstances()
+                    .forEach(owner -> ownerIIDs.add(VertexIID.Thing.of(owner.getIID())));
+        }
+
+        transaction = session.transaction(Arguments.Transaction.Type.valueOf(transactionType));
+        graph = transaction.traversal().graph().data();
+        if (transaction.type().isWrite()) {
+            AttributeType.Long score = transaction.concepts().getAttributeType("score").asLong();
+            long value = (long) owners * attributesPerOwner;
+            for (VertexIID.Thing iid : ownerIIDs) {
+                Entity owner = transaction.concepts().getThing(iid.bytes()).asEntity();
+                for (int j = 0; j < bufferedPerOwner; j++) owner.setHas(score.put(value++));
+            }
+        }
+        edges = (long) owners * (attributesPerOwner + (transaction.type().isWrite() ? bufferedPerOwner : 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transaction.close();
+        session.close();
+        grakn.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long scanHasEdges() {
+        long count = 0;
+        for (VertexIID.Thing iid : ownerIIDs) {
+            ThingVertex owner = graph.get(iid);
+            count += owner.outs().edge(HAS).to().count();
+        }
+        assert count == edges;
+        return count;
+    }
+
+    @Benchmark
+    public long scanHasEdgeIIDs() {
+        long count = 0;
+        for (VertexIID.Thing iid : ownerIIDs) {
+            ThingVertex owner = graph.get(iid);
+            count += owner.outs().edge(HAS).get().map(ThingEdge::toIID).count();
+        }
+        assert count == edges;
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AdjacencyScanBenchmark.class.getSimpleName()).build()).run();
+    }
+}
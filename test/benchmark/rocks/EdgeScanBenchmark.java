@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.rocks;
+
+import grakn.core.common.parameters.Arguments;
+import grakn.core.concept.thing.Entity;
+import grakn.core.concept.type.AttributeType;
+import grakn.core.concept.type.EntityType;
+import grakn.core.graph.iid.InfixIID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static grakn.core.common.collection.Bytes.bytesHavePrefix;
+import static grakn.core.common.collection.Bytes.join;
+import static grakn.core.graph.common.Encoding.Infix.EDGE_HAS_OUT;
+
+/**
+ * Compares the adjacency scans of {@code ThingAdjacencyImpl.Persisted} over RocksDB iterators
+ * that share the unbounded {@code ReadOptions} of the storage, against the {@code RocksIterator}
+ * that bounds every scan to its prefix.
+ *
+ * Every owner in the dataset has the same number of attributes, and a fraction of the owners
+ * are deleted after being written, which leaves tombstones between the prefixes that are scanned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class EdgeScanBenchmark {
+
+    private static final String DATABASE = "edge-scan-benchmark";
+
+    @Param({"1000"})
+    public int owners;
+
+    @Param({"10", "100"})
+    public int attributesPerOwner;
+
+    @Param({"0.0", "0.5"})
+    public double deletedFraction;
+
+    private Path directory;
+    private RocksGrakn grakn;
+    private RocksSession session;
+    private RocksTransaction.Data transaction;
+    private List<byte[]> ownerIIDs;
+    private List<byte[]> hasPrefixes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory(DATABASE);
+        grakn = RocksGrakn.open(directory);
+        grakn.databases().create(DATABASE);
+        try (RocksSession schema = grakn.session(DATABASE, Arguments.Session.Type.SCHEMA);
+             RocksTransaction tx = schema.transaction(Arguments.Transaction.Type.WRITE)) {
+            AttributeType score = tx.concepts().putAttributeType("score", AttributeType.ValueType.LONG);
+            tx.concepts().putEntityType("owner").setOwns(score);
+            tx.commit();
+        }
+
+        session = grakn.session(DATABASE, Arguments.Session.Type.DATA);
+        List<byte[]> deleted = new ArrayList<>();
+        ownerIIDs = new ArrayList<>();
+        try (RocksTransaction tx = session.transaction(Arguments.Transaction.Type.WRITE)) {
+            EntityType ownerType = tx.concepts().getEntityType("owner");
+            AttributeType.Long score = tx.concepts().getAttributeType("score").asLong();
+            for (int i = 0; i < owners; i++) {
+                Entity owner = ownerType.create();
+                for (int j = 0; j < attributesPerOwner; j++) owner.setHas(score.put((long) i * attributesPerOwner + j));
+                if (i < owners * deletedFraction) deleted.add(owner.getIID());
+                else ownerIIDs.add(owner.getIID());
+            }
+            tx.commit();
+        }
+        try (RocksTransaction tx = session.transaction(Arguments.Transaction.Type.WRITE)) {
+            deleted.forEach(iid -> tx.concepts().getThing(iid).delete());
+            tx.commit();
+        }
+
+        byte[] infix = InfixIID.Thing.of(EDGE_HAS_OUT).bytes();
+        hasPrefixes = new ArrayList<>();
+        ownerIIDs.forEach(iid -> hasPrefixes.add(join(iid, infix)));
+        transaction = session.transaction(Arguments.Transaction.Type.READ).asData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transaction.close();
+        session.close();
+        grakn.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long scanWithSharedReadOptions() {
+        RocksStorage.Data storage = transaction.dataStorage;
+        long count = 0;
+        for (byte[] prefix : hasPrefixes) {
+            try (org.rocksdb.RocksIterator iterator = storage.storageTransaction.getIterator(
+                    storage.readOptions, storage.partition(prefix))) {
+                for (iterator.seek(prefix); iterator.isValid() && bytesHavePrefix(iterator.key(), prefix); iterator.next()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long scanWithBoundedIterator() {
+        RocksStorage.Data storage = transaction.dataStorage;
+        long count = 0;
+        for (byte[] prefix : hasPrefixes) {
+            try (RocksIterator<byte[]> iterator = new RocksIterator<>(storage, prefix, (key, value) -> key)) {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long scanThingAdjacency() {
+        long count = 0;
+        for (byte[] iid : ownerIIDs) count += transaction.concepts().getThing(iid).getHas().count();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EdgeScanBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.planner;
+
+import grakn.core.common.parameters.Arguments;
+import grakn.core.graph.GraphManager;
+import grakn.core.pattern.Conjunction;
+import grakn.core.pattern.Disjunction;
+import grakn.core.rocks.RocksGrakn;
+import grakn.core.rocks.RocksSession;
+import grakn.core.rocks.RocksTransaction;
+import grakn.core.traversal.structure.Structure;
+import graql.lang.Graql;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the planning time and the plan cost of every {@link GraphPlanner.Strategy} on the match queries
+ * of a BDD feature file, such as {@code @graknlabs_behaviour//graql/language:match.feature}.
+ *
+ * Each trial replays the schema and data steps of one scenario of the feature file into a fresh database,
+ * and then plans every connected pattern of the match queries of the scenario from scratch on each invocation.
+ * The cost of the plans is printed at the end of the trial, next to the cost of the plans of the solver, both
+ * as given by {@link JoinOrder#cost(GraphPlanner)}. Patterns that are too large for a strategy are skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+
+    private static final String DATABASE = "planner-benchmark";
+    private static final String DOC_STRING = "\"\"\"";
+
+    @Param({""})
+    public String corpus;
+
+    @Param({"0"})
+    public int scenario;
+
+    @Param({"SOLVER", "DYNAMIC_PROGRAMMING", "GREEDY"})
+    public String strategy;
+
+    private Path directory;
+    private RocksGrakn grakn;
+    private RocksSession session;
+    private RocksTransaction transaction;
+    private GraphManager graphMgr;
+    private List<Structure> structures;
+    private int skipped;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Scenario steps = Scenario.parse(Paths.get(corpus)).get(scenario);
+        directory = Files.createTempDirectory(DATABASE);
+        grakn = RocksGrakn.open(directory);
+        grakn.databases().create(DATABASE);
+        for (String define : steps.defines) {
+            try (RocksSession schema = grakn.session(DATABASE, Arguments.Session.Type.SCHEMA);
+                 RocksTransaction tx = schema.transaction(Arguments.Transaction.Type.WRITE)) {
+                tx.query().define(Graql.parseQuery(define).asDefine());
+                tx.commit();
+            }
+        }
+        session = grakn.session(DATABASE, Arguments.Session.Type.DATA);
+        for (String insert : steps.inserts) {
+            try (RocksTransaction tx = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                tx.query().insert(Graql.parseQuery(insert).asInsert()).toList();
+                tx.commit();
+            }
+        }
+
+        transaction = session.transaction(Arguments.Transaction.Type.READ);
+        graphMgr = transaction.traversal().graph();
+        structures = new ArrayList<>();
+        for (String match : steps.matches) {
+            Disjunction disjunction = Disjunction.create(Graql.parseQuery(match).asMatch().conjunction().normalise());
+            for (Conjunction conjunction : disjunction.conjunctions()) {
+                transaction.logic().typeResolver().resolve(conjunction);
+                if (!conjunction.isSatisfiable()) continue;
+                for (Structure structure : conjunction.traversal().structure().asGraphs()) {
+                    if (structure.vertices().size() > 1) structures.add(structure);
+                }
+            }
+        }
+        GraphPlanner.Strategy strategy = GraphPlanner.Strategy.valueOf(this.strategy);
+        skipped = (int) structures.stream().filter(s -> !isPlannable(s, strategy)).count();
+        structures.removeIf(s -> !isPlannable(s, strategy));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        double cost = 0, solverCost = 0;
+        for (Structure structure : structures) {
+            cost += JoinOrder.cost(plan(structure, GraphPlanner.Strategy.valueOf(strategy)));
+            solverCost += JoinOrder.cost(plan(structure, GraphPlanner.Strategy.SOLVER));
+        }
+        System.out.printf("Scenario %d, %s: %d patterns planned, %d skipped, plan cost %.1f, solver plan cost %.1f%n",
+                          scenario, strategy, structures.size(), skipped, cost, solverCost);
+
+        transaction.close();
+        session.close();
+        grakn.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int plan() {
+        GraphPlanner.Strategy strategy = GraphPlanner.Strategy.valueOf(this.strategy);
+        int edges = 0;
+        for (Structure structure : structures) edges += plan(structure, strategy).procedure().edgesCount();
+        return edges;
+    }
+
+    private GraphPlanner plan(Structure structure, GraphPlanner.Strategy strategy) {
+        GraphPlanner planner = GraphPlanner.create(structure, strategy);
+        planner.optimise(graphMgr, false);
+        return planner;
+    }
+
+    private static boolean isPlannable(Structure structure, GraphPlanner.Strategy strategy) {
+        return strategy != GraphPlanner.Strategy.DYNAMIC_PROGRAMMING ||
+                structure.vertices().size() <= GraphPlanner.DYNAMIC_PROGRAMMING_MAX_VERTICES;
+    }
+
+    /**
+     * The steps of a scenario of a feature file that define a schema, insert data, and get the answers of a
+     * match query, following the steps of the background of the feature file. Scenario outlines are skipped,
+     * as their steps are templates.
+     */
+    private static class Scenario {
+
+        private final List<String> defines;
+        private final List<String> inserts;
+        private final List<String> matches;
+
+        private Scenario() {
+            defines = new ArrayList<>();
+            inserts = new ArrayList<>();
+            matches = new ArrayList<>();
+        }
+
+        private Scenario(Scenario background) {
+            this();
+            defines.addAll(background.defines);
+            inserts.addAll(background.inserts);
+        }
+
+        private static List<Scenario> parse(Path feature) throws IOException {
+            List<String> lines = Files.readAllLines(feature, UTF_8);
+            List<Scenario> scenarios = new ArrayList<>();
+            Scenario background = new Scenario(), current = null;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.startsWith("Background:")) {
+                    current = background = new Scenario();
+                } else if (line.startsWith("Scenario:")) {
+                    current = new Scenario(background);
+                    scenarios.add(current);
+                } else if (line.startsWith("Scenario Outline:")) {
+                    current = null;
+                } else if (current != null && i + 1 < lines.size() && lines.get(i + 1).trim().equals(DOC_STRING)) {
+                    StringBuilder docString = new StringBuilder();
+                    for (i += 2; i < lines.size() && !lines.get(i).trim().equals(DOC_STRING); i++) {
+                        docString.append(lines.get(i)).append("\n");
+                    }
+                    if (line.endsWith(" graql define")) current.defines.add(docString.toString());
+                    else if (line.endsWith(" graql insert")) current.inserts.add(docString.toString());
+                    else if (line.endsWith(" get answers of graql match")) current.matches.add(docString.toString());
+                }
+            }
+            scenarios.removeIf(scenario -> scenario.matches.isEmpty());
+            return scenarios;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String corpus = Paths.get(args[0]).toAbsolutePath().toString();
+        String[] scenarios = IntStream.range(0, Scenario.parse(Paths.get(corpus)).size())
+                .mapToObj(String::valueOf).toArray(String[]::new);
+        new Runner(new OptionsBuilder().include(PlannerBenchmark.class.getSimpleName())
+                           .param("corpus", corpus).param("scenario", scenarios).build()).run();
+    }
+}
@@ -18,16 +18,35 @@
 
 package grakn.core.test.integration;
 
+import grakn.common.collection.Bytes;
 import grakn.core.Grakn;
+import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Arguments;
+import grakn.core.common.parameters.Context;
+import grakn.core.common.parameters.Options;
+import grakn.core.concept.answer.ConceptMap;
 import grakn.core.concept.thing.Attribute;
 import grakn.core.concept.thing.Entity;
 import grakn.core.concept.type.AttributeType;
 import grakn.core.concept.type.EntityType;
 import grakn.core.concept.type.RelationType;
 import grakn.core.concept.type.RoleType;
+import grakn.core.graph.DataGraph;
+import grakn.core.graph.GraphManager;
+import grakn.core.graph.adjacency.ThingAdjacency;
+import grakn.core.graph.common.Encoding;
+import grakn.core.graph.common.Histogram;
+import grakn.core.graph.vertex.ThingVertex;
+import grakn.core.graph.vertex.TypeVertex;
+import grakn.core.rocks.RocksCommitCoordinator;
+import grakn.core.rocks.RocksDatabase;
 import grakn.core.rocks.RocksGrakn;
+import grakn.core.rocks.RocksSession;
+import grakn.core.rocks.RocksTransaction;
 import grakn.core.test.integration.util.Util;
+import grakn.core.traversal.TraversalCache;
+import grakn.core.traversal.planner.Planner;
+import grakn.core.traversal.procedure.GraphProcedure;
 import graql.lang.Graql;
 import graql.lang.query.GraqlDefine;
 import graql.lang.query.GraqlInsert;
@@ -38,9 +57,22 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static grakn.core.common.iterator.Iterators.iterate;
 import static grakn.core.test.integration.util.Util.assertNotNulls;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -250,4 +282,732 @@ public class QueryTest {
             }
         }
     }
+
+    @Test
+    public void test_query_insert_only_commits() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.concepts().getAttributeType("name").setOwns(transaction.concepts().getAttributeType("full-name"));
+                    transaction.commit();
+                }
+            }
+
+            RocksCommitCoordinator.Metrics metrics = grakn.databases().get(database).commitMetrics();
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                // new things only: committed through the write batch
+                long insertOnly = metrics.insertOnlyCommits();
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 3; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"user-" + i + "\";"));
+                    }
+                    transaction.commit();
+                }
+                assertEquals(insertOnly + 1, metrics.insertOnlyCommits());
+
+                // an existing user gains an edge: committed through the optimistic transaction
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("match $u isa user, has name \"user-0\"; insert $u has full-name \"zero\";"));
+                    transaction.commit();
+                }
+                assertEquals(insertOnly + 1, metrics.insertOnlyCommits());
+
+                // an existing attribute gains an edge: committed through the optimistic transaction
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("match $n \"user-1\" isa name; insert $n has full-name \"one\";"));
+                    transaction.commit();
+                }
+                assertEquals(insertOnly + 1, metrics.insertOnlyCommits());
+
+                // a delete: committed through the optimistic transaction
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().delete(Graql.parseQuery("match $u isa user, has name \"user-2\"; delete $u isa user;").asDelete());
+                    transaction.commit();
+                }
+                assertEquals(insertOnly + 1, metrics.insertOnlyCommits());
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $u isa user;").asMatch()).count());
+                    assertEquals(1, transaction.query().match(Graql.parseQuery("match $u isa user, has full-name \"zero\";").asMatch()).count());
+                    assertEquals(1, transaction.query().match(Graql.parseQuery("match $n \"user-1\" isa name, has full-name \"one\";").asMatch()).count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_statistics_after_concurrent_commits() throws IOException, InterruptedException, ExecutionException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                // the commits create the same full-name attributes concurrently, which must each be counted once
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                List<Future<?>> commits = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    int thread = t;
+                    commits.add(executor.submit(() -> {
+                        try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                            for (int i = 0; i < 25; i++) {
+                                transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"user-" + thread + "-" + i +
+                                                                                    "\", has full-name \"group-" + i % 5 + "\";"));
+                            }
+                            transaction.commit();
+                        }
+                    }));
+                }
+                for (Future<?> commit : commits) commit.get();
+                executor.shutdown();
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().delete(Graql.parseQuery("match $u isa user, has name \"user-0-0\"; delete $u isa user;").asDelete());
+                    transaction.commit();
+                }
+
+                RocksTransaction current = session.transaction(Arguments.Transaction.Type.READ);
+                for (int attempt = 0; attempt < 100; attempt++) {
+                    DataGraph.Statistics statistics = current.traversal().graph().data().stats();
+                    if (statistics.currentAsOf() == statistics.lastCommit()) break;
+                    current.close();
+                    Thread.sleep(100);
+                    current = session.transaction(Arguments.Transaction.Type.READ);
+                }
+                try {
+                    DataGraph.Statistics statistics = current.traversal().graph().data().stats();
+                    assertEquals(statistics.lastCommit(), statistics.currentAsOf());
+                    TypeVertex user = current.traversal().graph().schema().getType("user");
+                    TypeVertex name = current.traversal().graph().schema().getType("name");
+                    TypeVertex fullName = current.traversal().graph().schema().getType("full-name");
+                    assertEquals(99, statistics.thingVertexCount(user));
+                    assertEquals(100, statistics.thingVertexCount(name));
+                    assertEquals(5, statistics.thingVertexCount(fullName));
+                    assertEquals(99, statistics.hasEdgeCount(user, name));
+                    assertEquals(99, statistics.hasEdgeCount(user, fullName));
+                    for (int shard = 0; shard < Encoding.Statistics.COUNT_JOB_SHARDS; shard++) {
+                        assertFalse(statistics.hasCountJobs(shard));
+                    }
+                } finally {
+                    current.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_statistics_refresh_writes_histograms_and_sketches() throws IOException, InterruptedException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (long i = 1; i <= 50; i++) transaction.query().insert(Graql.parseQuery("insert $p " + i + " isa priority;"));
+                    for (int i = 0; i < 4; i++) transaction.query().insert(Graql.parseQuery("insert $t isa team, has symbol \"team-" + i + "\";"));
+                    for (int i = 0; i < 20; i++) {
+                        transaction.query().insert(Graql.parseQuery("match $t isa team, has symbol \"team-" + i % 4 + "\"; " +
+                                                                            "insert $u isa user, has name \"user-" + i + "\"; " +
+                                                                            "(team: $t, member: $u) isa team-member;"));
+                    }
+                    transaction.commit();
+                }
+
+                RocksTransaction current = session.transaction(Arguments.Transaction.Type.READ);
+                for (int attempt = 0; attempt < 100; attempt++) {
+                    DataGraph.Statistics statistics = current.traversal().graph().data().stats();
+                    if (statistics.currentAsOf() == statistics.lastCommit()) break;
+                    current.close();
+                    Thread.sleep(100);
+                    current = session.transaction(Arguments.Transaction.Type.READ);
+                }
+                try {
+                    // the planner reads the statistics through the same accessors
+                    DataGraph.Statistics statistics = current.traversal().graph().data().stats();
+                    assertEquals(statistics.lastCommit(), statistics.currentAsOf());
+                    TypeVertex priority = current.traversal().graph().schema().getType("priority");
+                    Histogram values = statistics.valueHistogram(priority);
+                    assertEquals(50, values.count());
+                    assertEquals(1, values.min(), 0);
+                    assertEquals(50, values.max(), 0);
+                    assertEquals(0.5, values.fractionBelow(25.5), 1.0 / Histogram.MAX_BUCKETS);
+                    assertEquals(50, statistics.valueSketch(priority).estimate(), 1);
+
+                    TypeVertex teamMember = current.traversal().graph().schema().getType("team-member");
+                    TypeVertex team = current.traversal().graph().schema().getType("team", "team-member");
+                    TypeVertex member = current.traversal().graph().schema().getType("member", "team-member");
+                    Histogram members = statistics.rolePlayerDegrees(teamMember, member);
+                    assertEquals(20, members.count());
+                    assertEquals(20, members.sum(), 0);
+                    assertEquals(20, statistics.rolePlayerSketch(teamMember, member).estimate(), 1);
+                    assertEquals(4, statistics.rolePlayerSketch(teamMember, team).estimate(), 1);
+                } finally {
+                    current.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_query_match_value_ranges() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (Grakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (long i = -5; i <= 5; i++) transaction.query().insert(Graql.parseQuery("insert $p " + i + " isa priority;"));
+                    for (String name : new String[]{"alpha", "alphabet", "alpine", "beta", "gamma"}) {
+                        transaction.query().insert(Graql.parseQuery("insert $n \"" + name + "\" isa name;"));
+                    }
+                    transaction.commit();
+                }
+
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("insert $n \"alps\" isa name;"));
+                    // uncommitted attributes are matched together with the attributes sought in storage
+                    assertEquals(4, transaction.query().match(Graql.parseQuery("match $n like \"^alp.*\"; $n isa name;").asMatch()).count());
+                }
+
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertEquals(5, transaction.query().match(Graql.parseQuery("match $p > -2; $p < 4; $p isa priority;").asMatch()).count());
+                    assertEquals(7, transaction.query().match(Graql.parseQuery("match $p >= -2; $p <= 4; $p isa priority;").asMatch()).count());
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $p > 2.5; $p isa priority;").asMatch()).count());
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $n like \"^alp.*\"; $n isa name;").asMatch()).count());
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $n like \"alpha.*\"; $n isa name;").asMatch()).count());
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $n >= \"alpine\"; $n < \"gamma\"; $n isa name;").asMatch()).count());
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $n <= \"alphabet\"; $n isa name;").asMatch()).count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_query_match_sort() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (long i = -5; i <= 5; i++) transaction.query().insert(Graql.parseQuery("insert $p " + i + " isa priority;"));
+                    for (String name : new String[]{"alpha", "alphabet", "alpine", "beta", "gamma"}) {
+                        transaction.query().insert(Graql.parseQuery("insert $n \"" + name + "\" isa name;"));
+                    }
+                    transaction.commit();
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    List<Long> top = transaction.query().match(Graql.parseQuery("match $p isa priority; sort $p desc; offset 1; limit 3;").asMatch())
+                            .map(answer -> answer.get("p").asAttribute().asLong().getValue()).toList();
+                    assertEquals(Arrays.asList(4L, 3L, 2L), top);
+                    List<String> sorted = transaction.query().match(Graql.parseQuery("match $n isa name; sort $n asc;").asMatch())
+                            .map(answer -> answer.get("n").asAttribute().asString().getValue()).toList();
+                    assertEquals(Arrays.asList("alpha", "alphabet", "alpine", "beta", "gamma"), sorted);
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 100; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $r isa branch-rule, has symbol \"rule-" + i + "\", has priority " + i % 10 + ";"));
+                    }
+                    transaction.commit();
+                }
+
+                // the answers are sorted in runs of 7, which are spilled and merged, and every priority is shared by 10 answers
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    Context.Query context = new Context.Query(transaction.context(), new Options.Query().sortBufferSize(7));
+                    String match = "match $r isa branch-rule, has symbol $s, has priority $p; ";
+
+                    List<ConceptMap> all = transaction.query().match(Graql.parseQuery(match + "sort $p asc;").asMatch(), context).toList();
+                    List<Long> expected = new ArrayList<>();
+                    for (long p = 0; p < 10; p++) expected.addAll(Collections.nCopies(10, p));
+                    assertEquals(expected, priorities(all));
+                    assertEquals(100, symbols(all).size());
+
+                    List<ConceptMap> page = transaction.query().match(Graql.parseQuery(match + "sort $p desc; offset 15; limit 20;").asMatch(), context).toList();
+                    expected.clear();
+                    expected.addAll(Collections.nCopies(5, 8L));
+                    expected.addAll(Collections.nCopies(10, 7L));
+                    expected.addAll(Collections.nCopies(5, 6L));
+                    assertEquals(expected, priorities(page));
+                    assertEquals(20, symbols(page).size());
+
+                    // a limit within the buffer is kept in a heap, rather than spilled
+                    List<ConceptMap> first = transaction.query().match(Graql.parseQuery(match + "sort $p asc; limit 3;").asMatch(), context).toList();
+                    assertEquals(Collections.nCopies(3, 0L), priorities(first));
+                    assertEquals(3, symbols(first).size());
+                }
+
+                // the runs are spilled under the database directory, and the runs of answers that are not read to the end are deleted when the transaction closes
+                Path databaseDirectory = grakn.databases().get(database).directory();
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    Context.Query context = new Context.Query(transaction.context(), new Options.Query().sortBufferSize(7));
+                    ResourceIterator<ConceptMap> answers = transaction.query().match(Graql.parseQuery("match $r isa branch-rule, has priority $p; sort $p asc;").asMatch(), context);
+                    assertEquals(0L, (long) answers.next().get("p").asAttribute().asLong().getValue());
+                    assertEquals(1, sortDirectories(databaseDirectory).size());
+                }
+                assertTrue(sortDirectories(databaseDirectory).isEmpty());
+            }
+        }
+    }
+
+    private static List<Path> sortDirectories(Path databaseDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(databaseDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("sort-")).collect(toList());
+        }
+    }
+
+    private static List<Long> priorities(List<ConceptMap> answers) {
+        List<Long> priorities = new ArrayList<>();
+        for (ConceptMap answer : answers) priorities.add(answer.get("p").asAttribute().asLong().getValue());
+        return priorities;
+    }
+
+    private static Set<String> symbols(List<ConceptMap> answers) {
+        Set<String> symbols = new HashSet<>();
+        for (ConceptMap answer : answers) symbols.add(answer.get("s").asAttribute().asString().getValue());
+        return symbols;
+    }
+
+    @Test
+    public void test_query_match_aggregate_pushdown() throws IOException, InterruptedException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.concepts().putAttributeType("score", AttributeType.ValueType.DOUBLE);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (long i = -5; i <= 5; i++) transaction.query().insert(Graql.parseQuery("insert $p " + i + " isa priority;"));
+                    for (String name : new String[]{"alpha", "beta", "gamma"}) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"" + name + "\";"));
+                    }
+                    for (double score : new double[]{-0.0, 1.5, 2.5}) {
+                        transaction.query().insert(Graql.parseQuery("insert $s " + score + " isa score;"));
+                    }
+                    transaction.commit();
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $u isa user; count;").asMatchAggregate()).asLong());
+                    assertEquals(-5, transaction.query().match(Graql.parseQuery("match $p isa priority; min $p;").asMatchAggregate()).asLong());
+                    assertEquals(5, transaction.query().match(Graql.parseQuery("match $p isa priority; max $p;").asMatchAggregate()).asLong());
+                    assertEquals(0, transaction.query().match(Graql.parseQuery("match $p isa priority; sum $p;").asMatchAggregate()).asLong());
+                    assertEquals(0.0, transaction.query().match(Graql.parseQuery("match $p isa priority; mean $p;").asMatchAggregate()).asDouble(), 0.001);
+                    assertTrue(transaction.query().match(Graql.parseQuery("match $p isa parent-github-id; max $p;").asMatchAggregate()).isNaN());
+                    assertEquals(4.0, transaction.query().match(Graql.parseQuery("match $s isa score; sum $s;").asMatchAggregate()).asDouble(), 0.001);
+                    assertEquals(4.0 / 3, transaction.query().match(Graql.parseQuery("match $s isa score; mean $s;").asMatchAggregate()).asDouble(), 0.001);
+                    assertEquals(8, transaction.query().aggregatePushdowns());
+
+                    // the sorted bytes of -0.0 are not ordered by value, so the minimum is computed from the answers
+                    assertEquals(-0.0, transaction.query().match(Graql.parseQuery("match $s isa score; min $s;").asMatchAggregate()).asDouble(), 0.0);
+                    assertEquals(8, transaction.query().aggregatePushdowns());
+                }
+
+                // attributes are counted in the background, so their count is only pushed down once it is current
+                RocksTransaction current = session.transaction(Arguments.Transaction.Type.READ);
+                for (int attempt = 0; attempt < 100; attempt++) {
+                    DataGraph.Statistics statistics = current.traversal().graph().data().stats();
+                    if (statistics.currentAsOf() == statistics.lastCommit()) break;
+                    current.close();
+                    Thread.sleep(100);
+                    current = session.transaction(Arguments.Transaction.Type.READ);
+                }
+                try {
+                    assertEquals(11, current.query().match(Graql.parseQuery("match $p isa priority; count;").asMatchAggregate()).asLong());
+                    assertEquals(1, current.query().aggregatePushdowns());
+                } finally {
+                    current.close();
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("insert $p 6 isa priority;"));
+                    // a modified transaction aggregates its answers, which include the uncommitted attributes
+                    assertEquals(12, transaction.query().match(Graql.parseQuery("match $p isa priority; count;").asMatchAggregate()).asLong());
+                    assertEquals(6, transaction.query().match(Graql.parseQuery("match $p isa priority; max $p;").asMatchAggregate()).asLong());
+                    assertEquals(0, transaction.query().aggregatePushdowns());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_query_match_renamed_variables() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (String name : new String[]{"alpha", "beta", "gamma"}) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"" + name + "\";"));
+                    }
+                    transaction.commit();
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    // both queries share one plan, whose answers are renamed back onto the variables of each query
+                    TraversalCache cache = transaction.traversal().cache();
+                    List<String> names = transaction.query().match(Graql.parseQuery("match $x isa user, has name $n; sort $n;").asMatch())
+                            .map(answer -> answer.get("n").asAttribute().asString().getValue()).toList();
+                    long hits = cache.hitCount();
+                    List<String> renamed = transaction.query().match(Graql.parseQuery("match $p isa user, has name $q; sort $q;").asMatch())
+                            .map(answer -> answer.get("q").asAttribute().asString().getValue()).toList();
+                    assertEquals(Arrays.asList("alpha", "beta", "gamma"), names);
+                    assertEquals(names, renamed);
+                    assertTrue(cache.hitCount() > hits);
+                    assertEquals(1, transaction.query().match(Graql.parseQuery("match $p isa user, has name $q; $q \"beta\";").asMatch()).count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_query_match_text_index() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (Grakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (String name : new String[]{"Product Alpha", "alphabet soup", "beta", "gamma ray", "Al"}) {
+                        transaction.query().insert(Graql.parseQuery("insert $n \"" + name + "\" isa name;"));
+                    }
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.concepts().getAttributeType("name").asString().setTextIndexed(true);
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("insert $n \"ALPHA centauri\" isa name;"));
+                    transaction.commit();
+                }
+
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertTrue(transaction.concepts().getAttributeType("name").asString().isTextIndexed());
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $n contains \"alph\"; $n isa name;").asMatch()).count());
+                    assertEquals(4, transaction.query().match(Graql.parseQuery("match $n contains \"al\"; $n isa name;").asMatch()).count());
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $n like \".*pha.*\"; $n isa name;").asMatch()).count());
+                    assertEquals(1, transaction.query().match(Graql.parseQuery("match $n like \"(gam)+ma ray\"; $n isa name;").asMatch()).count());
+                    assertEquals(0, transaction.query().match(Graql.parseQuery("match $n contains \"soap\"; $n isa name;").asMatch()).count());
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.concepts().getAttributeType("name").asString().setTextIndexed(false);
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertFalse(transaction.concepts().getAttributeType("name").asString().isTextIndexed());
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $n contains \"alph\"; $n isa name;").asMatch()).count());
+                }
+
+                // an attribute deleted while the index is disabled must not be found through postings left behind
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().delete(Graql.parseQuery("match $n \"alphabet soup\" isa name; delete $n isa name;").asDelete());
+                    transaction.commit();
+                }
+            }
+
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.concepts().getAttributeType("name").asString().setTextIndexed(true);
+                    transaction.commit();
+                }
+            }
+        }
+
+        // the postings of the index are persisted with the schema that enables it
+        try (Grakn grakn = RocksGrakn.open(directory)) {
+            try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (Grakn.Transaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertTrue(transaction.concepts().getAttributeType("name").asString().isTextIndexed());
+                    assertEquals(2, transaction.query().match(Graql.parseQuery("match $n contains \"alph\"; $n isa name;").asMatch()).count());
+                    assertEquals(3, transaction.query().match(Graql.parseQuery("match $n contains \"al\"; $n isa name;").asMatch()).count());
+                    assertEquals(1, transaction.query().match(Graql.parseQuery("match $n like \"(gam)+ma ray\"; $n isa name;").asMatch()).count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_adjacency_merges_buffered_and_persisted_edges_in_order() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"u\", has full-name \"b\", has full-name \"d\";").asInsert());
+                    transaction.commit();
+                }
+
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraphManager graph = transaction.traversal().graph();
+                    TypeVertex fullName = graph.schema().getType("full-name");
+                    ThingVertex user = graph.data().get(graph.schema().getType("user")).next();
+                    // the buffered edges are before, between, after and equal to the persisted edges to "b" and "d"
+                    for (String value : Arrays.asList("a", "c", "d", "e")) {
+                        user.outs().put(Encoding.Edge.Thing.HAS, graph.data().put(fullName, value, false), false);
+                    }
+
+                    List<String> merged = Arrays.asList("a", "b", "c", "d", "e");
+                    assertEquals(merged, values(user.outs().edge(Encoding.Edge.Thing.HAS).to(), fullName));
+                    assertEquals(merged, values(user.outs().sortedAdjacents(Encoding.Edge.Thing.HAS), fullName));
+
+                    ThingAdjacency.SortedIterator sorted = user.outs().sortedAdjacents(Encoding.Edge.Thing.HAS);
+                    sorted.seek(graph.data().put(fullName, "c", false).iid());
+                    assertEquals("c", sorted.next().asAttribute().asString().value());
+                    sorted.seek(graph.data().put(fullName, "d", false).iid());
+                    assertEquals(Arrays.asList("d", "e"), values(sorted, fullName));
+                }
+            }
+        }
+    }
+
+    private static List<GraphProcedure> procedures(RocksTransaction transaction) {
+        return iterate(transaction.traversal().cache().values()).filter(Planner::isGraph)
+                .map(planner -> planner.asGraph().procedure()).toList();
+    }
+
+    private static List<String> values(ResourceIterator<ThingVertex> vertices, TypeVertex type) {
+        return vertices.filter(v -> v.type().equals(type)).map(v -> v.asAttribute().asString().value()).toList();
+    }
+
+    @Test
+    public void test_query_match_bounded_read_cache() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 20; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"user-" + i + "\";"));
+                    }
+                    transaction.commit();
+                }
+
+                Options.Transaction options = new Options.Transaction().readCacheSize(4);
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ, options)) {
+                    // the answers are the same whether or not their vertices were evicted in between
+                    for (int i = 0; i < 2; i++) {
+                        assertEquals(20, transaction.query().match(Graql.parseQuery("match $u isa user, has name $n;").asMatch()).count());
+                    }
+                    DataGraph graph = transaction.traversal().graph().data();
+                    assertTrue(graph.cacheSize() <= 4);
+                    assertTrue(graph.cacheEvictions() > 0);
+                }
+                // the cache of each read transaction is added to the metrics of the database when it closes
+                RocksDatabase.ReadCacheMetrics metrics = grakn.databases().get(database).readCacheMetrics();
+                assertTrue(metrics.transactions() > 0);
+                assertTrue(metrics.evictions() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void test_query_match_cyclic_closures() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 100; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"user-" + i + "\", has full-name \"group-" + i % 10 + "\", has email \"user-" + i % 4 + "@grakn.ai\";"));
+                    }
+                    transaction.commit();
+                }
+
+                // every vertex of the cycle has an IID, so the vertex that closes it cannot be intersected, and the
+                // closure is a has edge, which is checked for each batch of candidates with one lookup
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    String a = iid(transaction, "match $x isa user, has name \"user-0\";");
+                    String n = iid(transaction, "match $x \"group-0\" isa full-name;");
+                    String e = iid(transaction, "match $x \"user-0@grakn.ai\" isa email;");
+                    long shared = 0;
+                    for (int i = 1; i < 40; i++) {
+                        String b = iid(transaction, "match $x isa user, has name \"user-" + i + "\";");
+                        shared += transaction.query().match(Graql.parseQuery(sharedAttributes(a, b, n, e)).asMatch()).count();
+                    }
+                    assertEquals(2, shared);
+                    assertTrue(iterate(procedures(transaction)).anyMatch(procedure -> procedure.closureBatches() > 0));
+                }
+
+                // the closures of the users that are only in memory are checked together with the persisted ones
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"new-user\", has full-name \"group-0\", has email \"user-0@grakn.ai\";"));
+                    String a = iid(transaction, "match $x isa user, has name \"user-0\";");
+                    String b = iid(transaction, "match $x isa user, has name \"new-user\";");
+                    String n = iid(transaction, "match $x \"group-0\" isa full-name;");
+                    String e = iid(transaction, "match $x \"user-0@grakn.ai\" isa email;");
+                    assertEquals(1, transaction.query().match(Graql.parseQuery(sharedAttributes(a, b, n, e)).asMatch()).count());
+                    assertEquals(1, transaction.query().match(Graql.parseQuery(sharedAttributes(b, a, n, e)).asMatch()).count());
+                }
+            }
+        }
+    }
+
+    private static String iid(RocksTransaction transaction, String query) {
+        ConceptMap answer = transaction.query().match(Graql.parseQuery(query).asMatch()).first().get();
+        return Bytes.bytesToHexString(answer.get("x").asThing().getIID());
+    }
+
+    private static String sharedAttributes(String a, String b, String n, String e) {
+        return "match $a iid " + a + "; $b iid " + b + "; $n iid " + n + "; $e iid " + e + "; " +
+                "$a has full-name $n, has email $e; $b has full-name $n, has email $e;";
+    }
+
+    @Test
+    public void test_query_match_cyclic_intersections() throws IOException {
+        Util.resetDirectory(directory);
+
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    GraqlDefine query = Graql.parseQuery(new String(Files.readAllBytes(Paths.get("test/integration/schema.gql")), UTF_8));
+                    transaction.query().define(query);
+                    transaction.commit();
+                }
+            }
+
+            try (RocksSession session = grakn.session(database, Arguments.Session.Type.DATA)) {
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 100; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"user-" + i + "\", has full-name \"group-" + i % 10 + "\", has email \"user-" + i % 4 + "@grakn.ai\";"));
+                    }
+                    transaction.commit();
+                }
+
+                // the users that share both attributes form cycles, whose adjacencies are intersected
+                String query = "match $a isa user, has full-name $n, has email $e; $b isa user, has full-name $n, has email $e;";
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.READ)) {
+                    assertEquals(500, transaction.query().match(Graql.parseQuery(query).asMatch()).count());
+                    assertTrue(iterate(procedures(transaction)).anyMatch(procedure -> {
+                        for (int pos = 1; pos <= procedure.edgesCount(); pos++) {
+                            if (procedure.intersectedClosures(pos) != null) return true;
+                        }
+                        return false;
+                    }));
+                }
+
+                // the edges of the users that are only in memory are merged into the intersected adjacencies
+                try (RocksTransaction transaction = session.transaction(Arguments.Transaction.Type.WRITE)) {
+                    for (int i = 0; i < 10; i++) {
+                        transaction.query().insert(Graql.parseQuery("insert $u isa user, has name \"new-user-" + i + "\", has full-name \"group-0\", has email \"user-0@grakn.ai\";"));
+                    }
+                    assertEquals(700, transaction.query().match(Graql.parseQuery(query).asMatch()).count());
+                }
+            }
+        }
+    }
 }
@@ -47,6 +47,7 @@ public class MigratorTest {
     private static final Path schemaPath = Paths.get("test/integration/migrator/schema.gql");
     private final Path dataPath = Paths.get("test/integration/migrator/data.grakn");
     private final Path exportDataPath = Paths.get("test/integration/migrator/exported-data.grakn");
+    private final Path reexportDataPath = Paths.get("test/integration/migrator/reexported-data.grakn");
 
     @Test
     public void test_import_export_schema() throws IOException {
@@ -63,7 +64,7 @@ public class MigratorTest {
     @Test
     public void test_import_export_data() throws IOException {
         Util.resetDirectory(directory);
-        try (Grakn grakn = RocksGrakn.open(directory)) {
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
             grakn.databases().create(database);
             String schema = new String(Files.readAllBytes(schemaPath), UTF_8);
             runSchema(grakn, schema);
@@ -75,7 +76,45 @@ public class MigratorTest {
         }
     }
 
+    @Test
+    public void test_bulk_import_export_data() throws IOException {
+        Util.resetDirectory(directory);
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            grakn.databases().create(database);
+            String schema = new String(Files.readAllBytes(schemaPath), UTF_8);
+            runSchema(grakn, schema);
+            BulkImporter importer = new BulkImporter(grakn, database, dataPath, new HashMap<>());
+            importer.run();
+            Exporter exporter = new Exporter(grakn, database, exportDataPath);
+            exporter.run();
+            assertEquals(getChecksums(dataPath), getChecksums(exportDataPath));
+        }
+    }
+
+    @Test
+    public void test_import_exported_chunks() throws IOException {
+        Util.resetDirectory(directory);
+        String reimportDatabase = database + "-reimport";
+        try (RocksGrakn grakn = RocksGrakn.open(directory)) {
+            String schema = new String(Files.readAllBytes(schemaPath), UTF_8);
+            grakn.databases().create(database);
+            runSchema(grakn, database, schema);
+            new Importer(grakn, database, dataPath, new HashMap<>()).run();
+            new Exporter(grakn, database, exportDataPath).run();
+
+            grakn.databases().create(reimportDatabase);
+            runSchema(grakn, reimportDatabase, schema);
+            new Importer(grakn, reimportDatabase, exportDataPath, new HashMap<>()).run();
+            new Exporter(grakn, reimportDatabase, reexportDataPath).run();
+            assertEquals(getChecksums(dataPath), getChecksums(reexportDataPath));
+        }
+    }
+
     private void runSchema(Grakn grakn, String schema) {
+        runSchema(grakn, database, schema);
+    }
+
+    private void runSchema(Grakn grakn, String database, String schema) {
         try (Grakn.Session session = grakn.session(database, Arguments.Session.Type.SCHEMA)) {
             try (Grakn.Transaction tx = session.transaction(Arguments.Transaction.Type.WRITE)) {
                 GraqlDefine query = Graql.parseQuery(schema);
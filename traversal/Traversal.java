@@ -35,6 +35,7 @@ import grakn.core.traversal.graph.TraversalVertex;
 import grakn.core.traversal.planner.Planner;
 import grakn.core.traversal.predicate.Predicate;
 import grakn.core.traversal.predicate.PredicateArgument;
+import grakn.core.traversal.structure.CanonicalStructure;
 import grakn.core.traversal.structure.Structure;
 import graql.lang.common.GraqlArg;
 import graql.lang.common.GraqlToken;
@@ -48,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import static grakn.common.collection.Collections.pair;
@@ -77,7 +79,7 @@ public class Traversal {
     private final Parameters parameters;
     private final Structure structure;
     private final List<Identifier.Variable.Name> filter;
-    private List<Planner> planners;
+    private List<Pair<CanonicalStructure, Planner>> planners;
     private boolean modifiable;
 
     public Traversal() {
@@ -100,22 +102,42 @@ public class Traversal {
         return filter;
     }
 
+    public Structure structure() {
+        return structure;
+    }
+
     void initialise(TraversalCache cache) {
         planners = iterate(structure.asGraphs()).filter(p -> iterate(p.vertices()).anyMatch(
                 v -> v.id().isName() && filter().contains(v.id().asVariable().asName())
-        )).map(s -> cache.get(s, Planner::create)).toList();
+        )).map(CanonicalStructure::of).map(s -> pair(s, cache.get(s.structure(), Planner::create))).toList();
+    }
+
+    private ResourceIterator<VertexMap> iterator(Pair<CanonicalStructure, Planner> planner, GraphManager graphMgr,
+                                                 boolean extraPlanningTime) {
+        CanonicalStructure graph = planner.first();
+        planner.second().tryOptimise(graphMgr, extraPlanningTime);
+        return planner.second().procedure().iterator(
+                graphMgr, parameters.remap(graph::canonical), graph.canonical(filter())
+        ).map(graph::original);
+    }
+
+    private Producer<VertexMap> producer(Pair<CanonicalStructure, Planner> planner, GraphManager graphMgr,
+                                         int parallelisation, boolean extraPlanningTime) {
+        CanonicalStructure graph = planner.first();
+        planner.second().tryOptimise(graphMgr, extraPlanningTime);
+        return planner.second().procedure().producer(
+                graphMgr, parameters.remap(graph::canonical), graph.canonical(filter()), parallelisation
+        ).map(graph::original);
     }
 
     ResourceIterator<VertexMap> iterator(GraphManager graphMgr, boolean extraPlanningTime) {
         assert !planners.isEmpty();
         if (planners.size() == 1) {
-            planners.get(0).tryOptimise(graphMgr, extraPlanningTime);
-            return planners.get(0).procedure().iterator(graphMgr, parameters, filter());
+            return iterator(planners.get(0), graphMgr, extraPlanningTime);
         } else {
-            return cartesian(planners.parallelStream().map(planner -> {
-                planner.tryOptimise(graphMgr, extraPlanningTime);
-                return planner.procedure().iterator(graphMgr, parameters, filter());
-            }).collect(toList())).map(partialAnswers -> {
+            return cartesian(planners.parallelStream().map(
+                    planner -> iterator(planner, graphMgr, extraPlanningTime)
+            ).collect(toList())).map(partialAnswers -> {
                 Map<Reference, Vertex<?, ?>> combinedAnswers = new HashMap<>();
                 partialAnswers.forEach(p -> combinedAnswers.putAll(p.map()));
                 return VertexMap.of(combinedAnswers);
@@ -127,13 +149,11 @@ public class Traversal {
                                  int parallelisation, boolean extraPlanningTime) {
         assert !planners.isEmpty();
         if (planners.size() == 1) {
-            planners.get(0).tryOptimise(graphMgr, extraPlanningTime);
-            return planners.get(0).procedure().producer(graphMgr, parameters, filter(), parallelisation);
+            return producer(planners.get(0), graphMgr, parallelisation, extraPlanningTime);
         } else {
-            return Producers.producer(cartesian(planners.parallelStream().map(planner -> {
-                planner.tryOptimise(graphMgr, extraPlanningTime);
-                return planner.procedure().producer(graphMgr, parameters, filter(), parallelisation);
-            }).map(producer -> produce(producer, mode)).collect(toList())).map(partialAnswers -> {
+            return Producers.producer(cartesian(planners.parallelStream().map(
+                    planner -> producer(planner, graphMgr, parallelisation, extraPlanningTime)
+            ).map(producer -> produce(producer, mode)).collect(toList())).map(partialAnswers -> {
                 Map<Reference, Vertex<?, ?>> combinedAnswers = new HashMap<>();
                 partialAnswers.forEach(p -> combinedAnswers.putAll(p.map()));
                 return VertexMap.of(combinedAnswers);
@@ -339,6 +359,23 @@ public class Traversal {
             return values.get(pair(identifier, predicate));
         }
 
+        /**
+         * Returns these parameters with their identifiers renamed, dropping the identifiers that
+         * are renamed to null.
+         */
+        public Parameters remap(Function<Identifier.Variable, Identifier.Variable> identifiers) {
+            Parameters remapped = new Parameters();
+            iid.forEach((identifier, thingIID) -> {
+                Identifier.Variable renamed = identifiers.apply(identifier);
+                if (renamed != null) remapped.putIID(renamed, thingIID);
+            });
+            values.forEach((key, valueSet) -> {
+                Identifier.Variable renamed = identifiers.apply(key.first());
+                if (renamed != null) remapped.values.put(pair(renamed, key.second()), valueSet);
+            });
+            return remapped;
+        }
+
         @Override
         public String toString() {
             StringBuilder str = new StringBuilder().append("Parameters: {");
@@ -20,8 +20,13 @@ package grakn.core.traversal;
 
 import grakn.core.common.cache.CommonCache;
 import grakn.core.traversal.planner.Planner;
+import grakn.core.traversal.structure.CanonicalStructure;
 import grakn.core.traversal.structure.Structure;
 
+/**
+ * Caches the planners of traversal structures, keyed by the {@link CanonicalStructure} of each,
+ * so that traversals which only differ by the names of their variables share one plan.
+ */
 public class TraversalCache extends CommonCache<Structure, Planner> {
 
     public TraversalCache() {
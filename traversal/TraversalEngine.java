@@ -44,6 +44,10 @@ public class TraversalEngine {
         return graphMgr;
     }
 
+    public TraversalCache cache() {
+        return cache;
+    }
+
     public Producer<VertexMap> producer(Traversal traversal, Arguments.Query.Producer mode, int parallelisation) {
         return producer(traversal, mode, parallelisation, false);
     }
@@ -80,6 +80,14 @@ public abstract class Identifier {
             return relation;
         }
 
+        public Identifier.Variable roleType() {
+            return roleType;
+        }
+
+        public Identifier.Variable player() {
+            return player;
+        }
+
         @Override
         public boolean isScoped() { return true; }
 
@@ -21,6 +21,7 @@ package grakn.core.traversal.common;
 import grakn.core.graph.vertex.Vertex;
 import graql.lang.pattern.variable.Reference;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiConsumer;
@@ -57,6 +58,15 @@ public class VertexMap {
         map.forEach(action);
     }
 
+    /**
+     * Returns this map with its references renamed, keeping the references that are not renamed.
+     */
+    public VertexMap remap(Map<Reference, Reference> references) {
+        Map<Reference, Vertex<?, ?>> remapped = new HashMap<>();
+        map.forEach((reference, vertex) -> remapped.put(references.getOrDefault(reference, reference), vertex));
+        return new VertexMap(remapped);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -27,20 +27,26 @@ import grakn.core.graph.vertex.Vertex;
 import grakn.core.traversal.Traversal;
 import grakn.core.traversal.common.Identifier;
 import grakn.core.traversal.common.VertexMap;
+import grakn.core.traversal.planner.CardinalityFeedback;
 import grakn.core.traversal.procedure.GraphProcedure;
 import grakn.core.traversal.procedure.ProcedureEdge;
+import grakn.core.traversal.procedure.ProcedureVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
 import static java.util.stream.Collectors.toMap;
@@ -48,6 +54,9 @@ import static java.util.stream.Collectors.toMap;
 public class GraphIterator extends AbstractResourceIterator<VertexMap> {
 
     private static final Logger LOG = LoggerFactory.getLogger(GraphIterator.class);
+    private static final int FAN_OUT_SAMPLE_INTERVAL = 64;
+    private static final int CLOSURE_PREFETCH_MIN = 4;
+    private static final int CLOSURE_PREFETCH_MAX = 64;
 
     private final GraphManager graphMgr;
     private final GraphProcedure procedure;
@@ -59,6 +68,9 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
     private final Scopes scopes;
     private final SeekStack seekStack;
     private final int edgeCount;
+    private final int[] branchCounts;
+    private final Map<Integer, List<ProcedureEdge<?, ?>>> batchedClosures;
+    private final Map<Integer, ClosureBatch> closureBatches;
     private int computeNextSeekPos;
     private State state;
 
@@ -78,9 +90,46 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         this.answer.put(procedure.startVertex().id(), start);
         this.scopes = new Scopes();
         this.seekStack = new SeekStack(edgeCount);
+        this.branchCounts = new int[edgeCount + 1];
+        // a random phase, so that iterators that only branch a few times are sampled at the same rate as the rest
+        for (int i = 1; i <= edgeCount; i++) {
+            branchCounts[i] = ThreadLocalRandom.current().nextInt(FAN_OUT_SAMPLE_INTERVAL);
+        }
+        this.batchedClosures = batchedClosures(procedure);
+        this.closureBatches = new HashMap<>();
         this.state = State.INIT;
     }
 
+    /**
+     * Returns the closure edges that can be checked in batches, by the order of the edge that branches to the
+     * vertex at one end of each closure, when the vertex at its other end is bound before that branch. The other
+     * vertex stays the same while the branch is iterated, so the closures of the vertices that the branch reaches
+     * can be prefetched together. Branches to scoped roles and role players have side effects on the scopes of
+     * this iterator, so they are never read ahead, and closures that are intersected by their branches are never
+     * checked at all.
+     */
+    private static Map<Integer, List<ProcedureEdge<?, ?>>> batchedClosures(GraphProcedure procedure) {
+        Map<Integer, List<ProcedureEdge<?, ?>>> batchedClosures = new HashMap<>();
+        for (int pos = 1; pos <= procedure.edgesCount(); pos++) {
+            ProcedureEdge<?, ?> closure = procedure.edge(pos);
+            if (!closure.isClosureEdge() || !closure.hasBatchedClosure() || procedure.isIntersected(pos)) continue;
+            int fromOrder = bindingOrder(closure.from()), toOrder = bindingOrder(closure.to());
+            if (fromOrder == toOrder) continue;
+            ProcedureEdge<?, ?> branch = procedure.edge(Math.max(fromOrder, toOrder));
+            if (branch.isRolePlayer() || branch.to().id().isScoped()) continue;
+            batchedClosures.computeIfAbsent(branch.order(), o -> new ArrayList<>()).add(closure);
+        }
+        return batchedClosures;
+    }
+
+    private static int bindingOrder(ProcedureVertex<?, ?> vertex) {
+        return vertex.isStartingVertex() ? 0 : vertex.branchEdge().order();
+    }
+
+    private static ProcedureVertex<?, ?> fixedVertex(ProcedureEdge<?, ?> closure, ProcedureEdge<?, ?> branch) {
+        return closure.from().id().equals(branch.to().id()) ? closure.to() : closure.from();
+    }
+
     @Override
     public boolean hasNext() {
         try {
@@ -161,6 +210,9 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         } else {
             seekStack.addSeeks(edge.from().dependedEdgeOrders());
         }
+        // an intersection also fails for the vertices at the other ends of the closures that it intersects
+        List<ProcedureEdge<?, ?>> closures = procedure.intersectedClosures(edge.order());
+        if (closures != null) closures.forEach(c -> seekStack.addSeeks(fixedVertex(c, edge).dependedEdgeOrders()));
     }
 
     private void closureFailure(ProcedureEdge<?, ?> edge) {
@@ -241,6 +293,12 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
                         assert edge.from().isStartingVertex() && !edge.onlyStartsFromRelation();
                         computeNextSeekPos = 0;
                     }
+                    List<ProcedureEdge<?, ?>> closures = procedure.intersectedClosures(edge.order());
+                    if (closures != null) {
+                        for (ProcedureEdge<?, ?> closure : closures) {
+                            computeNextSeekPos = Math.max(computeNextSeekPos, bindingOrder(fixedVertex(closure, edge)));
+                        }
+                    }
                 }
             } else {
                 return false;
@@ -255,8 +313,14 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         if (edge.isRolePlayer()) {
             Scopes.Scoped scoped = scopes.getOrInitialise(edge.asRolePlayer().scope());
             return edge.asRolePlayer().isClosure(graphMgr, fromVertex, toVertex, params, scoped);
+        } else if (procedure.isIntersected(edge.order())) {
+            // the edge that branched to the vertex at one end of the closure only reached vertices that close it
+            return true;
         } else {
-            return edge.isClosure(graphMgr, fromVertex, toVertex, params);
+            ClosureBatch batch = closureBatches.get(edge.order());
+            Boolean isClosure = batch != null ? batch.isClosure(fromVertex, toVertex) : null;
+            if (isClosure != null) return isClosure;
+            else return edge.isClosure(graphMgr, fromVertex, toVertex, params);
         }
     }
 
@@ -265,7 +329,7 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         if (edge.to().id().isScoped()) {
             Identifier.Variable scope = edge.to().id().asScoped().scope();
             Scopes.Scoped scoped = scopes.getOrInitialise(scope);
-            toIter = edge.branch(graphMgr, fromVertex, params).filter(role -> {
+            toIter = sampleFanOut(edge, edge.branch(graphMgr, fromVertex, params)).filter(role -> {
                 if (scoped.contains(role.asThing())) return false;
                 else {
                     replaceScopedRole(scoped, edge, role.asThing());
@@ -276,7 +340,7 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         } else if (edge.isRolePlayer()) {
             Identifier.Variable scope = edge.asRolePlayer().scope();
             Scopes.Scoped scoped = scopes.getOrInitialise(scope);
-            toIter = edge.asRolePlayer().branchEdge(graphMgr, fromVertex, params).filter(e -> {
+            toIter = sampleFanOut(edge, edge.asRolePlayer().branchEdge(graphMgr, fromVertex, params)).filter(e -> {
                 if (scoped.contains(e.optimised().get())) return false;
                 else {
                     replaceScopedRole(scoped, edge, e.optimised().get());
@@ -285,16 +349,44 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
                 }
             }).map(e -> edge.direction().isForward() ? e.to() : e.from());
         } else {
-            toIter = edge.branch(graphMgr, fromVertex, params);
-        }
-        if (!edge.to().id().isName() && edge.to().outs().isEmpty() && edge.to().ins().size() == 1) {
-            // TODO: This optimisation can apply to more situations, such as to
-            //       an entire tree, where none of the leaves are referenced by name
-            toIter = toIter.limit(1);
+            List<ProcedureEdge<?, ?>> intersected = procedure.intersectedClosures(edge.order());
+            if (intersected != null) toIter = branchIntersection(fromVertex, edge, intersected);
+            else toIter = sampleFanOut(edge, edge.branch(graphMgr, fromVertex, params));
+            List<ProcedureEdge<?, ?>> closures = batchedClosures.get(edge.order());
+            if (closures != null) toIter = new ClosurePrefetchIterator(edge, toIter, closures);
         }
+        if (isExistential(edge)) toIter = toIter.limit(1);
         return toIter;
     }
 
+    private static boolean isExistential(ProcedureEdge<?, ?> edge) {
+        // TODO: This optimisation can apply to more situations, such as to
+        //       an entire tree, where none of the leaves are referenced by name
+        return !edge.to().id().isName() && edge.to().outs().isEmpty() && edge.to().ins().size() == 1;
+    }
+
+    private ResourceIterator<? extends Vertex<?, ?>> branchIntersection(Vertex<?, ?> fromVertex,
+                                                                        ProcedureEdge<?, ?> edge,
+                                                                        List<ProcedureEdge<?, ?>> closures) {
+        List<Vertex<?, ?>> fixedVertices = new ArrayList<>(closures.size());
+        for (ProcedureEdge<?, ?> closure : closures) fixedVertices.add(answer.get(fixedVertex(closure, edge).id()));
+        return edge.branchIntersection(graphMgr, fromVertex, closures, fixedVertices, params);
+    }
+
+    /**
+     * Counts the vertices that one of every few branches of the edge reaches, as the branch yields them, before
+     * they are filtered by the scopes of this iterator, for the planner to correct its estimate of the fan-out of
+     * the edge. Branches that only check that a vertex exists stop at the first, and intersected branches only
+     * reach the vertices that close their cycles, so neither is sampled.
+     */
+    private <T> ResourceIterator<T> sampleFanOut(ProcedureEdge<?, ?> edge, ResourceIterator<T> branch) {
+        CardinalityFeedback.FanOut fanOut = procedure.fanOut(edge.order());
+        if (fanOut == null || isExistential(edge) || branchCounts[edge.order()]++ % FAN_OUT_SAMPLE_INTERVAL != 0) {
+            return branch;
+        }
+        return new FanOutSampleIterator<>(branch, fanOut);
+    }
+
     private boolean backTrack(int pos) {
         backTrackCleanUp(pos);
         return computeNext(pos - 1);
@@ -341,6 +433,96 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
     @Override
     public void recycle() {}
 
+    /**
+     * The results of a closure edge for a batch of candidate vertices at one end of the edge,
+     * with the same fixed vertex at its other end.
+     */
+    private static class ClosureBatch {
+
+        private final Vertex<?, ?> fixedVertex;
+        private final boolean candidatesAreFrom;
+        private final Map<Vertex<?, ?>, Boolean> isClosures;
+
+        private ClosureBatch(Vertex<?, ?> fixedVertex, boolean candidatesAreFrom,
+                             List<Vertex<?, ?>> candidates, boolean[] isClosures) {
+            this.fixedVertex = fixedVertex;
+            this.candidatesAreFrom = candidatesAreFrom;
+            this.isClosures = new HashMap<>();
+            for (int i = 0; i < isClosures.length; i++) this.isClosures.put(candidates.get(i), isClosures[i]);
+        }
+
+        /**
+         * Returns whether the vertices close the edge, or null if they were not checked in this batch.
+         */
+        private Boolean isClosure(Vertex<?, ?> fromVertex, Vertex<?, ?> toVertex) {
+            Vertex<?, ?> fixed = candidatesAreFrom ? toVertex : fromVertex;
+            if (!fixed.equals(fixedVertex)) return null;
+            else return isClosures.get(candidatesAreFrom ? fromVertex : toVertex);
+        }
+    }
+
+    /**
+     * Reads the vertices of a branch ahead in batches, that double in size up to a maximum, and checks the
+     * closures that the vertices will be tested against later in the procedure for the whole batch at once,
+     * such as with a single batched read of the storage. The vertices are returned as they are, so a branch
+     * is never cut short by the closures, which would change the edges that the iterator seeks back to.
+     */
+    private class ClosurePrefetchIterator extends AbstractResourceIterator<Vertex<?, ?>> {
+
+        private final ProcedureEdge<?, ?> branchEdge;
+        private final ResourceIterator<? extends Vertex<?, ?>> iterator;
+        private final List<ProcedureEdge<?, ?>> closures;
+        private final Queue<Vertex<?, ?>> prefetched;
+        private int batchSize;
+
+        private ClosurePrefetchIterator(ProcedureEdge<?, ?> branchEdge,
+                                        ResourceIterator<? extends Vertex<?, ?>> iterator,
+                                        List<ProcedureEdge<?, ?>> closures) {
+            this.branchEdge = branchEdge;
+            this.iterator = iterator;
+            this.closures = closures;
+            this.prefetched = new LinkedList<>();
+            this.batchSize = CLOSURE_PREFETCH_MIN;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (prefetched.isEmpty()) prefetch();
+            return !prefetched.isEmpty();
+        }
+
+        @Override
+        public Vertex<?, ?> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return prefetched.poll();
+        }
+
+        private void prefetch() {
+            List<Vertex<?, ?>> candidates = new ArrayList<>(batchSize);
+            while (candidates.size() < batchSize && iterator.hasNext()) candidates.add(iterator.next());
+            batchSize = Math.min(batchSize * 2, CLOSURE_PREFETCH_MAX);
+            if (candidates.isEmpty()) return;
+
+            Identifier candidateID = branchEdge.to().id();
+            for (ProcedureEdge<?, ?> closure : closures) {
+                boolean candidatesAreFrom = closure.from().id().equals(candidateID);
+                Vertex<?, ?> fixedVertex = answer.get(candidatesAreFrom ? closure.to().id() : closure.from().id());
+                assert fixedVertex != null;
+                boolean[] isClosures = closure.isClosures(graphMgr, fixedVertex, candidates, candidatesAreFrom, params);
+                procedure.recordClosureBatch();
+                closureBatches.put(closure.order(),
+                                   new ClosureBatch(fixedVertex, candidatesAreFrom, candidates, isClosures));
+            }
+            prefetched.addAll(candidates);
+        }
+
+        @Override
+        public void recycle() {
+            prefetched.clear();
+            iterator.recycle();
+        }
+    }
+
     public static class Scopes {
 
         private final Map<Identifier.Variable, Scoped> scoped;
@@ -406,6 +588,47 @@ public class GraphIterator extends AbstractResourceIterator<VertexMap> {
         }
     }
 
+    /**
+     * Counts the elements of a branch as they are iterated, and records the count once the branch is exhausted,
+     * so that a branch that is abandoned part way is not recorded.
+     */
+    private static class FanOutSampleIterator<T> extends AbstractResourceIterator<T> {
+
+        private final ResourceIterator<T> iterator;
+        private final CardinalityFeedback.FanOut fanOut;
+        private long reached;
+        private boolean isRecorded;
+
+        private FanOutSampleIterator(ResourceIterator<T> iterator, CardinalityFeedback.FanOut fanOut) {
+            this.iterator = iterator;
+            this.fanOut = fanOut;
+            this.reached = 0;
+            this.isRecorded = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && !isRecorded) {
+                isRecorded = true;
+                fanOut.record(reached);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            reached++;
+            return iterator.next();
+        }
+
+        @Override
+        public void recycle() {
+            iterator.recycle();
+        }
+    }
+
     private static class SeekStack {
 
         private boolean[] seek;
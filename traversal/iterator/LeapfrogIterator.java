@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.iterator;
+
+import grakn.core.common.iterator.AbstractResourceIterator;
+import grakn.core.graph.adjacency.ThingAdjacency;
+import grakn.core.graph.iid.VertexIID;
+import grakn.core.graph.vertex.ThingVertex;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static grakn.core.common.collection.Bytes.compareBytes;
+
+/**
+ * Intersects the vertices that are adjacent to several vertices, given as iterators sorted by the IIDs of
+ * the adjacent vertices, with the leapfrog join: each iterator in turn seeks forward to the IID that the
+ * iterators furthest ahead are at, until every iterator is at the same vertex. The intersection costs no
+ * more than the smallest of the adjacencies, up to the cost of a seek, however large the others are.
+ */
+public class LeapfrogIterator extends AbstractResourceIterator<ThingVertex> {
+
+    private final List<ThingAdjacency.SortedIterator> iterators;
+    private ThingVertex next;
+    private State state;
+
+    private enum State {EMPTY, FETCHED, COMPLETED}
+
+    public LeapfrogIterator(List<ThingAdjacency.SortedIterator> iterators) {
+        assert iterators.size() > 1;
+        this.iterators = iterators;
+        this.state = State.EMPTY;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (state == State.EMPTY) {
+            if ((next = fetchNext()) != null) state = State.FETCHED;
+            else {
+                state = State.COMPLETED;
+                recycle();
+            }
+        }
+        return state == State.FETCHED;
+    }
+
+    private ThingVertex fetchNext() {
+        VertexIID.Thing max = null;
+        for (ThingAdjacency.SortedIterator iterator : iterators) {
+            if (!iterator.hasNext()) return null;
+            VertexIID.Thing iid = iterator.peekIID();
+            if (max == null || compareBytes(iid.bytes(), max.bytes()) > 0) max = iid;
+        }
+
+        int agreed = 0;
+        for (int i = 0; agreed < iterators.size(); i = (i + 1) % iterators.size()) {
+            ThingAdjacency.SortedIterator iterator = iterators.get(i);
+            iterator.seek(max);
+            if (!iterator.hasNext()) return null;
+            VertexIID.Thing iid = iterator.peekIID();
+            if (iid.equals(max)) agreed++;
+            else {
+                max = iid;
+                agreed = 1;
+            }
+        }
+
+        ThingVertex vertex = iterators.get(0).next();
+        for (int i = 1; i < iterators.size(); i++) iterators.get(i).next();
+        return vertex;
+    }
+
+    @Override
+    public ThingVertex next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        state = State.EMPTY;
+        return next;
+    }
+
+    @Override
+    public void recycle() {
+        iterators.forEach(ThingAdjacency.SortedIterator::recycle);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.planner;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the fan-out of the edges of one plan shape, as sampled by the iterators of the procedures that are
+ * planned for it, so that the next optimisation of the shape costs its edges by the fan-out that was actually
+ * observed. The statistics of the graph only hold averages over every vertex of a type, which can be wrong by
+ * orders of magnitude for the vertices that a plan actually reaches, such as with skewed role players.
+ */
+@ThreadSafe
+public class CardinalityFeedback {
+
+    static final long MIN_SAMPLES = 16;
+    static final double MIN_FAN_OUT = 0.01; // non-zero value for safe division, as with the recorded costs
+
+    private final Map<PlannerEdge.Directional<?, ?>, FanOut> fanOuts;
+
+    CardinalityFeedback() {
+        fanOuts = new ConcurrentHashMap<>();
+    }
+
+    public FanOut fanOut(PlannerEdge.Directional<?, ?> edge) {
+        return fanOuts.computeIfAbsent(edge, e -> new FanOut());
+    }
+
+    /**
+     * Returns the mean fan-out observed for the edge, or NaN if it has not been sampled enough to be trusted.
+     */
+    double observed(PlannerEdge.Directional<?, ?> edge) {
+        FanOut fanOut = fanOuts.get(edge);
+        if (fanOut == null || fanOut.samples() < MIN_SAMPLES) return Double.NaN;
+        else return Math.max(fanOut.mean(), MIN_FAN_OUT);
+    }
+
+    @ThreadSafe
+    public static class FanOut {
+
+        private final LongAdder samples;
+        private final LongAdder total;
+
+        private FanOut() {
+            samples = new LongAdder();
+            total = new LongAdder();
+        }
+
+        public void record(long fanOut) {
+            samples.increment();
+            total.add(fanOut);
+        }
+
+        long samples() {
+            return samples.sum();
+        }
+
+        double mean() {
+            return (double) total.sum() / samples.sum();
+        }
+    }
+}
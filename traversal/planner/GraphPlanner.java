@@ -57,6 +57,8 @@ import static com.google.ortools.linearsolver.MPSolverParameters.IntegerParam.IN
 import static com.google.ortools.linearsolver.MPSolverParameters.IntegerParam.PRESOLVE;
 import static com.google.ortools.linearsolver.MPSolverParameters.PresolveValues.PRESOLVE_ON;
 import static grakn.core.common.exception.ErrorMessage.Internal.UNEXPECTED_PLANNING_ERROR;
+import static grakn.core.concurrent.common.ExecutorService.isInitialised;
+import static grakn.core.concurrent.common.ExecutorService.planner;
 import static java.time.Duration.between;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
@@ -71,35 +73,53 @@ public class GraphPlanner implements Planner {
     static final double OBJECTIVE_PLANNER_COST_MAX_CHANGE = 0.2;
     static final double OBJECTIVE_VARIABLE_COST_MAX_CHANGE = 2.0;
     static final double OBJECTIVE_VARIABLE_TO_PLANNER_COST_MIN_CHANGE = 0.02;
+    static final long REGRESSION_MIN_EXECUTIONS = 8;
+    static final double REGRESSION_MAX_COST_CHANGE = 2.0;
+    static final int SOLVER_MAX_EDGES = 16;
+    static final int DYNAMIC_PROGRAMMING_MAX_VERTICES = 16;
+    static final long DYNAMIC_PROGRAMMING_STEPS_PER_MILLI = 20_000;
 
+    private final Strategy strategy;
     private final MPSolver solver;
     private final MPSolverParameters parameters;
     private final Map<Identifier, PlannerVertex<?>> vertices;
     private final Set<PlannerEdge<?, ?>> edges;
     private final AtomicBoolean isOptimising;
     private final ManagedCountDownLatch procedureLatch;
+    private final CardinalityFeedback feedback;
 
     protected volatile GraphProcedure procedure;
+    private volatile GraphProcedure procedurePrevious;
+    private long version;
     private volatile MPSolver.ResultStatus resultStatus;
     private volatile boolean isUpToDate;
     private volatile long totalDuration;
     private volatile long snapshot;
+    private volatile long statisticsCurrentAsOf;
+    private boolean isCyclic;
 
     volatile double totalCostLastRecorded;
     double totalCostNext;
     double branchingFactor;
     double costExponentUnit;
 
-    private GraphPlanner() {
-        solver = MPSolver.createSolver("SCIP");
-        solver.objective().setMinimization();
-        parameters = new MPSolverParameters();
-        parameters.setIntegerParam(PRESOLVE, PRESOLVE_ON.swigValue());
-        parameters.setIntegerParam(INCREMENTALITY, INCREMENTALITY_ON.swigValue());
+    private GraphPlanner(Strategy strategy) {
+        this.strategy = strategy;
+        if (strategy.isSolver()) {
+            solver = MPSolver.createSolver("SCIP");
+            solver.objective().setMinimization();
+            parameters = new MPSolverParameters();
+            parameters.setIntegerParam(PRESOLVE, PRESOLVE_ON.swigValue());
+            parameters.setIntegerParam(INCREMENTALITY, INCREMENTALITY_ON.swigValue());
+        } else {
+            solver = null;
+            parameters = null;
+        }
         vertices = new HashMap<>();
         edges = new HashSet<>();
         procedureLatch = new ManagedCountDownLatch(1);
         isOptimising = new AtomicBoolean(false);
+        feedback = new CardinalityFeedback();
         resultStatus = MPSolver.ResultStatus.NOT_SOLVED;
         isUpToDate = false;
         totalDuration = 0L;
@@ -108,16 +128,25 @@ public class GraphPlanner implements Planner {
         branchingFactor = 0.01;
         costExponentUnit = 0.1;
         snapshot = -1L;
+        statisticsCurrentAsOf = -1L;
+        version = 0L;
     }
 
     static GraphPlanner create(Structure structure) {
+        return create(structure, Strategy.of(
+                structure.vertices().size(), structure.edges().size(), DEFAULT_TIME_LIMIT_MILLIS
+        ));
+    }
+
+    static GraphPlanner create(Structure structure, Strategy strategy) {
         assert structure.vertices().size() > 1;
-        GraphPlanner planner = new GraphPlanner();
+        GraphPlanner planner = new GraphPlanner(strategy);
         Set<StructureVertex<?>> registeredVertices = new HashSet<>();
         Set<StructureEdge<?, ?>> registeredEdges = new HashSet<>();
         structure.vertices().forEach(vertex -> planner.registerVertex(vertex, registeredVertices, registeredEdges));
         assert planner.vertices().size() > 1 && !planner.edges().isEmpty();
-        planner.initialise();
+        planner.isCyclic = planner.computeIsCyclic();
+        if (strategy.isSolver()) planner.initialise();
         return planner;
     }
 
@@ -149,6 +178,65 @@ public class GraphPlanner implements Planner {
         return edges;
     }
 
+    Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the fan-out of the edges of this plan shape, as observed by the procedures planned for it.
+     */
+    public CardinalityFeedback feedback() {
+        return feedback;
+    }
+
+    /**
+     * Returns the snapshot of the statistics that the objective was last costed with.
+     */
+    public long snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the commit as of which the statistics that the objective was last costed with were exact.
+     */
+    public long statisticsCurrentAsOf() {
+        return statisticsCurrentAsOf;
+    }
+
+    /**
+     * Returns the cost of the plan that was last recorded, with the costs of its vertices and edges when they
+     * were recorded.
+     */
+    public double cost() {
+        return JoinOrder.cost(this);
+    }
+
+    /**
+     * Returns whether the edges between things in this plan shape form a cycle, such as two things that share
+     * more than one neighbour, where the procedures join the adjacencies of the vertices that close the cycle
+     * by intersecting them, rather than branching to every adjacent of one and checking it against the rest.
+     */
+    public boolean isCyclic() {
+        return isCyclic;
+    }
+
+    private boolean computeIsCyclic() {
+        Map<PlannerVertex<?>, PlannerVertex<?>> parents = new HashMap<>();
+        for (PlannerEdge<?, ?> edge : edges) {
+            if (!edge.forward().isNative() || !edge.forward().asNative().isThing()) continue;
+            PlannerVertex<?> fromRoot = root(parents, edge.from()), toRoot = root(parents, edge.to());
+            if (fromRoot.equals(toRoot)) return true;
+            parents.put(fromRoot, toRoot);
+        }
+        return false;
+    }
+
+    private static PlannerVertex<?> root(Map<PlannerVertex<?>, PlannerVertex<?>> parents, PlannerVertex<?> vertex) {
+        PlannerVertex<?> root = vertex;
+        while (parents.containsKey(root)) root = parents.get(root);
+        return root;
+    }
+
     void setOutOfDate() {
         this.isUpToDate = false;
     }
@@ -261,8 +349,14 @@ public class GraphPlanner implements Planner {
     }
 
     private void updateObjective(GraphManager graph) {
-        if (snapshot < graph.data().stats().snapshot()) {
+        boolean hasDivergentFeedback = hasDivergentFeedback();
+        if (snapshot < graph.data().stats().snapshot() || hasDivergentFeedback) {
             snapshot = graph.data().stats().snapshot();
+            statisticsCurrentAsOf = graph.data().stats().currentAsOf();
+            if (LOG.isDebugEnabled() && statisticsCurrentAsOf < graph.data().stats().lastCommit()) {
+                LOG.debug("Costing plan with statistics current as of commit {}, behind the last commit {}",
+                          statisticsCurrentAsOf, graph.data().stats().lastCommit());
+            }
             totalCostNext = 0.1;
             setBranchingFactor(graph);
             setCostExponentUnit(graph);
@@ -270,14 +364,22 @@ public class GraphPlanner implements Planner {
 
             assert !Double.isNaN(totalCostNext) && !Double.isNaN(totalCostLastRecorded) && totalCostLastRecorded > 0;
             if (totalCostNext / totalCostLastRecorded >= OBJECTIVE_PLANNER_COST_MAX_CHANGE) setOutOfDate();
+            if (hasDivergentFeedback) setOutOfDate();
             if (!isUpToDate) {
                 totalCostLastRecorded = totalCostNext;
                 vertices.values().forEach(PlannerVertex::recordCost);
                 edges.forEach(PlannerEdge::recordCost);
-                setInitialValues();
+                if (strategy.isSolver()) setInitialValues();
             }
         }
-        LOG.trace(solver.exportModelAsLpFormat());
+        if (strategy.isSolver()) LOG.trace(solver.exportModelAsLpFormat());
+    }
+
+    private boolean hasDivergentFeedback() {
+        for (PlannerEdge<?, ?> edge : edges) {
+            if (edge.forward().hasDivergentFeedback() || edge.backward().hasDivergentFeedback()) return true;
+        }
+        return false;
     }
 
     void updateCostNext(double costPrevious, double costNext) {
@@ -335,46 +437,133 @@ public class GraphPlanner implements Planner {
         solver.setHint(new MPVariable[]{}, new double[]{});
     }
 
-    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    /**
+     * Brings the plan up to date with the statistics of the graph. The first plan is solved on the calling
+     * thread, as there is no procedure to run until it exists. Any later plan is solved on the planner
+     * executor, while the calling thread carries on with the latest procedure, which is swapped for the
+     * new one once it is created. Only one optimisation runs at a time, as the solver is not thread-safe.
+     * The searches of the other strategies are not improved by more time, so they only run again when the
+     * statistics make the plan out of date.
+     */
     void optimise(GraphManager graph, boolean extraTime) {
         if (isOptimising.compareAndSet(false, true)) {
-            updateObjective(graph);
-            if (isUpToDate() && isOptimal()) {
-                if (LOG.isDebugEnabled()) LOG.debug("Optimisation still optimal and up-to-date");
-            } else {
-                // TODO: we should have a more clever logic to allocate extra time
-                long allocatedDuration = extraTime ? HIGHER_TIME_LIMIT_MILLIS : DEFAULT_TIME_LIMIT_MILLIS;
-                Instant start, endSolver, end;
-                totalDuration += allocatedDuration;
-                solver.setTimeLimit(totalDuration);
-
-                start = Instant.now();
-                resultStatus = solver.solve(parameters);
-                resetInitialValues();
-                endSolver = Instant.now();
-                if (isError()) throwPlanningError();
-                else assert isPlanned();
-
-                createProcedure();
-                end = Instant.now();
-
-                isUpToDate = true;
-                totalDuration -= allocatedDuration - between(start, endSolver).toMillis();
-                printDebug(start, endSolver, end);
+            boolean isAsync = false;
+            try {
+                rollbackIfRegressed();
+                updateObjective(graph);
+                if (isUpToDate() && (isOptimal() || !strategy.isSolver())) {
+                    if (LOG.isDebugEnabled()) LOG.debug("Optimisation still optimal and up-to-date");
+                } else if (procedure == null || !isInitialised()) {
+                    solve(extraTime);
+                } else {
+                    planner().submit(() -> solveAsync(extraTime));
+                    isAsync = true;
+                }
+            } finally {
+                if (!isAsync) isOptimising.set(false);
             }
+        }
+    }
+
+    private void solveAsync(boolean extraTime) {
+        try {
+            solve(extraTime);
+        } catch (Throwable e) {
+            // the query threads carry on with the previous procedure, which remains valid
+            LOG.error("Failed to re-plan in the background, keeping procedure version {}", procedure.version(), e);
+        } finally {
             isOptimising.set(false);
         }
     }
 
+    private void solve(boolean extraTime) {
+        if (strategy.isSolver()) solveProgram(extraTime);
+        else searchJoinOrder();
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    private void solveProgram(boolean extraTime) {
+        // TODO: we should have a more clever logic to allocate extra time
+        long allocatedDuration = extraTime ? HIGHER_TIME_LIMIT_MILLIS : DEFAULT_TIME_LIMIT_MILLIS;
+        Instant start, endSolver, end;
+        totalDuration += allocatedDuration;
+        solver.setTimeLimit(totalDuration);
+
+        start = Instant.now();
+        resultStatus = solver.solve(parameters);
+        resetInitialValues();
+        endSolver = Instant.now();
+        if (isError()) throwPlanningError();
+        else assert isPlanned();
+
+        vertices.values().forEach(PlannerVertex::recordResults);
+        edges.forEach(PlannerEdge::recordResults);
+        createProcedure();
+        end = Instant.now();
+
+        isUpToDate = true;
+        totalDuration -= allocatedDuration - between(start, endSolver).toMillis();
+        printDebug(start, endSolver, end);
+    }
+
+    void searchJoinOrder() {
+        Instant start, endSearch, end;
+        start = Instant.now();
+        if (strategy == Strategy.DYNAMIC_PROGRAMMING) {
+            JoinOrder.dynamicProgramming(this);
+            resultStatus = OPTIMAL;
+        } else {
+            JoinOrder.greedy(this);
+            resultStatus = FEASIBLE;
+        }
+        endSearch = Instant.now();
+
+        createProcedure();
+        end = Instant.now();
+
+        isUpToDate = true;
+        printDebug(start, endSearch, end);
+    }
+
+    /**
+     * Restores the previous procedure if the latest one, once it has been executed enough times to compare
+     * them, costs much more to execute than the previous one did. The previous procedure is dropped as soon
+     * as the latest one has proven itself, so a procedure is only rolled back to the one that it replaced.
+     *
+     * The two procedures were planned with different statistics, and executed on the data of their time, so
+     * their execution times are compared relative to the costs that the planner estimated them to have: a
+     * procedure that is only slower because the data has grown is not a regression.
+     */
+    void rollbackIfRegressed() {
+        GraphProcedure latest = procedure, previous = procedurePrevious;
+        if (previous == null || latest.executions() < REGRESSION_MIN_EXECUTIONS) return;
+        if (previous.executions() >= REGRESSION_MIN_EXECUTIONS &&
+                nanosPerCost(latest) / nanosPerCost(previous) >= REGRESSION_MAX_COST_CHANGE) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Procedure version {} regressed from {} (ns/cost) to {} (ns/cost), " +
+                                  "rolling back to version {}", latest.version(), nanosPerCost(previous),
+                          nanosPerCost(latest), previous.version());
+            }
+            procedure = previous;
+        }
+        procedurePrevious = null;
+    }
+
+    private static double nanosPerCost(GraphProcedure procedure) {
+        return procedure.meanExecutionNanos() / procedure.cost();
+    }
+
     private void throwPlanningError() {
         LOG.error(toString());
-        LOG.error(solver.exportModelAsLpFormat());
+        if (strategy.isSolver()) LOG.error(solver.exportModelAsLpFormat());
         throw GraknException.of(UNEXPECTED_PLANNING_ERROR);
     }
 
     private void printDebug(Instant start, Instant endSolver, Instant end) {
         if (LOG.isDebugEnabled()) {
+            LOG.debug("Optimisation strategy       : {}", strategy.name());
             LOG.debug("Optimisation status         : {}", resultStatus.name());
+            LOG.debug("Procedure version           : {}", version);
             LOG.debug("Solver duration             : {} (ms)", between(start, endSolver).toMillis());
             LOG.debug("Procedure creation duration : {} (ms)", between(endSolver, end).toMillis());
             LOG.debug("Total duration ------------ : {} (ms)", between(start, end).toMillis());
@@ -382,9 +571,9 @@ public class GraphPlanner implements Planner {
     }
 
     private void createProcedure() {
-        vertices.values().forEach(PlannerVertex::recordResults);
-        edges.forEach(PlannerEdge::recordResults);
-        procedure = GraphProcedure.create(this);
+        GraphProcedure latest = GraphProcedure.create(this, ++version);
+        procedurePrevious = procedure;
+        procedure = latest;
         if (procedureLatch.getCount() > 0) procedureLatch.countDown();
     }
 
@@ -409,6 +598,30 @@ public class GraphPlanner implements Planner {
         return str.toString();
     }
 
+    /**
+     * The search that orders the edges of a plan. The solver finds the optimal plan of a mixed-integer program
+     * whose variables grow quadratically with the edges of the pattern, so larger patterns are ordered by a
+     * {@link JoinOrder} search over their vertices instead: exhaustively when the subsets of the vertices can
+     * be enumerated within the planning time limit, and greedily otherwise.
+     */
+    enum Strategy {
+        SOLVER,
+        DYNAMIC_PROGRAMMING,
+        GREEDY;
+
+        static Strategy of(int vertices, int edges, long timeLimitMillis) {
+            if (edges <= SOLVER_MAX_EDGES) return SOLVER;
+            else if (vertices <= DYNAMIC_PROGRAMMING_MAX_VERTICES &&
+                    (1L << vertices) * edges <= DYNAMIC_PROGRAMMING_STEPS_PER_MILLI * timeLimitMillis) {
+                return DYNAMIC_PROGRAMMING;
+            } else return GREEDY;
+        }
+
+        boolean isSolver() {
+            return this == SOLVER;
+        }
+    }
+
     private class Initialiser {
 
         private final LinkedHashSet<PlannerVertex<?>> queue;
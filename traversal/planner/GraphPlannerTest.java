@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.planner;
+
+import grakn.core.graph.common.Encoding;
+import grakn.core.traversal.common.Identifier;
+import grakn.core.traversal.procedure.GraphProcedure;
+import grakn.core.traversal.structure.Structure;
+import grakn.core.traversal.structure.StructureVertex;
+import org.junit.Test;
+
+import static grakn.core.traversal.planner.GraphPlanner.REGRESSION_MAX_COST_CHANGE;
+import static grakn.core.traversal.planner.GraphPlanner.REGRESSION_MIN_EXECUTIONS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GraphPlannerTest {
+
+    private static final long NANOS = 1_000_000;
+
+    @Test
+    public void test_regressed_procedure_is_rolled_back() {
+        GraphPlanner planner = planner();
+        planner.searchJoinOrder();
+        GraphProcedure previous = planner.procedure();
+        planner.searchJoinOrder();
+        GraphProcedure latest = planner.procedure();
+
+        execute(previous, REGRESSION_MIN_EXECUTIONS, NANOS);
+        execute(latest, REGRESSION_MIN_EXECUTIONS - 1, (long) (NANOS * REGRESSION_MAX_COST_CHANGE));
+        planner.rollbackIfRegressed();
+        // the latest procedure is only compared once it has been executed enough times
+        assertSame(latest, planner.procedure());
+
+        execute(latest, 1, (long) (NANOS * REGRESSION_MAX_COST_CHANGE));
+        planner.rollbackIfRegressed();
+        assertSame(previous, planner.procedure());
+    }
+
+    @Test
+    public void test_procedure_that_is_slower_on_more_data_is_kept() {
+        GraphPlanner planner = planner();
+        planner.searchJoinOrder();
+        GraphProcedure previous = planner.procedure();
+        // the statistics have grown tenfold, and the plan with them
+        planner.vertices().forEach(vertex -> vertex.costLastRecorded *= 10);
+        planner.searchJoinOrder();
+        GraphProcedure latest = planner.procedure();
+
+        execute(previous, REGRESSION_MIN_EXECUTIONS, NANOS);
+        execute(latest, REGRESSION_MIN_EXECUTIONS, NANOS * 10);
+        planner.rollbackIfRegressed();
+        assertSame(latest, planner.procedure());
+    }
+
+    @Test
+    public void test_procedure_that_proved_itself_is_not_rolled_back_later() {
+        GraphPlanner planner = planner();
+        planner.searchJoinOrder();
+        GraphProcedure previous = planner.procedure();
+        planner.searchJoinOrder();
+        GraphProcedure latest = planner.procedure();
+
+        execute(previous, REGRESSION_MIN_EXECUTIONS, NANOS);
+        execute(latest, REGRESSION_MIN_EXECUTIONS, NANOS);
+        planner.rollbackIfRegressed();
+        execute(latest, REGRESSION_MIN_EXECUTIONS * 10, NANOS * 10);
+        planner.rollbackIfRegressed();
+        assertSame(latest, planner.procedure());
+    }
+
+    @Test
+    public void test_observed_fan_out_changes_the_plan() {
+        GraphPlanner planner = planner();
+        PlannerEdge<?, ?> has = planner.edges().iterator().next();
+        planner.vertices().forEach(vertex -> vertex.costLastRecorded = 1);
+        // the statistics expect the owner to have few attributes, and the attribute to have many owners
+        cost(has, 1, 10);
+        planner.searchJoinOrder();
+        assertEquals(has.forward().from().id(), planner.procedure().startVertex().id());
+
+        // the owners that the traversal actually reaches have many attributes, each with one owner
+        for (int i = 0; i < CardinalityFeedback.MIN_SAMPLES; i++) {
+            planner.feedback().fanOut(has.forward()).record(100);
+            planner.feedback().fanOut(has.backward()).record(1);
+        }
+        assertTrue(has.forward().hasDivergentFeedback());
+        cost(has, 1, 10);
+        planner.searchJoinOrder();
+        assertEquals(has.backward().from().id(), planner.procedure().startVertex().id());
+    }
+
+    private static void cost(PlannerEdge<?, ?> edge, double forward, double backward) {
+        edge.forward().setObjectiveCoefficient(forward);
+        edge.backward().setObjectiveCoefficient(backward);
+        edge.recordCost();
+    }
+
+    private static GraphPlanner planner() {
+        Structure structure = new Structure();
+        StructureVertex.Thing owner = structure.thingVertex(Identifier.Variable.name("x"));
+        StructureVertex.Thing attribute = structure.thingVertex(Identifier.Variable.name("y"));
+        structure.nativeEdge(owner, attribute, Encoding.Edge.Thing.HAS);
+        return GraphPlanner.create(structure, GraphPlanner.Strategy.GREEDY);
+    }
+
+    private static void execute(GraphProcedure procedure, long executions, long nanos) {
+        for (long i = 0; i < executions; i++) procedure.recordExecution(nanos);
+    }
+}
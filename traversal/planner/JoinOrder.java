@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.planner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import static grakn.core.common.iterator.Iterators.iterate;
+import static java.util.Comparator.comparing;
+
+/**
+ * Orders the edges of a plan by the order in which the plan reaches the vertices of its pattern. The plan
+ * starts from one vertex, and reaches every other vertex in turn through the cheapest of its edges from the
+ * vertices already reached, after which it checks the rest of those edges, and the edges of the vertex to itself.
+ *
+ * A plan is costed as the sum of the answers that it is expected to hold after each of its edges, starting
+ * from the answers of its starting vertex. An edge to a vertex that has not been reached multiplies those
+ * answers by the cost of the edge, whereas an edge between vertices that have been reached only checks them.
+ * The plans of the solver are given the same cost by {@link #cost(GraphPlanner)}, so that they can be compared.
+ */
+class JoinOrder {
+
+    private final GraphPlanner planner;
+    private final List<PlannerVertex<?>> vertices;
+    private final Map<PlannerVertex<?>, Integer> indices;
+    private final double[] startCosts;
+    private final int[] selfClosures;
+    private final int[][] incomingFrom;
+    private final double[][] incomingCosts;
+
+    private JoinOrder(GraphPlanner planner) {
+        this.planner = planner;
+        this.vertices = new ArrayList<>(planner.vertices());
+        this.indices = new HashMap<>();
+        for (int i = 0; i < vertices.size(); i++) indices.put(vertices.get(i), i);
+        this.startCosts = new double[vertices.size()];
+        this.selfClosures = new int[vertices.size()];
+        this.incomingFrom = new int[vertices.size()][];
+        this.incomingCosts = new double[vertices.size()][];
+        for (int i = 0; i < vertices.size(); i++) {
+            PlannerVertex<?> vertex = vertices.get(i);
+            List<PlannerEdge.Directional<?, ?>> incoming = incoming(vertex);
+            startCosts[i] = vertex.costLastRecorded;
+            selfClosures[i] = selfClosures(vertex).size();
+            incomingFrom[i] = new int[incoming.size()];
+            incomingCosts[i] = new double[incoming.size()];
+            for (int j = 0; j < incoming.size(); j++) {
+                incomingFrom[i][j] = indices.get(incoming.get(j).from());
+                incomingCosts[i][j] = incoming.get(j).costLastRecorded;
+            }
+        }
+    }
+
+    static void greedy(GraphPlanner planner) {
+        JoinOrder joinOrder = new JoinOrder(planner);
+        joinOrder.record(joinOrder.greedy());
+    }
+
+    static void dynamicProgramming(GraphPlanner planner) {
+        JoinOrder joinOrder = new JoinOrder(planner);
+        joinOrder.record(joinOrder.dynamicProgramming());
+    }
+
+    /**
+     * Returns the cost of the plan that was last recorded by the planner, whichever strategy it was planned with.
+     */
+    static double cost(GraphPlanner planner) {
+        List<PlannerEdge.Directional<?, ?>> selected = new ArrayList<>();
+        PlannerVertex<?> start = null;
+        for (PlannerVertex<?> vertex : planner.vertices()) {
+            if (vertex.isStartingVertex()) start = vertex;
+        }
+        for (PlannerEdge<?, ?> edge : planner.edges()) {
+            if (edge.forward().isSelected()) selected.add(edge.forward());
+            else selected.add(edge.backward());
+        }
+        assert start != null;
+        selected.sort(comparing(PlannerEdge.Directional::orderNumber));
+
+        Set<PlannerVertex<?>> reached = new HashSet<>();
+        reached.add(start);
+        double answers = start.costLastRecorded;
+        double cost = answers;
+        for (PlannerEdge.Directional<?, ?> edge : selected) {
+            if (reached.add(edge.to())) answers *= edge.costLastRecorded;
+            cost += answers;
+        }
+        return cost;
+    }
+
+    private static List<PlannerEdge.Directional<?, ?>> incoming(PlannerVertex<?> vertex) {
+        return iterate(vertex.ins()).filter(edge -> !edge.isSelfClosure()).toList();
+    }
+
+    private static List<PlannerEdge.Directional<?, ?>> selfClosures(PlannerVertex<?> vertex) {
+        return iterate(vertex.outs()).filter(edge -> edge.isSelfClosure() && edge.direction().isForward()).toList();
+    }
+
+    /**
+     * Returns the cost of the cheapest edge to the vertex from the vertices reached, or NaN if there is none.
+     */
+    private double cheapestIncoming(int vertex, IntPredicate isReached) {
+        double cheapest = Double.NaN;
+        for (int i = 0; i < incomingFrom[vertex].length; i++) {
+            if (isReached.test(incomingFrom[vertex][i]) &&
+                    (Double.isNaN(cheapest) || incomingCosts[vertex][i] < cheapest)) {
+                cheapest = incomingCosts[vertex][i];
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Returns the number of edges that the plan traverses when it reaches the vertex from the vertices reached.
+     */
+    private int edgesOnReaching(int vertex, IntPredicate isReached) {
+        int edges = selfClosures[vertex];
+        for (int from : incomingFrom[vertex]) {
+            if (isReached.test(from)) edges++;
+        }
+        return edges;
+    }
+
+    /**
+     * Reaches, from every starting vertex, the vertex that leaves the fewest answers next, and returns the
+     * cheapest of the orders of the vertices that it finds.
+     */
+    private int[] greedy() {
+        int[] cheapestOrder = null;
+        double cheapestCost = Double.NaN;
+        for (int start = 0; start < vertices.size(); start++) {
+            int[] order = new int[vertices.size()];
+            boolean[] reached = new boolean[vertices.size()];
+            IntPredicate isReached = vertex -> reached[vertex];
+            order[0] = start;
+            reached[start] = true;
+            double answers = startCosts[start];
+            double cost = answers * (1 + selfClosures[start]);
+            for (int i = 1; i < order.length; i++) {
+                int next = -1;
+                double nextAnswers = Double.NaN;
+                for (int vertex = 0; vertex < vertices.size(); vertex++) {
+                    if (reached[vertex]) continue;
+                    double edgeCost = cheapestIncoming(vertex, isReached);
+                    if (!Double.isNaN(edgeCost) && (next < 0 || answers * edgeCost < nextAnswers)) {
+                        next = vertex;
+                        nextAnswers = answers * edgeCost;
+                    }
+                }
+                assert next >= 0;
+                cost += nextAnswers * edgesOnReaching(next, isReached);
+                answers = nextAnswers;
+                order[i] = next;
+                reached[next] = true;
+            }
+            if (cheapestOrder == null || cost < cheapestCost) {
+                cheapestOrder = order;
+                cheapestCost = cost;
+            }
+        }
+        return cheapestOrder;
+    }
+
+    /**
+     * Finds the cheapest order in which to reach every subset of the vertices, from the cheapest orders of the
+     * subsets with one fewer vertex, and returns the order of the set of all the vertices. Each subset keeps only
+     * its cheapest order, breaking ties by the fewest answers, so the search is exact when the answers of a subset
+     * do not depend on its order.
+     */
+    private int[] dynamicProgramming() {
+        assert vertices.size() <= GraphPlanner.DYNAMIC_PROGRAMMING_MAX_VERTICES;
+        int subsets = 1 << vertices.size();
+        double[] costs = new double[subsets];
+        double[] answers = new double[subsets];
+        int[] last = new int[subsets];
+        Arrays.fill(last, -1);
+        for (int vertex = 0; vertex < vertices.size(); vertex++) {
+            answers[1 << vertex] = startCosts[vertex];
+            costs[1 << vertex] = startCosts[vertex] * (1 + selfClosures[vertex]);
+            last[1 << vertex] = vertex;
+        }
+
+        for (int subset = 1; subset < subsets; subset++) {
+            if (last[subset] < 0) continue;
+            int reached = subset;
+            IntPredicate isReached = vertex -> (reached & (1 << vertex)) != 0;
+            for (int vertex = 0; vertex < vertices.size(); vertex++) {
+                if (isReached.test(vertex)) continue;
+                double edgeCost = cheapestIncoming(vertex, isReached);
+                if (Double.isNaN(edgeCost)) continue;
+                double nextAnswers = answers[subset] * edgeCost;
+                double nextCost = costs[subset] + nextAnswers * edgesOnReaching(vertex, isReached);
+                int next = subset | (1 << vertex);
+                if (last[next] < 0 || nextCost < costs[next] ||
+                        (nextCost == costs[next] && nextAnswers < answers[next])) {
+                    costs[next] = nextCost;
+                    answers[next] = nextAnswers;
+                    last[next] = vertex;
+                }
+            }
+        }
+
+        int[] order = new int[vertices.size()];
+        int subset = subsets - 1;
+        for (int i = order.length - 1; i >= 0; i--) {
+            assert last[subset] >= 0;
+            order[i] = last[subset];
+            subset &= ~(1 << order[i]);
+        }
+        return order;
+    }
+
+    private void record(int[] order) {
+        Map<PlannerEdge.Directional<?, ?>, Integer> edgeOrders = new HashMap<>();
+        Set<PlannerVertex<?>> reached = new HashSet<>();
+        for (int index : order) {
+            PlannerVertex<?> vertex = vertices.get(index);
+            List<PlannerEdge.Directional<?, ?>> edges = iterate(incoming(vertex))
+                    .filter(edge -> reached.contains(edge.from())).toList();
+            edges.sort(comparing(edge -> edge.costLastRecorded));
+            edges.addAll(selfClosures(vertex));
+            edges.forEach(edge -> edgeOrders.put(edge, edgeOrders.size() + 1));
+            reached.add(vertex);
+        }
+        assert edgeOrders.size() == planner.edges().size();
+
+        for (PlannerEdge<?, ?> edge : planner.edges()) {
+            edge.forward().recordResults(edgeOrders.getOrDefault(edge.forward(), 0));
+            edge.backward().recordResults(edgeOrders.getOrDefault(edge.backward(), 0));
+        }
+        for (PlannerVertex<?> vertex : vertices) {
+            vertex.recordResults(
+                    vertex.equals(vertices.get(order[0])),
+                    iterate(vertex.ins()).anyMatch(edgeOrders::containsKey),
+                    iterate(vertex.outs()).anyMatch(edgeOrders::containsKey)
+            );
+        }
+    }
+}
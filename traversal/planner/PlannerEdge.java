@@ -25,6 +25,8 @@ import grakn.core.common.parameters.Label;
 import grakn.core.graph.GraphManager;
 import grakn.core.graph.SchemaGraph;
 import grakn.core.graph.common.Encoding;
+import grakn.core.graph.common.Histogram;
+import grakn.core.graph.common.HyperLogLog;
 import grakn.core.graph.vertex.TypeVertex;
 import grakn.core.traversal.graph.TraversalEdge;
 import grakn.core.traversal.predicate.PredicateOperator;
@@ -59,6 +61,7 @@ import static grakn.core.graph.common.Encoding.Edge.Type.OWNS_KEY;
 import static grakn.core.graph.common.Encoding.Edge.Type.PLAYS;
 import static grakn.core.graph.common.Encoding.Edge.Type.RELATES;
 import static grakn.core.graph.common.Encoding.Edge.Type.SUB;
+import static grakn.core.traversal.planner.GraphPlanner.OBJECTIVE_VARIABLE_COST_MAX_CHANGE;
 import static java.util.stream.Collectors.toSet;
 
 public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_TO extends PlannerVertex<?>>
@@ -257,11 +260,15 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
 
         protected void setObjectiveCoefficient(double cost) {
             assert !Double.isNaN(cost);
-            int expMultiplier = planner.edges().size() - 1;
-            for (int i = 0; i < planner.edges().size(); i++) {
-                double exp = 1 + (expMultiplier-- * planner.costExponentUnit);
-                double coeff = cost * Math.pow(planner.branchingFactor, exp);
-                planner.objective().setCoefficient(varOrderAssignment[i], coeff);
+            double observed = planner.feedback().observed(this);
+            if (!Double.isNaN(observed)) cost = observed;
+            if (planner.strategy().isSolver()) {
+                int expMultiplier = planner.edges().size() - 1;
+                for (int i = 0; i < planner.edges().size(); i++) {
+                    double exp = 1 + (expMultiplier-- * planner.costExponentUnit);
+                    double coeff = cost * Math.pow(planner.branchingFactor, exp);
+                    planner.objective().setCoefficient(varOrderAssignment[i], coeff);
+                }
             }
             costNext = cost;
             planner.updateCostNext(costLastRecorded, costNext);
@@ -272,11 +279,27 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
             costLastRecorded = costNext;
         }
 
+        /**
+         * Returns true if the fan-out observed for this edge has moved away from the cost that it was last
+         * planned with, by as much as a change in the statistics that would make the plan out of date.
+         */
+        boolean hasDivergentFeedback() {
+            double observed = planner.feedback().observed(this);
+            if (Double.isNaN(observed)) return false;
+            double change = observed / costLastRecorded;
+            return change >= OBJECTIVE_VARIABLE_COST_MAX_CHANGE || 1 / change >= OBJECTIVE_VARIABLE_COST_MAX_CHANGE;
+        }
+
         private void recordResults() {
             varIsSelected_result = (int) Math.round(varIsSelected.solutionValue());
             varOrderNumber_result = (int) Math.round(varOrderNumber.solutionValue());
         }
 
+        void recordResults(int order) {
+            varIsSelected_result = order > 0 ? 1 : 0;
+            varOrderNumber_result = order;
+        }
+
         private void resetInitialValue() {
             hasInitialValue = false;
             varIsSelected_init = 0;
@@ -420,12 +443,12 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
 
             @Override
             void updateObjective(GraphManager graphMgr) {
-                long cost;
+                double cost;
                 if (isSelfClosure() || to().props().hasIID()) {
                     cost = 1;
                 } else if (predicate.operator().equals(PredicateOperator.Equality.EQ)) {
                     if (!to.props().types().isEmpty()) {
-                        cost = to.props().types().size();
+                        cost = equalsPerValue(graphMgr);
                     } else if (!from.props().types().isEmpty()) {
                         cost = graphMgr.schema().stats().attTypesWithValTypeComparableTo(from.props().types());
                     } else {
@@ -433,7 +456,7 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
                     }
                 } else {
                     if (!to.props().types().isEmpty()) {
-                        cost = graphMgr.data().stats().thingVertexSum(to.props().types());
+                        cost = comparablesPerValue(graphMgr);
                     } else if (!from.props().types().isEmpty()) {
                         Stream<TypeVertex> types = iterate(from.props().types())
                                 .map(l -> graphMgr.schema().getType(l)).filter(TypeVertex::isAttributeType)
@@ -447,6 +470,68 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
                 assert !Double.isNaN(cost);
                 setObjectiveCoefficient(cost);
             }
+
+            /**
+             * Returns the number of attributes of the types of the vertex to that are expected to be equal to an
+             * attribute of the types of the vertex from, from the overlap of the sketches of their distinct values.
+             * A type has at most one attribute of each value, so a type whose sketch has not been counted yet, or
+             * whose values are encoded differently from those of the vertex from, is expected to have one.
+             */
+            private double equalsPerValue(GraphManager graphMgr) {
+                Set<TypeVertex> fromTypes = attributeTypes(graphMgr, from);
+                double cost = 0;
+                for (TypeVertex toType : attributeTypes(graphMgr, to)) {
+                    HyperLogLog toSketch = graphMgr.data().stats().valueSketch(toType);
+                    HyperLogLog fromSketch = HyperLogLog.create();
+                    for (TypeVertex fromType : fromTypes) {
+                        if (fromType.valueType() == toType.valueType()) {
+                            fromSketch = fromSketch.merge(graphMgr.data().stats().valueSketch(fromType));
+                        }
+                    }
+                    if (fromSketch.isEmpty() || toSketch.isEmpty()) cost += 1;
+                    else cost += Math.min(1, fromSketch.overlap(toSketch) / fromSketch.estimate());
+                }
+                return cost;
+            }
+
+            /**
+             * Returns the number of attributes of the types of the vertex to that are expected to compare to an
+             * attribute of the types of the vertex from as the predicate requires, from the histograms of their
+             * values. Every attribute of a type is expected to, if its histogram has not been counted yet.
+             */
+            private double comparablesPerValue(GraphManager graphMgr) {
+                Set<TypeVertex> fromTypes = attributeTypes(graphMgr, from);
+                double cost = 0;
+                for (TypeVertex toType : attributeTypes(graphMgr, to)) {
+                    double count = graphMgr.data().stats().thingVertexCount(toType);
+                    cost += count * fractionSatisfying(graphMgr, fromTypes, toType);
+                }
+                return cost;
+            }
+
+            private double fractionSatisfying(GraphManager graphMgr, Set<TypeVertex> fromTypes, TypeVertex toType) {
+                PredicateOperator.Equality operator = predicate.operator();
+                boolean isBelow = operator.equals(PredicateOperator.Equality.GT) ||
+                        operator.equals(PredicateOperator.Equality.GTE);
+                boolean isAbove = operator.equals(PredicateOperator.Equality.LT) ||
+                        operator.equals(PredicateOperator.Equality.LTE);
+                Histogram toValues = graphMgr.data().stats().valueHistogram(toType);
+                if (!(isBelow || isAbove) || toValues.isEmpty()) return 1;
+                double fraction = 0, weight = 0;
+                for (TypeVertex fromType : fromTypes) {
+                    Histogram fromValues = graphMgr.data().stats().valueHistogram(fromType);
+                    if (fromValues.isEmpty()) return 1;
+                    double below = toValues.fractionBelow(fromValues);
+                    fraction += fromValues.count() * (isBelow ? below : 1 - below);
+                    weight += fromValues.count();
+                }
+                return weight > 0 ? fraction / weight : 1;
+            }
+
+            private static Set<TypeVertex> attributeTypes(GraphManager graphMgr, PlannerVertex.Thing vertex) {
+                return iterate(vertex.props().types()).map(graphMgr.schema()::getType)
+                        .filter(TypeVertex::isAttributeType).toSet();
+            }
         }
     }
 
@@ -1317,6 +1402,62 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
                     return resolvedRoleTypes;
                 }
 
+                /**
+                 * Returns the relation types of the relation vertex, or otherwise every relation type that
+                 * may relate the role types of the edge.
+                 */
+                private Set<TypeVertex> relationTypes(GraphManager graphMgr, PlannerVertex.Thing relation) {
+                    if (!relation.props().types().isEmpty()) {
+                        return iterate(relation.props().types()).map(graphMgr.schema()::getType)
+                                .filter(TypeVertex::isRelationType).toSet();
+                    } else {
+                        return iterate(resolvedRoleTypes(graphMgr.schema()))
+                                .map(rt -> graphMgr.schema().getType(rt.properLabel().scope().get()))
+                                .flatMap(rel -> tree(rel, r -> r.ins().edge(SUB).from())).toSet();
+                    }
+                }
+
+                /**
+                 * Returns whether the role player degrees of the relation types have been counted in the
+                 * background, in which case the edge is costed by them rather than by the counts of its types.
+                 */
+                private boolean isCounted(GraphManager graphMgr, Set<TypeVertex> relationTypes) {
+                    for (TypeVertex relationType : relationTypes) {
+                        for (TypeVertex roleType : resolvedRoleTypes(graphMgr.schema())) {
+                            if (!graphMgr.data().stats().rolePlayerDegrees(relationType, roleType).isEmpty()) return true;
+                        }
+                    }
+                    return false;
+                }
+
+                /**
+                 * Returns the number of players of the role types of the edge in the relations of the relation
+                 * types, from the sums of their role player degree histograms.
+                 */
+                private double rolePlayerSum(GraphManager graphMgr, Set<TypeVertex> relationTypes) {
+                    double sum = 0;
+                    for (TypeVertex relationType : relationTypes) {
+                        for (TypeVertex roleType : resolvedRoleTypes(graphMgr.schema())) {
+                            sum += graphMgr.data().stats().rolePlayerDegrees(relationType, roleType).sum();
+                        }
+                    }
+                    return sum;
+                }
+
+                /**
+                 * Returns the number of distinct players of the role types of the edge in the relations of the
+                 * relation types, from the union of their role player sketches.
+                 */
+                private double distinctPlayers(GraphManager graphMgr, Set<TypeVertex> relationTypes) {
+                    HyperLogLog players = HyperLogLog.create();
+                    for (TypeVertex relationType : relationTypes) {
+                        for (TypeVertex roleType : resolvedRoleTypes(graphMgr.schema())) {
+                            players = players.merge(graphMgr.data().stats().rolePlayerSketch(relationType, roleType));
+                        }
+                    }
+                    return players.estimate();
+                }
+
                 public abstract class Directional extends Thing.Directional {
 
                     Directional(PlannerVertex.Thing from, PlannerVertex.Thing to, Encoding.Direction.Edge direction) {
@@ -1345,6 +1486,10 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
                         double cost = 0;
                         if (isSelfClosure() || to.props().hasIID()) {
                             cost = 1;
+                        } else if (!roleTypes.isEmpty() && isCounted(graphMgr, relationTypes(graphMgr, from))) {
+                            Set<TypeVertex> relationTypes = relationTypes(graphMgr, from);
+                            double div = graphMgr.data().stats().thingVertexSum(relationTypes.stream());
+                            if (div > 0) cost = rolePlayerSum(graphMgr, relationTypes) / div;
                         } else if (!roleTypes.isEmpty()) {
                             cost = 0;
                             for (TypeVertex roleType : resolvedRoleTypes(graphMgr.schema())) {
@@ -1377,6 +1522,13 @@ public abstract class PlannerEdge<VERTEX_FROM extends PlannerVertex<?>, VERTEX_T
                         double cost = 0;
                         if (isSelfClosure() || to.props().hasIID()) {
                             cost = 1;
+                        } else if (!roleTypes.isEmpty() && isCounted(graphMgr, relationTypes(graphMgr, to))) {
+                            // without the types of the players, only the things that play the role types count
+                            Set<TypeVertex> relationTypes = relationTypes(graphMgr, to);
+                            double div = !from.props().types().isEmpty() ?
+                                    graphMgr.data().stats().thingVertexSum(from.props().types()) :
+                                    distinctPlayers(graphMgr, relationTypes);
+                            if (div > 0) cost = rolePlayerSum(graphMgr, relationTypes) / div;
                         } else if (!roleTypes.isEmpty() && !from.props().types().isEmpty()) {
                             double div = graphMgr.data().stats().thingVertexSum(from.props().types());
                             if (div > 0) cost = graphMgr.data().stats().thingVertexSum(roleTypes) / div;
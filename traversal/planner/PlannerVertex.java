@@ -154,7 +154,7 @@ public abstract class PlannerVertex<PROPERTIES extends TraversalVertex.Propertie
         assert !Double.isNaN(cost);
         double exp = planner.edges().size() * planner.costExponentUnit;
         double coeff = cost * Math.pow(planner.branchingFactor, exp);
-        planner.objective().setCoefficient(varIsStartingVertex, coeff);
+        if (planner.strategy().isSolver()) planner.objective().setCoefficient(varIsStartingVertex, coeff);
         costNext = cost;
         planner.updateCostNext(costLastRecorded, costNext);
     }
@@ -174,6 +174,13 @@ public abstract class PlannerVertex<PROPERTIES extends TraversalVertex.Propertie
         assert (isEndingVertex() ^ hasOutgoingEdges());
     }
 
+    void recordResults(boolean isStartingVertex, boolean hasIncomingEdges, boolean hasOutgoingEdges) {
+        varIsStartingVertex_result = isStartingVertex ? 1 : 0;
+        varIsEndingVertex_result = hasOutgoingEdges ? 0 : 1;
+        varHasIncomingEdges_result = hasIncomingEdges ? 1 : 0;
+        varHasOutgoingEdges_result = hasOutgoingEdges ? 1 : 0;
+    }
+
     void resetInitialValue() {
         varIsStartingVertex_init = 0;
         varIsEndingVertex_init = 0;
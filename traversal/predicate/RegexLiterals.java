@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The literal characters of a regular expression that every string it matches must contain, which
+ * {@link ValueRange} and {@link TrigramQuery} use to narrow the attributes that a {@code like}
+ * predicate is applied to. The literals are conservative: any part of the expression that is not
+ * understood ends them, rather than being read as a literal.
+ */
+class RegexLiterals {
+
+    private static final String REGEX_META_CHARACTERS = "\\.[]{}()<>*+-=!?^$|";
+    private static final String REGEX_OPTIONAL_QUANTIFIERS = "*?{";
+
+    /**
+     * Returns the literal characters that every string matched by the given regular expression
+     * starts with, which is empty if the expression does not start with a literal, or may
+     * match alternatives.
+     */
+    static String prefix(String regex) {
+        if (regex.indexOf('|') >= 0) return "";
+        // the whole string is matched, so an anchor at the start changes nothing
+        int start = regex.startsWith("^") ? 1 : 0;
+        return regex.substring(start, literalEnd(regex, start, runEnd(regex, start)));
+    }
+
+    /**
+     * Returns the runs of literal characters that every string matched by the given regular
+     * expression contains. Only the runs outside of groups, before any character class or escape
+     * sequence, are returned, and none are returned if the expression may match alternatives, sets
+     * its own flags or quotes its characters.
+     */
+    static List<String> runs(String regex) {
+        List<String> runs = new ArrayList<>();
+        if (regex.indexOf('|') >= 0 || regex.contains("(?") || regex.contains("\\Q")) return runs;
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (depth == 0 && REGEX_META_CHARACTERS.indexOf(c) < 0) {
+                int end = runEnd(regex, i);
+                int literalEnd = literalEnd(regex, i, end);
+                if (literalEnd > i) runs.add(regex.substring(i, literalEnd));
+                i = end - 1;
+            } else if (c == '[' ||
+                    (c == '\\' && i + 1 < regex.length() && Character.isLetterOrDigit(regex.charAt(i + 1)))) {
+                // character classes and escape sequences are not parsed
+                return runs;
+            } else if (c == '\\') {
+                i++;
+            } else if (c == '{') {
+                while (i < regex.length() && regex.charAt(i) != '}') i++;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && depth > 0) {
+                depth--;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Returns the index of the first meta character of the expression at or after the given index.
+     */
+    private static int runEnd(String regex, int start) {
+        int end = start;
+        while (end < regex.length() && REGEX_META_CHARACTERS.indexOf(regex.charAt(end)) < 0) end++;
+        return end;
+    }
+
+    /**
+     * Returns the end of the literal characters from the given start to the given end of their run,
+     * leaving out the last character if a quantifier may make it optional.
+     */
+    private static int literalEnd(String regex, int start, int end) {
+        if (end < regex.length() && REGEX_OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(end)) >= 0) end--;
+        if (end <= start) return start;
+        // do not split a surrogate pair
+        if (Character.isHighSurrogate(regex.charAt(end - 1))) end--;
+        return end;
+    }
+}
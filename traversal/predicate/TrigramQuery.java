@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.predicate;
+
+import grakn.core.graph.iid.IndexIID;
+import grakn.core.traversal.Traversal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The trigrams that every string attribute must contain to satisfy a set of {@code contains} and
+ * {@code like} predicates, whose postings in the text index of an attribute type can be intersected
+ * instead of scanning every attribute of the type.
+ *
+ * Like {@link ValueRange}, the trigrams are conservative: an attribute that contains all of them
+ * may still not satisfy the predicates, which are applied afterwards, but an attribute that
+ * satisfies the predicates always contains all of them.
+ */
+public class TrigramQuery {
+
+    private final Set<String> trigrams;
+
+    public TrigramQuery() {
+        this.trigrams = new LinkedHashSet<>();
+    }
+
+    public List<String> trigrams() {
+        return new ArrayList<>(trigrams);
+    }
+
+    public boolean isEmpty() {
+        return trigrams.isEmpty();
+    }
+
+    /**
+     * Adds the trigrams that a string attribute must contain to satisfy the given predicate with
+     * the given value.
+     */
+    public void add(Predicate.Value<?> predicate, Traversal.Parameters.Value value) {
+        if (!predicate.operator().isSubString()) return;
+        if (value.isString()) {
+            // contains ignores case, as the folded trigrams of the index do
+            trigrams.addAll(IndexIID.Attribute.Trigram.trigrams(value.getString()));
+        } else if (value.isRegex()) {
+            for (String literal : RegexLiterals.runs(value.getRegex().pattern())) {
+                trigrams.addAll(IndexIID.Attribute.Trigram.trigrams(literal));
+            }
+        }
+    }
+}
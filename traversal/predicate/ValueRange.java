@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.predicate;
+
+import grakn.core.graph.common.Encoding;
+import grakn.core.traversal.Traversal;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+import static grakn.core.common.collection.Bytes.compareBytes;
+import static grakn.core.common.collection.Bytes.dateTimeToBytes;
+import static grakn.core.common.collection.Bytes.doubleToSortedBytes;
+import static grakn.core.common.collection.Bytes.join;
+import static grakn.core.common.collection.Bytes.longToSortedBytes;
+import static grakn.core.graph.common.Encoding.ValueType.DOUBLE_PRECISION;
+import static grakn.core.graph.common.Encoding.ValueType.STRING_ENCODING;
+import static grakn.core.graph.common.Encoding.ValueType.TIME_ZONE_ID;
+import static grakn.core.traversal.predicate.PredicateOperator.Equality.GT;
+import static grakn.core.traversal.predicate.PredicateOperator.Equality.GTE;
+import static grakn.core.traversal.predicate.PredicateOperator.Equality.LT;
+import static grakn.core.traversal.predicate.PredicateOperator.Equality.LTE;
+
+/**
+ * The range of the sorted value bytes of the attributes of one value type that may satisfy a
+ * set of value predicates, which can be sought in the storage instead of scanning every attribute.
+ *
+ * The range is conservative: it may hold attributes that do not satisfy the predicates, which
+ * are still filtered by the predicates afterwards, but never leaves out one that does. Bounds
+ * are therefore always inclusive of the value of the predicate, and are widened by the precision
+ * with which doubles are compared. Predicates that cannot bound the range, such as {@code !=} and
+ * {@code contains}, leave it as it is.
+ */
+public class ValueRange {
+
+    private final Encoding.ValueType valueType;
+    private byte[] lower;
+    private byte[] upper;
+
+    public ValueRange(Encoding.ValueType valueType) {
+        this.valueType = valueType;
+        this.lower = null;
+        this.upper = null;
+    }
+
+    /**
+     * @return the inclusive lower bound of the sorted value bytes, or null if there is none
+     */
+    @Nullable
+    public byte[] lower() {
+        return lower;
+    }
+
+    /**
+     * @return the exclusive upper bound of the sorted value bytes, or null if there is none
+     */
+    @Nullable
+    public byte[] upper() {
+        return upper;
+    }
+
+    public boolean isBounded() {
+        return lower != null || upper != null;
+    }
+
+    /**
+     * Narrows this range to the values that may satisfy the given predicate with the given value.
+     */
+    public void intersect(Predicate.Value<?> predicate, Traversal.Parameters.Value value) {
+        PredicateOperator operator = predicate.operator();
+        if (operator.isSubString()) {
+            if (value.isRegex() && valueType == Encoding.ValueType.STRING) {
+                String prefix = RegexLiterals.prefix(value.getRegex().pattern());
+                if (!prefix.isEmpty()) {
+                    byte[] prefixBytes = prefix.getBytes(STRING_ENCODING);
+                    intersectLower(prefixBytes);
+                    intersectUpper(successorOfPrefix(prefixBytes));
+                }
+            }
+        } else if (operator.equals(GT) || operator.equals(GTE)) {
+            byte[] bound = lowerBound(value);
+            if (bound != null) intersectLower(bound);
+        } else if (operator.equals(LT) || operator.equals(LTE)) {
+            byte[] bound = upperBound(value);
+            if (bound != null) intersectUpper(bound);
+        }
+    }
+
+    @Nullable
+    private byte[] lowerBound(Traversal.Parameters.Value value) {
+        switch (valueType) {
+            case LONG:
+                if (value.isLong()) return longToSortedBytes(value.getLong());
+                else if (value.isDouble() && !Double.isNaN(value.getDouble())) {
+                    double bound = value.getDouble();
+                    // a long is compared to a double after it is converted to a double, which rounds it
+                    return longToSortedBytes(subtractSaturated((long) Math.floor(bound), (long) Math.ceil(Math.ulp(bound))));
+                } else return null;
+            case DOUBLE:
+                if ((value.isLong() || value.isDouble()) && !Double.isNaN(value.getDouble())) {
+                    return doubleToSortedBytes(Math.nextDown(value.getDouble() - DOUBLE_PRECISION));
+                } else return null;
+            case DATETIME:
+                if (value.isDateTime()) return dateTimeToBytes(value.getDateTime(), TIME_ZONE_ID);
+                else return null;
+            case STRING:
+                if (value.isString() && isOrderedAsBytes(value.getString())) return value.getString().getBytes(STRING_ENCODING);
+                else return null;
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private byte[] upperBound(Traversal.Parameters.Value value) {
+        byte[] inclusive;
+        switch (valueType) {
+            case LONG:
+                if (value.isLong()) inclusive = longToSortedBytes(value.getLong());
+                else if (value.isDouble() && !Double.isNaN(value.getDouble())) {
+                    double bound = value.getDouble();
+                    inclusive = longToSortedBytes(addSaturated((long) Math.ceil(bound), (long) Math.ceil(Math.ulp(bound))));
+                } else return null;
+                break;
+            case DOUBLE:
+                if ((value.isLong() || value.isDouble()) && !Double.isNaN(value.getDouble())) {
+                    inclusive = doubleToSortedBytes(Math.nextUp(value.getDouble() + DOUBLE_PRECISION));
+                } else return null;
+                break;
+            case DATETIME:
+                if (value.isDateTime()) inclusive = dateTimeToBytes(value.getDateTime(), TIME_ZONE_ID);
+                else return null;
+                break;
+            case STRING:
+                if (value.isString() && isOrderedAsBytes(value.getString())) {
+                    inclusive = value.getString().getBytes(STRING_ENCODING);
+                } else return null;
+                break;
+            default:
+                return null;
+        }
+        // the smallest key that sorts after the inclusive bound
+        return join(inclusive, new byte[]{0});
+    }
+
+    private void intersectLower(byte[] bound) {
+        if (lower == null || compareBytes(bound, lower) > 0) lower = bound;
+    }
+
+    private void intersectUpper(byte[] bound) {
+        if (upper == null || compareBytes(bound, upper) < 0) upper = bound;
+    }
+
+    /**
+     * Strings are compared by their UTF-16 characters, which sort in the same order as their UTF-8
+     * bytes, unless a surrogate pair is compared to a character above it in the basic plane.
+     */
+    private static boolean isOrderedAsBytes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= Character.MIN_SURROGATE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the smallest key that sorts after every key that starts with the given prefix. UTF-8
+     * never encodes a byte of 0xff, so the last byte of the prefix can always be incremented.
+     */
+    private static byte[] successorOfPrefix(byte[] prefix) {
+        byte[] successor = Arrays.copyOf(prefix, prefix.length);
+        assert successor[successor.length - 1] != (byte) 0xff;
+        successor[successor.length - 1]++;
+        return successor;
+    }
+
+    private static long addSaturated(long value, long delta) {
+        long result = value + delta;
+        return ((value ^ result) & (delta ^ result)) < 0 ? Long.MAX_VALUE : result;
+    }
+
+    private static long subtractSaturated(long value, long delta) {
+        long result = value - delta;
+        return ((value ^ delta) & (value ^ result)) < 0 ? Long.MIN_VALUE : result;
+    }
+}
@@ -19,6 +19,7 @@
 package grakn.core.traversal.procedure;
 
 import grakn.core.common.exception.GraknException;
+import grakn.core.common.iterator.AbstractResourceIterator;
 import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Label;
 import grakn.core.concurrent.common.ConcurrentSet;
@@ -28,6 +29,7 @@ import grakn.core.traversal.Traversal;
 import grakn.core.traversal.common.Identifier;
 import grakn.core.traversal.common.VertexMap;
 import grakn.core.traversal.iterator.GraphIterator;
+import grakn.core.traversal.planner.CardinalityFeedback;
 import grakn.core.traversal.planner.GraphPlanner;
 import grakn.core.traversal.planner.PlannerEdge;
 import grakn.core.traversal.planner.PlannerVertex;
@@ -36,6 +38,7 @@ import graql.lang.pattern.variable.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -44,6 +47,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 import static grakn.core.common.exception.ErrorMessage.Internal.ILLEGAL_STATE;
@@ -56,18 +61,46 @@ public class GraphProcedure implements Procedure {
 
     private final Map<Identifier, ProcedureVertex<?, ?>> vertices;
     private final ProcedureEdge<?, ?>[] edges;
+    private final CardinalityFeedback.FanOut[] fanOuts;
+    private final Map<Integer, List<ProcedureEdge<?, ?>>> intersectedClosures;
+    private final Set<Integer> intersectedClosureOrders;
+    private final long version;
+    private final long snapshot;
+    private final long statisticsCurrentAsOf;
+    private final double cost;
+    private final LongAdder executions;
+    private final LongAdder executionNanos;
+    private final LongAdder closureBatches;
     private ProcedureVertex<?, ?> startVertex;
 
     private GraphProcedure(int edgeSize) {
-        vertices = new HashMap<>();
-        edges = new ProcedureEdge<?, ?>[edgeSize];
+        this(edgeSize, 0L, -1L, -1L, Double.NaN);
     }
 
-    public static GraphProcedure create(GraphPlanner planner) {
-        GraphProcedure procedure = new GraphProcedure(planner.edges().size());
+    private GraphProcedure(int edgeSize, long version, long snapshot, long statisticsCurrentAsOf, double cost) {
+        this.vertices = new HashMap<>();
+        this.edges = new ProcedureEdge<?, ?>[edgeSize];
+        this.fanOuts = new CardinalityFeedback.FanOut[edgeSize];
+        this.intersectedClosures = new HashMap<>();
+        this.intersectedClosureOrders = new HashSet<>();
+        this.version = version;
+        this.snapshot = snapshot;
+        this.statisticsCurrentAsOf = statisticsCurrentAsOf;
+        this.cost = cost;
+        this.executions = new LongAdder();
+        this.executionNanos = new LongAdder();
+        this.closureBatches = new LongAdder();
+    }
+
+    public static GraphProcedure create(GraphPlanner planner, long version) {
+        GraphProcedure procedure = new GraphProcedure(
+                planner.edges().size(), version, planner.snapshot(), planner.statisticsCurrentAsOf(), planner.cost()
+        );
         Set<PlannerVertex<?>> registeredVertices = new HashSet<>();
         Set<PlannerEdge.Directional<?, ?>> registeredEdges = new HashSet<>();
         planner.vertices().forEach(vertex -> procedure.registerVertex(vertex, registeredVertices, registeredEdges));
+        registeredEdges.forEach(edge -> procedure.fanOuts[edge.orderNumber() - 1] = planner.feedback().fanOut(edge));
+        if (planner.isCyclic()) procedure.registerIntersections();
         return procedure;
     }
 
@@ -76,6 +109,75 @@ public class GraphProcedure implements Procedure {
         return procedure.new Builder();
     }
 
+    /**
+     * Returns the version of this procedure amongst the procedures that its planner has created.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the snapshot of the statistics that this procedure was planned with.
+     */
+    public long snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the commit as of which the statistics that this procedure was planned with were exact.
+     */
+    public long statisticsCurrentAsOf() {
+        return statisticsCurrentAsOf;
+    }
+
+    /**
+     * Returns the cost that the planner estimated this procedure to have, with the statistics that it was
+     * planned with, or NaN if it was not planned.
+     */
+    public double cost() {
+        return cost;
+    }
+
+    /**
+     * Returns the number of executions of this procedure that have produced every one of their answers.
+     */
+    public long executions() {
+        return executions.sum();
+    }
+
+    /**
+     * Returns the mean time, in nanoseconds, that an execution of this procedure spends traversing the graph,
+     * or NaN if no execution has produced every one of its answers yet.
+     */
+    public double meanExecutionNanos() {
+        long count = executions.sum();
+        if (count == 0) return Double.NaN;
+        else return (double) executionNanos.sum() / count;
+    }
+
+    /**
+     * Records an execution of this procedure that has produced every one of its answers.
+     */
+    public void recordExecution(long nanos) {
+        executionNanos.add(nanos);
+        executions.increment();
+    }
+
+    /**
+     * Returns the number of batches of candidate vertices whose closure edges the executions of this procedure
+     * have checked at once, rather than one candidate at a time.
+     */
+    public long closureBatches() {
+        return closureBatches.sum();
+    }
+
+    /**
+     * Records a batch of candidate vertices whose closure edge has been checked at once.
+     */
+    public void recordClosureBatch() {
+        closureBatches.increment();
+    }
+
     public Stream<ProcedureVertex<?, ?>> vertices() {
         return vertices.values().stream();
     }
@@ -100,6 +202,56 @@ public class GraphProcedure implements Procedure {
         return edges.length;
     }
 
+    /**
+     * Returns the fan-out observed for the edge at the given position by the iterators of the procedures
+     * planned for the same plan shape, or nothing if this procedure was not created by a planner.
+     */
+    @Nullable
+    public CardinalityFeedback.FanOut fanOut(int pos) {
+        return fanOuts[pos - 1];
+    }
+
+    /**
+     * Returns the closure edges whose vertices are intersected by the edge at the given position, which branches
+     * only to the vertices that close every one of them, or nothing if the edge branches to every vertex it reaches.
+     */
+    @Nullable
+    public List<ProcedureEdge<?, ?>> intersectedClosures(int pos) {
+        return intersectedClosures.get(pos);
+    }
+
+    /**
+     * Returns whether the closure edge at the given position is always closed by the vertices that the
+     * procedure reaches, as the edge that branches to the vertex at one end of it intersects it.
+     */
+    public boolean isIntersected(int pos) {
+        return intersectedClosureOrders.contains(pos);
+    }
+
+    /**
+     * Registers the closure edges of cycles that the edge that branches to the vertex at one end of each closure
+     * can intersect, which is when the vertex at the other end is bound before that branch, and both edges are
+     * sorted by the IIDs of the vertex that they share. Branches to scoped roles and role players are never
+     * intersected, as role player edges are sorted by the role instances that they compress.
+     */
+    private void registerIntersections() {
+        for (ProcedureEdge<?, ?> closure : edges) {
+            if (!closure.isClosureEdge() || !closure.isIntersectable()) continue;
+            int fromOrder = bindingOrder(closure.from()), toOrder = bindingOrder(closure.to());
+            if (fromOrder == toOrder) continue;
+            ProcedureEdge<?, ?> branch = edge(Math.max(fromOrder, toOrder));
+            if (!branch.isIntersectable() || branch.to().id().isScoped() || branch.to().asThing().props().hasIID()) {
+                continue;
+            }
+            intersectedClosures.computeIfAbsent(branch.order(), o -> new ArrayList<>()).add(closure);
+            intersectedClosureOrders.add(closure.order());
+        }
+    }
+
+    private static int bindingOrder(ProcedureVertex<?, ?> vertex) {
+        return vertex.isStartingVertex() ? 0 : vertex.branchEdge().order();
+    }
+
     private void registerVertex(PlannerVertex<?> plannerVertex, Set<PlannerVertex<?>> registeredVertices,
                                 Set<PlannerEdge.Directional<?, ?>> registeredEdges) {
         if (registeredVertices.contains(plannerVertex)) return;
@@ -174,8 +326,12 @@ public class GraphProcedure implements Procedure {
         LOG.debug(this.toString());
         assertWithinFilterBounds(filter);
         ConcurrentSet<VertexMap> produced = new ConcurrentSet<>();
-        ResourceIterator<ResourceIterator<VertexMap>> iterators = startVertex().iterator(graphMgr, params)
-                .map(v -> new GraphIterator(graphMgr, v, this, params, filter).distinct(produced));
+        Execution execution = new Execution();
+        ResourceIterator<ResourceIterator<VertexMap>> iterators = execution.track(
+                startVertex().iterator(graphMgr, params).map(v -> execution.time(
+                        new GraphIterator(graphMgr, v, this, params, filter).distinct(produced)
+                ))
+        );
         return async(iterators, parallelisation);
     }
 
@@ -185,9 +341,9 @@ public class GraphProcedure implements Procedure {
         LOG.debug(params.toString());
         LOG.debug(this.toString());
         assertWithinFilterBounds(filter);
-        return startVertex().iterator(graphMgr, params).flatMap(
+        return new Execution().time(startVertex().iterator(graphMgr, params).flatMap(
                 sv -> new GraphIterator(graphMgr, sv, this, params, filter)
-        ).distinct();
+        ).distinct());
     }
 
     @Override
@@ -211,6 +367,67 @@ public class GraphProcedure implements Procedure {
         return str.toString();
     }
 
+    /**
+     * Measures the time that one execution of this procedure spends in the iterators that traverse the graph,
+     * which may be run on several threads, and records it once every one of them has been consumed. Executions
+     * that are abandoned before producing all of their answers are not recorded, as their cost is not comparable.
+     */
+    private class Execution {
+
+        private final AtomicInteger unconsumed;
+        private final LongAdder nanos;
+
+        private Execution() {
+            unconsumed = new AtomicInteger(0);
+            nanos = new LongAdder();
+        }
+
+        private <T> ResourceIterator<T> track(ResourceIterator<T> iterator) {
+            unconsumed.incrementAndGet();
+            return iterator.onConsumed(this::consumed);
+        }
+
+        private <T> ResourceIterator<T> time(ResourceIterator<T> iterator) {
+            return track(new TimedIterator<>(iterator, nanos));
+        }
+
+        private void consumed() {
+            if (unconsumed.decrementAndGet() == 0) recordExecution(nanos.sum());
+        }
+    }
+
+    private static class TimedIterator<T> extends AbstractResourceIterator<T> {
+
+        private final ResourceIterator<T> iterator;
+        private final LongAdder nanos;
+
+        private TimedIterator(ResourceIterator<T> iterator, LongAdder nanos) {
+            this.iterator = iterator;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            boolean hasNext = iterator.hasNext();
+            nanos.add(System.nanoTime() - start);
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            long start = System.nanoTime();
+            T next = iterator.next();
+            nanos.add(System.nanoTime() - start);
+            return next;
+        }
+
+        @Override
+        public void recycle() {
+            iterator.recycle();
+        }
+    }
+
     public class Builder { // TODO: to be completed
 
         public GraphProcedure build() {
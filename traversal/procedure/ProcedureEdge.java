@@ -23,6 +23,7 @@ import grakn.core.common.iterator.ResourceIterator;
 import grakn.core.common.parameters.Label;
 import grakn.core.graph.GraphManager;
 import grakn.core.graph.SchemaGraph;
+import grakn.core.graph.adjacency.ThingAdjacency;
 import grakn.core.graph.common.Encoding;
 import grakn.core.graph.edge.ThingEdge;
 import grakn.core.graph.edge.TypeEdge;
@@ -36,10 +37,13 @@ import grakn.core.traversal.Traversal;
 import grakn.core.traversal.common.Identifier;
 import grakn.core.traversal.graph.TraversalEdge;
 import grakn.core.traversal.iterator.GraphIterator;
+import grakn.core.traversal.iterator.LeapfrogIterator;
 import grakn.core.traversal.planner.PlannerEdge;
 import graql.lang.common.GraqlToken;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -107,6 +111,60 @@ public abstract class ProcedureEdge<
     public abstract boolean isClosure(GraphManager graphMgr, Vertex<?, ?> fromVertex, Vertex<?, ?> toVertex,
                                       Traversal.Parameters params);
 
+    /**
+     * Returns whether each of a batch of candidate vertices closes this edge with a fixed vertex
+     * at its other end. Edges that return true for {@link #hasBatchedClosure()} check the whole
+     * batch at once, and the rest check each candidate on its own.
+     *
+     * @param fixedVertex       the vertex at the end of the edge that is the same for every candidate
+     * @param candidates        the vertices to check at the other end of the edge
+     * @param candidatesAreFrom whether the candidates are at the {@code from} end of the edge, or at its {@code to} end
+     * @return whether each candidate closes the edge, in the order of {@code candidates}
+     */
+    public boolean[] isClosures(GraphManager graphMgr, Vertex<?, ?> fixedVertex,
+                                List<? extends Vertex<?, ?>> candidates, boolean candidatesAreFrom,
+                                Traversal.Parameters params) {
+        boolean[] isClosures = new boolean[candidates.size()];
+        for (int i = 0; i < isClosures.length; i++) {
+            Vertex<?, ?> candidate = candidates.get(i);
+            if (candidatesAreFrom) isClosures[i] = isClosure(graphMgr, candidate, fixedVertex, params);
+            else isClosures[i] = isClosure(graphMgr, fixedVertex, candidate, params);
+        }
+        return isClosures;
+    }
+
+    public boolean hasBatchedClosure() { return false; }
+
+    /**
+     * Returns whether the vertices that this edge branches to can be intersected, in the order of their IIDs,
+     * with the vertices that closure edges into the same vertex are adjacent to.
+     */
+    public boolean isIntersectable() { return false; }
+
+    /**
+     * Returns the vertices that this edge connects the fixed vertex to, sorted by their IIDs.
+     *
+     * @param fixedVertex      the vertex at the end of the edge that is bound
+     * @param adjacentsAreFrom whether the vertices returned are at the {@code from} end of the edge
+     */
+    ThingAdjacency.SortedIterator sortedAdjacents(Vertex<?, ?> fixedVertex, boolean adjacentsAreFrom) {
+        throw GraknException.of(ILLEGAL_OPERATION);
+    }
+
+    /**
+     * Branches from the vertex to the vertices that also close every one of the closure edges, which are
+     * intersectable edges into the {@code to} vertex of this edge, with the fixed vertices at their other ends.
+     *
+     * @param closures       the closure edges, which all end at the {@code to} vertex of this edge at one end
+     * @param fixedVertices  the vertices bound at the other end of each closure edge, in the order of {@code closures}
+     */
+    public ResourceIterator<? extends Vertex<?, ?>> branchIntersection(GraphManager graphMgr, Vertex<?, ?> fromVertex,
+                                                                       List<ProcedureEdge<?, ?>> closures,
+                                                                       List<Vertex<?, ?>> fixedVertices,
+                                                                       Traversal.Parameters params) {
+        throw GraknException.of(ILLEGAL_OPERATION);
+    }
+
     public int order() {
         return order;
     }
@@ -236,6 +294,10 @@ public abstract class ProcedureEdge<
             this.encoding = encoding;
         }
 
+        Encoding.Edge encoding() {
+            return encoding;
+        }
+
         static Native<?, ?> of(ProcedureVertex<?, ?> from, ProcedureVertex<?, ?> to,
                                PlannerEdge.Native.Directional<?, ?> edge) {
             boolean isForward = edge.direction().isForward();
@@ -679,6 +741,61 @@ public abstract class ProcedureEdge<
                 super(from, to, order, direction, encoding);
             }
 
+            @Override
+            public boolean hasBatchedClosure() { return true; }
+
+            @Override
+            public boolean isIntersectable() { return true; }
+
+            @Override
+            ThingAdjacency.SortedIterator sortedAdjacents(Vertex<?, ?> fixedVertex, boolean adjacentsAreFrom) {
+                ThingVertex fixed = fixedVertex.asThing();
+                if (direction().isForward() != adjacentsAreFrom) {
+                    return fixed.outs().sortedAdjacents(encoding().asThing());
+                } else {
+                    return fixed.ins().sortedAdjacents(encoding().asThing());
+                }
+            }
+
+            /**
+             * Intersects the adjacency of the vertex with the adjacencies of the fixed vertices with the leapfrog
+             * join, which seeks each adjacency past the vertices that the others do not share, rather than
+             * branching to every vertex of this edge and checking each closure edge of each in turn.
+             */
+            @Override
+            public ResourceIterator<? extends Vertex<?, ?>> branchIntersection(GraphManager graphMgr,
+                                                                               Vertex<?, ?> fromVertex,
+                                                                               List<ProcedureEdge<?, ?>> closures,
+                                                                               List<Vertex<?, ?>> fixedVertices,
+                                                                               Traversal.Parameters params) {
+                assert closures.size() == fixedVertices.size() && !to.props().hasIID();
+                List<ThingAdjacency.SortedIterator> iterators = new ArrayList<>(closures.size() + 1);
+                iterators.add(sortedAdjacents(fromVertex, false));
+                for (int i = 0; i < closures.size(); i++) {
+                    ProcedureEdge<?, ?> closure = closures.get(i);
+                    iterators.add(closure.sortedAdjacents(fixedVertices.get(i), closure.from().equals(to)));
+                }
+                return to.filter(new LeapfrogIterator(iterators), params);
+            }
+
+            /**
+             * Looks up the edges between the fixed vertex and every candidate at once, from the adjacency
+             * of the fixed vertex, as the closures of a single candidate are looked up by their edge IIDs.
+             */
+            @Override
+            public boolean[] isClosures(GraphManager graphMgr, Vertex<?, ?> fixedVertex,
+                                        List<? extends Vertex<?, ?>> candidates, boolean candidatesAreFrom,
+                                        Traversal.Parameters params) {
+                ThingVertex fixed = fixedVertex.asThing();
+                List<ThingVertex> adjacents = new ArrayList<>(candidates.size());
+                for (Vertex<?, ?> candidate : candidates) adjacents.add(candidate.asThing());
+                if (direction().isForward() != candidatesAreFrom) {
+                    return fixed.outs().hasEdges(encoding().asThing(), adjacents);
+                } else {
+                    return fixed.ins().hasEdges(encoding().asThing(), adjacents);
+                }
+            }
+
             static Native.Thing of(ProcedureVertex.Thing from, ProcedureVertex.Thing to,
                                    PlannerEdge.Native.Thing.Directional edge) {
                 boolean isForward = edge.direction().isForward();
@@ -990,6 +1107,24 @@ public abstract class ProcedureEdge<
                     throw GraknException.of(ILLEGAL_OPERATION);
                 }
 
+                @Override
+                public boolean[] isClosures(GraphManager graphMgr, Vertex<?, ?> fixedVertex,
+                                            List<? extends Vertex<?, ?>> candidates, boolean candidatesAreFrom,
+                                            Traversal.Parameters params) {
+                    throw GraknException.of(ILLEGAL_OPERATION);
+                }
+
+                /**
+                 * Role player closures are scoped by the roles that the relation has already matched, and their
+                 * edges are keyed by the role instances that they compress, so they are never batched by IID,
+                 * nor intersected in the order of the IIDs of the vertices that they connect to.
+                 */
+                @Override
+                public boolean hasBatchedClosure() { return false; }
+
+                @Override
+                public boolean isIntersectable() { return false; }
+
                 @Override
                 public boolean isRolePlayer() { return true; }
 
@@ -1030,11 +1165,9 @@ public abstract class ProcedureEdge<
                                 filteredIID = true;
                                 ThingVertex player = graphMgr.data().get(params.getIID(to.id().asVariable()));
                                 if (player == null) return empty();
-                                // TODO: the following code can be optimised if we have an API to directly get the
-                                //       roleplayer edge when we have the roleplayer vertex
                                 iter = resolveRoleTypesIter.flatMap(
-                                        rt -> rel.outs().edge(ROLEPLAYER, rt.iid(), player.iid().prefix(), player.iid().type()).get()
-                                ).filter(e -> e.to().equals(player));
+                                        rt -> rel.outs().edge(ROLEPLAYER, player, rt.iid()).get()
+                                );
                             } else if (!to.props().types().isEmpty()) {
                                 filteredTypes = true;
                                 iter = resolveRoleTypesIter.flatMap(
@@ -1061,12 +1194,12 @@ public abstract class ProcedureEdge<
                         Optional<ThingEdge> validEdge;
                         if (!roleTypes.isEmpty()) {
                             validEdge = iterate(resolvedRoleTypes(graphMgr.schema())).flatMap(
-                                    rt -> rel.outs().edge(ROLEPLAYER, rt.iid(), player.iid().prefix(), player.iid().type()).get()
-                                            .filter(e -> e.to().equals(player) && !scoped.contains(e.optimised().get())))
-                                    .first();
+                                    rt -> rel.outs().edge(ROLEPLAYER, player, rt.iid()).get()
+                                            .filter(e -> !scoped.contains(e.optimised().get()))
+                            ).first();
                         } else {
                             validEdge = rel.outs().edge(ROLEPLAYER).get().filter(
-                                    e -> e.to().equals(player) && !scoped.contains(e.optimised().get())
+                                    e -> e.toIID().equals(player.iid()) && !scoped.contains(e.optimised().get())
                             ).first();
                         }
                         validEdge.ifPresent(e -> scoped.record(e.optimised().get(), order()));
@@ -1096,8 +1229,8 @@ public abstract class ProcedureEdge<
                                 ThingVertex relation = graphMgr.data().get(params.getIID(to.id().asVariable()));
                                 if (relation == null) return empty();
                                 iter = resolveRoleTypesIter.flatMap(
-                                        rt -> player.ins().edge(ROLEPLAYER, rt.iid(), relation.iid().prefix(), relation.iid().type())
-                                                .get().filter(r -> r.from().equals(relation)));
+                                        rt -> player.ins().edge(ROLEPLAYER, relation, rt.iid()).get()
+                                );
                             } else if (!to.props().types().isEmpty()) {
                                 filteredTypes = true;
                                 iter = resolveRoleTypesIter.flatMap(
@@ -1122,12 +1255,12 @@ public abstract class ProcedureEdge<
                         Optional<ThingEdge> validEdge;
                         if (!roleTypes.isEmpty()) {
                             validEdge = iterate(resolvedRoleTypes(graphMgr.schema())).flatMap(
-                                    rt -> player.ins().edge(ROLEPLAYER, rt.iid(), rel.iid().prefix(), rel.iid().type()).get()
-                                            .filter(e -> e.from().equals(rel) && !scoped.contains(e.optimised().get())))
-                                    .first();
+                                    rt -> player.ins().edge(ROLEPLAYER, rel, rt.iid()).get()
+                                            .filter(e -> !scoped.contains(e.optimised().get()))
+                            ).first();
                         } else {
                             validEdge = player.ins().edge(ROLEPLAYER).get().filter(
-                                    e -> e.from().equals(rel) && !scoped.contains(e.optimised().get())
+                                    e -> e.fromIID().equals(rel.iid()) && !scoped.contains(e.optimised().get())
                             ).first();
                         }
                         validEdge.ifPresent(e -> scoped.record(e.optimised().get(), order()));
@@ -24,6 +24,7 @@ import grakn.core.common.parameters.Label;
 import grakn.core.graph.GraphManager;
 import grakn.core.graph.common.Encoding;
 import grakn.core.graph.edge.ThingEdge;
+import grakn.core.graph.iid.VertexIID;
 import grakn.core.graph.vertex.AttributeVertex;
 import grakn.core.graph.vertex.ThingVertex;
 import grakn.core.graph.vertex.TypeVertex;
@@ -32,6 +33,8 @@ import grakn.core.traversal.Traversal;
 import grakn.core.traversal.common.Identifier;
 import grakn.core.traversal.graph.TraversalVertex;
 import grakn.core.traversal.predicate.Predicate;
+import grakn.core.traversal.predicate.TrigramQuery;
+import grakn.core.traversal.predicate.ValueRange;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
@@ -53,6 +56,7 @@ import static grakn.core.common.iterator.Iterators.link;
 import static grakn.core.common.iterator.Iterators.single;
 import static grakn.core.common.iterator.Iterators.tree;
 import static grakn.core.graph.common.Encoding.Edge.Type.SUB;
+import static grakn.core.graph.common.Encoding.ValueType.DOUBLE;
 import static grakn.core.graph.common.Encoding.ValueType.STRING;
 import static grakn.core.graph.common.Encoding.Vertex.Thing.ROLE;
 import static grakn.core.traversal.predicate.PredicateOperator.Equality.EQ;
@@ -194,7 +198,7 @@ public abstract class ProcedureVertex<
                 } else {
                     attTypes = tree(graph.schema().rootAttributeType(), a -> a.ins().edge(SUB).from());
                 }
-                iter = attTypes.flatMap(t -> graph.data().get(t)).map(ThingVertex::asAttribute);
+                iter = attTypes.flatMap(t -> iterateOfType(graph, t, parameters)).map(ThingVertex::asAttribute);
             }
 
             if (props().predicates().isEmpty()) return iter;
@@ -222,13 +226,47 @@ public abstract class ProcedureVertex<
             if (eq.isPresent()) iter = iteratorOfAttributesWithTypes(graphMgr, parameters, eq.get());
             else iter = iterate(props().types().iterator())
                     .map(l -> assertTypeNotNull(graphMgr.schema().getType(l), l))
-                    .flatMap(t -> graphMgr.data().get(t));
+                    .flatMap(t -> iterateOfType(graphMgr, t, parameters));
 
             if (id().isVariable()) iter = filterReferableThings(iter);
             if (props().predicates().isEmpty()) return iter;
             else return filterPredicates(filterAttributes(iter), parameters, eq.orElse(null));
         }
 
+        /**
+         * Returns the instances of a type, or of an attribute type, only the range of its
+         * attributes that may satisfy the range and prefix predicates of this vertex. Failing
+         * that, the attributes of a text indexed type are narrowed to those that contain the
+         * trigrams of its {@code contains} and {@code like} predicates.
+         */
+        private ResourceIterator<ThingVertex> iterateOfType(GraphManager graphMgr, TypeVertex type,
+                                                            Traversal.Parameters parameters) {
+            if (props().predicates().isEmpty() || !type.isAttributeType()) return graphMgr.data().get(type);
+            ValueRange range = new ValueRange(type.valueType());
+            TrigramQuery trigrams = new TrigramQuery();
+            for (Predicate.Value<?> predicate : props().predicates()) {
+                for (Traversal.Parameters.Value value : parameters.getValues(id().asVariable(), predicate)) {
+                    range.intersect(predicate, value);
+                    trigrams.add(predicate, value);
+                }
+            }
+            if (!range.isBounded()) {
+                if (type.isTextIndexed() && !trigrams.isEmpty()) {
+                    return graphMgr.data().getByTrigrams(type, trigrams.trigrams()).map(att -> att);
+                }
+                return graphMgr.data().get(type);
+            }
+
+            ResourceIterator<ThingVertex> iter = graphMgr.data().getInRange(type, range.lower(), range.upper())
+                    .map(att -> att);
+            if (type.valueType() == DOUBLE) {
+                // the sorted bytes of -0.0 sort before every negative double, so it is looked up on its own
+                ThingVertex negativeZero = graphMgr.data().get(type, -0.0d);
+                if (negativeZero != null) iter = iter.link(single(negativeZero)).distinct();
+            }
+            return iter;
+        }
+
         ResourceIterator<? extends ThingVertex> filterReferableThings(ResourceIterator<? extends ThingVertex> iterator) {
             assert id().isVariable();
             return iterator.filter(v -> !v.encoding().equals(ROLE));
@@ -241,8 +279,8 @@ public abstract class ProcedureVertex<
 
         ResourceIterator<ThingEdge> filterIIDOnEdge(ResourceIterator<ThingEdge> iterator,
                                                     Traversal.Parameters parameters, boolean isForward) {
-            Function<ThingEdge, ThingVertex> fn = e -> isForward ? e.to() : e.from();
-            return iterator.filter(e -> fn.apply(e).iid().equals(parameters.getIID(id().asVariable())));
+            Function<ThingEdge, VertexIID.Thing> fn = e -> isForward ? e.toIID() : e.fromIID();
+            return iterator.filter(e -> fn.apply(e).equals(parameters.getIID(id().asVariable())));
         }
 
         ResourceIterator<? extends ThingVertex> filterTypes(ResourceIterator<? extends ThingVertex> iterator) {
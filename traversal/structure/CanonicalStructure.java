@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2021 Grakn Labs
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package grakn.core.traversal.structure;
+
+import grakn.core.traversal.common.Identifier;
+import grakn.core.traversal.common.VertexMap;
+import grakn.core.traversal.graph.TraversalVertex;
+import graql.lang.pattern.variable.Reference;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A structure whose variables are renamed by a canonical labelling of its vertices, so that
+ * structures which only differ by the names of their variables are equal, and share one plan.
+ *
+ * The vertices are coloured by their kind, identifier and properties, and the colours are refined
+ * by the edges to their neighbours and the colours of those, until no colour is split any further.
+ * Vertices that still share a colour are tried in turn as the first of their colour, and the
+ * labelling whose vertices and edges encode to the least certificate is chosen, trying at most
+ * {@link #MAX_LABELLINGS} labellings of highly symmetric structures. Named, anonymous and scoped
+ * variables are renamed by their position in the labelling, whereas labels are kept as they are.
+ *
+ * The canonical structure is only used to look up and plan a procedure: the parameters and filter
+ * of a traversal are renamed onto the canonical variables to run the procedure, and its answers
+ * are renamed back onto the original variables.
+ */
+public class CanonicalStructure {
+
+    private static final int MAX_LABELLINGS = 64;
+    private static final String NAME_PREFIX = "v";
+
+    private final Structure structure;
+    private final Map<Identifier.Variable, Identifier.Variable> canonicalVariables;
+    private final Map<Reference, Reference> originalReferences;
+
+    private CanonicalStructure(Structure structure, Map<Identifier.Variable, Identifier.Variable> canonicalVariables,
+                               Map<Reference, Reference> originalReferences) {
+        this.structure = structure;
+        this.canonicalVariables = canonicalVariables;
+        this.originalReferences = originalReferences;
+    }
+
+    public static CanonicalStructure of(Structure original) {
+        List<StructureVertex<?>> vertices = new ArrayList<>(original.vertices());
+        Labeller labeller = new Labeller(vertices);
+        int[] labelling = labeller.labelling();
+
+        StructureVertex<?>[] ordered = new StructureVertex<?>[vertices.size()];
+        for (int i = 0; i < vertices.size(); i++) ordered[labelling[i]] = vertices.get(i);
+
+        Map<Identifier, Identifier> identifiers = new HashMap<>();
+        Map<Identifier.Variable, Identifier.Variable> canonicalVariables = new HashMap<>();
+        Map<Reference, Reference> originalReferences = new HashMap<>();
+        for (int position = 0; position < ordered.length; position++) {
+            Identifier id = ordered[position].id();
+            if (!id.isVariable()) continue;
+            Identifier.Variable canonical;
+            if (id.isName()) canonical = Identifier.Variable.name(NAME_PREFIX + position);
+            else if (id.isAnonymous()) canonical = Identifier.Variable.anon(position);
+            else canonical = id.asVariable();
+            identifiers.put(id, canonical);
+            canonicalVariables.put(id.asVariable(), canonical);
+            if (id.isName()) originalReferences.put(canonical.reference(), id.asVariable().reference());
+        }
+        // scoped identifiers are renamed once the variables that they are scoped by are renamed
+        for (int position = 0; position < ordered.length; position++) {
+            Identifier id = ordered[position].id();
+            if (!id.isScoped()) continue;
+            Identifier.Scoped scoped = id.asScoped();
+            identifiers.put(id, Identifier.Scoped.of(
+                    canonicalVariables.getOrDefault(scoped.scope(), scoped.scope()),
+                    canonicalVariables.getOrDefault(scoped.roleType(), scoped.roleType()),
+                    canonicalVariables.getOrDefault(scoped.player(), scoped.player()),
+                    position
+            ));
+        }
+
+        Structure structure = new Structure();
+        Map<Identifier, StructureVertex<?>> canonicalVertices = new HashMap<>();
+        for (StructureVertex<?> vertex : ordered) {
+            Identifier id = identifiers.get(vertex.id());
+            TraversalVertex.Properties props;
+            if (vertex.isThing()) {
+                StructureVertex.Thing thing = structure.thingVertex(id);
+                thing.props(vertex.asThing().props());
+                props = thing.props();
+                canonicalVertices.put(id, thing);
+            } else {
+                StructureVertex.Type type = structure.typeVertex(id);
+                type.props(vertex.asType().props());
+                props = type.props();
+                canonicalVertices.put(id, type);
+            }
+            if (id.isVariable()) structure.properties.put(id.asVariable(), props);
+        }
+        for (StructureEdge<?, ?> edge : original.edges()) {
+            StructureVertex<?> from = canonicalVertices.get(identifiers.get(edge.from().id()));
+            StructureVertex<?> to = canonicalVertices.get(identifiers.get(edge.to().id()));
+            if (edge.isEqual()) {
+                structure.equalEdge(from, to);
+            } else if (edge.isPredicate()) {
+                structure.predicateEdge(from.asThing(), to.asThing(), edge.asPredicate().predicate());
+            } else if (edge.asNative().isRolePlayer()) {
+                StructureEdge.Native.RolePlayer rolePlayer = edge.asNative().asRolePlayer();
+                structure.rolePlayer(from.asThing(), to.asThing(), rolePlayer.types(), rolePlayer.repetition());
+            } else {
+                structure.nativeEdge(from, to, edge.asNative().encoding(), edge.asNative().isTransitive());
+            }
+        }
+        return new CanonicalStructure(structure, canonicalVariables, originalReferences);
+    }
+
+    public Structure structure() {
+        return structure;
+    }
+
+    /**
+     * Returns the canonical variable that the given variable is renamed to, or null if it is not in the structure.
+     */
+    @Nullable
+    public Identifier.Variable canonical(Identifier.Variable variable) {
+        return canonicalVariables.get(variable);
+    }
+
+    public List<Identifier.Variable.Name> canonical(List<Identifier.Variable.Name> filter) {
+        List<Identifier.Variable.Name> canonicalFilter = new ArrayList<>();
+        for (Identifier.Variable.Name name : filter) {
+            Identifier.Variable canonical = canonicalVariables.get(name);
+            if (canonical != null) canonicalFilter.add(canonical.asName());
+        }
+        return canonicalFilter;
+    }
+
+    public VertexMap original(VertexMap answer) {
+        return answer.remap(originalReferences);
+    }
+
+    /**
+     * Labels the vertices of a structure by refining their colours, and individualising vertices
+     * that share a colour, in the manner of the canonical labelling of graphs.
+     */
+    private static class Labeller {
+
+        private final List<StructureVertex<?>> vertices;
+        private final Map<StructureVertex<?>, Integer> positions;
+        private final long[][] signatures;
+        private final long[][][] neighbours;
+        private long[] bestCertificate;
+        private int[] bestLabelling;
+        private int labellings;
+
+        private Labeller(List<StructureVertex<?>> vertices) {
+            this.vertices = vertices;
+            this.positions = new HashMap<>();
+            for (int i = 0; i < vertices.size(); i++) positions.put(vertices.get(i), i);
+            this.signatures = new long[vertices.size()][];
+            this.neighbours = new long[vertices.size()][][];
+            for (int i = 0; i < vertices.size(); i++) {
+                StructureVertex<?> vertex = vertices.get(i);
+                signatures[i] = signature(vertex);
+                List<long[]> adjacent = new ArrayList<>();
+                // each neighbour is the direction of the edge, the signature of the edge, and the neighbour
+                vertex.outs().forEach(e -> adjacent.add(new long[]{0, signature(e), positions.get(e.to())}));
+                vertex.ins().forEach(e -> adjacent.add(new long[]{1, signature(e), positions.get(e.from())}));
+                neighbours[i] = adjacent.toArray(new long[0][]);
+            }
+            this.labellings = 0;
+        }
+
+        private int[] labelling() {
+            search(refine(rank(signatures)));
+            return bestLabelling;
+        }
+
+        private void search(int[] colours) {
+            if (labellings >= MAX_LABELLINGS) return;
+            int cell = firstNonSingletonCell(colours);
+            if (cell < 0) {
+                labellings++;
+                long[] certificate = certificate(colours);
+                if (bestCertificate == null || compare(certificate, bestCertificate) < 0) {
+                    bestCertificate = certificate;
+                    bestLabelling = colours;
+                }
+                return;
+            }
+            for (int i = 0; i < colours.length && labellings < MAX_LABELLINGS; i++) {
+                if (colours[i] != cell) continue;
+                long[][] individualised = new long[colours.length][];
+                for (int j = 0; j < colours.length; j++) {
+                    individualised[j] = new long[]{colours[j], colours[j] == cell && j != i ? 1 : 0};
+                }
+                search(refine(rank(individualised)));
+            }
+        }
+
+        private int[] refine(int[] colours) {
+            int count = count(colours);
+            while (true) {
+                long[][] refined = new long[colours.length][];
+                for (int i = 0; i < colours.length; i++) {
+                    long[][] adjacent = new long[neighbours[i].length][];
+                    for (int j = 0; j < adjacent.length; j++) {
+                        long[] neighbour = neighbours[i][j];
+                        adjacent[j] = new long[]{neighbour[0], neighbour[1], colours[(int) neighbour[2]]};
+                    }
+                    Arrays.sort(adjacent, Labeller::compare);
+                    refined[i] = new long[1 + 3 * adjacent.length];
+                    refined[i][0] = colours[i];
+                    for (int j = 0; j < adjacent.length; j++) System.arraycopy(adjacent[j], 0, refined[i], 1 + 3 * j, 3);
+                }
+                int[] refinedColours = rank(refined);
+                int refinedCount = count(refinedColours);
+                if (refinedCount == count) return refinedColours;
+                colours = refinedColours;
+                count = refinedCount;
+            }
+        }
+
+        private long[] certificate(int[] labelling) {
+            int size = 0;
+            for (int i = 0; i < vertices.size(); i++) size += signatures[i].length + 3 * neighbours[i].length;
+            long[] certificate = new long[size];
+            int[] ordered = new int[labelling.length];
+            for (int i = 0; i < labelling.length; i++) ordered[labelling[i]] = i;
+            int offset = 0;
+            for (int vertex : ordered) {
+                System.arraycopy(signatures[vertex], 0, certificate, offset, signatures[vertex].length);
+                offset += signatures[vertex].length;
+                long[][] adjacent = new long[neighbours[vertex].length][];
+                for (int j = 0; j < adjacent.length; j++) {
+                    long[] neighbour = neighbours[vertex][j];
+                    adjacent[j] = new long[]{neighbour[0], neighbour[1], labelling[(int) neighbour[2]]};
+                }
+                Arrays.sort(adjacent, Labeller::compare);
+                for (long[] neighbour : adjacent) {
+                    System.arraycopy(neighbour, 0, certificate, offset, 3);
+                    offset += 3;
+                }
+            }
+            return certificate;
+        }
+
+        private static int firstNonSingletonCell(int[] colours) {
+            int[] sizes = new int[colours.length];
+            for (int colour : colours) sizes[colour]++;
+            for (int colour = 0; colour < sizes.length; colour++) {
+                if (sizes[colour] > 1) return colour;
+            }
+            return -1;
+        }
+
+        private static int count(int[] colours) {
+            int max = -1;
+            for (int colour : colours) max = Math.max(max, colour);
+            return max + 1;
+        }
+
+        /**
+         * Colours each signature by its rank amongst the distinct signatures, so that the colours
+         * only depend on the signatures, and not on the order of the vertices.
+         */
+        private static int[] rank(long[][] signatures) {
+            Integer[] order = new Integer[signatures.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (i, j) -> compare(signatures[i], signatures[j]));
+            int[] colours = new int[signatures.length];
+            int colour = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (i > 0 && compare(signatures[order[i - 1]], signatures[order[i]]) != 0) colour++;
+                colours[order[i]] = colour;
+            }
+            return colours;
+        }
+
+        private static int compare(long[] first, long[] second) {
+            for (int i = 0; i < first.length && i < second.length; i++) {
+                int comparison = Long.compare(first[i], second[i]);
+                if (comparison != 0) return comparison;
+            }
+            return Integer.compare(first.length, second.length);
+        }
+
+        private static long[] signature(StructureVertex<?> vertex) {
+            Identifier id = vertex.id();
+            long kind = vertex.isThing() ? 0 : 1;
+            long identifier;
+            if (id.isScoped()) identifier = 0;
+            else if (id.isAnonymous()) identifier = 1;
+            else if (id.isName()) identifier = 2;
+            else identifier = Objects.hash(3, id);
+            return new long[]{kind, identifier, vertex.props().hashCode()};
+        }
+
+        private static long signature(StructureEdge<?, ?> edge) {
+            if (edge.isEqual()) {
+                return 0;
+            } else if (edge.isPredicate()) {
+                return Objects.hash(1, edge.asPredicate().predicate());
+            } else if (edge.asNative().isRolePlayer()) {
+                StructureEdge.Native.RolePlayer rolePlayer = edge.asNative().asRolePlayer();
+                return Objects.hash(2, rolePlayer.types(), rolePlayer.repetition());
+            } else {
+                return Objects.hash(3, edge.asNative().encoding(), edge.asNative().isTransitive());
+            }
+        }
+    }
+}